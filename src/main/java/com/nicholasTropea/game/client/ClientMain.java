@@ -1,45 +1,90 @@
 package com.nicholasTropea.game.client;
 
-import java.net.Socket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 
-import java.io.IOException; 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-
-import com.google.gson.Gson;
+import java.io.IOException;
+import java.util.List;
 
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LeaderboardRequest;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.LoginResponse;
+import com.nicholasTropea.game.net.PlayerStatsRequest;
 import com.nicholasTropea.game.net.RegisterRequest;
 import com.nicholasTropea.game.net.RegisterResponse;
 
 public class ClientMain {
+    /** Gruppo multicast delle notifiche del server. */
+    private static final String NOTIFY_GROUP = "239.255.0.1";
+
+    /** Porta UDP delle notifiche del server. */
+    private static final int NOTIFY_PORT = 5556;
+
     public static void main(String[] args) {
         String host = "localhost";
         int port = 5555;
 
-        try (
-                Socket socket = new Socket(host, port);
-                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))
-        ) {
-            System.out.println("Connesso al server.");
-
-            Gson gson = new Gson();
+        NotificationListener listener = ClientMain.startListener();
 
-            RegisterRequest req = new RegisterRequest("Mario", "12345");
-            String jsonReq = gson.toJson(req);
-
-            out.println(jsonReq);
-            System.out.println("Richiesta inviata al server.");
+        try (GameConnection connection = new GameConnection(host, port)) {
+            System.out.println("Connesso al server.");
 
-            String respLine = in.readLine();
-            RegisterResponse resp = gson.fromJson(respLine, RegisterResponse.class);
+            RegisterResponse resp = connection.call(new RegisterRequest("Mario", "123456"), RegisterResponse.class);
 
             if (resp.isSuccess()) System.out.println("Request correctly handled.");
             else {
                 System.out.println("Request failed with error: " + resp.getError());
             }
+
+            LoginResponse login = connection.call(new LoginRequest("Mario", "123456"), LoginResponse.class);
+            if (!login.isSuccess()) {
+                System.out.println("Login failed with error: " + login.getError());
+                return;
+            }
+
+            // Stato della partita, statistiche e classifica con un solo viaggio di andata e ritorno
+            List<Object> responses = connection.pipeline()
+                .add(new GameInfoRequest(true))
+                .add(new PlayerStatsRequest())
+                .add(new LeaderboardRequest(null, 0, 10))
+                .send();
+
+            for (Object r : responses) System.out.println(Json.GSON.toJson(r));
         }
         catch (IOException e) { e.printStackTrace(); }
+        finally {
+            try { if (listener != null) listener.close(); }
+            catch (IOException e) { ; }
+        }
+    }
+
+    /**
+     * Avvia il thread che stampa le notifiche del server, senza
+     * interrogarlo: inizio e fine delle partite e cambi in testa alla
+     * classifica.
+     *
+     * @return Listener avviato, null se il gruppo multicast non è raggiungibile
+     */
+    private static NotificationListener startListener() {
+        NotificationListener listener;
+
+        try {
+            listener = NotificationListener.multicast(
+                new InetSocketAddress(InetAddress.getByName(ClientMain.NOTIFY_GROUP), ClientMain.NOTIFY_PORT),
+                NotificationListener.defaultInterface(),
+                n -> System.out.println("Notifica: " + Json.GSON.toJson(n))
+            );
+        }
+        catch (IOException e) {
+            System.err.println("Notifiche non disponibili: " + e.getMessage());
+            return null;
+        }
+
+        Thread thread = new Thread(listener, "notification-listener");
+        thread.setDaemon(true);
+        thread.start();
+        return listener;
     }
 }
\ No newline at end of file
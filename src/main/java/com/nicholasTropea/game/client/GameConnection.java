@@ -0,0 +1,158 @@
+package com.nicholasTropea.game.client;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.nicholasTropea.game.net.GameInfoResponse;
+import com.nicholasTropea.game.net.GameStatsResponse;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LeaderboardResponse;
+import com.nicholasTropea.game.net.LoginResponse;
+import com.nicholasTropea.game.net.LogoutResponse;
+import com.nicholasTropea.game.net.PlayerStatsResponse;
+import com.nicholasTropea.game.net.RegisterResponse;
+import com.nicholasTropea.game.net.Request;
+import com.nicholasTropea.game.net.SubmitProposalResponse;
+import com.nicholasTropea.game.net.UpdateCredentialsResponse;
+
+/**
+ * Connessione di un client al server con il protocollo JSON a righe.
+ *
+ * {@link #call} invia una richiesta e ne attende la risposta. Una
+ * {@link Pipeline} invia invece più richieste con una sola scrittura sul
+ * socket e poi legge le risposte, che il server restituisce nello stesso
+ * ordine: es. informazioni sulla partita, statistiche e classifica
+ * costano un solo viaggio di andata e ritorno invece di tre.
+ *
+ * Un'istanza non è thread-safe.
+ */
+public final class GameConnection implements Closeable {
+    /** Tipo della risposta di ogni operazione */
+    private static final Map<String, Class<?>> RESPONSE_TYPES = Map.of(
+        "register", RegisterResponse.class,
+        "login", LoginResponse.class,
+        "logout", LogoutResponse.class,
+        "updateCredentials", UpdateCredentialsResponse.class,
+        "submitProposal", SubmitProposalResponse.class,
+        "requestGameInfo", GameInfoResponse.class,
+        "requestGameStats", GameStatsResponse.class,
+        "requestLeaderboard", LeaderboardResponse.class,
+        "requestPlayerStats", PlayerStatsResponse.class
+    );
+
+    /** Socket verso il server */
+    private final Socket socket;
+
+    /** Richieste in uscita, svuotate una volta per chiamata o pipeline */
+    private final Writer out;
+
+    /** Risposte in arrivo, una per riga */
+    private final BufferedReader in;
+
+    /**
+     * Si connette al server.
+     *
+     * @param host Indirizzo del server
+     * @param port Porta TCP del server
+     * @throws IOException Se la connessione non riesce
+     */
+    public GameConnection(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true); // Le richieste sono già raccolte in un'unica scrittura
+
+        this.out = new BufferedWriter(new OutputStreamWriter(this.socket.getOutputStream(), StandardCharsets.UTF_8));
+        this.in = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Invia una richiesta e ne attende la risposta.
+     *
+     * @param request Richiesta
+     * @param type Tipo della risposta attesa
+     * @return Risposta del server
+     * @throws IOException In caso di errore di rete
+     * @throws ClassCastException Se la risposta non è del tipo atteso
+     */
+    public <T> T call(Request request, Class<T> type) throws IOException {
+        return type.cast(this.pipeline().add(request).send().get(0));
+    }
+
+    /**
+     * Crea una pipeline vuota su questa connessione.
+     *
+     * @return Pipeline
+     */
+    public Pipeline pipeline() { return new Pipeline(); }
+
+    @Override
+    public void close() throws IOException { this.socket.close(); }
+
+    /**
+     * Richieste da inviare insieme. Le risposte vengono lette tutte da
+     * {@link #send}, nell'ordine delle richieste.
+     */
+    public final class Pipeline {
+        /** Richieste accodate */
+        private final List<Request> requests = new ArrayList<>();
+
+        private Pipeline() { ; }
+
+        /**
+         * Accoda una richiesta.
+         *
+         * @param request Richiesta
+         * @return Questa pipeline
+         * @throws IllegalArgumentException Se l'operazione non è nota
+         */
+        public Pipeline add(Request request) {
+            if (!RESPONSE_TYPES.containsKey(request.getOperation())) throw new IllegalArgumentException("unknown operation");
+            this.requests.add(request);
+            return this;
+        }
+
+        /**
+         * Numero di richieste accodate.
+         *
+         * @return Richieste non ancora inviate
+         */
+        public int size() { return this.requests.size(); }
+
+        /**
+         * Invia le richieste accodate con una sola scrittura e ne legge le
+         * risposte. La pipeline resta utilizzabile, vuota.
+         *
+         * @return Risposte, nell'ordine delle richieste
+         * @throws IOException In caso di errore di rete o se il server chiude la connessione
+         */
+        public List<Object> send() throws IOException {
+            Writer out = GameConnection.this.out;
+            for (Request r : this.requests) {
+                Json.GSON.toJson(r, out);
+                out.write('\n');
+            }
+            out.flush();
+
+            List<Object> responses = new ArrayList<>(this.requests.size());
+            for (Request r : this.requests) {
+                String line = GameConnection.this.in.readLine();
+                if (line == null) throw new EOFException("connessione chiusa dal server");
+
+                responses.add(Json.GSON.fromJson(line, RESPONSE_TYPES.get(r.getOperation())));
+            }
+
+            this.requests.clear();
+            return responses;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.nicholasTropea.game.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonParseException;
+
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.Notification;
+
+/**
+ * Riceve le {@link Notification} UDP del server in un thread dedicato e le
+ * passa ad un consumatore.
+ *
+ * Può ascoltare un gruppo multicast ({@link #multicast}) o una porta
+ * unicast ({@link #unicast}) da indicare al login in
+ * {@link com.nicholasTropea.game.net.LoginRequest}. I datagrammi non
+ * validi vengono scartati; le notifiche perse si ricavano dai salti nel
+ * numero di sequenza ({@link #getLost}).
+ */
+public final class NotificationListener implements Runnable, Closeable {
+    /** Dimensione massima di un datagramma */
+    private static final int MAX_DATAGRAM = 64 * 1024;
+
+    /** Canale di ricezione */
+    private final DatagramChannel channel;
+
+    /** Destinatario delle notifiche */
+    private final Consumer<Notification> consumer;
+
+    /** Numero di sequenza dell'ultima notifica ricevuta (0 se nessuna) */
+    private volatile long lastSeq;
+
+    /** Notifiche perse stimate dai salti di sequenza */
+    private volatile long lost;
+
+    private NotificationListener(DatagramChannel channel, Consumer<Notification> consumer) {
+        this.channel = channel;
+        this.consumer = consumer;
+        this.lastSeq = 0;
+        this.lost = 0;
+    }
+
+    /**
+     * Crea un listener su una porta unicast.
+     *
+     * @param port Porta UDP locale, 0 per una libera
+     * @param consumer Destinatario delle notifiche, chiamato dal thread del listener
+     * @return Listener, da avviare in un thread
+     * @throws IOException Se la porta non può essere aperta
+     */
+    public static NotificationListener unicast(int port, Consumer<Notification> consumer) throws IOException {
+        DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+        channel.bind(new InetSocketAddress(port));
+        return new NotificationListener(channel, consumer);
+    }
+
+    /**
+     * Crea un listener iscritto ad un gruppo multicast.
+     *
+     * @param group Gruppo multicast e porta
+     * @param networkInterface Interfaccia su cui iscriversi
+     * @param consumer Destinatario delle notifiche, chiamato dal thread del listener
+     * @return Listener, da avviare in un thread
+     * @throws IOException Se il gruppo non può essere raggiunto
+     */
+    public static NotificationListener multicast(
+        InetSocketAddress group,
+        NetworkInterface networkInterface,
+        Consumer<Notification> consumer
+    ) throws IOException {
+        DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+
+        try {
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true); // Più client sulla stessa macchina
+            channel.bind(new InetSocketAddress(group.getPort()));
+            channel.join(group.getAddress(), networkInterface);
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        return new NotificationListener(channel, consumer);
+    }
+
+    /**
+     * Sceglie l'interfaccia per il multicast: quella dell'indirizzo locale
+     * se supporta il multicast, altrimenti il loopback.
+     *
+     * @return Interfaccia di rete
+     * @throws IOException Se nessuna interfaccia è disponibile
+     */
+    public static NetworkInterface defaultInterface() throws IOException {
+        NetworkInterface local = NetworkInterface.getByInetAddress(InetAddress.getLocalHost());
+        if (local != null && local.isUp() && local.supportsMulticast()) return local;
+        return NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Getter per la porta locale.
+     *
+     * @return Porta UDP su cui il listener riceve
+     */
+    public int getPort() {
+        try { return ((InetSocketAddress) this.channel.getLocalAddress()).getPort(); }
+        catch (IOException e) { return -1; }
+    }
+
+    /**
+     * Getter per le notifiche perse.
+     *
+     * @return Notifiche mancanti tra quelle ricevute
+     */
+    public long getLost() { return this.lost; }
+
+    /** Riceve notifiche fino alla chiusura del listener. */
+    @Override
+    public void run() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM);
+
+        while (this.channel.isOpen()) {
+            buffer.clear();
+
+            try { this.channel.receive(buffer); }
+            catch (ClosedChannelException e) { break; }
+            catch (IOException e) {
+                System.err.println("Errore nella ricezione delle notifiche: " + e.getMessage());
+                break;
+            }
+
+            Notification notification;
+            try {
+                notification = Json.GSON.fromJson(
+                    new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8), Notification.class
+                );
+            }
+            catch (JsonParseException | IllegalArgumentException e) { continue; } // Datagramma non valido
+            if (notification == null) continue;
+
+            long seq = notification.getSeq();
+            if (this.lastSeq != 0 && seq > this.lastSeq + 1) this.lost += seq - this.lastSeq - 1;
+            this.lastSeq = seq; // Una sequenza che riparte indica un riavvio del server
+
+            this.consumer.accept(notification);
+        }
+    }
+
+    @Override
+    public void close() throws IOException { this.channel.close(); }
+}
@@ -0,0 +1,160 @@
+package com.nicholasTropea.game.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Cache delle credenziali verificate di recente, per evitare di ripetere
+ * il calcolo di {@link PasswordHasher} quando lo stesso giocatore rifà il
+ * login dopo poco (es. riconnessione all'inizio di un turno).
+ *
+ * Per ogni giocatore verificato la cache tiene un HMAC-SHA256 della
+ * password, con una chiave casuale che non lascia mai la memoria del
+ * processo, e una copia dell'hash memorizzato al momento della verifica.
+ * Una password viene accettata solo se l'HMAC coincide, la voce non è
+ * scaduta e l'hash memorizzato nel {@link PlayerRegistry} è ancora lo
+ * stesso: un cambio di password invalida quindi la voce anche senza
+ * {@link #invalidate}. I tentativi falliti non vengono mai memorizzati e
+ * pagano sempre il costo pieno dell'hash.
+ *
+ * Le voci scadute vengono rimosse alla lettura; oltre {@code maxEntries}
+ * voci le nuove verifiche non vengono memorizzate.
+ *
+ * Un'istanza è thread-safe.
+ */
+public final class CredentialCache {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /** Voce di un giocatore verificato. */
+    private record Entry(byte[] mac, byte[] storedHash, long expiresAt) { ; }
+
+    /** Voci per id del giocatore */
+    private final Map<Integer, Entry> entries;
+
+    /** Chiave dell'HMAC, generata alla creazione */
+    private final SecretKeySpec key;
+
+    /** Istanza di HMAC per thread */
+    private final ThreadLocal<Mac> macs;
+
+    /** Durata di una voce, in millisecondi */
+    private final long ttlMs;
+
+    /** Numero massimo di voci */
+    private final int maxEntries;
+
+    /** Verifiche risolte dalla cache */
+    private final AtomicLong hits;
+
+    /** Verifiche non risolte dalla cache */
+    private final AtomicLong misses;
+
+    /**
+     * Crea una cache vuota.
+     *
+     * @param ttlMs Durata di una voce, in millisecondi
+     * @param maxEntries Numero massimo di voci
+     * @throws IllegalArgumentException Se i parametri non sono positivi
+     */
+    public CredentialCache(long ttlMs, int maxEntries) {
+        if (ttlMs <= 0 || maxEntries <= 0) throw new IllegalArgumentException("invalid cache parameters");
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+
+        this.entries = new ConcurrentHashMap<>();
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Controlla se una password è già stata verificata di recente.
+     *
+     * @param id Id del giocatore
+     * @param password Password in chiaro
+     * @param storedHash Hash attualmente memorizzato per il giocatore
+     * @return true se la password è corretta secondo la cache
+     */
+    boolean check(int id, String password, byte[] storedHash) {
+        Entry entry = this.entries.get(id);
+
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            this.entries.remove(id, entry);
+            entry = null;
+        }
+
+        boolean hit = entry != null
+            && MessageDigest.isEqual(entry.storedHash, storedHash)
+            && MessageDigest.isEqual(entry.mac, this.mac(password));
+
+        if (hit) this.hits.incrementAndGet();
+        else this.misses.incrementAndGet();
+        return hit;
+    }
+
+    /**
+     * Memorizza una verifica riuscita.
+     *
+     * @param id Id del giocatore
+     * @param password Password in chiaro, appena verificata
+     * @param storedHash Hash memorizzato contro cui è stata verificata
+     */
+    void put(int id, String password, byte[] storedHash) {
+        if (this.entries.size() >= this.maxEntries && !this.entries.containsKey(id)) return;
+
+        long expiresAt = System.currentTimeMillis() + this.ttlMs;
+        this.entries.put(id, new Entry(this.mac(password), Arrays.copyOf(storedHash, storedHash.length), expiresAt));
+    }
+
+    /**
+     * Rimuove la voce di un giocatore.
+     *
+     * @param id Id del giocatore
+     */
+    public void invalidate(int id) { this.entries.remove(id); }
+
+    /**
+     * Getter per le verifiche risolte dalla cache.
+     *
+     * @return Numero di hit dalla creazione
+     */
+    public long getHits() { return this.hits.get(); }
+
+    /**
+     * Getter per le verifiche non risolte dalla cache.
+     *
+     * @return Numero di miss dalla creazione
+     */
+    public long getMisses() { return this.misses.get(); }
+
+    /**
+     * Getter per il numero di voci.
+     *
+     * @return Voci memorizzate, comprese quelle scadute non ancora rimosse
+     */
+    public int size() { return this.entries.size(); }
+
+    private byte[] mac(String password) { return this.macs.get().doFinal(password.getBytes(StandardCharsets.UTF_8)); }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(this.key);
+            return mac;
+        }
+        catch (GeneralSecurityException e) { throw new IllegalStateException(ALGORITHM + " not available", e); }
+    }
+}
@@ -1,61 +1,359 @@
 package com.nicholasTropea.game.model;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+/**
+ * Rappresenta una singola partita.
+ *
+ * È un valore immutabile: tutto ciò che serve per servire le richieste
+ * (gruppi, plancia mescolata, hash) viene calcolato una volta nel
+ * costruttore, e i getter restituiscono viste non modificabili senza
+ * copiare né allocare.
+ *
+ * Per la verifica delle proposte ogni parola corrisponde al bit della sua
+ * posizione sulla plancia: una proposta diventa una maschera di
+ * {@link #BOARD_SIZE} bit ({@link #maskOf(List)}) e si confronta con le
+ * maschere dei gruppi ({@link #groupOf(int)}) senza scorrere liste né
+ * confrontare stringhe.
+ */
+public final class Game {
+    /** Numero di parole sulla plancia. */
+    public static final int BOARD_SIZE = 16;
+
+    /** Maschera con un bit per ogni posizione di una plancia completa. */
+    public static final int FULL_MASK = (1 << BOARD_SIZE) - 1;
+
+    /** Numero massimo di parole per partita: le maschere sono {@code int}. */
+    private static final int MAX_WORDS = 32;
 
-/** Rappresenta una singola partita. */
-public class Game {
     /** Id univoco della partita */
     private final int gameId;
 
     /** Lista dei gruppi di parole della partita */
     private final List<Group> groups;
 
+    /** Id delle parole nell'ordine in cui vengono mostrate ai giocatori */
+    private final int[] board;
+
+    /** Vista testuale di {@link #board} */
+    private final List<String> boardView;
+
+    /**
+     * Tabella ad indirizzamento aperto id parola -> posizione sulla plancia:
+     * {@link #wordKeys} contiene id + 1 (0 = vuoto), {@link #wordBits} la
+     * posizione corrispondente. Lunghezza potenza di 2, almeno il doppio
+     * delle parole.
+     */
+    private final int[] wordKeys;
+    private final byte[] wordBits;
+
+    /** Maschera delle posizioni occupate dalle parole di ciascun gruppo */
+    private final int[] groupMasks;
+
+    /** Posizione sulla plancia -> indice del gruppo della parola */
+    private final byte[] bitGroups;
+
+    /** Hash precalcolato */
+    private final int hash;
+
+    /**
+     * Crea una partita.
+     *
+     * @param id Id della partita
+     * @param groups Gruppi di parole (copiati)
+     * @throws IllegalArgumentException Se una parola compare due volte o le parole sono più di 32
+     */
     public Game(int id, List<Group> groups) {
         this.gameId = id;
         this.groups = List.copyOf(groups);
+        this.board = shuffledBoard(id, this.groups);
+        this.boardView = new WordView(this.board);
+
+        if (this.board.length > MAX_WORDS) throw new IllegalArgumentException("too many words in game " + id);
+
+        int capacity = Integer.highestOneBit(Math.max(1, this.board.length)) << 2;
+        this.wordKeys = new int[capacity];
+        this.wordBits = new byte[capacity];
+        for (int bit = 0; bit < this.board.length; bit++) {
+            int i = this.slot(this.board[bit]);
+            if (this.wordKeys[i] != 0) throw new IllegalArgumentException("duplicate word in game " + id);
+
+            this.wordKeys[i] = this.board[bit] + 1;
+            this.wordBits[i] = (byte) bit;
+        }
+
+        this.groupMasks = new int[this.groups.size()];
+        this.bitGroups = new byte[this.board.length];
+        for (int g = 0; g < this.groupMasks.length; g++) {
+            Group group = this.groups.get(g);
+            for (int w = 0; w < group.wordIds.length; w++) {
+                int bit = this.bitOf(group.wordIds[w]);
+                this.groupMasks[g] |= 1 << bit;
+                this.bitGroups[bit] = (byte) g;
+            }
+        }
+
+        this.hash = 31 * id + this.groups.hashCode();
     }
 
     /**
      * Getter per il game id.
-     * 
+     *
      * @return Game id
      */
     public int getId() { return this.gameId; }
 
-    /** 
+    /**
      * Getter per i gruppi del game.
-     * 
-     * @return Copia della lista dei gruppi
+     *
+     * @return Lista non modificabile dei gruppi
+     */
+    public List<Group> getGroups() { return this.groups; }
+
+    /**
+     * Getter per la plancia della partita.
+     *
+     * Le parole di tutti i gruppi, mescolate in un ordine che dipende solo
+     * dal gameId: ogni giocatore (e ogni server) vede la stessa plancia.
+     *
+     * @return Vista non modificabile delle parole mescolate
      */
-    public List<Group> getGroups() { return List.copyOf(this.groups); }
+    public List<String> getBoard() { return this.boardView; }
+
+    /**
+     * Getter per l'id di una parola della plancia.
+     *
+     * @param index Posizione sulla plancia
+     * @return Id della parola nel {@link WordDictionary} globale
+     */
+    public int getBoardWordId(int index) { return this.board[index]; }
+
+    /**
+     * Restituisce la posizione di una parola sulla plancia.
+     *
+     * @param wordId Id della parola nel {@link WordDictionary} globale
+     * @return Posizione sulla plancia (bit della parola), -1 se la parola non è nella partita
+     */
+    public int bitOf(int wordId) {
+        int mask = this.wordKeys.length - 1;
+
+        for (int i = (wordId * 0x9E3779B9) >>> 16 & mask; ; i = (i + 1) & mask) {
+            int key = this.wordKeys[i];
+            if (key == 0) return -1;
+            if (key == wordId + 1) return this.wordBits[i];
+        }
+    }
+
+    /**
+     * Traduce una proposta nella maschera delle posizioni delle sue parole.
+     *
+     * @param words Parole proposte
+     * @return Maschera della proposta, -1 se una parola non è nella partita o è ripetuta
+     */
+    public int maskOf(List<String> words) {
+        int mask = 0;
+
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            if (word == null) return -1;
+
+            int id = WordDictionary.GLOBAL.id(word);
+            int bit = id < 0 ? -1 : this.bitOf(id);
+            if (bit < 0 || (mask & (1 << bit)) != 0) return -1;
+
+            mask |= 1 << bit;
+        }
+
+        return mask;
+    }
+
+    /**
+     * Cerca il gruppo formato esattamente dalle parole di una maschera.
+     *
+     * Il candidato è il gruppo della parola con il bit più basso: la
+     * proposta è corretta solo se coincide con la sua maschera.
+     *
+     * @param mask Maschera prodotta da {@link #maskOf(List)}
+     * @return Indice del gruppo in {@link #getGroups()}, -1 se la proposta è sbagliata
+     */
+    public int groupOf(int mask) {
+        if (mask == 0) return -1;
+
+        int bit = Integer.numberOfTrailingZeros(mask);
+        if (bit >= this.bitGroups.length) return -1;
+
+        int g = this.bitGroups[bit];
+        return this.groupMasks[g] == mask ? g : -1;
+    }
+
+    /**
+     * Getter per la maschera delle parole di un gruppo.
+     *
+     * @param index Indice del gruppo in {@link #getGroups()}
+     * @return Maschera delle posizioni sulla plancia
+     */
+    public int getGroupMask(int index) { return this.groupMasks[index]; }
+
+    /**
+     * Getter per la maschera dell'intera plancia.
+     *
+     * @return Maschera con un bit per ogni parola della partita
+     */
+    public int getBoardMask() { return this.board.length == MAX_WORDS ? -1 : (1 << this.board.length) - 1; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Game other)) return false;
+        return this.hash == other.hash && this.gameId == other.gameId && this.groups.equals(other.groups);
+    }
+
+    @Override
+    public int hashCode() { return this.hash; }
+
+    private int slot(int wordId) {
+        int mask = this.wordKeys.length - 1;
+        int i = (wordId * 0x9E3779B9) >>> 16 & mask;
+        while (this.wordKeys[i] != 0 && this.wordKeys[i] != wordId + 1) i = (i + 1) & mask;
+        return i;
+    }
+
+    /** Mescola le parole dei gruppi con un generatore inizializzato dal gameId (Fisher-Yates). */
+    private static int[] shuffledBoard(int gameId, List<Group> groups) {
+        int size = 0;
+        for (Group g : groups) size += g.wordIds.length;
+
+        int[] board = new int[size];
+        int pos = 0;
+        for (Group g : groups) {
+            System.arraycopy(g.wordIds, 0, board, pos, g.wordIds.length);
+            pos += g.wordIds.length;
+        }
+
+        SplittableRandom random = new SplittableRandom(gameId);
+        for (int i = board.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = board[i];
+            board[i] = board[j];
+            board[j] = tmp;
+        }
+
+        return board;
+    }
 
     /**
      * Rappresenta un gruppo appartenente ad una partita.
+     *
+     * Tema e parole sono memorizzati come id del {@link WordDictionary}
+     * globale; la vista testuale delle parole viene creata una volta sola
+     * e traduce gli id al momento della lettura.
      */
-    public static class Group {
-        /** Tema generale del gruppo */
-        private final String theme;
+    public static final class Group {
+        /** Id del tema generale del gruppo */
+        private final int themeId;
 
-        /** Lista di parole del gruppo */
+        /** Id delle parole del gruppo */
+        private final int[] wordIds;
+
+        /** Vista testuale delle parole */
         private final List<String> words;
 
-        public Group(String theme, List<String> words) {
-            this.theme = theme;
-            this.words = List.copyOf(words);
+        /** Hash precalcolato */
+        private final int hash;
+
+        public Group(String theme, List<String> words) { this(WordDictionary.GLOBAL.intern(theme), intern(words)); }
+
+        /**
+         * Crea un gruppo a partire da id già presenti nel dizionario globale.
+         *
+         * @param themeId Id del tema
+         * @param wordIds Id delle parole (copiati)
+         */
+        public Group(int themeId, int[] wordIds) {
+            this.themeId = themeId;
+            this.wordIds = wordIds.clone();
+            this.words = new WordView(this.wordIds);
+            this.hash = 31 * themeId + Arrays.hashCode(this.wordIds);
+        }
+
+        private static int[] intern(List<String> words) {
+            int[] ids = new int[words.size()];
+            for (int i = 0; i < ids.length; i++) ids[i] = WordDictionary.GLOBAL.intern(words.get(i));
+            return ids;
         }
 
         /**
          * Getter per il tema del gruppo.
-         * 
+         *
          * @return Tema del gruppo
          */
-        public String getTheme() { return this.theme; }
+        public String getTheme() { return WordDictionary.GLOBAL.word(this.themeId); }
+
+        /**
+         * Getter per l'id del tema nel dizionario globale.
+         *
+         * @return Id del tema
+         */
+        public int getThemeId() { return this.themeId; }
 
-        /** 
+        /**
          * Getter per la lista di parole del gruppo
-         * 
-         * @return Copia della lista di parole del gruppo
+         *
+         * @return Vista non modificabile delle parole del gruppo
+         */
+        public List<String> getWords() { return this.words; }
+
+        /**
+         * Getter per il numero di parole del gruppo.
+         *
+         * @return Numero di parole
+         */
+        public int getWordCount() { return this.wordIds.length; }
+
+        /**
+         * Getter per l'id di una parola nel dizionario globale.
+         *
+         * @param index Posizione della parola nel gruppo
+         * @return Id della parola
          */
-        public List<String> getWords() { return List.copyOf(this.words); }
+        public int getWordId(int index) { return this.wordIds[index]; }
+
+        /**
+         * Indica se il gruppo contiene una parola.
+         *
+         * @param wordId Id della parola nel dizionario globale
+         * @return true se la parola appartiene al gruppo
+         */
+        public boolean containsWord(int wordId) {
+            for (int id : this.wordIds) if (id == wordId) return true;
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Group other)) return false;
+            return this.hash == other.hash && this.themeId == other.themeId && Arrays.equals(this.wordIds, other.wordIds);
+        }
+
+        @Override
+        public int hashCode() { return this.hash; }
+    }
+
+    /** Lista non modificabile che traduce gli id delle parole in stringhe. */
+    private static final class WordView extends AbstractList<String> implements RandomAccess {
+        private final int[] ids;
+
+        WordView(int[] ids) { this.ids = ids; }
+
+        @Override
+        public String get(int index) { return WordDictionary.GLOBAL.word(this.ids[index]); }
+
+        @Override
+        public int size() { return this.ids.length; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,409 @@
+package com.nicholasTropea.game.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stati di tutti i giocatori nella partita attiva, in forma compatta.
+ *
+ * È l'equivalente di una {@link PlayerGameState} per giocatore, ma
+ * memorizzato "per colonne": lo stato di ogni giocatore è un solo
+ * {@code int}, indicizzato dall'id numerico del giocatore, in pagine di
+ * {@value #PAGE_SIZE} elementi allocate al primo uso. Non esistono oggetti
+ * per sessione, quindi un milione di sessioni occupa circa 4 MB.
+ *
+ * Disposizione dei bit di uno stato:
+ * <pre>
+ *  0-15  parole rimanenti (maschera delle posizioni sulla plancia)
+ * 16-18  errori
+ * 19-21  proposte corrette
+ * 22-23  stato: 0 nessuna sessione, 1 in corso, 2 vinta, 3 persa
+ *    24  sessione chiusa: non accetta altre proposte
+ * </pre>
+ * Il punteggio si ricava da proposte corrette ed errori
+ * ({@link PlayerGameState#score(int, int)}).
+ *
+ * Gli aggiornamenti sono lock-free: ogni proposta legge lo stato, calcola
+ * il successivo e lo scrive con un compare-and-set sull'elemento. I metodi
+ * del percorso delle richieste ({@link #join(int)}, {@link #submit(int, int)},
+ * {@link #state(int)}) non allocano; i campi si leggono dallo stato con i
+ * metodi statici ({@link #errors(int)}, {@link #remaining(int)}, ...).
+ *
+ * Ogni stato scritto aggiorna anche le {@link GameStats} della partita,
+ * quindi le statistiche aggregate non richiedono di scorrere le sessioni.
+ *
+ * Alla fine della partita {@link #closeAll} chiude tutte le sessioni con
+ * un compare-and-set ciascuna: una proposta concorrente viene applicata
+ * prima della chiusura oppure rifiutata, mai persa o contata due volte.
+ * Una sessione creata durante la chiusura viene chiusa da closeAll oppure
+ * ritirata da {@link #join}, mai lasciata aperta.
+ */
+public final class GameSessionTable {
+    /** Esito di {@link #submit(int, int)}: la proposta non è valida o contiene parole già raggruppate. */
+    public static final int INVALID = -2;
+
+    /** Esito di {@link #submit(int, int)}: la partita del giocatore è già conclusa. */
+    public static final int FINISHED = -3;
+
+    /** Esito di {@link #submit(int, int)}: il giocatore non ha una sessione. */
+    public static final int NO_SESSION = -4;
+
+    /** Bit dell'indice all'interno di una pagina. */
+    private static final int PAGE_BITS = 12;
+
+    /** Stati per pagina. */
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private static final int ERRORS_SHIFT = 16;
+    private static final int CORRECT_SHIFT = 19;
+    private static final int STATUS_SHIFT = 22;
+    private static final int CLOSED = 1 << 24;
+
+    private static final int PLAYING = 1;
+    private static final int WON = 2;
+    private static final int LOST = 3;
+
+    /** Riceve le sessioni chiuse da {@link #closeAll}. */
+    @FunctionalInterface
+    public interface SessionVisitor {
+        /**
+         * @param playerId Id del giocatore
+         * @param state Stato della sessione prima della chiusura
+         */
+        void accept(int playerId, int state);
+    }
+
+    private static final VarHandle STATES = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /** Partita a cui si riferiscono gli stati */
+    private final Game game;
+
+    /** Stato iniziale di una sessione: tutte le parole rimanenti */
+    private final int initialState;
+
+    /**
+     * Pagine degli stati, null se non ancora allocate. La directory viene
+     * sostituita da una copia ad ogni pagina nuova, le pagine non vengono
+     * mai spostate.
+     */
+    private volatile int[][] pages;
+
+    /** Lock dell'allocazione delle pagine; un {@link ReentrantLock} non blocca il carrier di un thread virtuale */
+    private final ReentrantLock pageLock;
+
+    /** Statistiche aggregate delle sessioni */
+    private final GameStats stats;
+
+    /** true dopo {@link #closeAll}: non si creano altre sessioni */
+    private volatile boolean closed;
+
+    /**
+     * Crea una tabella vuota per una partita.
+     *
+     * @param game Partita attiva
+     * @throws IllegalArgumentException Se la plancia ha più di {@link Game#BOARD_SIZE} parole
+     */
+    public GameSessionTable(Game game) {
+        if (game.getBoard().size() > Game.BOARD_SIZE) throw new IllegalArgumentException("board too large for a session table");
+
+        this.game = game;
+        this.initialState = game.getBoardMask() | PLAYING << STATUS_SHIFT;
+        this.pages = new int[16][];
+        this.pageLock = new ReentrantLock();
+        this.stats = new GameStats();
+        this.closed = false;
+    }
+
+    /**
+     * Getter per la partita della tabella.
+     *
+     * @return Partita attiva
+     */
+    public Game getGame() { return this.game; }
+
+    /**
+     * Getter per il numero di sessioni.
+     *
+     * @return Giocatori che hanno iniziato la partita
+     */
+    public int size() { return this.stats.getPlayers(); }
+
+    /**
+     * Getter per le statistiche aggregate della partita.
+     *
+     * @return Statistiche aggiornate ad ogni stato scritto
+     */
+    public GameStats getStats() { return this.stats; }
+
+    /**
+     * Crea la sessione di un giocatore, se non esiste già e la tabella non
+     * è stata chiusa.
+     *
+     * @param playerId Id del giocatore (non negativo)
+     * @return Stato della sessione, nuova o esistente (0 se la tabella è chiusa e la sessione non esiste)
+     */
+    public int join(int playerId) {
+        int[] page = this.page(playerId, true);
+        int i = playerId & (PAGE_SIZE - 1);
+
+        if (this.closed) return (int) STATES.getVolatile(page, i);
+
+        if (STATES.compareAndSet(page, i, 0, this.initialState)) {
+            this.stats.transition(0, this.initialState);
+
+            // closeAll può aver già esaminato questo elemento (o non averne vista la pagina)
+            if (this.closed) return this.withdraw(page, i);
+            return this.initialState;
+        }
+
+        return (int) STATES.getVolatile(page, i);
+    }
+
+    /**
+     * Ritira una sessione creata mentre la tabella veniva chiusa, che
+     * {@link #closeAll} potrebbe non vedere: resterebbe aperta senza che il
+     * suo risultato venga mai registrato. Se nel frattempo closeAll l'ha
+     * chiusa, la sessione resta.
+     *
+     * @return Stato della sessione chiusa, o 0 se è stata ritirata
+     */
+    private int withdraw(int[] page, int i) {
+        while (true) {
+            int state = (int) STATES.getVolatile(page, i);
+            if (!exists(state) || isClosed(state)) return state;
+
+            if (STATES.compareAndSet(page, i, state, 0)) {
+                this.stats.transition(state, 0);
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Restituisce lo stato della sessione di un giocatore.
+     *
+     * @param playerId Id del giocatore
+     * @return Stato, 0 se il giocatore non ha una sessione
+     */
+    public int state(int playerId) {
+        int[] page = this.page(playerId, false);
+        return page == null ? 0 : (int) STATES.getVolatile(page, playerId & (PAGE_SIZE - 1));
+    }
+
+    /**
+     * Applica una proposta alla sessione di un giocatore.
+     *
+     * Stesse regole di {@link PlayerGameState#submit(Game, int)}, ma gli
+     * errori sono restituiti come codici invece che come eccezioni.
+     *
+     * @param playerId Id del giocatore
+     * @param mask Maschera della proposta, da {@link Game#maskOf(java.util.List)}
+     * @return Indice del gruppo indovinato, -1 se la proposta è sbagliata,
+     *         oppure {@link #INVALID}, {@link #FINISHED}, {@link #NO_SESSION}
+     */
+    public int submit(int playerId, int mask) { return outcome(this.apply(playerId, mask)); }
+
+    /**
+     * Applica una proposta e restituisce anche lo stato scritto dalla sua
+     * transizione atomica. Con proposte concorrenti dello stesso giocatore
+     * solo questo stato dice se è stata questa proposta a concludere la
+     * partita: una lettura successiva potrebbe vedere la transizione di
+     * un'altra.
+     *
+     * @param playerId Id del giocatore
+     * @param mask Maschera della proposta
+     * @return Esito e stato, da leggere con {@link #outcome} e {@link #stateAfter}
+     */
+    public long apply(int playerId, int mask) {
+        int[] page = this.page(playerId, false);
+        if (page == null) return result(NO_SESSION, 0);
+
+        int i = playerId & (PAGE_SIZE - 1);
+        int group = mask == 0 || mask == -1 ? -1 : this.game.groupOf(mask);
+
+        while (true) {
+            int state = (int) STATES.getVolatile(page, i);
+
+            if (!exists(state)) return result(NO_SESSION, 0);
+            if (isFinished(state) || isClosed(state)) return result(FINISHED, 0);
+            if (mask == 0 || mask == -1 || (mask & ~remaining(state)) != 0) return result(INVALID, 0);
+
+            int next;
+            if (group >= 0) {
+                int left = remaining(state) & ~mask;
+                next = (state & ~0xFFFF | left) + (1 << CORRECT_SHIFT);
+                if (left == 0) next = next & ~(3 << STATUS_SHIFT) | WON << STATUS_SHIFT;
+            }
+            else {
+                next = state + (1 << ERRORS_SHIFT);
+                if (errors(next) == PlayerGameState.MAX_ERRORS) next = next & ~(3 << STATUS_SHIFT) | LOST << STATUS_SHIFT;
+            }
+
+            if (STATES.compareAndSet(page, i, state, next)) {
+                this.stats.transition(state, next);
+                return result(group, next);
+            }
+        }
+    }
+
+    /**
+     * Esito di {@link #apply}.
+     *
+     * @param result Risultato di {@link #apply}
+     * @return Esito come quello di {@link #submit}
+     */
+    public static int outcome(long result) { return (int) (result >> 32); }
+
+    /**
+     * Stato scritto da {@link #apply}.
+     *
+     * @param result Risultato di {@link #apply}
+     * @return Stato della sessione dopo la proposta, 0 se la proposta non è stata applicata
+     */
+    public static int stateAfter(long result) { return (int) result; }
+
+    private static long result(int outcome, int state) { return (long) outcome << 32 | state & 0xFFFFFFFFL; }
+
+    /**
+     * Elimina la sessione di un giocatore.
+     *
+     * @param playerId Id del giocatore
+     * @return Ultimo stato della sessione, 0 se non esisteva
+     */
+    public int remove(int playerId) {
+        int[] page = this.page(playerId, false);
+        if (page == null) return 0;
+
+        int state = (int) STATES.getAndSet(page, playerId & (PAGE_SIZE - 1), 0);
+        if (state != 0) this.stats.transition(state, 0);
+        return state;
+    }
+
+    /**
+     * Chiude la sessione di un giocatore: da questo momento le proposte
+     * vengono rifiutate con {@link #FINISHED}.
+     *
+     * @param playerId Id del giocatore
+     * @return Stato prima della chiusura, 0 se la sessione non esiste o era già chiusa
+     */
+    public int close(int playerId) {
+        int[] page = this.page(playerId, false);
+        return page == null ? 0 : close(page, playerId & (PAGE_SIZE - 1));
+    }
+
+    /**
+     * Chiude la tabella e tutte le sue sessioni, ad es. alla fine della
+     * partita. Costa una lettura per giocatore della pagina e un
+     * compare-and-set per sessione, senza lock: le richieste sulle altre
+     * partite non vengono fermate.
+     *
+     * @param visitor Riceve ogni sessione chiusa da questa chiamata, con lo stato prima della chiusura
+     */
+    public void closeAll(SessionVisitor visitor) {
+        this.closed = true;
+
+        int[][] pages = this.pages;
+        for (int p = 0; p < pages.length; p++) {
+            int[] page = pages[p];
+            if (page == null) continue;
+
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                int state = close(page, i);
+                if (state != 0) visitor.accept(p << PAGE_BITS | i, state);
+            }
+        }
+    }
+
+    /** Imposta il bit di chiusura di uno stato, se esiste e non è già chiuso. */
+    private static int close(int[] page, int i) {
+        while (true) {
+            int state = (int) STATES.getVolatile(page, i);
+            if (!exists(state) || isClosed(state)) return 0;
+            if (STATES.compareAndSet(page, i, state, state | CLOSED)) return state;
+        }
+    }
+
+    /**
+     * Ripristina lo stato di una sessione, ad es. durante la rilettura di un
+     * log. Ogni proposta aumenta di uno le proposte corrette o gli errori,
+     * quindi lo stato viene sostituito solo se è più avanti di quello
+     * attuale: l'ordine in cui arrivano gli stati non conta.
+     *
+     * @param playerId Id del giocatore
+     * @param state Stato letto da {@link #state(int)}
+     */
+    public void restore(int playerId, int state) {
+        if (!exists(state)) return;
+
+        int[] page = this.page(playerId, true);
+        int i = playerId & (PAGE_SIZE - 1);
+
+        while (true) {
+            int current = (int) STATES.getVolatile(page, i);
+            if (exists(current) && progress(current) >= progress(state)) return;
+
+            if (STATES.compareAndSet(page, i, current, state)) {
+                this.stats.transition(current, state);
+                return;
+            }
+        }
+    }
+
+    private static int progress(int state) { return correct(state) + errors(state); }
+
+    // Lettura dei campi di uno stato
+
+    /** @return true se lo stato appartiene ad una sessione esistente */
+    public static boolean exists(int state) { return state != 0; }
+
+    /** @return Maschera delle parole rimanenti */
+    public static int remaining(int state) { return state & 0xFFFF; }
+
+    /** @return Numero di errori */
+    public static int errors(int state) { return state >>> ERRORS_SHIFT & 7; }
+
+    /** @return Numero di proposte corrette */
+    public static int correct(int state) { return state >>> CORRECT_SHIFT & 7; }
+
+    /** @return Punteggio della partita */
+    public static int score(int state) { return PlayerGameState.score(correct(state), errors(state)); }
+
+    /** @return true se la partita è vinta o persa */
+    public static boolean isFinished(int state) { return (state >>> STATUS_SHIFT & 3) > PLAYING; }
+
+    /** @return true se la partita è vinta */
+    public static boolean isWon(int state) { return (state >>> STATUS_SHIFT & 3) == WON; }
+
+    /** @return true se la partita è persa */
+    public static boolean isLost(int state) { return (state >>> STATUS_SHIFT & 3) == LOST; }
+
+    /** @return true se la sessione è stata chiusa */
+    public static boolean isClosed(int state) { return (state & CLOSED) != 0; }
+
+    /** Restituisce la pagina di un giocatore, allocandola se richiesto. */
+    private int[] page(int playerId, boolean create) {
+        if (playerId < 0) throw new IllegalArgumentException("negative player id");
+
+        int p = playerId >>> PAGE_BITS;
+        int[][] pages = this.pages;
+        if (p < pages.length && pages[p] != null) return pages[p];
+        if (!create) return null;
+
+        this.pageLock.lock();
+        try {
+            pages = this.pages;
+            if (p < pages.length && pages[p] != null) return pages[p];
+
+            int length = pages.length;
+            while (length <= p) length *= 2;
+
+            int[][] copy = Arrays.copyOf(pages, length);
+            copy[p] = new int[PAGE_SIZE];
+            this.pages = copy;
+            return copy[p];
+        }
+        finally { this.pageLock.unlock(); }
+    }
+}
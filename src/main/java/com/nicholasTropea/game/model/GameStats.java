@@ -0,0 +1,86 @@
+package com.nicholasTropea.game.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistiche aggregate di una partita in corso, aggiornate ad ogni
+ * cambio di stato di una sessione invece di essere ricalcolate scorrendo
+ * tutte le sessioni.
+ *
+ * I contatori sono {@link LongAdder}: molti thread che aggiornano sessioni
+ * diverse non si contendono la stessa cella. Una lettura somma le celle
+ * di ogni contatore; letture concorrenti ad un aggiornamento possono
+ * vedere solo parte dei suoi effetti (es. un giocatore già concluso ma
+ * non ancora vincitore).
+ *
+ * Gli aggiornamenti arrivano da {@link GameSessionTable}, una volta per
+ * ogni stato scritto.
+ */
+public final class GameStats {
+    /** Giocatori che hanno iniziato la partita */
+    private final LongAdder players;
+
+    /** Giocatori che l'hanno conclusa */
+    private final LongAdder finished;
+
+    /** Giocatori che l'hanno vinta */
+    private final LongAdder won;
+
+    /** Somma dei punteggi attuali di tutti i giocatori */
+    private final LongAdder scoreSum;
+
+    /** Crea statistiche vuote. */
+    public GameStats() {
+        this.players = new LongAdder();
+        this.finished = new LongAdder();
+        this.won = new LongAdder();
+        this.scoreSum = new LongAdder();
+    }
+
+    /**
+     * Registra il passaggio di una sessione da uno stato all'altro.
+     *
+     * @param oldState Stato precedente (0 se la sessione non esisteva)
+     * @param newState Stato nuovo (0 se la sessione è stata rimossa)
+     */
+    void transition(int oldState, int newState) {
+        boolean before = GameSessionTable.exists(oldState);
+        boolean after = GameSessionTable.exists(newState);
+
+        if (before != after) this.players.add(after ? 1 : -1);
+
+        int delta = (after ? GameSessionTable.score(newState) : 0) - (before ? GameSessionTable.score(oldState) : 0);
+        if (delta != 0) this.scoreSum.add(delta);
+
+        boolean finishedBefore = before && GameSessionTable.isFinished(oldState);
+        boolean finishedAfter = after && GameSessionTable.isFinished(newState);
+        if (finishedBefore != finishedAfter) this.finished.add(finishedAfter ? 1 : -1);
+
+        boolean wonBefore = before && GameSessionTable.isWon(oldState);
+        boolean wonAfter = after && GameSessionTable.isWon(newState);
+        if (wonBefore != wonAfter) this.won.add(wonAfter ? 1 : -1);
+    }
+
+    // Getters
+    public int getPlayers() { return this.players.intValue(); }
+    public int getFinishedPlayers() { return this.finished.intValue(); }
+    public int getWonPlayers() { return this.won.intValue(); }
+    public long getScoreSum() { return this.scoreSum.sum(); }
+
+    /**
+     * Restituisce i giocatori con la partita ancora in corso.
+     *
+     * @return Giocatori che hanno iniziato e non concluso la partita
+     */
+    public int getActivePlayers() { return Math.max(0, this.getPlayers() - this.getFinishedPlayers()); }
+
+    /**
+     * Restituisce il punteggio medio dei giocatori.
+     *
+     * @return Media dei punteggi attuali, 0 se nessuno ha iniziato la partita
+     */
+    public float getAverageScore() {
+        int players = this.getPlayers();
+        return players == 0 ? 0f : (float) this.getScoreSum() / players;
+    }
+}
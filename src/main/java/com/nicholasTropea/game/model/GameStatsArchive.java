@@ -0,0 +1,113 @@
+package com.nicholasTropea.game.model;
+
+import java.util.Arrays;
+
+/**
+ * Statistiche finali delle partite concluse, congelate alla fine di ogni
+ * partita.
+ *
+ * Ogni partita occupa tre {@code long} di un unico array indicizzato per
+ * gameId: giocatori e conclusi, vincitori, somma dei punteggi. L'array
+ * viene sostituito da una copia ad ogni partita archiviata (una volta per
+ * partita), quindi le letture non prendono lock.
+ */
+public final class GameStatsArchive {
+    /** Campi per partita. */
+    private static final int FIELDS = 3;
+
+    /** Bit che segna una partita archiviata, nel campo dei vincitori. */
+    private static final long PRESENT = 1L << 62;
+
+    /** Riceve le partite archiviate. */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int gameId, int players, int finishedPlayers, int wonPlayers, long scoreSum);
+    }
+
+    /** Statistiche per gameId, {@link #FIELDS} long per partita */
+    private volatile long[] table;
+
+    /** Crea un archivio vuoto. */
+    public GameStatsArchive() { this.table = new long[0]; }
+
+    /**
+     * Congela le statistiche di una partita conclusa.
+     *
+     * @param gameId Id della partita
+     * @param stats Statistiche aggregate della partita
+     */
+    public void freeze(int gameId, GameStats stats) {
+        this.put(gameId, stats.getPlayers(), stats.getFinishedPlayers(), stats.getWonPlayers(), stats.getScoreSum());
+    }
+
+    /**
+     * Archivia le statistiche finali di una partita, sostituendo quelle
+     * eventualmente presenti.
+     *
+     * @param gameId Id della partita
+     * @param players Giocatori che hanno partecipato
+     * @param finishedPlayers Giocatori che l'hanno conclusa
+     * @param wonPlayers Giocatori che l'hanno vinta
+     * @param scoreSum Somma dei punteggi
+     */
+    public synchronized void put(int gameId, int players, int finishedPlayers, int wonPlayers, long scoreSum) {
+        if (gameId < 0) throw new IllegalArgumentException("negative game id");
+
+        long[] copy = Arrays.copyOf(this.table, Math.max(this.table.length, (gameId + 1) * FIELDS));
+        int base = gameId * FIELDS;
+        copy[base] = (long) players << 32 | (finishedPlayers & 0xFFFFFFFFL);
+        copy[base + 1] = PRESENT | (wonPlayers & 0xFFFFFFFFL);
+        copy[base + 2] = scoreSum;
+        this.table = copy;
+    }
+
+    /**
+     * Verifica se una partita è archiviata.
+     *
+     * @param gameId Id della partita
+     * @return true se la partita è stata giocata e conclusa
+     */
+    public boolean contains(int gameId) {
+        long[] table = this.table;
+        return gameId >= 0 && gameId * FIELDS < table.length && (table[gameId * FIELDS + 1] & PRESENT) != 0;
+    }
+
+    /**
+     * Legge le statistiche di una partita archiviata.
+     *
+     * @param gameId Id della partita
+     * @param visitor Destinatario delle statistiche
+     * @return false se la partita non è archiviata
+     */
+    public boolean get(int gameId, Visitor visitor) {
+        long[] table = this.table;
+        if (gameId < 0 || gameId * FIELDS >= table.length) return false;
+
+        int base = gameId * FIELDS;
+        if ((table[base + 1] & PRESENT) == 0) return false;
+
+        visitor.accept(gameId, (int) (table[base] >>> 32), (int) table[base], (int) table[base + 1], table[base + 2]);
+        return true;
+    }
+
+    /**
+     * Visita tutte le partite archiviate, in ordine di gameId.
+     *
+     * @param visitor Destinatario delle statistiche
+     */
+    public void forEach(Visitor visitor) {
+        long[] table = this.table;
+        for (int id = 0; id * FIELDS < table.length; id++) this.get(id, visitor);
+    }
+
+    /**
+     * Getter per il numero di partite archiviate.
+     *
+     * @return Partite archiviate
+     */
+    public int size() {
+        int[] count = { 0 };
+        this.forEach((id, players, finished, won, sum) -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,229 @@
+package com.nicholasTropea.game.model;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Classifica globale dei giocatori, aggiornata ad ogni variazione di
+ * punteggio invece di essere riordinata ad ogni richiesta.
+ *
+ * Due strutture senza lock la rappresentano:
+ * <ul>
+ *   <li>una {@link ConcurrentSkipListSet} di chiavi {@code long} ordinate
+ *       per punteggio decrescente e id crescente: i primi K giocatori si
+ *       leggono in O(K) scorrendola dall'inizio</li>
+ *   <li>un albero di Fenwick a due livelli sul numero di giocatori per
+ *       punteggio: un livello per blocchi di {@link #BLOCK_SIZE} punteggi e,
+ *       per ogni blocco usato, uno sui singoli punteggi. La posizione di un
+ *       punteggio (1 + giocatori con punteggio maggiore) costa O(log n)
+ *       letture atomiche</li>
+ * </ul>
+ *
+ * I giocatori a pari punteggio condividono la posizione (1, 2, 2, 4...).
+ *
+ * La classifica si può leggere a pagine: {@link #forEachAfter} riprende
+ * dal cursore restituito dalla pagina precedente in O(log n), mentre uno
+ * scostamento costa O(scostamento).
+ *
+ * Gli aggiornamenti dello stesso giocatore devono essere serializzati dal
+ * chiamante ({@link PlayerRegistry} li esegue con il lock del record);
+ * giocatori diversi si aggiornano in parallelo. Una lettura concorrente a
+ * uno spostamento può vedere il giocatore nella posizione vecchia o in
+ * quella nuova.
+ */
+public final class Leaderboard {
+    /** Punteggio più basso distinto dall'indice (quelli minori contano come questo). */
+    public static final int MIN_SCORE = -(1 << 24);
+
+    /** Punteggio più alto distinto dall'indice (quelli maggiori contano come questo). */
+    public static final int MAX_SCORE = (1 << 24) - 1;
+
+    /** Bit dei punteggi di un blocco. */
+    private static final int BLOCK_BITS = 10;
+
+    /** Punteggi per blocco del secondo livello. */
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    /** Numero di blocchi che coprono [MIN_SCORE, MAX_SCORE]. */
+    private static final int BLOCKS = (MAX_SCORE - MIN_SCORE + 1) >>> BLOCK_BITS;
+
+    /** Cursore che precede il primo giocatore. */
+    public static final long START = Long.MIN_VALUE;
+
+    /** Cursore restituito quando non ci sono altri giocatori. */
+    public static final long END = Long.MAX_VALUE;
+
+    /** Riceve i giocatori in ordine di classifica. */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param id Id del giocatore
+         * @param score Punteggio globale
+         * @param position Posizione in classifica (da 1)
+         */
+        void accept(int id, int score, int position);
+    }
+
+    /** Giocatori in ordine di classifica */
+    private final ConcurrentSkipListSet<Long> order;
+
+    /** Fenwick sui blocchi: giocatori per blocco */
+    private final AtomicIntegerArray blockTree;
+
+    /** Fenwick di ogni blocco: giocatori per punteggio (null se il blocco non è mai stato usato) */
+    private final AtomicReferenceArray<AtomicIntegerArray> scoreTrees;
+
+    /** Crea una classifica vuota. */
+    public Leaderboard() {
+        this.order = new ConcurrentSkipListSet<>();
+        this.blockTree = new AtomicIntegerArray(BLOCKS + 1);
+        this.scoreTrees = new AtomicReferenceArray<>(BLOCKS);
+    }
+
+    /**
+     * Aggiunge un giocatore.
+     *
+     * @param id Id del giocatore
+     * @param score Punteggio globale
+     */
+    public void add(int id, int score) {
+        if (id < 0) throw new IllegalArgumentException("negative player id");
+
+        this.count(score, 1);
+        this.order.add(key(id, score));
+    }
+
+    /**
+     * Rimuove un giocatore.
+     *
+     * @param id Id del giocatore
+     * @param score Punteggio con cui era stato inserito
+     */
+    public void remove(int id, int score) {
+        if (this.order.remove(key(id, score))) this.count(score, -1);
+    }
+
+    /**
+     * Aggiorna il punteggio di un giocatore.
+     *
+     * @param id Id del giocatore
+     * @param oldScore Punteggio precedente
+     * @param newScore Punteggio nuovo
+     */
+    public void move(int id, int oldScore, int newScore) {
+        if (oldScore == newScore) return;
+
+        // Prima entra il punteggio nuovo: un lettore vede il giocatore al
+        // più due volte, mai zero
+        this.add(id, newScore);
+        this.remove(id, oldScore);
+    }
+
+    /**
+     * Getter per il numero di giocatori in classifica.
+     *
+     * @return Numero di giocatori (O(n), per test e statistiche)
+     */
+    public int size() { return this.order.size(); }
+
+    /**
+     * Restituisce la posizione in classifica di un punteggio.
+     *
+     * @param score Punteggio
+     * @return 1 + numero di giocatori con punteggio strettamente maggiore
+     */
+    public int position(int score) {
+        int rank = reversed(score);
+        int block = rank >>> BLOCK_BITS;
+
+        int above = prefix(this.blockTree, block);
+        AtomicIntegerArray tree = this.scoreTrees.get(block);
+        if (tree != null) above += prefix(tree, rank & (BLOCK_SIZE - 1));
+
+        return above + 1;
+    }
+
+    /**
+     * Visita i primi giocatori in classifica, in ordine.
+     *
+     * @param count Numero massimo di giocatori
+     * @param visitor Destinatario dei giocatori
+     */
+    public void forEachTop(int count, Visitor visitor) { this.forEachAfter(START, 0, count, visitor); }
+
+    /**
+     * Visita una pagina della classifica, in ordine.
+     *
+     * La posizione viene letta dall'indice dei punteggi una volta per
+     * ogni punteggio distinto della pagina.
+     *
+     * @param cursor Cursore della pagina precedente, {@link #START} per iniziare dal primo
+     * @param skip Giocatori da saltare dopo il cursore
+     * @param count Numero massimo di giocatori da visitare
+     * @param visitor Destinatario dei giocatori
+     * @return Cursore dell'ultimo giocatore visitato, {@link #END} se la classifica è finita
+     */
+    public long forEachAfter(long cursor, int skip, int count, Visitor visitor) {
+        if (skip < 0 || count < 0) throw new IllegalArgumentException("skip and count must not be negative");
+
+        Iterator<Long> it = this.order.tailSet(cursor, false).iterator();
+        for (int i = 0; i < skip && it.hasNext(); i++) it.next();
+
+        long last = END;
+        int position = 0;
+        int previous = 0;
+
+        for (int visited = 0; visited < count && it.hasNext(); visited++) {
+            last = it.next();
+            int score = scoreOf(last);
+
+            if (visited == 0 || score != previous) position = this.position(score);
+            previous = score;
+
+            visitor.accept(idOf(last), score, position);
+        }
+
+        return it.hasNext() ? last : END;
+    }
+
+    /** Somma i contatori del Fenwick per gli indici [0, end). */
+    private static int prefix(AtomicIntegerArray tree, int end) {
+        int sum = 0;
+        for (int i = end; i > 0; i -= i & -i) sum += tree.get(i);
+        return sum;
+    }
+
+    /** Aggiunge delta al contatore dell'indice i del Fenwick. */
+    private static void add(AtomicIntegerArray tree, int i, int delta) {
+        for (i++; i < tree.length(); i += i & -i) tree.getAndAdd(i, delta);
+    }
+
+    /** Aggiorna i contatori dei due livelli per un punteggio. */
+    private void count(int score, int delta) {
+        int rank = reversed(score);
+        int block = rank >>> BLOCK_BITS;
+
+        AtomicIntegerArray tree = this.scoreTrees.get(block);
+        if (tree == null) {
+            this.scoreTrees.compareAndSet(block, null, new AtomicIntegerArray(BLOCK_SIZE + 1));
+            tree = this.scoreTrees.get(block);
+        }
+
+        add(tree, rank & (BLOCK_SIZE - 1), delta);
+        add(this.blockTree, block, delta);
+    }
+
+    /** Indice del punteggio nei Fenwick: 0 per il punteggio più alto. */
+    private static int reversed(int score) {
+        return MAX_SCORE - Math.max(MIN_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+    /** Chiave ordinata per punteggio decrescente, poi per id crescente. */
+    private static long key(int id, int score) { return (-(long) score << 32) | id; }
+
+    private static int scoreOf(long key) { return (int) -(key >> 32); }
+
+    private static int idOf(long key) { return (int) key; }
+}
@@ -1,13 +1,23 @@
 package com.nicholasTropea.game.model;
 
-import java.util.Map;
-import java.util.LinkedHashMap;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-/** Rappresenta l'istogramma delle partite di un giocatore */
+/**
+ * Rappresenta l'istogramma delle partite di un giocatore.
+ *
+ * I conteggi sono un {@code int[6]} indicizzato dall'ordinale di
+ * {@link Player.ResultType} (0-3 errori, persa, non conclusa), aggiornato
+ * sul posto con {@link #record(Player.ResultType)}. Le etichette esposte ai
+ * client sono in {@link #LABELS}, nello stesso ordine.
+ */
 public class MistakeHistogram {
-    /** Mappa chiave-valore delle partite */
-    private final Map<String, Integer> values;
+    /** Etichette delle colonne, nell'ordine di {@link Player.ResultType}. */
+    public static final String[] LABELS = { "Perfect", "1 Mistake", "2 Mistakes", "3 Mistakes", "Failed", "Unfinished" };
+
+    /** Numero di partite per risultato */
+    private final int[] counts;
 
     /** Costruttore */
     public MistakeHistogram(
@@ -17,37 +27,66 @@ public class MistakeHistogram {
         int threeMistakes,
         int failed,
         int unfinished
-    ) {
-        if (
-            perfect < 0 ||
-            oneMistake < 0 ||
-            twoMistakes < 0 ||
-            threeMistakes < 0 ||
-            failed < 0 ||
-            unfinished < 0
-        ) { throw new IllegalArgumentException("Values must be >= 0"); }
-
-        this.values = new LinkedHashMap<String, Integer>();
-        this.values.put("Perfect", perfect);
-        this.values.put("1 Mistake", oneMistake);
-        this.values.put("2 Mistakes", twoMistakes);
-        this.values.put("3 Mistakes", threeMistakes);
-        this.values.put("Failed", failed);
-        this.values.put("Unfinished", unfinished);
+    ) { this(new int[] { perfect, oneMistake, twoMistakes, threeMistakes, failed, unfinished }); }
+
+    /**
+     * Crea un istogramma dai conteggi per risultato.
+     *
+     * @param counts Partite per risultato, nell'ordine di {@link Player.ResultType} (viene copiato)
+     * @throws IllegalArgumentException Se manca un conteggio o uno è negativo
+     */
+    public MistakeHistogram(int[] counts) {
+        if (counts.length != LABELS.length) throw new IllegalArgumentException("one count per result type is required");
+        for (int c : counts) if (c < 0) throw new IllegalArgumentException("Values must be >= 0");
+
+        this.counts = counts.clone();
+    }
+
+    /**
+     * Registra una partita conclusa.
+     *
+     * @param result Risultato della partita
+     */
+    public void record(Player.ResultType result) { this.counts[result.ordinal()]++; }
+
+    /**
+     * Getter per il numero di partite con un risultato.
+     *
+     * @param result Risultato
+     * @return Partite con quel risultato
+     */
+    public int get(Player.ResultType result) { return this.counts[result.ordinal()]; }
+
+    /**
+     * Getter per il numero di partite di una colonna.
+     *
+     * @param index Indice della colonna, come in {@link #LABELS}
+     * @return Partite della colonna
+     */
+    public int get(int index) { return this.counts[index]; }
+
+    /**
+     * Getter per i valori dell'istogramma.
+     *
+     * @return Mappa non modificabile categoria -> numero di partite, creata ad ogni chiamata
+     */
+    public Map<String, Integer> getValues() {
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (int i = 0; i < LABELS.length; i++) values.put(LABELS[i], this.counts[i]);
+        return Collections.unmodifiableMap(values);
     }
 
     /** Stampa l'istogramma */
     public void print() {
-        int maxVal = Collections.max(this.values.values());
+        int maxVal = 0;
+        for (int c : this.counts) maxVal = Math.max(maxVal, c);
 
         // Parte verticale
         for (int i = maxVal; i >= 0; i--) {
             System.out.printf("%2d |  ", i);
 
             // Una colonna di larghezza prefissata (12 caratteri) per chiave
-            for (Map.Entry<String, Integer> e : this.values.entrySet()) {
-                int val = e.getValue();
-
+            for (int val : this.counts) {
                 // x centrata ad occhio
                 if (val >= i) System.out.print("  #         ");
                 else System.out.print("            ");
@@ -60,11 +99,8 @@ public class MistakeHistogram {
         System.out.println("---------------------------------------------------------------------------");
         System.out.print("     ");
 
-        for (Map.Entry<String, Integer> e : this.values.entrySet()) {
-            String key = e.getKey();
-            System.out.printf("%-12s", key);
-        }
+        for (String key : LABELS) System.out.printf("%-12s", key);
 
         System.out.println();
     }
-}
\ No newline at end of file
+}
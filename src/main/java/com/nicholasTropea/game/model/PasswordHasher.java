@@ -0,0 +1,86 @@
+package com.nicholasTropea.game.model;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Calcola e verifica gli hash delle password (PBKDF2 con HMAC-SHA256).
+ *
+ * Le password non vengono mai memorizzate: il {@link PlayerRegistry} tiene
+ * solo un sale casuale per giocatore e l'hash derivato. Il costo di un
+ * hash dipende dal numero di iterazioni, scelto alla creazione.
+ *
+ * Un'istanza è thread-safe.
+ */
+public final class PasswordHasher {
+    /** Iterazioni usate dal server. */
+    public static final int DEFAULT_ITERATIONS = 10_000;
+
+    /** Byte del sale. */
+    public static final int SALT_LENGTH = 16;
+
+    /** Byte dell'hash. */
+    public static final int HASH_LENGTH = 32;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Iterazioni di PBKDF2 */
+    private final int iterations;
+
+    /** Crea un hasher con {@link #DEFAULT_ITERATIONS} iterazioni. */
+    public PasswordHasher() { this(DEFAULT_ITERATIONS); }
+
+    /**
+     * Crea un hasher.
+     *
+     * @param iterations Iterazioni di PBKDF2 (almeno 1)
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be >= 1");
+        this.iterations = iterations;
+    }
+
+    /**
+     * Genera un sale casuale.
+     *
+     * @return {@link #SALT_LENGTH} byte casuali
+     */
+    public byte[] newSalt() {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        return salt;
+    }
+
+    /**
+     * Calcola l'hash di una password.
+     *
+     * @param password Password in chiaro
+     * @param salt Sale del giocatore
+     * @return {@link #HASH_LENGTH} byte di hash
+     */
+    public byte[] hash(String password, byte[] salt) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, this.iterations, 8 * HASH_LENGTH);
+
+        try { return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded(); }
+        catch (GeneralSecurityException e) { throw new IllegalStateException(ALGORITHM + " not available", e); }
+        finally { spec.clearPassword(); }
+    }
+
+    /**
+     * Verifica una password contro un hash, in tempo costante.
+     *
+     * @param password Password in chiaro
+     * @param salt Sale del giocatore
+     * @param expected Hash memorizzato
+     * @return true se la password è corretta
+     */
+    public boolean verify(String password, byte[] salt, byte[] expected) {
+        return MessageDigest.isEqual(this.hash(password, salt), expected);
+    }
+}
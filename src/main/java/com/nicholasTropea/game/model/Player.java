@@ -1,15 +1,20 @@
 package com.nicholasTropea.game.model;
 
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 
-/** Rappresenta un giocatore registrato. */
+/**
+ * Rappresenta un giocatore registrato.
+ *
+ * È una fotografia dei dati del giocatore, letta dal {@link PlayerRegistry}
+ * che ne conserva il record. Le credenziali non ne fanno parte: il
+ * registro memorizza solo l'hash della password.
+ */
 public class Player {
     /** Nickname univoco del giocatore */
     private String nickname;
 
-    /** Password del giocatore */
-    private String password;
-
     /** Punteggio globale del giocatore */
     private int globalScore;
 
@@ -26,7 +31,7 @@ public class Player {
     private int maxStreak;
 
     /** Tipi di risultati di una partita */
-    private enum ResultType {
+    public enum ResultType {
         WIN_0,       // Vinta con 0 errori
         WIN_1,       // Vinta con 1 errore
         WIN_2,       // Vinta con 2 errori
@@ -38,5 +43,63 @@ public class Player {
     /** Mappa contente il numero di occorrenze di un certo risultato */
     private Map<ResultType, Integer> resultCounts;
 
-    // costruttore, getters     
-}
\ No newline at end of file
+    /** Occorrenze dei risultati come istogramma */
+    private MistakeHistogram histogram;
+
+    /**
+     * Crea la fotografia di un giocatore.
+     *
+     * @param nickname Nickname del giocatore
+     * @param globalScore Punteggio globale
+     * @param currentStreak Streak corrente di vittorie
+     * @param maxStreak Streak massima di vittorie
+     * @param counts Occorrenze di ogni risultato, nell'ordine di {@link ResultType}
+     */
+    public Player(String nickname, int globalScore, int currentStreak, int maxStreak, int[] counts) {
+        ResultType[] types = ResultType.values();
+        if (counts.length != types.length) throw new IllegalArgumentException("one count per result type is required");
+
+        this.nickname = nickname;
+        this.globalScore = globalScore;
+        this.currentStreak = currentStreak;
+        this.maxStreak = maxStreak;
+
+        Map<ResultType, Integer> map = new EnumMap<>(ResultType.class);
+        int played = 0;
+        for (ResultType t : types) {
+            map.put(t, counts[t.ordinal()]);
+            played += counts[t.ordinal()];
+        }
+        this.resultCounts = Collections.unmodifiableMap(map);
+        this.histogram = new MistakeHistogram(counts);
+
+        int lost = counts[ResultType.LOST.ordinal()];
+        int won = played - lost - counts[ResultType.NOT_FINISHED.ordinal()];
+        this.winRate = played == 0 ? 0f : (float) won / played;
+        this.lossRate = played == 0 ? 0f : (float) lost / played;
+    }
+
+    /**
+     * Restituisce il risultato corrispondente alla fine di una partita.
+     *
+     * @param won true se la partita è vinta
+     * @param finished true se la partita è conclusa
+     * @param errors Errori effettuati
+     * @return Tipo di risultato
+     */
+    public static ResultType resultOf(boolean won, boolean finished, int errors) {
+        if (!finished) return ResultType.NOT_FINISHED;
+        if (!won) return ResultType.LOST;
+        return ResultType.values()[errors];
+    }
+
+    // Getters
+    public String getNickname() { return this.nickname; }
+    public int getGlobalScore() { return this.globalScore; }
+    public float getWinRate() { return this.winRate; }
+    public float getLossRate() { return this.lossRate; }
+    public int getCurrentStreak() { return this.currentStreak; }
+    public int getMaxStreak() { return this.maxStreak; }
+    public Map<ResultType, Integer> getResultCounts() { return this.resultCounts; }
+    public MistakeHistogram getHistogram() { return this.histogram; }
+}
@@ -1,21 +1,36 @@
 package com.nicholasTropea.game.model;
 
-import java.util.List;
 import java.util.ArrayList;
+import java.util.List;
 
-/** Rappresenta lo stato di un giocatore rispetto ad una partita. */
+/**
+ * Rappresenta lo stato di un giocatore rispetto ad una partita.
+ *
+ * Le parole ancora da raggruppare sono una maschera di bit sulle posizioni
+ * della plancia (vedi {@link Game#maskOf(List)}): verificare una proposta
+ * e toglierne le parole costa poche operazioni su un {@code int}.
+ */
 public class PlayerGameState {
+    /** Numero di errori con cui la partita è persa */
+    public static final int MAX_ERRORS = 4;
+
+    /** Punti per ogni gruppo indovinato */
+    public static final int GROUP_POINTS = 6;
+
+    /** Punti tolti per ogni errore */
+    public static final int ERROR_POINTS = 4;
+
     /** Nickname del player a cui si riferisce */
     private final String playerNickname;
 
     /** Id del game a cui si riferisce */
     private final int gameId;
-    
+
     /** Numero di proposte corrette effettuate dal giocatore */
     private int correctProposals;
 
-    /** Lista di parole rimanenti da raggruppare */
-    private List<String> remainingWords;
+    /** Maschera delle posizioni sulla plancia delle parole rimanenti da raggruppare */
+    private int remainingWords;
 
     /** Numero di errori effettuati */
     private int errorCount;
@@ -33,13 +48,138 @@ public class PlayerGameState {
     /** Stato con cui si è conclusa la partita */
     private GameResult finalState;
 
-    public PlayerGameState() {
-        this.playerNickname = "";
-        this.gameId = 1;
-        this.correctProposals = 2;
-        this.remainingWords = new ArrayList();
+    /**
+     * Crea lo stato iniziale di un giocatore in una partita.
+     *
+     * @param playerNickname Nickname del giocatore
+     * @param game Partita
+     */
+    public PlayerGameState(String playerNickname, Game game) {
+        this.playerNickname = playerNickname;
+        this.gameId = game.getId();
+        this.correctProposals = 0;
+        this.remainingWords = game.getBoardMask();
         this.errorCount = 0;
-        this.score = 1;
-        this.finalState = GameResult.WON;
+        this.score = 0;
+        this.finalState = GameResult.NOT_FINISHED;
+    }
+
+    /**
+     * Applica una proposta del giocatore.
+     *
+     * Una proposta corretta toglie le sue parole da quelle rimanenti, una
+     * sbagliata conta come errore. La partita è vinta quando non restano
+     * parole e persa al {@link #MAX_ERRORS}-esimo errore.
+     *
+     * @param game Partita a cui si riferisce lo stato
+     * @param mask Maschera della proposta, da {@link Game#maskOf(List)}
+     * @return Indice del gruppo indovinato, -1 se la proposta è sbagliata
+     * @throws IllegalStateException Se la partita è già conclusa
+     * @throws IllegalArgumentException Se la partita è un'altra, la maschera non è valida
+     *         o contiene parole già raggruppate
+     */
+    public int submit(Game game, int mask) {
+        if (game.getId() != this.gameId) throw new IllegalArgumentException("state refers to game " + this.gameId);
+        if (this.finalState != GameResult.NOT_FINISHED) throw new IllegalStateException("game already finished");
+        if (mask == 0 || mask == -1) throw new IllegalArgumentException("invalid proposal");
+        if ((mask & ~this.remainingWords) != 0) throw new IllegalArgumentException("words already grouped");
+
+        int group = game.groupOf(mask);
+
+        if (group >= 0) {
+            this.correctProposals++;
+            this.score = score(this.correctProposals, this.errorCount);
+            this.remainingWords &= ~mask;
+            if (this.remainingWords == 0) this.finalState = GameResult.WON;
+        }
+        else {
+            this.errorCount++;
+            this.score = score(this.correctProposals, this.errorCount);
+            if (this.errorCount == MAX_ERRORS) this.finalState = GameResult.LOST;
+        }
+
+        return group;
+    }
+
+    /**
+     * Calcola il punteggio di una partita.
+     *
+     * @param correct Gruppi indovinati
+     * @param errors Errori effettuati
+     * @return {@link #GROUP_POINTS} per gruppo meno {@link #ERROR_POINTS} per errore
+     */
+    public static int score(int correct, int errors) { return correct * GROUP_POINTS - errors * ERROR_POINTS; }
+
+    /**
+     * Getter per il nickname del giocatore.
+     *
+     * @return Nickname
+     */
+    public String getPlayerNickname() { return this.playerNickname; }
+
+    /**
+     * Getter per l'id della partita.
+     *
+     * @return Game id
+     */
+    public int getGameId() { return this.gameId; }
+
+    /**
+     * Getter per il numero di proposte corrette.
+     *
+     * @return Gruppi indovinati
+     */
+    public int getCorrectProposals() { return this.correctProposals; }
+
+    /**
+     * Getter per il numero di errori.
+     *
+     * @return Errori effettuati
+     */
+    public int getErrorCount() { return this.errorCount; }
+
+    /**
+     * Getter per il punteggio.
+     *
+     * @return Punteggio accumulato in questa partita
+     */
+    public int getScore() { return this.score; }
+
+    /**
+     * Getter per la maschera delle parole rimanenti.
+     *
+     * @return Maschera delle posizioni sulla plancia ancora da raggruppare
+     */
+    public int getRemainingMask() { return this.remainingWords; }
+
+    /**
+     * Restituisce le parole rimanenti nell'ordine della plancia.
+     *
+     * @param game Partita a cui si riferisce lo stato
+     * @return Nuova lista delle parole ancora da raggruppare
+     */
+    public List<String> getRemainingWords(Game game) {
+        List<String> board = game.getBoard();
+        List<String> words = new ArrayList<>(Integer.bitCount(this.remainingWords));
+
+        for (int mask = this.remainingWords; mask != 0; mask &= mask - 1) {
+            words.add(board.get(Integer.numberOfTrailingZeros(mask)));
+        }
+
+        return words;
     }
-}
\ No newline at end of file
+
+    /**
+     * Indica se la partita è conclusa per il giocatore.
+     *
+     * @return true se vinta o persa
+     */
+    public boolean isFinished() { return this.finalState != GameResult.NOT_FINISHED; }
+
+    /**
+     * Indica se il giocatore ha vinto la partita.
+     *
+     * @return true se tutti i gruppi sono stati indovinati
+     */
+    public boolean isWon() { return this.finalState == GameResult.WON; }
+}
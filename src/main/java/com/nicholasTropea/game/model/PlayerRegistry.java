@@ -0,0 +1,791 @@
+package com.nicholasTropea.game.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Archivio concorrente dei giocatori registrati, indicizzato per nickname.
+ *
+ * Ogni giocatore ha un id numerico progressivo (lo stesso usato da
+ * {@link GameSessionTable}) e un record a disposizione fissa di
+ * {@value #RECORD_SIZE} byte, fuori dall'heap, in blocchi di
+ * {@code ByteBuffer} diretti allocati al bisogno:
+ * <pre>
+ *   0  byte      lunghezza del nickname (UTF-8)
+ *   1  32 byte   nickname
+ *  36  16 byte   sale della password
+ *  52  32 byte   hash della password ({@link PasswordHasher})
+ *  84  int       punteggio globale
+ *  88  int       streak corrente di vittorie
+ *  92  int       streak massima di vittorie
+ *  96  6 × int   occorrenze di ogni {@link Player.ResultType}
+ * 120  int       versione delle statistiche, incrementata ad ogni modifica
+ * </pre>
+ *
+ * L'indice nickname -> id è diviso in {@value #STRIPES} segmenti scelti dai
+ * bit alti dell'hash del nickname; ogni segmento è una tabella ad
+ * indirizzamento aperto di soli {@code int} protetta dal proprio lock.
+ * Operazioni su nickname diversi procedono quindi in parallelo, e l'heap
+ * occupato è di pochi {@code int} per giocatore, senza oggetti: la
+ * garbage collection non risente del numero di account.
+ *
+ * I campi di un record sono protetti da un secondo insieme di lock, scelto
+ * dall'id. L'ordine di acquisizione è sempre segmenti (in ordine di
+ * indice) e poi record. Gli hash delle password vengono calcolati fuori
+ * da ogni lock. Tutti i lock sono {@link ReentrantLock}: un thread virtuale
+ * che ne attende uno libera il proprio carrier.
+ *
+ * Se è impostato un {@link Journal}, ogni modifica ne riceve l'immagine del
+ * record mentre il lock del record è ancora preso, quindi nello stesso
+ * ordine in cui le modifiche sono state applicate; i metodi ritornano solo
+ * dopo che il journal ha reso durevole la modifica.
+ */
+public final class PlayerRegistry {
+    /** Esito: nessun giocatore con quel nickname. */
+    public static final int NOT_FOUND = -1;
+
+    /** Esito: password errata. */
+    public static final int WRONG_PASSWORD = -2;
+
+    /** Esito: nickname già registrato. */
+    public static final int NAME_TAKEN = -3;
+
+    /** Lunghezza massima di un nickname, in byte UTF-8. */
+    public static final int MAX_NICKNAME_BYTES = 32;
+
+    /** Byte di un record. */
+    public static final int RECORD_SIZE = 128;
+
+    private static final int NAME_LENGTH = 0;
+    private static final int NAME = 1;
+    private static final int SALT = 36;
+    private static final int HASH = SALT + PasswordHasher.SALT_LENGTH;
+    private static final int SCORE = HASH + PasswordHasher.HASH_LENGTH;
+    private static final int CURRENT_STREAK = SCORE + 4;
+    private static final int MAX_STREAK = CURRENT_STREAK + 4;
+    private static final int RESULTS = MAX_STREAK + 4;
+    private static final int STATS_VERSION = RESULTS + 4 * 6;
+
+    /** Bit dell'indice di un record all'interno di un blocco. */
+    private static final int CHUNK_BITS = 13;
+
+    /** Record per blocco (1 MB). */
+    private static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+
+    /** Numero di segmenti dell'indice e di lock dei record (potenza di 2). */
+    private static final int STRIPES = 64;
+
+    /** Hash delle password */
+    private final PasswordHasher hasher;
+
+    /** Segmenti dell'indice nickname -> id */
+    private final Segment[] segments;
+
+    /** Lock dei record, scelti dall'id */
+    private final ReentrantLock[] recordLocks;
+
+    /** Lock dell'allocazione di id e blocchi */
+    private final ReentrantLock allocation;
+
+    /** Blocchi di record. La directory viene sostituita da una copia ad ogni blocco nuovo. */
+    private volatile ByteBuffer[] chunks;
+
+    /** Prossimo id da assegnare */
+    private final AtomicInteger nextId;
+
+    /** Destinatario delle modifiche ai record (null se nessuno) */
+    private volatile Journal journal;
+
+    /** Classifica dei giocatori registrati, aggiornata con il lock del record */
+    private final Leaderboard leaderboard;
+
+    /** Credenziali verificate di recente (null se disattivata) */
+    private volatile CredentialCache credentials;
+
+    /**
+     * Riceve le immagini dei record modificati, ad es. per scriverle in un
+     * log su disco.
+     */
+    public interface Journal {
+        /** Modifica: nuovo giocatore registrato. */
+        int REGISTERED = 1;
+
+        /** Modifica: nickname e/o password cambiati. */
+        int CREDENTIALS_UPDATED = 2;
+
+        /** Modifica: risultato di una partita registrato. */
+        int GAME_RECORDED = 3;
+
+        /**
+         * Registra una modifica. Chiamato con il lock del segmento e del
+         * record presi: deve solo accodare l'immagine, senza mai bloccarsi;
+         * le attese (durabilità, limite al buffer) vanno in {@link #sync}.
+         *
+         * @param kind Tipo di modifica
+         * @param id Id del giocatore
+         * @param image Copia del record dopo la modifica ({@link #RECORD_SIZE} byte)
+         * @return Numero di sequenza da passare a {@link #sync(long)}
+         */
+        long recordChanged(int kind, int id, byte[] image);
+
+        /**
+         * Attende che una modifica sia durevole. Chiamato senza lock.
+         *
+         * @param sequence Numero restituito da {@link #recordChanged}
+         */
+        void sync(long sequence);
+    }
+
+    /** Crea un archivio vuoto con un {@link PasswordHasher} predefinito. */
+    public PlayerRegistry() { this(new PasswordHasher()); }
+
+    /**
+     * Crea un archivio vuoto.
+     *
+     * @param hasher Hash delle password
+     */
+    public PlayerRegistry(PasswordHasher hasher) {
+        this.hasher = hasher;
+        this.segments = new Segment[STRIPES];
+        this.recordLocks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            this.segments[i] = new Segment(i);
+            this.recordLocks[i] = new ReentrantLock();
+        }
+
+        this.allocation = new ReentrantLock();
+
+        this.chunks = new ByteBuffer[4];
+        this.nextId = new AtomicInteger();
+        this.leaderboard = new Leaderboard();
+    }
+
+    /**
+     * Imposta il destinatario delle modifiche ai record.
+     *
+     * @param journal Journal, null per non registrare le modifiche
+     */
+    public void setJournal(Journal journal) { this.journal = journal; }
+
+    /**
+     * Imposta la cache delle credenziali verificate, consultata da
+     * {@link #login} e {@link #updateCredentials} prima di calcolare l'hash.
+     *
+     * @param credentials Cache, null per verificare sempre con l'hash
+     */
+    public void setCredentialCache(CredentialCache credentials) { this.credentials = credentials; }
+
+    /**
+     * Getter per il numero di giocatori.
+     *
+     * @return Giocatori registrati (gli id vanno da 0 a size - 1)
+     */
+    public int size() { return this.nextId.get(); }
+
+    /**
+     * Getter per la classifica.
+     *
+     * @return Classifica globale, aggiornata ad ogni partita registrata
+     */
+    public Leaderboard getLeaderboard() { return this.leaderboard; }
+
+    /**
+     * Registra un nuovo giocatore.
+     *
+     * @param nickname Nickname, al massimo {@link #MAX_NICKNAME_BYTES} byte UTF-8
+     * @param password Password in chiaro
+     * @return Id del nuovo giocatore, oppure {@link #NAME_TAKEN}
+     * @throws IllegalArgumentException Se nickname o password non sono validi
+     */
+    public int register(String nickname, String password) {
+        byte[] name = encodeName(nickname);
+        if (password == null || password.isEmpty()) throw new IllegalArgumentException("empty password");
+
+        int h = hash(name);
+        Segment s = this.segment(h);
+
+        // Un nickname già usato non costa il calcolo dell'hash
+        s.lock.lock();
+        try { if (this.lookup(s, h, name) >= 0) return NAME_TAKEN; }
+        finally { s.lock.unlock(); }
+
+        byte[] salt = this.hasher.newSalt();
+        byte[] digest = this.hasher.hash(password, salt);
+
+        int id;
+        long sequence;
+
+        s.lock.lock();
+        try {
+            if (this.lookup(s, h, name) >= 0) return NAME_TAKEN;
+
+            id = this.allocate();
+            ByteBuffer chunk = this.chunk(id);
+            int base = offset(id);
+            ReentrantLock record = this.recordLock(id);
+
+            record.lock();
+            try {
+                writeName(chunk, base, name);
+                chunk.put(base + SALT, salt);
+                chunk.put(base + HASH, digest);
+                this.leaderboard.add(id, 0);
+                sequence = this.journal(Journal.REGISTERED, id, chunk, base);
+            }
+            finally { record.unlock(); }
+
+            this.insert(s, h, id);
+        }
+        finally { s.lock.unlock(); }
+
+        this.sync(sequence);
+        return id;
+    }
+
+    /**
+     * Verifica le credenziali di un giocatore.
+     *
+     * @param nickname Nickname
+     * @param password Password in chiaro
+     * @return Id del giocatore, oppure {@link #NOT_FOUND} o {@link #WRONG_PASSWORD}
+     */
+    public int login(String nickname, String password) {
+        byte[] name = encodeNameOrNull(nickname);
+        if (name == null || password == null) return NOT_FOUND;
+
+        return this.authenticate(name, password, new byte[PasswordHasher.HASH_LENGTH]);
+    }
+
+    /**
+     * Cambia nickname e/o password di un giocatore, dopo averne verificato
+     * le credenziali attuali. L'id del giocatore non cambia.
+     *
+     * @param oldName Nickname attuale
+     * @param oldPassword Password attuale
+     * @param newName Nuovo nickname, null o vuoto per non cambiarlo
+     * @param newPassword Nuova password, null o vuota per non cambiarla
+     * @return Id del giocatore, oppure {@link #NOT_FOUND}, {@link #WRONG_PASSWORD} o {@link #NAME_TAKEN}
+     * @throws IllegalArgumentException Se il nuovo nickname non è valido
+     */
+    public int updateCredentials(String oldName, String oldPassword, String newName, String newPassword) {
+        byte[] old = encodeNameOrNull(oldName);
+        if (old == null || oldPassword == null) return NOT_FOUND;
+
+        byte[] renamed = newName == null || newName.isEmpty() ? null : encodeName(newName);
+        if (renamed != null && Arrays.equals(renamed, old)) renamed = null;
+
+        byte[] verified = new byte[PasswordHasher.HASH_LENGTH];
+        int id = this.authenticate(old, oldPassword, verified);
+        if (id < 0) return id;
+
+        byte[] salt = null;
+        byte[] digest = null;
+        if (newPassword != null && !newPassword.isEmpty()) {
+            salt = this.hasher.newSalt();
+            digest = this.hasher.hash(newPassword, salt);
+        }
+
+        int ho = hash(old);
+        int hn = renamed != null ? hash(renamed) : ho;
+        Segment so = this.segment(ho);
+        Segment sn = this.segment(hn);
+        Segment first = so.index <= sn.index ? so : sn;
+        Segment second = first == so ? sn : so;
+        long sequence;
+
+        first.lock.lock();
+        second.lock.lock(); // Rientrante se i segmenti coincidono
+        try {
+            if (this.lookup(so, ho, old) != id) return NOT_FOUND;
+            if (renamed != null && this.lookup(sn, hn, renamed) >= 0) return NAME_TAKEN;
+
+            ByteBuffer chunk = this.chunk(id);
+            int base = offset(id);
+            ReentrantLock record = this.recordLock(id);
+
+            record.lock();
+            try {
+                // Credenziali cambiate da un'altra richiesta dopo la verifica
+                if (!regionEquals(chunk, base + HASH, verified)) return WRONG_PASSWORD;
+
+                if (digest != null) {
+                    chunk.put(base + SALT, salt);
+                    chunk.put(base + HASH, digest);
+                }
+
+                if (renamed != null) writeName(chunk, base, renamed);
+                sequence = this.journal(Journal.CREDENTIALS_UPDATED, id, chunk, base);
+            }
+            finally { record.unlock(); }
+
+            if (renamed != null) {
+                this.delete(so, ho, id);
+                this.insert(sn, hn, id);
+            }
+        }
+        finally {
+            second.lock.unlock();
+            first.lock.unlock();
+        }
+
+        CredentialCache cache = this.credentials;
+        if (cache != null && digest != null) cache.invalidate(id);
+
+        this.sync(sequence);
+        return id;
+    }
+
+    /**
+     * Cerca un giocatore per nickname.
+     *
+     * @param nickname Nickname
+     * @return Id del giocatore, {@link #NOT_FOUND} se non registrato
+     */
+    public int find(String nickname) {
+        byte[] name = encodeNameOrNull(nickname);
+        if (name == null) return NOT_FOUND;
+
+        int h = hash(name);
+        Segment s = this.segment(h);
+        s.lock.lock();
+        try { return this.lookup(s, h, name); }
+        finally { s.lock.unlock(); }
+    }
+
+    /**
+     * Restituisce il nickname attuale di un giocatore.
+     *
+     * @param id Id del giocatore
+     * @return Nickname
+     * @throws IllegalArgumentException Se l'id non è assegnato
+     */
+    public String nickname(int id) {
+        this.checkId(id);
+        ByteBuffer chunk = this.chunk(id);
+        int base = offset(id);
+
+        ReentrantLock record = this.recordLock(id);
+        record.lock();
+        try { return readName(chunk, base); }
+        finally { record.unlock(); }
+    }
+
+    /**
+     * Restituisce il punteggio globale di un giocatore.
+     *
+     * @param id Id del giocatore
+     * @return Punteggio globale
+     * @throws IllegalArgumentException Se l'id non è assegnato
+     */
+    public int score(int id) {
+        this.checkId(id);
+        ByteBuffer chunk = this.chunk(id);
+
+        ReentrantLock record = this.recordLock(id);
+        record.lock();
+        try { return chunk.getInt(offset(id) + SCORE); }
+        finally { record.unlock(); }
+    }
+
+    /**
+     * Legge i dati di un giocatore.
+     *
+     * @param id Id del giocatore
+     * @return Fotografia del record
+     * @throws IllegalArgumentException Se l'id non è assegnato
+     */
+    public Player get(int id) {
+        this.checkId(id);
+        ByteBuffer chunk = this.chunk(id);
+        int base = offset(id);
+        int[] counts = new int[Player.ResultType.values().length];
+
+        ReentrantLock record = this.recordLock(id);
+        record.lock();
+        try {
+            for (int i = 0; i < counts.length; i++) counts[i] = chunk.getInt(base + RESULTS + 4 * i);
+            return new Player(
+                readName(chunk, base), chunk.getInt(base + SCORE),
+                chunk.getInt(base + CURRENT_STREAK), chunk.getInt(base + MAX_STREAK), counts
+            );
+        }
+        finally { record.unlock(); }
+    }
+
+    /**
+     * Restituisce la versione delle statistiche di un giocatore: cambia ad
+     * ogni partita registrata o record ripristinato, quindi chi conserva
+     * dati derivati dal record può verificare se sono ancora validi.
+     *
+     * @param id Id del giocatore
+     * @return Versione attuale delle statistiche
+     * @throws IllegalArgumentException Se l'id non è assegnato
+     */
+    public int statsVersion(int id) {
+        this.checkId(id);
+        ByteBuffer chunk = this.chunk(id);
+
+        ReentrantLock record = this.recordLock(id);
+        record.lock();
+        try { return chunk.getInt(offset(id) + STATS_VERSION); }
+        finally { record.unlock(); }
+    }
+
+    /**
+     * Registra il risultato di una partita conclusa da un giocatore.
+     *
+     * @param id Id del giocatore
+     * @param result Risultato della partita
+     * @param score Punteggio ottenuto, sommato a quello globale
+     * @throws IllegalArgumentException Se l'id non è assegnato
+     */
+    public void recordGame(int id, Player.ResultType result, int score) {
+        this.sync(this.apply(id, result, score));
+    }
+
+    /**
+     * Registra lo stesso risultato per più giocatori, ad es. le partite non
+     * concluse alla fine di un turno. Ogni record viene aggiornato con il
+     * proprio lock; si attende il {@link Journal} una volta sola, dopo
+     * l'ultimo.
+     *
+     * @param ids Id dei giocatori
+     * @param scores Punteggi ottenuti, nello stesso ordine
+     * @param count Numero di giocatori da registrare
+     * @param result Risultato delle partite
+     * @throws IllegalArgumentException Se un id non è assegnato
+     */
+    public void recordGames(int[] ids, int[] scores, int count, Player.ResultType result) {
+        long sequence = 0;
+        for (int i = 0; i < count; i++) sequence = Math.max(sequence, this.apply(ids[i], result, scores[i]));
+        this.sync(sequence);
+    }
+
+    /** Applica il risultato di una partita al record e restituisce la sequenza del journal. */
+    private long apply(int id, Player.ResultType result, int score) {
+        this.checkId(id);
+        ByteBuffer chunk = this.chunk(id);
+        int base = offset(id);
+        int count = base + RESULTS + 4 * result.ordinal();
+        long sequence;
+        ReentrantLock record = this.recordLock(id);
+
+        record.lock();
+        try {
+            int oldScore = chunk.getInt(base + SCORE);
+            chunk.putInt(base + SCORE, oldScore + score);
+            chunk.putInt(count, chunk.getInt(count) + 1);
+            chunk.putInt(base + STATS_VERSION, chunk.getInt(base + STATS_VERSION) + 1);
+            this.leaderboard.move(id, oldScore, oldScore + score);
+
+            if (result == Player.ResultType.LOST || result == Player.ResultType.NOT_FINISHED) chunk.putInt(base + CURRENT_STREAK, 0);
+            else {
+                int streak = chunk.getInt(base + CURRENT_STREAK) + 1;
+                chunk.putInt(base + CURRENT_STREAK, streak);
+                if (streak > chunk.getInt(base + MAX_STREAK)) chunk.putInt(base + MAX_STREAK, streak);
+            }
+
+            sequence = this.journal(Journal.GAME_RECORDED, id, chunk, base);
+        }
+        finally { record.unlock(); }
+
+        return sequence;
+    }
+
+    /**
+     * Copia il record di un giocatore, ad es. per uno snapshot.
+     *
+     * @param id Id del giocatore
+     * @param image Destinazione, almeno {@link #RECORD_SIZE} byte
+     * @throws IllegalArgumentException Se l'id non è assegnato
+     */
+    public void readRecord(int id, byte[] image) {
+        this.checkId(id);
+        ByteBuffer chunk = this.chunk(id);
+
+        ReentrantLock record = this.recordLock(id);
+        record.lock();
+        try { chunk.get(offset(id), image, 0, RECORD_SIZE); }
+        finally { record.unlock(); }
+    }
+
+    /**
+     * Ripristina il record di un giocatore da una sua immagine, ad es. durante
+     * la rilettura di un log. Gli id mancanti fino a quello dato vengono
+     * riservati; un'immagine senza nickname lascia il record fuori
+     * dall'indice. Le modifiche non vengono passate al {@link Journal}.
+     *
+     * @param id Id del giocatore
+     * @param image Immagine prodotta da {@link #readRecord} o dal {@link Journal}
+     */
+    public void restore(int id, byte[] image) {
+        if (id < 0) throw new IllegalArgumentException("negative player id");
+
+        this.allocation.lock();
+        try {
+            while (this.nextId.get() <= id) this.allocate();
+        }
+        finally { this.allocation.unlock(); }
+
+        ByteBuffer chunk = this.chunk(id);
+        int base = offset(id);
+
+        int length = image[NAME_LENGTH] & 0xFF;
+        if (length > MAX_NICKNAME_BYTES) throw new IllegalArgumentException("corrupted record image");
+        byte[] name = Arrays.copyOfRange(image, NAME, NAME + length);
+
+        byte[] old;
+        ReentrantLock record = this.recordLock(id);
+
+        record.lock();
+        try {
+            old = new byte[chunk.get(base + NAME_LENGTH) & 0xFF];
+            chunk.get(base + NAME, old);
+        }
+        finally { record.unlock(); }
+
+        int ho = hash(old);
+        int hn = hash(name);
+        Segment so = this.segment(ho);
+        Segment sn = this.segment(hn);
+        Segment first = so.index <= sn.index ? so : sn;
+        Segment second = first == so ? sn : so;
+
+        first.lock.lock();
+        second.lock.lock();
+        try {
+            if (old.length > 0) this.delete(so, ho, id);
+
+            record.lock();
+            try {
+                if (old.length > 0) this.leaderboard.remove(id, chunk.getInt(base + SCORE));
+                int version = chunk.getInt(base + STATS_VERSION);
+                chunk.put(base, image, 0, RECORD_SIZE);
+                chunk.putInt(base + STATS_VERSION, version + 1);
+                if (name.length > 0) this.leaderboard.add(id, chunk.getInt(base + SCORE));
+            }
+            finally { record.unlock(); }
+
+            if (name.length > 0) this.insert(sn, hn, id);
+        }
+        finally {
+            second.lock.unlock();
+            first.lock.unlock();
+        }
+    }
+
+    private long journal(int kind, int id, ByteBuffer chunk, int base) {
+        Journal journal = this.journal;
+        if (journal == null) return 0;
+
+        byte[] image = new byte[RECORD_SIZE];
+        chunk.get(base, image);
+        return journal.recordChanged(kind, id, image);
+    }
+
+    private void sync(long sequence) {
+        Journal journal = this.journal;
+        if (journal != null && sequence > 0) journal.sync(sequence);
+    }
+
+    /** Verifica nickname e password; in caso di successo copia in verified l'hash memorizzato. */
+    private int authenticate(byte[] name, String password, byte[] verified) {
+        int h = hash(name);
+        Segment s = this.segment(h);
+
+        int id;
+        s.lock.lock();
+        try { id = this.lookup(s, h, name); }
+        finally { s.lock.unlock(); }
+        if (id < 0) return NOT_FOUND;
+
+        ByteBuffer chunk = this.chunk(id);
+        int base = offset(id);
+        byte[] salt = new byte[PasswordHasher.SALT_LENGTH];
+
+        ReentrantLock record = this.recordLock(id);
+        record.lock();
+        try {
+            chunk.get(base + SALT, salt);
+            chunk.get(base + HASH, verified);
+        }
+        finally { record.unlock(); }
+
+        CredentialCache cache = this.credentials;
+        if (cache != null && cache.check(id, password, verified)) return id;
+
+        if (!this.hasher.verify(password, salt, verified)) return WRONG_PASSWORD;
+        if (cache != null) cache.put(id, password, verified);
+        return id;
+    }
+
+    // Indice
+
+    /** Segmento dell'indice, protetto dal proprio lock. */
+    private static final class Segment {
+        /** Lock del segmento */
+        final ReentrantLock lock;
+
+        /** Posizione del segmento, per l'ordine di acquisizione dei lock */
+        final int index;
+
+        /** id + 1 del giocatore, 0 se la posizione è vuota. Lunghezza potenza di 2 */
+        int[] ids;
+
+        /** Hash del nickname di ogni posizione occupata */
+        int[] hashes;
+
+        /** Posizioni occupate */
+        int count;
+
+        Segment(int index) {
+            this.lock = new ReentrantLock();
+            this.index = index;
+            this.ids = new int[16];
+            this.hashes = new int[16];
+        }
+    }
+
+    private Segment segment(int h) { return this.segments[h >>> 26 & (STRIPES - 1)]; }
+
+    private int lookup(Segment s, int h, byte[] name) {
+        int mask = s.ids.length - 1;
+
+        for (int i = h & mask; s.ids[i] != 0; i = (i + 1) & mask) {
+            int id = s.ids[i] - 1;
+            if (s.hashes[i] == h && this.nameEquals(id, name)) return id;
+        }
+
+        return NOT_FOUND;
+    }
+
+    private void insert(Segment s, int h, int id) {
+        // Fattore di carico massimo 1/2
+        if (2 * (s.count + 1) > s.ids.length) {
+            int[] ids = s.ids;
+            int[] hashes = s.hashes;
+            s.ids = new int[ids.length * 2];
+            s.hashes = new int[ids.length * 2];
+            for (int i = 0; i < ids.length; i++) if (ids[i] != 0) place(s, hashes[i], ids[i]);
+        }
+
+        place(s, h, id + 1);
+        s.count++;
+    }
+
+    private static void place(Segment s, int h, int key) {
+        int mask = s.ids.length - 1;
+        int i = h & mask;
+        while (s.ids[i] != 0) i = (i + 1) & mask;
+        s.ids[i] = key;
+        s.hashes[i] = h;
+    }
+
+    /** Rimuove un id spostando indietro gli elementi successivi della stessa sequenza di probing. */
+    private void delete(Segment s, int h, int id) {
+        int mask = s.ids.length - 1;
+        int i = h & mask;
+        while (s.ids[i] != id + 1) i = (i + 1) & mask;
+
+        s.ids[i] = 0;
+        s.count--;
+
+        for (int j = (i + 1) & mask; s.ids[j] != 0; j = (j + 1) & mask) {
+            int home = s.hashes[j] & mask;
+
+            // L'elemento in j resta dov'è se la sua posizione ideale è tra i (escluso) e j
+            boolean reachable = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (reachable) continue;
+
+            s.ids[i] = s.ids[j];
+            s.hashes[i] = s.hashes[j];
+            s.ids[j] = 0;
+            i = j;
+        }
+    }
+
+    /** Hash di un nickname, con i bit alti ben distribuiti per la scelta del segmento. */
+    private static int hash(byte[] name) {
+        int h = Arrays.hashCode(name) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Record
+
+    private ReentrantLock recordLock(int id) { return this.recordLocks[id & (STRIPES - 1)]; }
+
+    private ByteBuffer chunk(int id) { return this.chunks[id >>> CHUNK_BITS]; }
+
+    private static int offset(int id) { return (id & (CHUNK_RECORDS - 1)) * RECORD_SIZE; }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= this.nextId.get()) throw new IllegalArgumentException("unknown player id " + id);
+    }
+
+    /**
+     * Assegna un nuovo id, allocando il blocco che lo contiene se serve.
+     * L'id viene pubblicato ({@link #size}, {@link #checkId}) solo dopo che
+     * il suo blocco è installato, così chi lo vede può sempre leggerne il
+     * record.
+     */
+    private int allocate() {
+        this.allocation.lock();
+        try {
+            int id = this.nextId.get();
+            int c = id >>> CHUNK_BITS;
+
+            ByteBuffer[] chunks = this.chunks;
+            if (c >= chunks.length || chunks[c] == null) {
+                chunks = c >= chunks.length ? Arrays.copyOf(chunks, Math.max(2 * chunks.length, c + 1)) : chunks.clone();
+                chunks[c] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE);
+                this.chunks = chunks;
+            }
+
+            this.nextId.set(id + 1);
+            return id;
+        }
+        finally { this.allocation.unlock(); }
+    }
+
+    private boolean nameEquals(int id, byte[] name) {
+        ByteBuffer chunk = this.chunk(id);
+        int base = offset(id);
+
+        if ((chunk.get(base + NAME_LENGTH) & 0xFF) != name.length) return false;
+        return regionEquals(chunk, base + NAME, name);
+    }
+
+    private static boolean regionEquals(ByteBuffer chunk, int pos, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) if (chunk.get(pos + i) != bytes[i]) return false;
+        return true;
+    }
+
+    private static void writeName(ByteBuffer chunk, int base, byte[] name) {
+        chunk.put(base + NAME_LENGTH, (byte) name.length);
+        chunk.put(base + NAME, name);
+    }
+
+    private static String readName(ByteBuffer chunk, int base) {
+        byte[] name = new byte[chunk.get(base + NAME_LENGTH) & 0xFF];
+        chunk.get(base + NAME, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeName(String nickname) {
+        if (nickname == null || nickname.isEmpty()) throw new IllegalArgumentException("empty nickname");
+
+        byte[] name = nickname.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NICKNAME_BYTES) throw new IllegalArgumentException("nickname longer than " + MAX_NICKNAME_BYTES + " bytes");
+        return name;
+    }
+
+    private static byte[] encodeNameOrNull(String nickname) {
+        if (nickname == null || nickname.isEmpty()) return null;
+
+        byte[] name = nickname.getBytes(StandardCharsets.UTF_8);
+        return name.length > MAX_NICKNAME_BYTES ? null : name;
+    }
+}
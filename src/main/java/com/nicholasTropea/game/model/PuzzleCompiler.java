@@ -0,0 +1,187 @@
+package com.nicholasTropea.game.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Compila l'archivio JSON delle partite nel file binario letto da
+ * {@link PuzzleStore}.
+ *
+ * Viene eseguito in fase di build (vedi {@code pom.xml}, fase
+ * {@code process-classes}): il JSON viene letto in streaming, una partita
+ * alla volta, e scritto nel formato descritto in {@link PuzzleStore}.
+ *
+ * Uso: {@code PuzzleCompiler <games.json> <games.bin>}
+ */
+public final class PuzzleCompiler {
+    private PuzzleCompiler() { ; }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: PuzzleCompiler <games.json> <games.bin>");
+            System.exit(1);
+        }
+
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+
+        int count = compile(source, target);
+        System.out.println("Compilate " + count + " partite in " + target + " (" + Files.size(target) + " byte)");
+    }
+
+    /**
+     * Compila un archivio JSON di partite.
+     *
+     * @param source File JSON: array di oggetti {@code {gameId, groups: [{theme, words}]}}
+     * @param target File binario da produrre (sovrascritto se esiste)
+     * @return Numero di partite compilate
+     * @throws IOException In caso di errore di I/O o JSON non valido
+     */
+    public static int compile(Path source, Path target) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        Map<String, Integer> strings = new LinkedHashMap<>();
+
+        try (Reader r = Files.newBufferedReader(source, StandardCharsets.UTF_8); JsonReader in = new JsonReader(r)) {
+            in.beginArray();
+
+            while (in.hasNext()) {
+                Game game = readGame(in);
+                int id = game.getId();
+
+                if (id < 0) throw new IOException("gameId negativo: " + id);
+                while (records.size() <= id) records.add(null);
+                if (records.get(id) != null) throw new IOException("gameId duplicato: " + id);
+
+                records.set(id, PuzzleStore.encode(game, strings));
+            }
+
+            in.endArray();
+        }
+
+        if (target.getParent() != null) Files.createDirectories(target.getParent());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            writeFile(out, records, strings);
+        }
+
+        return (int) records.stream().filter(Objects::nonNull).count();
+    }
+
+    /** Scrive intestazione, indice, record e tabella delle stringhe. Gli id senza partita hanno offset -1. */
+    private static void writeFile(DataOutputStream out, List<byte[]> records, Map<String, Integer> strings) throws IOException {
+        int count = records.size();
+        int[] offsets = new int[count];
+        Arrays.fill(offsets, -1);
+
+        int offset = PuzzleStore.HEADER_SIZE + 4 * count;
+        for (int id = 0; id < count; id++) {
+            byte[] record = records.get(id);
+            if (record == null) continue;
+
+            offsets[id] = offset;
+            offset += record.length;
+        }
+
+        // La tabella segue i record: prima gli offset, poi le stringhe nell'ordine degli indici
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String s : strings.keySet()) encoded.add(PuzzleStore.encodeString(s));
+
+        int stringIndex = offset;
+        int stringOffset = stringIndex + 4 * encoded.size();
+
+        out.writeInt(PuzzleStore.MAGIC);
+        out.writeInt(PuzzleStore.VERSION);
+        out.writeInt(count);
+        out.writeInt(encoded.size());
+        out.writeInt(stringIndex);
+        for (int o : offsets) out.writeInt(o);
+        for (byte[] record : records) {
+            if (record != null) out.write(record);
+        }
+
+        for (byte[] s : encoded) {
+            out.writeInt(stringOffset);
+            stringOffset += s.length;
+        }
+
+        for (byte[] s : encoded) out.write(s);
+    }
+
+    /**
+     * Legge tutte le partite di un archivio JSON, senza compilarle.
+     *
+     * @param source File JSON delle partite
+     * @return Partite nell'ordine del file
+     * @throws IOException In caso di errore di I/O o JSON non valido
+     */
+    public static List<Game> parse(Path source) throws IOException {
+        List<Game> games = new ArrayList<>();
+
+        try (Reader r = Files.newBufferedReader(source, StandardCharsets.UTF_8); JsonReader in = new JsonReader(r)) {
+            in.beginArray();
+            while (in.hasNext()) games.add(readGame(in));
+            in.endArray();
+        }
+
+        return games;
+    }
+
+    private static Game readGame(JsonReader in) throws IOException {
+        Integer id = null;
+        List<Game.Group> groups = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "gameId" -> id = in.nextInt();
+                case "groups" -> {
+                    groups = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) groups.add(readGroup(in));
+                    in.endArray();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (id == null || groups == null) throw new IOException("partita senza gameId o groups");
+        return new Game(id, groups);
+    }
+
+    private static Game.Group readGroup(JsonReader in) throws IOException {
+        String theme = null;
+        List<String> words = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "theme" -> theme = in.nextString();
+                case "words" -> {
+                    words = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) words.add(in.nextString());
+                    in.endArray();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (theme == null || words == null) throw new IOException("gruppo senza theme o words");
+        return new Game.Group(theme, words);
+    }
+}
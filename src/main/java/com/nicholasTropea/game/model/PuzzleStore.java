@@ -0,0 +1,242 @@
+package com.nicholasTropea.game.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archivio delle partite in sola lettura, mappato in memoria.
+ *
+ * Il file viene prodotto in fase di build da {@link PuzzleCompiler} a
+ * partire da {@code data/games.json}. All'apertura si legge solo
+ * l'intestazione: ogni {@link Game} viene decodificato su richiesta dal suo
+ * record, quindi tempo di avvio e heap non crescono con l'archivio.
+ *
+ * Parole e temi distinti sono memorizzati una sola volta in una tabella di
+ * stringhe; i record contengono solo gli indici nella tabella. Ogni
+ * stringa viene inserita nel {@link WordDictionary} globale al primo uso.
+ *
+ * Formato (interi big-endian):
+ * <pre>
+ * intestazione  int MAGIC, int VERSION, int n, int m, int offset della tabella delle stringhe
+ * indice        n × int offset del record della partita con gameId = i (-1 se assente)
+ * record        byte gruppi, poi per ogni gruppo:
+ *                   short indice del tema, byte parole, parole × short indice
+ * tabella       m × int offset della stringa, poi per ogni stringa:
+ *                   short lunghezza, byte UTF-8
+ * </pre>
+ *
+ * Un'istanza è thread-safe: la mappa viene letta solo con accessi assoluti.
+ */
+public final class PuzzleStore {
+    /** Firma del file ("CNPZ"). */
+    static final int MAGIC = 0x434E505A;
+
+    /** Versione del formato. */
+    static final int VERSION = 2;
+
+    /** Byte dell'intestazione, prima dell'indice. */
+    static final int HEADER_SIZE = 20;
+
+    /** Numero massimo di stringhe distinte (indici a 16 bit senza segno). */
+    static final int MAX_STRINGS = 0xFFFF;
+
+    /** Percorso nel classpath del file prodotto dalla build. */
+    public static final String RESOURCE = "/data/games.bin";
+
+    /** Contenuto del file. */
+    private final ByteBuffer data;
+
+    /** Numero di posizioni nell'indice (gameId massimo + 1). */
+    private final int size;
+
+    /** Numero di stringhe nella tabella. */
+    private final int stringCount;
+
+    /** Offset dell'indice della tabella delle stringhe. */
+    private final int stringIndex;
+
+    /**
+     * Indice nella tabella -> id nel dizionario globale + 1 (0 se non ancora
+     * risolto). Scritture concorrenti sono innocue: scrivono lo stesso valore.
+     */
+    private final int[] globalIds;
+
+    private PuzzleStore(ByteBuffer data) throws IOException {
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) throw new IOException("file delle partite non valido");
+        if (data.getInt(4) != VERSION) throw new IOException("versione del file delle partite non supportata: " + data.getInt(4));
+
+        this.data = data;
+        this.size = data.getInt(8);
+        this.stringCount = data.getInt(12);
+        this.stringIndex = data.getInt(16);
+
+        if (this.size < 0 || HEADER_SIZE + 4L * this.size > data.limit()) throw new IOException("indice delle partite troncato");
+        if (this.stringCount < 0 || this.stringIndex < 0 || this.stringIndex + 4L * this.stringCount > data.limit()) {
+            throw new IOException("tabella delle stringhe troncata");
+        }
+
+        this.globalIds = new int[this.stringCount];
+    }
+    /**
+     * Apre un file di partite mappandolo in memoria.
+     *
+     * @param file File prodotto da {@link PuzzleCompiler}
+     * @return Archivio aperto
+     * @throws IOException Se il file non esiste o non è valido
+     */
+    public static PuzzleStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // La mappa resta valida anche dopo la chiusura del canale
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new PuzzleStore(map);
+        }
+    }
+
+    /**
+     * Apre il file di partite incluso nel classpath ({@link #RESOURCE}).
+     *
+     * Se il file è dentro un jar, e quindi non mappabile, viene prima
+     * copiato in un file temporaneo.
+     *
+     * @return Archivio aperto
+     * @throws IOException Se la risorsa manca o non è valida
+     */
+    public static PuzzleStore openDefault() throws IOException {
+        URL url = PuzzleStore.class.getResource(RESOURCE);
+        if (url == null) throw new IOException("risorsa " + RESOURCE + " non trovata: eseguire la build con Maven");
+
+        if (url.getProtocol().equals("file")) {
+            try { return open(Path.of(url.toURI())); }
+            catch (URISyntaxException e) { throw new IOException(e); }
+        }
+
+        Path copy = Files.createTempFile("games", ".bin");
+        copy.toFile().deleteOnExit();
+
+        try (InputStream in = url.openStream()) { Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING); }
+        return open(copy);
+    }
+
+    /**
+     * Getter per la dimensione dell'indice.
+     *
+     * @return gameId massimo + 1
+     */
+    public int size() { return this.size; }
+
+    /**
+     * Indica se l'archivio contiene una partita.
+     *
+     * @param gameId Id della partita
+     * @return true se la partita esiste
+     */
+    public boolean contains(int gameId) { return gameId >= 0 && gameId < this.size && this.offset(gameId) >= 0; }
+
+    /**
+     * Decodifica una partita dal suo record.
+     *
+     * @param gameId Id della partita
+     * @return Partita richiesta
+     * @throws IllegalArgumentException Se la partita non esiste
+     */
+    public Game get(int gameId) {
+        if (!this.contains(gameId)) throw new IllegalArgumentException("no game with id " + gameId);
+
+        int pos = this.offset(gameId);
+        int groupCount = this.data.get(pos++);
+        List<Game.Group> groups = new ArrayList<>(groupCount);
+
+        for (int g = 0; g < groupCount; g++) {
+            int themeId = this.globalId(this.data.getShort(pos) & 0xFFFF);
+            int wordCount = this.data.get(pos + 2);
+            pos += 3;
+
+            int[] wordIds = new int[wordCount];
+            for (int w = 0; w < wordCount; w++, pos += 2) wordIds[w] = this.globalId(this.data.getShort(pos) & 0xFFFF);
+
+            groups.add(new Game.Group(themeId, wordIds));
+        }
+
+        return new Game(gameId, groups);
+    }
+
+    private int offset(int gameId) { return this.data.getInt(HEADER_SIZE + 4 * gameId); }
+
+    /**
+     * Traduce un indice della tabella delle stringhe in un id del dizionario
+     * globale, inserendovi la stringa al primo uso.
+     */
+    private int globalId(int index) {
+        int id = this.globalIds[index];
+        if (id != 0) return id - 1;
+
+        int pos = this.data.getInt(this.stringIndex + 4 * index);
+        byte[] bytes = new byte[this.data.getShort(pos) & 0xFFFF];
+        this.data.get(pos + 2, bytes);
+
+        id = WordDictionary.GLOBAL.intern(new String(bytes, StandardCharsets.UTF_8));
+        this.globalIds[index] = id + 1;
+        return id;
+    }
+
+    /**
+     * Codifica il record di una partita. Usato da {@link PuzzleCompiler}.
+     *
+     * @param game Partita da codificare
+     * @param strings Tabella delle stringhe del file, estesa con le stringhe nuove
+     * @return Byte del record
+     * @throws IOException Se le stringhe distinte superano {@link #MAX_STRINGS}
+     */
+    static byte[] encode(Game game, Map<String, Integer> strings) throws IOException {
+        List<Game.Group> groups = game.getGroups();
+        int length = 1;
+        for (Game.Group group : groups) length += 3 + 2 * group.getWordCount();
+
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.put((byte) groups.size());
+
+        for (Game.Group group : groups) {
+            record.putShort((short) index(strings, group.getTheme()));
+            record.put((byte) group.getWordCount());
+            for (String word : group.getWords()) record.putShort((short) index(strings, word));
+        }
+
+        return record.array();
+    }
+
+    private static int index(Map<String, Integer> strings, String s) throws IOException {
+        Integer index = strings.get(s);
+        if (index != null) return index;
+
+        if (strings.size() == MAX_STRINGS) throw new IOException("troppe stringhe distinte (massimo " + MAX_STRINGS + ")");
+        strings.put(s, strings.size());
+        return strings.size() - 1;
+    }
+
+    /**
+     * Codifica una stringa della tabella. Usato da {@link PuzzleCompiler}.
+     *
+     * @param s Parola o tema
+     * @return Lunghezza e byte UTF-8
+     * @throws IOException Se la stringa supera i 65535 byte
+     */
+    static byte[] encodeString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IOException("stringa troppo lunga: " + s);
+
+        return ByteBuffer.allocate(2 + bytes.length).putShort((short) bytes.length).put(bytes).array();
+    }
+}
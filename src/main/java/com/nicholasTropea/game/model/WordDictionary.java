@@ -0,0 +1,140 @@
+package com.nicholasTropea.game.model;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dizionario globale di parole e temi.
+ *
+ * Assegna ad ogni stringa distinta un id intero progressivo, così
+ * {@link Game.Group} memorizza solo array di id e due parole si
+ * confrontano con un confronto tra interi. Ogni stringa è memorizzata una
+ * sola volta, indipendentemente da quante partite la usano.
+ *
+ * La ricerca usa una tabella hash ad indirizzamento aperto di soli
+ * {@code int} (id + 1, 0 = vuoto), senza nodi né {@code Integer}: il costo
+ * per stringa è la stringa stessa più pochi byte di tabella.
+ *
+ * Le letture ({@link #id(String)}, {@link #word(int)}) non prendono lock;
+ * solo l'inserimento di una stringa nuova prende un lock. Gli id non
+ * vengono mai riassegnati.
+ */
+public final class WordDictionary {
+    /** Dizionario condiviso da tutte le partite. */
+    public static final WordDictionary GLOBAL = new WordDictionary();
+
+    /** Capacità iniziale di {@link #words}. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Id -> stringa. Sostituito da una copia più grande quando è pieno. */
+    private volatile String[] words;
+
+    /** Tabella hash: id + 1 della stringa, 0 se la posizione è vuota. Lunghezza potenza di 2. */
+    private volatile int[] table;
+
+    /** Numero di id assegnati. */
+    private volatile int size;
+
+    /** Serializza l'inserimento di stringhe nuove. */
+    private final ReentrantLock lock;
+
+    /** Crea un dizionario vuoto. */
+    public WordDictionary() {
+        this.words = new String[INITIAL_CAPACITY];
+        this.table = new int[INITIAL_CAPACITY * 2];
+        this.size = 0;
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Restituisce l'id di una stringa, assegnandone uno nuovo se serve.
+     *
+     * @param word Parola o tema
+     * @return Id della stringa
+     * @throws NullPointerException Se word è null
+     */
+    public int intern(String word) {
+        int id = this.id(word);
+        if (id >= 0) return id;
+
+        this.lock.lock();
+        try {
+            id = this.id(word);
+            if (id >= 0) return id;
+
+            id = this.size;
+            String[] words = this.words;
+            int[] table = this.table;
+
+            if (id == words.length) words = Arrays.copyOf(words, words.length * 2);
+            words[id] = word;
+
+            // Fattore di carico massimo 1/2
+            if (2 * (id + 1) > table.length) table = rehash(words, id, table.length * 2);
+            insert(table, word, id);
+
+            // Prima i dati, poi la dimensione: chi legge un id valido trova la stringa
+            this.words = words;
+            this.table = table;
+            this.size = id + 1;
+            return id;
+        }
+        finally { this.lock.unlock(); }
+    }
+
+    /**
+     * Cerca l'id di una stringa senza assegnarne uno nuovo.
+     *
+     * @param word Parola o tema
+     * @return Id della stringa, -1 se non è nel dizionario
+     */
+    public int id(String word) {
+        int[] table = this.table;
+        int mask = table.length - 1;
+
+        for (int i = spread(word.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int slot = table[i];
+            if (slot == 0) return -1;
+
+            // Lo slot può essere stato scritto da un inserimento non ancora pubblicato
+            int id = slot - 1;
+            if (id >= this.size) return -1;
+            if (this.words[id].equals(word)) return id;
+        }
+    }
+
+    /**
+     * Restituisce la stringa associata ad un id.
+     *
+     * @param id Id assegnato da {@link #intern(String)}
+     * @return Stringa corrispondente
+     * @throws IllegalArgumentException Se l'id non è assegnato
+     */
+    public String word(int id) {
+        if (id < 0 || id >= this.size) throw new IllegalArgumentException("unknown word id " + id);
+        return this.words[id];
+    }
+
+    /**
+     * Getter per il numero di stringhe nel dizionario.
+     *
+     * @return Numero di id assegnati
+     */
+    public int size() { return this.size; }
+
+    private static int[] rehash(String[] words, int count, int capacity) {
+        int[] table = new int[capacity];
+        for (int id = 0; id < count; id++) insert(table, words[id], id);
+        return table;
+    }
+
+    private static void insert(int[] table, String word, int id) {
+        int mask = table.length - 1;
+        int i = spread(word.hashCode()) & mask;
+        while (table[i] != 0) i = (i + 1) & mask;
+        table[i] = id + 1;
+    }
+
+    /** Mescola i bit alti dell'hash, come {@code HashMap}. */
+    private static int spread(int h) { return h ^ (h >>> 16); }
+}
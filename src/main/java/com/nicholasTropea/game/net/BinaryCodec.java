@@ -0,0 +1,688 @@
+package com.nicholasTropea.game.net;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.nicholasTropea.game.model.LeaderboardRecord;
+import com.nicholasTropea.game.model.MistakeHistogram;
+
+/**
+ * Codifica binaria compatta, alternativa al protocollo JSON a righe.
+ *
+ * Il client la richiede inviando il byte {@link #MAGIC} come primo byte
+ * della connessione; da quel momento richieste e risposte sono frame
+ * {@code [lunghezza int32 big-endian][tipo byte][campi]}, con lunghezza
+ * che comprende il tipo ma non sé stessa. Un frame di lunghezza zero vale
+ * come keep-alive.
+ *
+ * Formato dei campi:
+ * <ul>
+ *   <li>interi: varint zig-zag (1 byte per valori piccoli)</li>
+ *   <li>float: 4 byte IEEE 754</li>
+ *   <li>stringhe: lunghezza varint + byte UTF-8</li>
+ *   <li>campi facoltativi: un byte di presenza all'inizio del messaggio,
+ *       un bit per campo</li>
+ *   <li>liste di parole: header varint {@code (n << 1) | indicizzata};
+ *       se tutte le parole sono sulla plancia corrente vengono inviati
+ *       gli indici (0-15) a due per byte, altrimenti le stringhe</li>
+ * </ul>
+ *
+ * La plancia di 16 parole è lo stato condiviso dai due capi della
+ * connessione: entrambi la aggiornano quando codificano o decodificano una
+ * {@link LoginResponse}, che la contiene per intero. Le parole di partite
+ * passate (es. {@link GameInfoResponse} con gameId) non sono sulla plancia
+ * e viaggiano come stringhe.
+ *
+ * Un'istanza appartiene ad una sola connessione e non è thread-safe.
+ */
+public final class BinaryCodec {
+    /** Primo byte inviato dal client per chiedere il protocollo binario. Non può iniziare un JSON. */
+    public static final byte MAGIC = (byte) 0xB1;
+
+    /** Lunghezza massima di un frame, come per le righe JSON. */
+    public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+    /** Numero di parole sulla plancia. */
+    private static final int BOARD_SIZE = 16;
+
+    // Tipi dei messaggi: richieste 0x01-0x09, risposte 0x41-0x49, errore generico 0x7F
+
+    private static final byte REGISTER = 0x01;
+    private static final byte LOGIN = 0x02;
+    private static final byte LOGOUT = 0x03;
+    private static final byte UPDATE_CREDENTIALS = 0x04;
+    private static final byte SUBMIT_PROPOSAL = 0x05;
+    private static final byte GAME_INFO = 0x06;
+    private static final byte GAME_STATS = 0x07;
+    private static final byte LEADERBOARD = 0x08;
+    private static final byte PLAYER_STATS = 0x09;
+    private static final byte RESPONSE = 0x40;
+    private static final byte ERROR = 0x7F;
+
+    /** Plancia corrente (null finché non passa una LoginResponse). */
+    private String[] board;
+
+    /** Buffer di scrittura, riusato tra un messaggio e l'altro. */
+    private byte[] out;
+
+    /** Posizione di scrittura in {@link #out}. */
+    private int outPos;
+
+    /** Messaggio in decodifica. */
+    private byte[] in;
+
+    /** Posizione di lettura in {@link #in}. */
+    private int inPos;
+
+    /** Fine del messaggio in decodifica. */
+    private int inEnd;
+
+    /** Crea un codec senza plancia. */
+    public BinaryCodec() {
+        this.board = null;
+        this.out = new byte[256];
+    }
+
+    /**
+     * Imposta la plancia usata per codificare le parole come indici.
+     *
+     * @param words Le 16 parole della partita, nell'ordine della plancia (null per nessuna)
+     * @throws IllegalArgumentException Se le parole non sono 16
+     */
+    public void setBoard(List<String> words) {
+        if (words == null) {
+            this.board = null;
+            return;
+        }
+
+        if (words.size() != BOARD_SIZE) throw new IllegalArgumentException("board must contain 16 words");
+        this.board = words.toArray(new String[0]);
+    }
+
+    /**
+     * Getter per la plancia corrente.
+     *
+     * @return Parole della plancia, null se non ancora nota
+     */
+    public List<String> getBoard() { return this.board != null ? List.of(this.board) : null; }
+
+    /**
+     * Codifica un messaggio in un frame completo di prefisso di lunghezza.
+     *
+     * @param message Richiesta o risposta del protocollo
+     * @return Byte del frame
+     * @throws IllegalArgumentException Se il tipo del messaggio non è supportato
+     */
+    public byte[] encode(Object message) {
+        this.outPos = 4; // Spazio per la lunghezza
+
+        switch (message) {
+            case RegisterRequest r -> {
+                this.writeByte(REGISTER);
+                this.writeString(r.getName());
+                this.writeString(r.getPassword());
+            }
+            case LoginRequest r -> {
+                this.writeByte(LOGIN);
+                this.writeString(r.getUsername());
+                this.writeString(r.getPassword());
+                if (r.getUdpPort() != null) this.writeVarint(r.getUdpPort()); // Facoltativa, in coda
+            }
+            case LogoutRequest r -> this.writeByte(LOGOUT);
+            case UpdateCredentialsRequest r -> {
+                // Campi assenti conservati come stringhe vuote (vedi costruttore)
+                String newName = r.getNewName().isEmpty() ? null : r.getNewName();
+                String newPassword = r.getNewPassword().isEmpty() ? null : r.getNewPassword();
+
+                this.writeByte(UPDATE_CREDENTIALS);
+                this.writeByte(mask(newName, newPassword));
+                this.writeString(r.getOldName());
+                this.writeString(r.getOldPassword());
+                if (newName != null) this.writeString(newName);
+                if (newPassword != null) this.writeString(newPassword);
+            }
+            case SubmitProposalRequest r -> {
+                this.writeByte(SUBMIT_PROPOSAL);
+                this.writeWords(r.getWords());
+            }
+            case GameInfoRequest r -> {
+                this.writeByte(GAME_INFO);
+                this.writeOptionalInt(r.getGameId());
+            }
+            case GameStatsRequest r -> {
+                this.writeByte(GAME_STATS);
+                this.writeOptionalInt(r.getGameId());
+            }
+            case LeaderboardRequest r -> {
+                this.writeByte(LEADERBOARD);
+
+                if (r.isPaged()) {
+                    this.writeByte(3);
+                    this.writeString(r.getCursor() != null ? r.getCursor() : "");
+                    this.writeVarint(r.getOffset());
+                    this.writeVarint(r.getLimit());
+                }
+                else if (r.isAll()) this.writeByte(0);
+                else if (r.getKTopPlayers() != null) {
+                    this.writeByte(1);
+                    this.writeVarint(r.getKTopPlayers());
+                }
+                else {
+                    this.writeByte(2);
+                    this.writeString(r.getPlayerUsername());
+                }
+            }
+            case PlayerStatsRequest r -> this.writeByte(PLAYER_STATS);
+            default -> this.encodeResponse(message);
+        }
+
+        int length = this.outPos - 4;
+        this.out[0] = (byte) (length >>> 24);
+        this.out[1] = (byte) (length >>> 16);
+        this.out[2] = (byte) (length >>> 8);
+        this.out[3] = (byte) length;
+
+        return Arrays.copyOf(this.out, this.outPos);
+    }
+
+    /**
+     * Codifica le risposte: tipo, esito e, in caso di errore, il messaggio.
+     *
+     * @param message Risposta del protocollo
+     */
+    private void encodeResponse(Object message) {
+        switch (message) {
+            case RegisterResponse r -> this.writeHeader(REGISTER, r.isSuccess(), r.getError());
+            case LogoutResponse r -> this.writeHeader(LOGOUT, r.isSuccess(), r.getError());
+            case UpdateCredentialsResponse r -> this.writeHeader(UPDATE_CREDENTIALS, r.isSuccess(), r.getError());
+            case ErrorResponse r -> {
+                this.writeByte(ERROR);
+                this.writeString(r.getError());
+            }
+            case LoginResponse r -> {
+                if (!this.writeHeader(LOGIN, r.isSuccess(), r.getError())) return;
+
+                this.writeByte(mask(r.getGuessedGroups(), r.getTimeLeft(), r.getErrors(), r.getScore()));
+                this.writeVarint(r.getGameId());
+
+                // La plancia viaggia per intero e diventa il riferimento dei messaggi successivi
+                this.writeStrings(r.getWords());
+                this.setBoard(r.getWords());
+
+                if (r.getGuessedGroups() != null) this.writeGroups(r.getGuessedGroups());
+                if (r.getTimeLeft() != null) this.writeVarlong(r.getTimeLeft());
+                if (r.getErrors() != null) this.writeVarint(r.getErrors());
+                if (r.getScore() != null) this.writeVarint(r.getScore());
+            }
+            case SubmitProposalResponse r -> {
+                if (!this.writeHeader(SUBMIT_PROPOSAL, r.isSuccess(), r.getError())) return;
+
+                this.writeByte(Boolean.TRUE.equals(r.getResult()) ? 1 : 0);
+                if (Boolean.TRUE.equals(r.getResult())) this.writeString(r.getGroupName());
+            }
+            case GameInfoResponse r -> {
+                if (!this.writeHeader(GAME_INFO, r.isSuccess(), r.getError())) return;
+
+                this.writeByte(mask(
+                    r.isActive() ? Boolean.TRUE : null, r.getTimeLeft(), r.getWordsLeft(),
+                    r.getSolution(), r.getGuessedGroups()
+                ));
+                if (r.getTimeLeft() != null) this.writeVarlong(r.getTimeLeft());
+                if (r.getWordsLeft() != null) this.writeWords(r.getWordsLeft());
+                if (r.getSolution() != null) this.writeGroups(r.getSolution());
+                if (r.getGuessedGroups() != null) this.writeGroups(r.getGuessedGroups());
+                this.writeVarint(r.getErrors());
+                this.writeVarint(r.getScore());
+            }
+            case GameStatsResponse r -> {
+                if (!this.writeHeader(GAME_STATS, r.isSuccess(), r.getError())) return;
+
+                this.writeByte(mask(
+                    r.isActive() ? Boolean.TRUE : null, r.getTimeLeft(), r.getActivePlayers(),
+                    r.getTotalPlayers(), r.getAverageScore()
+                ));
+                if (r.getTimeLeft() != null) this.writeVarlong(r.getTimeLeft());
+                if (r.getActivePlayers() != null) this.writeVarint(r.getActivePlayers());
+                if (r.getTotalPlayers() != null) this.writeVarint(r.getTotalPlayers());
+                if (r.getAverageScore() != null) this.writeFloat(r.getAverageScore());
+                this.writeVarint(r.getFinishedPlayers());
+                this.writeVarint(r.getWonPlayers());
+            }
+            case LeaderboardResponse r -> {
+                if (!this.writeHeader(LEADERBOARD, r.isSuccess(), r.getError())) return;
+
+                if (r.isStreamed()) {
+                    // Numero di record noto solo alla fine: varint a larghezza fissa riempito dopo
+                    int countPos = this.outPos;
+                    int[] count = { 0 };
+                    this.ensure(5);
+                    this.outPos += 5;
+
+                    try {
+                        r.forEachRecord((username, position) -> {
+                            this.writeString(username);
+                            this.writeVarint(position);
+                            count[0]++;
+                        });
+                    }
+                    catch (IOException e) { throw new UncheckedIOException(e); }
+
+                    long v = (long) count[0] << 1;
+                    for (int i = 0; i < 4; i++) this.out[countPos + i] = (byte) (((v >>> (7 * i)) & 0x7F) | 0x80);
+                    this.out[countPos + 4] = (byte) (v >>> 28);
+                }
+                else {
+                    this.writeVarint(r.getRecords().size());
+                    for (LeaderboardRecord record : r.getRecords()) {
+                        this.writeString(record.getUsername());
+                        this.writeVarint(record.getPosition());
+                    }
+                }
+
+                this.writeString(r.getNextCursor() != null ? r.getNextCursor() : "");
+            }
+            case PlayerStatsResponse r -> {
+                if (!this.writeHeader(PLAYER_STATS, r.isSuccess(), r.getError())) return;
+
+                this.writeVarint(r.getSolvedPuzzles());
+                this.writeVarint(r.getFailedPuzzles());
+                this.writeVarint(r.getUnfinishedPuzzles());
+                this.writeVarint(r.getPerfectPuzzles());
+                this.writeFloat(r.getWinRate());
+                this.writeFloat(r.getLossRate());
+                this.writeVarint(r.getCurrentStreak());
+                this.writeVarint(r.getMaxStreak());
+
+                MistakeHistogram histogram = r.getHistogram();
+                this.writeByte(histogram != null ? 1 : 0);
+                if (histogram != null) {
+                    for (int i = 0; i < MistakeHistogram.LABELS.length; i++) this.writeVarint(histogram.get(i));
+                }
+            }
+            default -> throw new IllegalArgumentException("unsupported message: " + message.getClass().getName());
+        }
+    }
+
+    /**
+     * Decodifica il contenuto di un frame.
+     *
+     * @param frame Byte del frame, senza il prefisso di lunghezza
+     * @param offset Inizio del frame nell'array
+     * @param length Lunghezza del frame
+     * @return Richiesta o risposta decodificata
+     * @throws ProtocolException Se il frame è troncato, ha un tipo sconosciuto
+     *         o contiene valori non validi
+     */
+    public Object decode(byte[] frame, int offset, int length) throws ProtocolException {
+        this.in = frame;
+        this.inPos = offset;
+        this.inEnd = offset + length;
+
+        try {
+            int type = this.readByte();
+            Object message = (type & RESPONSE) != 0 && type != ERROR
+                ? this.decodeResponse(type & ~RESPONSE)
+                : this.decodeRequest(type);
+
+            if (this.inPos != this.inEnd) throw new ProtocolException("frame con byte in eccesso");
+            return message;
+        }
+        catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            // Valori rifiutati dai costruttori o indici di parola fuori plancia
+            throw new ProtocolException("frame non valido: " + e.getMessage());
+        }
+        finally { this.in = null; }
+    }
+
+    private Object decodeRequest(int type) throws ProtocolException {
+        return switch (type) {
+            case REGISTER -> new RegisterRequest(this.readString(), this.readString());
+            case LOGIN -> {
+                String username = this.readString();
+                String password = this.readString();
+                yield new LoginRequest(username, password, this.inPos < this.inEnd ? this.readVarint() : null);
+            }
+            case LOGOUT -> new LogoutRequest();
+            case UPDATE_CREDENTIALS -> {
+                int mask = this.readByte();
+                String oldName = this.readString();
+                String oldPassword = this.readString();
+                String newName = (mask & 1) != 0 ? this.readString() : null;
+                String newPassword = (mask & 2) != 0 ? this.readString() : null;
+                yield new UpdateCredentialsRequest(oldName, oldPassword, newName, newPassword);
+            }
+            case SUBMIT_PROPOSAL -> new SubmitProposalRequest(this.readWords());
+            case GAME_INFO -> {
+                Integer gameId = this.readOptionalInt();
+                yield gameId != null ? new GameInfoRequest(gameId) : new GameInfoRequest(true);
+            }
+            case GAME_STATS -> {
+                Integer gameId = this.readOptionalInt();
+                yield gameId != null ? new GameStatsRequest(gameId) : new GameStatsRequest(true);
+            }
+            case LEADERBOARD -> switch (this.readByte()) {
+                case 0 -> new LeaderboardRequest(true);
+                case 1 -> new LeaderboardRequest(this.readVarint());
+                case 2 -> new LeaderboardRequest(this.readString());
+                case 3 -> {
+                    String cursor = this.readString();
+                    int offset = this.readVarint();
+                    yield new LeaderboardRequest(cursor, offset, this.readVarint());
+                }
+                default -> throw new ProtocolException("tipo di classifica sconosciuto");
+            };
+            case PLAYER_STATS -> new PlayerStatsRequest();
+            case ERROR -> ErrorResponse.error(this.readString());
+            default -> throw new ProtocolException("tipo di messaggio sconosciuto: " + type);
+        };
+    }
+
+    private Object decodeResponse(int type) throws ProtocolException {
+        boolean success = this.readByte() != 0;
+
+        if (!success) {
+            String error = this.readString();
+
+            return switch (type) {
+                case REGISTER -> RegisterResponse.error(error);
+                case LOGIN -> LoginResponse.error(error);
+                case LOGOUT -> LogoutResponse.error(error);
+                case UPDATE_CREDENTIALS -> UpdateCredentialsResponse.error(error);
+                case SUBMIT_PROPOSAL -> SubmitProposalResponse.error(error);
+                case GAME_INFO -> GameInfoResponse.error(error);
+                case GAME_STATS -> GameStatsResponse.error(error);
+                case LEADERBOARD -> LeaderboardResponse.error(error);
+                case PLAYER_STATS -> PlayerStatsResponse.error(error);
+                default -> throw new ProtocolException("tipo di risposta sconosciuto: " + type);
+            };
+        }
+
+        return switch (type) {
+            case REGISTER -> RegisterResponse.success();
+            case LOGOUT -> LogoutResponse.success();
+            case UPDATE_CREDENTIALS -> UpdateCredentialsResponse.success();
+            case LOGIN -> {
+                int mask = this.readByte();
+                int gameId = this.readVarint();
+                List<String> words = this.readStrings();
+                this.setBoard(words);
+
+                List<List<String>> guessedGroups = (mask & 1) != 0 ? this.readGroups() : null;
+                Long timeLeft = (mask & 2) != 0 ? this.readVarlong() : null;
+                Integer errors = (mask & 4) != 0 ? this.readVarint() : null;
+                Integer score = (mask & 8) != 0 ? this.readVarint() : null;
+                yield LoginResponse.success(gameId, words, guessedGroups, timeLeft, errors, score);
+            }
+            case SUBMIT_PROPOSAL -> {
+                boolean result = this.readByte() != 0;
+                yield SubmitProposalResponse.success(result, result ? this.readString() : null);
+            }
+            case GAME_INFO -> {
+                int mask = this.readByte();
+                Long timeLeft = (mask & 2) != 0 ? this.readVarlong() : null;
+                List<String> wordsLeft = (mask & 4) != 0 ? this.readWords() : null;
+                List<List<String>> solution = (mask & 8) != 0 ? this.readGroups() : null;
+                List<List<String>> guessedGroups = (mask & 16) != 0 ? this.readGroups() : null;
+                int errors = this.readVarint();
+                int score = this.readVarint();
+                yield GameInfoResponse.success((mask & 1) != 0, timeLeft, wordsLeft, solution, guessedGroups, errors, score);
+            }
+            case GAME_STATS -> {
+                int mask = this.readByte();
+                Long timeLeft = (mask & 2) != 0 ? this.readVarlong() : null;
+                Integer activePlayers = (mask & 4) != 0 ? this.readVarint() : null;
+                Integer totalPlayers = (mask & 8) != 0 ? this.readVarint() : null;
+                Float averageScore = (mask & 16) != 0 ? this.readFloat() : null;
+                int finishedPlayers = this.readVarint();
+                int wonPlayers = this.readVarint();
+                yield GameStatsResponse.success(
+                    (mask & 1) != 0, timeLeft, activePlayers, finishedPlayers, wonPlayers, totalPlayers, averageScore
+                );
+            }
+            case LEADERBOARD -> {
+                int size = this.readLength();
+                List<LeaderboardRecord> records = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) records.add(new LeaderboardRecord(this.readString(), this.readVarint()));
+                String nextCursor = this.readString();
+                yield nextCursor.isEmpty() ? LeaderboardResponse.success(records) : LeaderboardResponse.page(records, nextCursor);
+            }
+            case PLAYER_STATS -> {
+                int solved = this.readVarint();
+                int failed = this.readVarint();
+                int unfinished = this.readVarint();
+                int perfect = this.readVarint();
+                float winRate = this.readFloat();
+                float lossRate = this.readFloat();
+                int currentStreak = this.readVarint();
+                int maxStreak = this.readVarint();
+
+                MistakeHistogram histogram = null;
+                if (this.readByte() != 0) {
+                    histogram = new MistakeHistogram(
+                        this.readVarint(), this.readVarint(), this.readVarint(),
+                        this.readVarint(), this.readVarint(), this.readVarint()
+                    );
+                }
+
+                yield PlayerStatsResponse.success(
+                    solved, failed, unfinished, perfect, winRate, lossRate, currentStreak, maxStreak, histogram
+                );
+            }
+            default -> throw new ProtocolException("tipo di risposta sconosciuto: " + type);
+        };
+    }
+
+    // Scrittura
+
+    /**
+     * Scrive tipo ed esito di una risposta e, se è un errore, il messaggio.
+     *
+     * @return true se la risposta è di successo e vanno scritti i campi
+     */
+    private boolean writeHeader(byte type, boolean success, String error) {
+        this.writeByte(RESPONSE | type);
+        this.writeByte(success ? 1 : 0);
+        if (!success) this.writeString(error);
+        return success;
+    }
+
+    /** Byte di presenza: bit i a 1 se il campo i non è null. */
+    private static int mask(Object... fields) {
+        int mask = 0;
+        for (int i = 0; i < fields.length; i++) if (fields[i] != null) mask |= 1 << i;
+        return mask;
+    }
+
+    private void ensure(int n) {
+        if (this.outPos + n > this.out.length) this.out = Arrays.copyOf(this.out, Math.max(this.out.length * 2, this.outPos + n));
+    }
+
+    private void writeByte(int b) {
+        this.ensure(1);
+        this.out[this.outPos++] = (byte) b;
+    }
+
+    private void writeVarint(int value) { this.writeVarlong(value); }
+
+    private void writeVarlong(long value) {
+        long v = (value << 1) ^ (value >> 63); // Zig-zag: valori negativi piccoli restano corti
+        this.ensure(10);
+
+        while ((v & ~0x7FL) != 0) {
+            this.out[this.outPos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+
+        this.out[this.outPos++] = (byte) v;
+    }
+
+    private void writeFloat(float value) {
+        int bits = Float.floatToIntBits(value);
+        this.ensure(4);
+        this.out[this.outPos++] = (byte) (bits >>> 24);
+        this.out[this.outPos++] = (byte) (bits >>> 16);
+        this.out[this.outPos++] = (byte) (bits >>> 8);
+        this.out[this.outPos++] = (byte) bits;
+    }
+
+    private void writeString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        this.writeVarint(bytes.length);
+        this.ensure(bytes.length);
+        System.arraycopy(bytes, 0, this.out, this.outPos, bytes.length);
+        this.outPos += bytes.length;
+    }
+
+    private void writeOptionalInt(Integer value) {
+        this.writeByte(value != null ? 1 : 0);
+        if (value != null) this.writeVarint(value);
+    }
+
+    private void writeStrings(List<String> strings) {
+        this.writeVarint(strings.size());
+        for (String s : strings) this.writeString(s);
+    }
+
+    /** Lista di parole: indici a 4 bit se tutte sulla plancia, stringhe altrimenti. */
+    private void writeWords(List<String> words) {
+        int n = words.size();
+        int[] indices = this.boardIndices(words);
+
+        if (indices == null) {
+            this.writeVarint(n << 1);
+            for (String word : words) this.writeString(word);
+            return;
+        }
+
+        this.writeVarint((n << 1) | 1);
+        for (int i = 0; i < n; i += 2) {
+            int high = indices[i];
+            int low = i + 1 < n ? indices[i + 1] : 0;
+            this.writeByte((high << 4) | low);
+        }
+    }
+
+    private void writeGroups(List<List<String>> groups) {
+        this.writeVarint(groups.size());
+        for (List<String> group : groups) this.writeWords(group);
+    }
+
+    /**
+     * Cerca le parole sulla plancia.
+     *
+     * @return Indici delle parole, null se non c'è una plancia o una parola non vi compare
+     */
+    private int[] boardIndices(List<String> words) {
+        if (this.board == null) return null;
+
+        int[] indices = new int[words.size()];
+
+        outer:
+        for (int i = 0; i < indices.length; i++) {
+            String word = words.get(i);
+
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (this.board[j].equals(word)) {
+                    indices[i] = j;
+                    continue outer;
+                }
+            }
+
+            return null;
+        }
+
+        return indices;
+    }
+
+    // Lettura
+
+    private int readByte() throws ProtocolException {
+        if (this.inPos >= this.inEnd) throw new ProtocolException("frame troncato");
+        return this.in[this.inPos++] & 0xFF;
+    }
+
+    private int readVarint() throws ProtocolException {
+        long value = this.readVarlong();
+        if (value != (int) value) throw new ProtocolException("intero fuori intervallo");
+        return (int) value;
+    }
+
+    private long readVarlong() throws ProtocolException {
+        long v = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = this.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return (v >>> 1) ^ -(v & 1);
+        }
+
+        throw new ProtocolException("varint troppo lungo");
+    }
+
+    /** Lunghezza di una lista o stringa, limitata ai byte rimasti nel frame. */
+    private int readLength() throws ProtocolException {
+        int length = this.readVarint();
+        if (length < 0 || length > this.inEnd - this.inPos) throw new ProtocolException("lunghezza non valida");
+        return length;
+    }
+
+    private float readFloat() throws ProtocolException {
+        int bits = (this.readByte() << 24) | (this.readByte() << 16) | (this.readByte() << 8) | this.readByte();
+        return Float.intBitsToFloat(bits);
+    }
+
+    private String readString() throws ProtocolException {
+        int length = this.readLength();
+        String s = new String(this.in, this.inPos, length, StandardCharsets.UTF_8);
+        this.inPos += length;
+        return s;
+    }
+
+    private Integer readOptionalInt() throws ProtocolException {
+        return this.readByte() != 0 ? this.readVarint() : null;
+    }
+
+    private List<String> readStrings() throws ProtocolException {
+        int n = this.readLength();
+        List<String> strings = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) strings.add(this.readString());
+        return strings;
+    }
+
+    private List<String> readWords() throws ProtocolException {
+        int header = this.readVarint();
+        int n = header >>> 1;
+
+        if ((header & 1) == 0) {
+            if (n > this.inEnd - this.inPos) throw new ProtocolException("lunghezza non valida");
+
+            List<String> words = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) words.add(this.readString());
+            return words;
+        }
+
+        if (this.board == null) throw new ProtocolException("parole indicizzate senza plancia");
+        if (n > BOARD_SIZE) throw new ProtocolException("lunghezza non valida");
+
+        List<String> words = new ArrayList<>(n);
+        for (int i = 0; i < n; i += 2) {
+            int b = this.readByte();
+            words.add(this.board[b >>> 4]);
+            if (i + 1 < n) words.add(this.board[b & 0x0F]);
+        }
+
+        return words;
+    }
+
+    private List<List<String>> readGroups() throws ProtocolException {
+        int n = this.readLength();
+        List<List<String>> groups = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) groups.add(this.readWords());
+        return groups;
+    }
+}
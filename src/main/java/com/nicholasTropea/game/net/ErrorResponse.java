@@ -0,0 +1,53 @@
+package com.nicholasTropea.game.net;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Risposta generica di errore, inviata quando la richiesta non può
+ * essere associata ad alcuna operazione (JSON malformato, operazione
+ * sconosciuta o non ancora supportata).
+ *
+ * JSON atteso:
+ * <pre>{@code
+ * {
+ *    "success" : false,
+ *    "error" : STRING
+ * }
+ * }</pre>
+ *
+ * Errori possibili: "richiesta malformata", "operazione sconosciuta", "operazione non supportata"
+ */
+public class ErrorResponse implements Response {
+    /** Sempre false */
+    @SerializedName("success")
+    private final boolean success;
+
+    /** Messaggio d'errore */
+    @SerializedName("error")
+    private final String error;
+
+    /** Costruttore privato */
+    private ErrorResponse(String error) {
+        this.success = false;
+        this.error = error;
+    }
+
+    /**
+     * Crea una risposta di errore.
+     *
+     * @param errorMsg messaggio d'errore descrittivo
+     * @return istanza con success=false e error=errorMsg
+     * @throws IllegalArgumentException se errorMsg=null o vuoto
+     */
+    public static ErrorResponse error(String errorMsg) {
+        if (errorMsg == null || errorMsg.trim().isEmpty()) {
+            throw new IllegalArgumentException("Error message must be provided");
+        }
+
+        return new ErrorResponse(errorMsg);
+    }
+
+    // Getters
+    public boolean isSuccess() { return this.success; }
+    public String getError() { return this.error; }
+}
@@ -17,7 +17,7 @@ import com.google.gson.annotations.SerializedName;
  * 
  * Errori possibili: "gameId inesistente"
  */
-public class GameInfoRequest {
+public class GameInfoRequest implements Request {
     /** Operazione effettuata */
     @SerializedName("operation")
     private final String operation = "requestGameInfo";
@@ -21,9 +21,15 @@ import java.util.List;
  * }
  * }</pre>
  * 
- * Errori possibili: "utente non loggato"
+ * Errori possibili: "utente non loggato", "gameId inesistente"
+ *
+ * Le risposte sulla partita attiva create con {@link #ofRound} non
+ * contengono liste: referenziano i {@link RoundFragments} del turno e le
+ * maschere del giocatore, e vengono serializzate concatenando frammenti
+ * già codificati ({@link #getEncodedLine}). I getter ricostruiscono le
+ * liste solo se richieste, ad es. dal {@link BinaryCodec}.
  */
-public class GameInfoResponse {
+public class GameInfoResponse implements Response {
     /** true se richiesta avvenuta con successo, false altrimenti */
     @SerializedName("success")
     private final boolean success;
@@ -60,6 +66,15 @@ public class GameInfoResponse {
     @SerializedName("score")
     private final Integer score;
 
+    /** Frammenti del turno (null se la risposta contiene le liste) */
+    private final transient RoundFragments fragments;
+
+    /** Posizioni non ancora raggruppate, con fragments != null */
+    private final transient int remaining;
+
+    /** Gruppi indovinati, bit g per il gruppo g, con fragments != null */
+    private final transient int guessed;
+
     /** Costruttore privato */
     private GameInfoResponse(
         boolean success,
@@ -81,6 +96,25 @@ public class GameInfoResponse {
         this.guessedGroups = guessedGroups != null ? List.copyOf(guessedGroups) : null;
         this.errors = errors;
         this.score = score;
+        this.fragments = null;
+        this.remaining = 0;
+        this.guessed = 0;
+    }
+
+    /** Costruttore privato per le risposte basate sui frammenti */
+    private GameInfoResponse(RoundFragments fragments, boolean active, Long timeLeft, int remaining, int guessed, int errors, int score) {
+        this.success = true;
+        this.error = null;
+        this.active = active;
+        this.timeLeft = timeLeft;
+        this.wordsLeft = null;
+        this.solution = null;
+        this.guessedGroups = null;
+        this.errors = errors;
+        this.score = score;
+        this.fragments = fragments;
+        this.remaining = remaining;
+        this.guessed = guessed;
     }
 
     /**
@@ -115,6 +149,32 @@ public class GameInfoResponse {
         return new GameInfoResponse(true, null, false, null, null, solution, guessedGroups, errors, score);
     }
 
+    /**
+     * Crea una risposta di successo sulla partita di un turno, basata sui
+     * frammenti già codificati. Stessa semantica di {@link #success}.
+     *
+     * @param fragments Frammenti del turno
+     * @param active true se partita corrente e non terminata dal giocatore, false altrimenti
+     * @param timeLeft tempo rimanente della partita in millisecondi
+     * @param remaining posizioni della plancia non ancora raggruppate
+     * @param guessed gruppi indovinati, bit g per il gruppo g
+     * @param errors numero di errori commessi
+     * @param score punteggio ottenuto
+     *
+     * @return istanza con success=true e error=null
+     */
+    public static GameInfoResponse ofRound(
+        RoundFragments fragments,
+        boolean active,
+        long timeLeft,
+        int remaining,
+        int guessed,
+        int errors,
+        int score
+    ) {
+        return new GameInfoResponse(fragments, active, active ? timeLeft : null, remaining, guessed, errors, score);
+    }
+
     /**
      * Crea una risposta di errore.
      * 
@@ -135,9 +195,19 @@ public class GameInfoResponse {
     public String getError() { return this.error; }
     public boolean isActive() { return this.active; }
     public Long getTimeLeft() { return this.timeLeft; }
-    public List<String> getWordsLeft() { return this.wordsLeft; }
-    public List<List<String>> getSolution() { return this.solution; }
-    public List<List<String>> getGuessedGroups() { return this.guessedGroups; }
+    public List<String> getWordsLeft() { return this.fragments != null && this.active ? this.fragments.words(this.remaining) : this.wordsLeft; }
+    public List<List<String>> getSolution() { return this.fragments != null && !this.active ? this.fragments.solution() : this.solution; }
+    public List<List<String>> getGuessedGroups() { return this.fragments != null ? this.fragments.groups(this.guessed) : this.guessedGroups; }
     public Integer getErrors() { return this.errors; }
     public Integer getScore() { return this.score; }
-}
\ No newline at end of file
+    public RoundFragments getFragments() { return this.fragments; }
+    int getRemainingMask() { return this.remaining; }
+    int getGuessedGroupBits() { return this.guessed; }
+
+    /**
+     * Compone la riga JSON della risposta dai frammenti del turno.
+     *
+     * @return Byte UTF-8 dell'oggetto JSON seguiti da '\n', null se la risposta non è basata sui frammenti
+     */
+    public byte[] getEncodedLine() { return this.fragments != null ? this.fragments.encodeLine(this) : null; }
+}
@@ -12,7 +12,7 @@ import com.google.gson.annotations.SerializedName;
  *    "current" : BOOLEAN
  * }
  */
-public class GameStatsRequest {
+public class GameStatsRequest implements Request {
     @SerializedName("operation")
     private final String operation = "requestGameStats";
 
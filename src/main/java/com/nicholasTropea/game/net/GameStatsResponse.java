@@ -22,7 +22,7 @@ import com.google.gson.annotations.SerializedName;
  * 
  * Errori possibili: "id inesistente", "utente non loggato"
  */
-public class GameStatsResponse {
+public class GameStatsResponse implements Response {
     /** true se richiesta avvenuta con successo, false altrimenti */
     @SerializedName("success")
     private final boolean success;
@@ -0,0 +1,50 @@
+package com.nicholasTropea.game.net;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import com.nicholasTropea.game.model.LeaderboardRecord;
+import com.nicholasTropea.game.model.MistakeHistogram;
+
+/**
+ * Istanza {@link Gson} condivisa da client e server.
+ *
+ * Tutte le classi del protocollo hanno un adapter scritto a mano
+ * ({@link RequestAdapters}, {@link ResponseAdapters}), quindi la
+ * serializzazione non usa la reflection. L'istanza è immutabile e
+ * thread-safe: va riusata invece di creare un {@code new Gson()} per ogni
+ * connessione, che ricostruirebbe ogni volta la cache degli adapter.
+ */
+public final class Json {
+    /** Gson configurato con gli adapter del protocollo. */
+    public static final Gson GSON = new GsonBuilder()
+        // Richieste
+        .registerTypeAdapter(RegisterRequest.class, new RequestAdapters.RegisterAdapter())
+        .registerTypeAdapter(LoginRequest.class, new RequestAdapters.LoginAdapter())
+        .registerTypeAdapter(LogoutRequest.class, new RequestAdapters.LogoutAdapter())
+        .registerTypeAdapter(UpdateCredentialsRequest.class, new RequestAdapters.UpdateCredentialsAdapter())
+        .registerTypeAdapter(SubmitProposalRequest.class, new RequestAdapters.SubmitProposalAdapter())
+        .registerTypeAdapter(GameInfoRequest.class, new RequestAdapters.GameInfoAdapter())
+        .registerTypeAdapter(GameStatsRequest.class, new RequestAdapters.GameStatsAdapter())
+        .registerTypeAdapter(LeaderboardRequest.class, new RequestAdapters.LeaderboardAdapter())
+        .registerTypeAdapter(PlayerStatsRequest.class, new RequestAdapters.PlayerStatsAdapter())
+        // Risposte
+        .registerTypeAdapter(RegisterResponse.class, new ResponseAdapters.RegisterAdapter())
+        .registerTypeAdapter(LoginResponse.class, new ResponseAdapters.LoginAdapter())
+        .registerTypeAdapter(LogoutResponse.class, new ResponseAdapters.LogoutAdapter())
+        .registerTypeAdapter(UpdateCredentialsResponse.class, new ResponseAdapters.UpdateCredentialsAdapter())
+        .registerTypeAdapter(SubmitProposalResponse.class, new ResponseAdapters.SubmitProposalAdapter())
+        .registerTypeAdapter(GameInfoResponse.class, new ResponseAdapters.GameInfoAdapter())
+        .registerTypeAdapter(GameStatsResponse.class, new ResponseAdapters.GameStatsAdapter())
+        .registerTypeAdapter(LeaderboardResponse.class, new ResponseAdapters.LeaderboardAdapter())
+        .registerTypeAdapter(PlayerStatsResponse.class, new ResponseAdapters.PlayerStatsAdapter())
+        .registerTypeAdapter(ErrorResponse.class, new ResponseAdapters.ErrorAdapter())
+        // Notifiche
+        .registerTypeAdapter(Notification.class, new ResponseAdapters.NotificationAdapter())
+        // Modello
+        .registerTypeAdapter(LeaderboardRecord.class, new ResponseAdapters.LeaderboardRecordAdapter())
+        .registerTypeAdapter(MistakeHistogram.class, new ResponseAdapters.MistakeHistogramAdapter())
+        .create();
+
+    private Json() { ; }
+}
@@ -10,10 +10,25 @@ import com.google.gson.annotations.SerializedName;
  *    "operation" : "requestLeaderboard",
  *    "playerName" : STRING,
  *    "topPlayers" : INT,
- *    "all" : BOOLEAN
+ *    "all" : BOOLEAN,
+ *    "cursor" : STRING,
+ *    "offset" : INT,
+ *    "limit" : INT
  * }
+ *
+ * Con {@code limit} la richiesta chiede una pagina della classifica
+ * completa: al più {@code limit} giocatori, dopo il {@code cursor}
+ * restituito dalla pagina precedente (se presente) e saltandone
+ * {@code offset}. Il cursore costa O(log n) al server, lo scostamento
+ * O(offset): per scorrere tutta la classifica conviene il cursore.
+ *
+ * Senza {@code limit}, {@code all} chiede l'intera classifica, che il
+ * server invia in streaming.
  */
-public class LeaderboardRequest {
+public class LeaderboardRequest implements Request {
+    /** Numero massimo di giocatori in una pagina. */
+    public static final int MAX_PAGE_SIZE = 1000;
+
     @SerializedName("operation")
     private final String operation = "requestLeaderboard";
 
@@ -26,8 +41,17 @@ public class LeaderboardRequest {
     @SerializedName("all")
     private final Boolean all;
 
+    @SerializedName("cursor")
+    private final String cursor;
+
+    @SerializedName("offset")
+    private final Integer offset;
+
+    @SerializedName("limit")
+    private final Integer limit;
+
     /** Costruttore privato completo */
-    private LeaderboardRequest(String playerUsername, Integer kTopUsers, Boolean all) {
+    private LeaderboardRequest(String playerUsername, Integer kTopUsers, Boolean all, String cursor, Integer offset, Integer limit) {
         if (
             (playerUsername == null || playerUsername.trim().isEmpty()) &&
             (kTopUsers == null || kTopUsers <= 0) &&
@@ -39,20 +63,42 @@ public class LeaderboardRequest {
         this.playerUsername = playerUsername;
         this.kTopUsers = kTopUsers;
         this.all = all;
+        this.cursor = cursor;
+        this.offset = offset;
+        this.limit = limit;
     }
 
     /** Tutti i giocatori (solo all) */
-    public LeaderboardRequest(boolean all) { this(null, null, all); }
+    public LeaderboardRequest(boolean all) { this(null, null, all, null, null, null); }
 
     /** K top utenti (solo kTopUsers) */
-    public LeaderboardRequest(int kTopUsers) { this(null, kTopUsers, null); }
+    public LeaderboardRequest(int kTopUsers) { this(null, kTopUsers, null, null, null, null); }
 
     /** Singolo utente (solo playerUsername) */
-    public LeaderboardRequest(String playerUsername) { this(playerUsername, null, null); }
+    public LeaderboardRequest(String playerUsername) { this(playerUsername, null, null, null, null, null); }
+
+    /**
+     * Pagina della classifica completa.
+     *
+     * @param cursor Cursore restituito dalla pagina precedente, null per iniziare dal primo
+     * @param offset Giocatori da saltare dopo il cursore
+     * @param limit Numero massimo di giocatori, da 1 a {@link #MAX_PAGE_SIZE}
+     * @throws IllegalArgumentException Se offset o limit non sono validi
+     */
+    public LeaderboardRequest(String cursor, int offset, int limit) {
+        this(null, null, true, cursor == null || cursor.isEmpty() ? null : cursor, offset == 0 ? null : offset, limit);
+
+        if (offset < 0) throw new IllegalArgumentException("offset cannot be negative");
+        if (limit < 1 || limit > MAX_PAGE_SIZE) throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
 
     // Getters
     public String getOperation() { return this.operation; }
     public String getPlayerUsername() { return this.playerUsername; }
     public Integer getKTopPlayers() { return this.kTopUsers; }
     public boolean isAll() { return Boolean.TRUE.equals(this.all); }
+    public String getCursor() { return this.cursor; }
+    public int getOffset() { return this.offset != null ? this.offset : 0; }
+    public Integer getLimit() { return this.limit; }
+    public boolean isPaged() { return this.limit != null; }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.nicholasTropea.game.net;
 
 import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
 import java.util.List;
 
 import com.nicholasTropea.game.model.LeaderboardRecord;
@@ -13,13 +14,24 @@ import com.nicholasTropea.game.model.LeaderboardRecord;
  * {
  *      "success" : BOOLEAN,
  *      "error" : STRING,
- *      "records" : List<LeaderboardRecord>
+ *      "records" : List<LeaderboardRecord>,
+ *      "nextCursor" : STRING
  * }
  * }</pre>
+ *
+ * {@code nextCursor} è presente solo nelle risposte ad una pagina
+ * ({@link LeaderboardRequest#isPaged()}) che non è l'ultima: va passato
+ * nella richiesta della pagina successiva.
+ *
+ * Una risposta in streaming ({@link #streamed}) non contiene la lista dei
+ * record ma una {@link RecordSource} che li produce a blocchi mentre la
+ * risposta viene scritta, così la memoria usata non dipende dal numero di
+ * giocatori e chi scrive può fermarsi tra un blocco e l'altro. Sul filo ha
+ * lo stesso formato di una risposta normale.
  * 
- * Errori possibili: "username non registrato", "utente non loggato"
+ * Errori possibili: "username non registrato", "utente non loggato", "cursore non valido"
  */
-public class LeaderboardResponse {
+public class LeaderboardResponse implements Response {
     /** true se richiesta avvenuta con successo, false altrimenti */
     @SerializedName("success")
     private final boolean success;
@@ -28,19 +40,62 @@ public class LeaderboardResponse {
     @SerializedName("error")
     private final String error;
 
-    /** Lista ordinata contenente i giocatori richiesti */
+    /** Lista ordinata contenente i giocatori richiesti (null per lo streaming) */
     @SerializedName("records")
     private final List<LeaderboardRecord> records;
 
+    /** Cursore della pagina successiva (null se non ce ne sono) */
+    @SerializedName("nextCursor")
+    private final String nextCursor;
+
+    /** Produttore dei record di una risposta in streaming (null altrimenti) */
+    private final transient RecordSource source;
+
+    /** Riceve i record di una risposta, in ordine. */
+    @FunctionalInterface
+    public interface RecordSink {
+        /**
+         * @param username Username del giocatore
+         * @param position Posizione in classifica
+         * @throws IOException Se la scrittura della risposta fallisce
+         */
+        void accept(String username, int position) throws IOException;
+    }
+
+    /** Produce i record di una risposta in streaming, un blocco alla volta. */
+    @FunctionalInterface
+    public interface RecordSource {
+        /** Cursore del primo blocco. */
+        long START = Long.MIN_VALUE;
+
+        /** Cursore restituito dopo l'ultimo blocco. */
+        long END = Long.MAX_VALUE;
+
+        /**
+         * Passa al sink il blocco di record che segue il cursore, in ordine
+         * di classifica.
+         *
+         * @param cursor {@link #START}, o il cursore restituito dalla chiamata precedente
+         * @param sink Destinatario dei record
+         * @return Cursore del blocco successivo, {@link #END} se non ce ne sono
+         * @throws IOException Se il sink fallisce
+         */
+        long next(long cursor, RecordSink sink) throws IOException;
+    }
+
     /** Costruttore privato */
     private LeaderboardResponse(
         boolean success,
         String error,
-        List<LeaderboardRecord> records
+        List<LeaderboardRecord> records,
+        String nextCursor,
+        RecordSource source
     ) {
         this.success = success;
         this.error = error;
         this.records = records;
+        this.nextCursor = nextCursor;
+        this.source = source;
     }
 
     /**
@@ -53,7 +108,32 @@ public class LeaderboardResponse {
     public static LeaderboardResponse success(List<LeaderboardRecord> records) {
         if (records == null) throw new IllegalArgumentException("records cannot be null, if no records should be returned, return an empty list");
 
-        return new LeaderboardResponse(true, null, records);
+        return new LeaderboardResponse(true, null, records, null, null);
+    }
+
+    /**
+     * Crea la risposta ad una pagina della classifica.
+     *
+     * @param records record della pagina
+     * @param nextCursor cursore della pagina successiva, null se è l'ultima
+     * @return istanza con success=true
+     */
+    public static LeaderboardResponse page(List<LeaderboardRecord> records, String nextCursor) {
+        if (records == null) throw new IllegalArgumentException("records cannot be null, if no records should be returned, return an empty list");
+
+        return new LeaderboardResponse(true, null, records, nextCursor, null);
+    }
+
+    /**
+     * Crea una risposta i cui record vengono prodotti durante la scrittura.
+     *
+     * @param source produttore dei record
+     * @return istanza con success=true e records=null
+     */
+    public static LeaderboardResponse streamed(RecordSource source) {
+        if (source == null) throw new IllegalArgumentException("source cannot be null");
+
+        return new LeaderboardResponse(true, null, null, null, source);
     }
 
     /**
@@ -68,11 +148,29 @@ public class LeaderboardResponse {
             throw new IllegalArgumentException("Error message must be provided");
         }
 
-        return new LeaderboardResponse(false, errorMsg, null);
+        return new LeaderboardResponse(false, errorMsg, null, null, null);
+    }
+
+    /**
+     * Passa i record della risposta al sink, dalla lista o dal produttore.
+     *
+     * @param sink Destinatario dei record
+     * @throws IOException Se il sink fallisce
+     */
+    public void forEachRecord(RecordSink sink) throws IOException {
+        if (this.source != null) {
+            for (long cursor = RecordSource.START; cursor != RecordSource.END; ) cursor = this.source.next(cursor, sink);
+        }
+        else if (this.records != null) {
+            for (LeaderboardRecord record : this.records) sink.accept(record.getUsername(), record.getPosition());
+        }
     }
 
     // Getters
     public boolean isSuccess() { return this.success; }
     public String getError() { return this.error; }
     public List<LeaderboardRecord> getRecords() { return this.records; }
+    public String getNextCursor() { return this.nextCursor; }
+    public RecordSource getSource() { return this.source; }
+    public boolean isStreamed() { return this.source != null; }
 }
\ No newline at end of file
@@ -12,13 +12,18 @@ import com.google.gson.annotations.SerializedName;
  * {
  *    "operation" : "login",
  *    "username" : "STRING",
- *    "psw" : "STRING"
+ *    "psw" : "STRING",
+ *    "udpPort" : INT
  * }
  * }</pre>
+ *
+ * "udpPort" è facoltativo: se presente il server invia le
+ * {@link Notification} anche in unicast a quella porta dell'indirizzo del
+ * client, finché la connessione resta loggata.
  * 
  * Errori possibili: "psw errata", "username non registrato"
  */
-public class LoginRequest {
+public class LoginRequest implements Request {
     /** Operazione effettuata */
     @SerializedName("operation")
     private final String operation = "login";
@@ -31,23 +36,39 @@ public class LoginRequest {
     @SerializedName("psw")
     private final String password;
 
+    /** Porta UDP del client per le notifiche (null se non richieste) */
+    @SerializedName("udpPort")
+    private final Integer udpPort;
+
     /**
      * Costruttore.
      * 
      * @param username nome utente dell'account in cui loggarsi
      * @param password password dell'account in cui loggarsi
      */
-    public LoginRequest(String username, String password) {
+    public LoginRequest(String username, String password) { this(username, password, null); }
+
+    /**
+     * Costruttore con porta per le notifiche.
+     *
+     * @param username nome utente dell'account in cui loggarsi
+     * @param password password dell'account in cui loggarsi
+     * @param udpPort porta UDP del client per le notifiche, null se non richieste
+     */
+    public LoginRequest(String username, String password, Integer udpPort) {
         this.username = Objects.requireNonNull(username, "Required username").trim();
         this.password = Objects.requireNonNull(password, "Required password");
+        this.udpPort = udpPort;
 
         // Altre validazioni
         if (this.username.isEmpty()) throw new IllegalArgumentException("Username cannot be empty");
         if (this.password.length() < 6) throw new IllegalArgumentException("Password must be at least 6 characters");
+        if (udpPort != null && (udpPort < 1 || udpPort > 65535)) throw new IllegalArgumentException("UDP port must be between 1 and 65535");
     }
 
     // Getters
     public String getOperation() { return this.operation; }
     public String getUsername() { return this.username; }
     public String getPassword() { return this.password; }
+    public Integer getUdpPort() { return this.udpPort; }
 }
\ No newline at end of file
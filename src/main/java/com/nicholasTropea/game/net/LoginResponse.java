@@ -22,9 +22,13 @@ import java.util.List;
  * 
  * Errori possibili: "nome inesistente", "psw incorretta", "connessione già loggata"
  * 
+ * Le risposte create con {@link #ofRound} referenziano i
+ * {@link RoundFragments} del turno invece delle liste, come quelle di
+ * {@link GameInfoResponse#ofRound}.
+ *
  * @see RegisterResponse per il formato di registrazione
  */
-public class LoginResponse {
+public class LoginResponse implements Response {
     /** true se login avvenuto con successo, false altrimenti */
     @SerializedName("success")
     private final boolean success;
@@ -57,6 +61,12 @@ public class LoginResponse {
     @SerializedName("score")
     private final Integer score;
 
+    /** Frammenti del turno (null se la risposta contiene le liste) */
+    private final transient RoundFragments fragments;
+
+    /** Gruppi indovinati, bit g per il gruppo g, con fragments != null */
+    private final transient int guessed;
+
     /** Costruttore privato */
     private LoginResponse(
         boolean success,
@@ -76,6 +86,22 @@ public class LoginResponse {
         this.timeLeft = timeLeft;
         this.errors = errors;
         this.score = score;
+        this.fragments = null;
+        this.guessed = 0;
+    }
+
+    /** Costruttore privato per le risposte basate sui frammenti */
+    private LoginResponse(RoundFragments fragments, int guessed, long timeLeft, int errors, int score) {
+        this.success = true;
+        this.error = null;
+        this.gameId = fragments.getGame().getId();
+        this.words = null;
+        this.guessedGroups = null;
+        this.timeLeft = timeLeft;
+        this.errors = errors;
+        this.score = score;
+        this.fragments = fragments;
+        this.guessed = guessed;
     }
 
     /**
@@ -104,6 +130,22 @@ public class LoginResponse {
         return new LoginResponse(true, null, gameId, words, guessedGroups, timeLeft, errors, score);
     }
 
+    /**
+     * Crea una risposta di successo basata sui frammenti già codificati
+     * del turno corrente.
+     *
+     * @param fragments frammenti della partita corrente
+     * @param guessed gruppi già indovinati, bit g per il gruppo g
+     * @param timeLeft tempo rimanente della partita corrente in millisecondi
+     * @param errors numero di errori già commessi nella partita corrente
+     * @param score punteggio ottenuto nella partita corrente
+     *
+     * @return istanza con success=true e error=null
+     */
+    public static LoginResponse ofRound(RoundFragments fragments, int guessed, long timeLeft, int errors, int score) {
+        return new LoginResponse(fragments, guessed, timeLeft, errors, score);
+    }
+
     /**
      * Crea una risposta di errore per login fallito.
      * 
@@ -140,9 +182,18 @@ public class LoginResponse {
     public boolean isSuccess() { return this.success; }
     public String getError() { return this.error; }
     public Integer getGameId() { return this.gameId; }
-    public List<String> getWords() { return this.words; }
-    public List<List<String>> getGuessedGroups() { return this.guessedGroups; }
+    public List<String> getWords() { return this.fragments != null ? this.fragments.getGame().getBoard() : this.words; }
+    public List<List<String>> getGuessedGroups() { return this.fragments != null ? this.fragments.groups(this.guessed) : this.guessedGroups; }
     public Long getTimeLeft() { return this.timeLeft; }
     public Integer getErrors() { return this.errors; }
     public Integer getScore() { return this.score; }
-}
\ No newline at end of file
+    public RoundFragments getFragments() { return this.fragments; }
+    int getGuessedGroupBits() { return this.guessed; }
+
+    /**
+     * Compone la riga JSON della risposta dai frammenti del turno.
+     *
+     * @return Byte UTF-8 dell'oggetto JSON seguiti da '\n', null se la risposta non è basata sui frammenti
+     */
+    public byte[] getEncodedLine() { return this.fragments != null ? this.fragments.encodeLine(this) : null; }
+}
@@ -11,7 +11,7 @@ import com.google.gson.annotations.SerializedName;
  *    "operation" : "logout"
  * }
  */
-public class LogoutRequest {
+public class LogoutRequest implements Request {
     @SerializedName("operation")
     private final String operation = "logout";
 
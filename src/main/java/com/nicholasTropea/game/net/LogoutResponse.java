@@ -15,7 +15,7 @@ import com.google.gson.annotations.SerializedName;
  * 
  * Errori possibili: "utente non loggato"
  */
-public class LogoutResponse {
+public class LogoutResponse implements Response {
     /** true se richiesta avvenuta con successo, false altrimenti */
     @SerializedName("success")
     private final boolean success;
@@ -0,0 +1,171 @@
+package com.nicholasTropea.game.net;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.List;
+
+import com.nicholasTropea.game.model.LeaderboardRecord;
+
+/**
+ * Notifica inviata dal server via UDP, un datagramma per evento.
+ *
+ * JSON atteso:
+ * <pre>{@code
+ * {
+ *      "type" : "roundStarted" | "roundEnded" | "leaderboard",
+ *      "seq" : LONG,
+ *      "gameId" : INT,
+ *      "timeLeft" : LONG,
+ *      "players" : INT,
+ *      "finished" : INT,
+ *      "won" : INT,
+ *      "top" : LIST<LeaderboardRecord>
+ * }
+ * }</pre>
+ *
+ * "roundStarted" contiene gameId e timeLeft, "roundEnded" gameId e i
+ * risultati finali della partita (players, finished, won), "leaderboard"
+ * i primi giocatori della classifica (top). I campi degli altri tipi sono
+ * null.
+ *
+ * Il numero di sequenza cresce di uno per ogni notifica inviata: un
+ * salto indica datagrammi persi.
+ */
+public class Notification {
+    /** Tipo di notifica per l'inizio di una partita */
+    public static final String ROUND_STARTED = "roundStarted";
+
+    /** Tipo di notifica per la fine di una partita */
+    public static final String ROUND_ENDED = "roundEnded";
+
+    /** Tipo di notifica per un cambio in testa alla classifica */
+    public static final String LEADERBOARD = "leaderboard";
+
+    /** Tipo di notifica */
+    @SerializedName("type")
+    private final String type;
+
+    /** Numero di sequenza */
+    @SerializedName("seq")
+    private final long seq;
+
+    /** Id della partita (null se type=leaderboard) */
+    @SerializedName("gameId")
+    private final Integer gameId;
+
+    /** Durata della partita appena iniziata in millisecondi (null se type!=roundStarted) */
+    @SerializedName("timeLeft")
+    private final Long timeLeft;
+
+    /** Giocatori che hanno partecipato (null se type!=roundEnded) */
+    @SerializedName("players")
+    private final Integer players;
+
+    /** Giocatori che hanno concluso la partita (null se type!=roundEnded) */
+    @SerializedName("finished")
+    private final Integer finished;
+
+    /** Giocatori che hanno vinto la partita (null se type!=roundEnded) */
+    @SerializedName("won")
+    private final Integer won;
+
+    /** Primi giocatori della classifica (null se type!=leaderboard) */
+    @SerializedName("top")
+    private final List<LeaderboardRecord> top;
+
+    /** Costruttore privato */
+    private Notification(
+        String type,
+        long seq,
+        Integer gameId,
+        Long timeLeft,
+        Integer players,
+        Integer finished,
+        Integer won,
+        List<LeaderboardRecord> top
+    ) {
+        this.type = type;
+        this.seq = seq;
+        this.gameId = gameId;
+        this.timeLeft = timeLeft;
+        this.players = players;
+        this.finished = finished;
+        this.won = won;
+        this.top = top != null ? List.copyOf(top) : null;
+    }
+
+    /**
+     * Crea la notifica di inizio partita.
+     *
+     * @param seq numero di sequenza
+     * @param gameId id della partita iniziata
+     * @param timeLeft durata della partita in millisecondi
+     * @return istanza con type=roundStarted
+     */
+    public static Notification roundStarted(long seq, int gameId, long timeLeft) {
+        return new Notification(ROUND_STARTED, seq, gameId, timeLeft, null, null, null, null);
+    }
+
+    /**
+     * Crea la notifica di fine partita con i risultati finali.
+     *
+     * @param seq numero di sequenza
+     * @param gameId id della partita conclusa
+     * @param players giocatori che hanno partecipato
+     * @param finished giocatori che hanno concluso la partita
+     * @param won giocatori che hanno vinto
+     * @return istanza con type=roundEnded
+     */
+    public static Notification roundEnded(long seq, int gameId, int players, int finished, int won) {
+        return new Notification(ROUND_ENDED, seq, gameId, null, players, finished, won, null);
+    }
+
+    /**
+     * Crea la notifica di cambio in testa alla classifica.
+     *
+     * @param seq numero di sequenza
+     * @param top primi giocatori della classifica
+     * @return istanza con type=leaderboard
+     * @throws IllegalArgumentException se top=null
+     */
+    public static Notification leaderboard(long seq, List<LeaderboardRecord> top) {
+        if (top == null) throw new IllegalArgumentException("top cannot be null");
+        return new Notification(LEADERBOARD, seq, null, null, null, null, null, top);
+    }
+
+    /**
+     * Ricostruisce una notifica dai campi letti, per l'adapter.
+     *
+     * @throws IllegalArgumentException se il tipo è sconosciuto o mancano campi obbligatori
+     */
+    static Notification of(
+        String type, long seq, Integer gameId, Long timeLeft,
+        Integer players, Integer finished, Integer won, List<LeaderboardRecord> top
+    ) {
+        if (type == null) throw new IllegalArgumentException("type cannot be null");
+
+        return switch (type) {
+            case ROUND_STARTED -> {
+                if (gameId == null || timeLeft == null) throw new IllegalArgumentException("gameId and timeLeft required");
+                yield roundStarted(seq, gameId, timeLeft);
+            }
+            case ROUND_ENDED -> {
+                if (gameId == null || players == null || finished == null || won == null) {
+                    throw new IllegalArgumentException("gameId and results required");
+                }
+                yield roundEnded(seq, gameId, players, finished, won);
+            }
+            case LEADERBOARD -> leaderboard(seq, top);
+            default -> throw new IllegalArgumentException("unknown notification type: " + type);
+        };
+    }
+
+    // Getters
+    public String getType() { return this.type; }
+    public long getSeq() { return this.seq; }
+    public Integer getGameId() { return this.gameId; }
+    public Long getTimeLeft() { return this.timeLeft; }
+    public Integer getPlayers() { return this.players; }
+    public Integer getFinished() { return this.finished; }
+    public Integer getWon() { return this.won; }
+    public List<LeaderboardRecord> getTop() { return this.top; }
+}
@@ -10,7 +10,7 @@ import com.google.gson.annotations.SerializedName;
  *    "operation" : "requestPlayerStats"
  * }
  */
-public class PlayerStatsRequest {
+public class PlayerStatsRequest implements Request {
     @SerializedName("operation")
     private final String operation = "requestPlayerStats";
 
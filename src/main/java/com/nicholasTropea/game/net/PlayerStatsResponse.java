@@ -2,6 +2,7 @@ package com.nicholasTropea.game.net;
 
 import com.google.gson.annotations.SerializedName;
 import com.nicholasTropea.game.model.MistakeHistogram;
+import com.nicholasTropea.game.model.Player;
 
 /**
  * Risposta ad una richiesta di {@link PlayerStatsRequest}.
@@ -24,8 +25,12 @@ import com.nicholasTropea.game.model.MistakeHistogram;
  * }</pre>
  * 
  * Errori possibili: "utente non loggato"
+ *
+ * Una risposta può portare con sé la propria serializzazione JSON
+ * ({@link #preEncoded()}): il server la conserva finché le statistiche del
+ * giocatore non cambiano e la scrive così com'è.
  */
-public class PlayerStatsResponse {
+public class PlayerStatsResponse implements Response {
     /** true se richiesta avvenuta con successo, false altrimenti */
     @SerializedName("success")
     private final boolean success;
@@ -70,6 +75,9 @@ public class PlayerStatsResponse {
     @SerializedName("histogram")
     private final MistakeHistogram histogram;
 
+    /** JSON della risposta già serializzato (null se va serializzata campo per campo) */
+    private final transient String json;
+
     /** Costruttore */
     private PlayerStatsResponse(
         boolean success,
@@ -82,7 +90,8 @@ public class PlayerStatsResponse {
         Float lossRate,
         Integer currentStreak,
         Integer maxStreak,
-        MistakeHistogram histogram
+        MistakeHistogram histogram,
+        String json
     ) {
         this.success = success;
         this.error = error;
@@ -95,6 +104,7 @@ public class PlayerStatsResponse {
         this.currentStreak = currentStreak;
         this.maxStreak = maxStreak;
         this.histogram = histogram;
+        this.json = json;
     }
 
     /**
@@ -123,7 +133,44 @@ public class PlayerStatsResponse {
             true, null, solved,
             failed, unfinished, perfect,
             winRate, lossRate, currentStreak,
-            maxStreak, histogram
+            maxStreak, histogram, null
+        );
+    }
+
+    /**
+     * Crea una risposta di successo dalle statistiche di un giocatore.
+     *
+     * @param player Fotografia del giocatore
+     * @return istanza con success=true e error=null
+     */
+    public static PlayerStatsResponse of(Player player) {
+        MistakeHistogram histogram = player.getHistogram();
+        int failed = histogram.get(Player.ResultType.LOST);
+        int unfinished = histogram.get(Player.ResultType.NOT_FINISHED);
+        int solved = 0;
+        for (int i = Player.ResultType.WIN_0.ordinal(); i <= Player.ResultType.WIN_3.ordinal(); i++) solved += histogram.get(i);
+
+        return success(
+            solved, failed, unfinished, histogram.get(Player.ResultType.WIN_0),
+            player.getWinRate(), player.getLossRate(),
+            player.getCurrentStreak(), player.getMaxStreak(), histogram
+        );
+    }
+
+    /**
+     * Restituisce una copia della risposta con la propria serializzazione
+     * JSON, che gli adapter scrivono senza ricalcolarla.
+     *
+     * @return Risposta con lo stesso contenuto e il JSON già pronto
+     */
+    public PlayerStatsResponse preEncoded() {
+        if (this.json != null) return this;
+
+        return new PlayerStatsResponse(
+            this.success, this.error, this.solved,
+            this.failed, this.unfinished, this.perfect,
+            this.winRate, this.lossRate, this.currentStreak,
+            this.maxStreak, this.histogram, Json.GSON.toJson(this)
         );
     }
 
@@ -139,7 +186,7 @@ public class PlayerStatsResponse {
             throw new IllegalArgumentException("Error message must be provided");
         }
 
-        return new PlayerStatsResponse(false, errorMsg, null, null, null, null, null, null, null, null, null);
+        return new PlayerStatsResponse(false, errorMsg, null, null, null, null, null, null, null, null, null, null);
     }
 
     // Getters
@@ -154,4 +201,5 @@ public class PlayerStatsResponse {
     public Integer getCurrentStreak() { return this.currentStreak; }
     public Integer getMaxStreak() { return this.maxStreak; }
     public MistakeHistogram getHistogram() { return this.histogram; } // Non una copia, tanto è usa e getta
+    public String getEncodedJson() { return this.json; }
 }
\ No newline at end of file
@@ -13,7 +13,7 @@ import com.google.gson.annotations.SerializedName;
  *    "psw" : "STRING"
  * } 
  */
-public class RegisterRequest {
+public class RegisterRequest implements Request {
     @SerializedName("operation")
     private final String operation = "register";
 
@@ -17,7 +17,7 @@ import com.google.gson.annotations.SerializedName;
  * 
  * @see LoginResponse per il formato di login
  */
-public class RegisterResponse {
+public class RegisterResponse implements Response {
     /** true se registrazione avvenuta con successo, false altrimenti */
     @SerializedName("success")
     private final boolean success;
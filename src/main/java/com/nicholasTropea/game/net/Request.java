@@ -0,0 +1,16 @@
+package com.nicholasTropea.game.net;
+
+/**
+ * Richiesta inviata da un client al server.
+ *
+ * Ogni richiesta è identificata dal campo JSON {@code "operation"}, usato
+ * dal server per scegliere il decoder e l'handler corrispondenti.
+ */
+public interface Request {
+    /**
+     * Getter per l'operazione richiesta.
+     *
+     * @return Valore del campo "operation"
+     */
+    String getOperation();
+}
@@ -0,0 +1,117 @@
+package com.nicholasTropea.game.net;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * {@link TypeAdapter} scritto a mano per una {@link Request}.
+ *
+ * Oltre alla normale lettura di un oggetto completo permette di leggere
+ * solo i campi che seguono il discriminatore {@code "operation"}: il
+ * {@link RequestDecoder} consuma l'apertura dell'oggetto e l'operazione,
+ * poi passa il resto all'adapter scelto.
+ *
+ * Le richieste vengono costruite con i loro costruttori pubblici, quindi
+ * una richiesta decodificata è sempre valida.
+ *
+ * @param <T> Tipo della richiesta
+ */
+public abstract class RequestAdapter<T extends Request> extends TypeAdapter<T> {
+    /**
+     * Legge i campi di una richiesta fino alla chiusura dell'oggetto esclusa.
+     *
+     * Il campo "operation" e i campi sconosciuti vengono ignorati.
+     *
+     * @param in Reader posizionato su un nome di campo o sulla fine dell'oggetto
+     * @return Richiesta costruita dai campi letti
+     * @throws IOException In caso di JSON malformato o errore di lettura
+     * @throws IllegalArgumentException Se i campi non formano una richiesta valida
+     */
+    public abstract T readFields(JsonReader in) throws IOException;
+
+    /**
+     * Scrive i campi specifici della richiesta (escluso "operation").
+     *
+     * @param out Writer posizionato all'interno dell'oggetto
+     * @param value Richiesta da scrivere
+     * @throws IOException In caso di errore di scrittura
+     */
+    protected abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        in.beginObject();
+        T value = this.readFields(in);
+        in.endObject();
+
+        return value;
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("operation").value(value.getOperation());
+        this.writeFields(out, value);
+        out.endObject();
+    }
+
+    // Helper di lettura per campi opzionali
+
+    protected static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        return in.nextString();
+    }
+
+    protected static Integer nextIntOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        return in.nextInt();
+    }
+
+    protected static Boolean nextBooleanOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        return in.nextBoolean();
+    }
+
+    protected static List<String> nextStringListOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        List<String> list = new ArrayList<>(4);
+
+        in.beginArray();
+        while (in.hasNext()) list.add(nextStringOrNull(in));
+        in.endArray();
+
+        return list;
+    }
+}
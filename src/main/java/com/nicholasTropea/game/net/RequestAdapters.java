@@ -0,0 +1,271 @@
+package com.nicholasTropea.game.net;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Adapter JSON scritti a mano per tutte le richieste del protocollo.
+ *
+ * Evitano la reflection di Gson: ogni adapter legge i campi con uno
+ * {@code switch} sul nome e costruisce la richiesta con il suo costruttore.
+ */
+public final class RequestAdapters {
+    /** Adapter registrati, indicizzati per valore del campo "operation". */
+    public static final Map<String, RequestAdapter<?>> BY_OPERATION = Map.of(
+        "register", new RegisterAdapter(),
+        "login", new LoginAdapter(),
+        "logout", new LogoutAdapter(),
+        "updateCredentials", new UpdateCredentialsAdapter(),
+        "submitProposal", new SubmitProposalAdapter(),
+        "requestGameInfo", new GameInfoAdapter(),
+        "requestGameStats", new GameStatsAdapter(),
+        "requestLeaderboard", new LeaderboardAdapter(),
+        "requestPlayerStats", new PlayerStatsAdapter()
+    );
+
+    private RequestAdapters() { ; }
+
+    /** Adapter per {@link RegisterRequest}. */
+    public static final class RegisterAdapter extends RequestAdapter<RegisterRequest> {
+        @Override
+        public RegisterRequest readFields(JsonReader in) throws IOException {
+            String name = null;
+            String password = null;
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name" -> name = nextStringOrNull(in);
+                    case "psw" -> password = nextStringOrNull(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            return new RegisterRequest(name, password);
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, RegisterRequest value) throws IOException {
+            out.name("name").value(value.getName());
+            out.name("psw").value(value.getPassword());
+        }
+    }
+
+    /** Adapter per {@link LoginRequest}. */
+    public static final class LoginAdapter extends RequestAdapter<LoginRequest> {
+        @Override
+        public LoginRequest readFields(JsonReader in) throws IOException {
+            String username = null;
+            String password = null;
+            Integer udpPort = null;
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username" -> username = nextStringOrNull(in);
+                    case "psw" -> password = nextStringOrNull(in);
+                    case "udpPort" -> udpPort = nextIntOrNull(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            return new LoginRequest(username, password, udpPort);
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, LoginRequest value) throws IOException {
+            out.name("username").value(value.getUsername());
+            out.name("psw").value(value.getPassword());
+            out.name("udpPort").value(value.getUdpPort());
+        }
+    }
+
+    /** Adapter per {@link LogoutRequest}. */
+    public static final class LogoutAdapter extends RequestAdapter<LogoutRequest> {
+        @Override
+        public LogoutRequest readFields(JsonReader in) throws IOException {
+            while (in.hasNext()) {
+                in.nextName();
+                in.skipValue();
+            }
+
+            return new LogoutRequest();
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, LogoutRequest value) { ; }
+    }
+
+    /** Adapter per {@link UpdateCredentialsRequest}. */
+    public static final class UpdateCredentialsAdapter extends RequestAdapter<UpdateCredentialsRequest> {
+        @Override
+        public UpdateCredentialsRequest readFields(JsonReader in) throws IOException {
+            String oldName = null;
+            String oldPassword = null;
+            String newName = null;
+            String newPassword = null;
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "oldName" -> oldName = nextStringOrNull(in);
+                    case "oldPsw" -> oldPassword = nextStringOrNull(in);
+                    case "newName" -> newName = nextStringOrNull(in);
+                    case "newPsw" -> newPassword = nextStringOrNull(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            // Stringhe vuote equivalgono a campi assenti (vedi costruttore)
+            if (newName != null && newName.isEmpty()) newName = null;
+            if (newPassword != null && newPassword.isEmpty()) newPassword = null;
+
+            return new UpdateCredentialsRequest(oldName, oldPassword, newName, newPassword);
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, UpdateCredentialsRequest value) throws IOException {
+            out.name("oldName").value(value.getOldName());
+            out.name("oldPsw").value(value.getOldPassword());
+            out.name("newName").value(value.getNewName());
+            out.name("newPsw").value(value.getNewPassword());
+        }
+    }
+
+    /** Adapter per {@link SubmitProposalRequest}. */
+    public static final class SubmitProposalAdapter extends RequestAdapter<SubmitProposalRequest> {
+        @Override
+        public SubmitProposalRequest readFields(JsonReader in) throws IOException {
+            List<String> words = null;
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "words" -> words = nextStringListOrNull(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            return new SubmitProposalRequest(words);
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, SubmitProposalRequest value) throws IOException {
+            out.name("words").beginArray();
+            for (String word : value.getWords()) out.value(word);
+            out.endArray();
+        }
+    }
+
+    /** Adapter per {@link GameInfoRequest}. */
+    public static final class GameInfoAdapter extends RequestAdapter<GameInfoRequest> {
+        @Override
+        public GameInfoRequest readFields(JsonReader in) throws IOException {
+            Integer gameId = null;
+            Boolean current = null;
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "gameId" -> gameId = nextIntOrNull(in);
+                    case "current" -> current = nextBooleanOrNull(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            if (gameId != null) return new GameInfoRequest(gameId);
+            return new GameInfoRequest(Boolean.TRUE.equals(current));
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, GameInfoRequest value) throws IOException {
+            out.name("gameId").value(value.getGameId());
+            if (value.getCurrent()) out.name("current").value(true);
+        }
+    }
+
+    /** Adapter per {@link GameStatsRequest}. */
+    public static final class GameStatsAdapter extends RequestAdapter<GameStatsRequest> {
+        @Override
+        public GameStatsRequest readFields(JsonReader in) throws IOException {
+            Integer gameId = null;
+            Boolean current = null;
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "gameId" -> gameId = nextIntOrNull(in);
+                    case "current" -> current = nextBooleanOrNull(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            if (gameId != null) return new GameStatsRequest(gameId);
+            return new GameStatsRequest(Boolean.TRUE.equals(current));
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, GameStatsRequest value) throws IOException {
+            out.name("gameId").value(value.getGameId());
+            if (value.isCurrent()) out.name("current").value(true);
+        }
+    }
+
+    /** Adapter per {@link LeaderboardRequest}. */
+    public static final class LeaderboardAdapter extends RequestAdapter<LeaderboardRequest> {
+        @Override
+        public LeaderboardRequest readFields(JsonReader in) throws IOException {
+            String playerName = null;
+            Integer topPlayers = null;
+            Boolean all = null;
+            String cursor = null;
+            Integer offset = null;
+            Integer limit = null;
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "playerName" -> playerName = nextStringOrNull(in);
+                    case "topPlayers" -> topPlayers = nextIntOrNull(in);
+                    case "all" -> all = nextBooleanOrNull(in);
+                    case "cursor" -> cursor = nextStringOrNull(in);
+                    case "offset" -> offset = nextIntOrNull(in);
+                    case "limit" -> limit = nextIntOrNull(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            if (limit != null) return new LeaderboardRequest(cursor, offset != null ? offset : 0, limit);
+            if (Boolean.TRUE.equals(all)) return new LeaderboardRequest(true);
+            if (topPlayers != null) return new LeaderboardRequest(topPlayers.intValue());
+            if (playerName != null) return new LeaderboardRequest(playerName);
+            return new LeaderboardRequest(false); // Lancia IllegalArgumentException
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, LeaderboardRequest value) throws IOException {
+            out.name("playerName").value(value.getPlayerUsername());
+            out.name("topPlayers").value(value.getKTopPlayers());
+            if (value.isAll()) out.name("all").value(true);
+
+            if (value.isPaged()) {
+                if (value.getCursor() != null) out.name("cursor").value(value.getCursor());
+                if (value.getOffset() > 0) out.name("offset").value(value.getOffset());
+                out.name("limit").value(value.getLimit());
+            }
+        }
+    }
+
+    /** Adapter per {@link PlayerStatsRequest}. */
+    public static final class PlayerStatsAdapter extends RequestAdapter<PlayerStatsRequest> {
+        @Override
+        public PlayerStatsRequest readFields(JsonReader in) throws IOException {
+            while (in.hasNext()) {
+                in.nextName();
+                in.skipValue();
+            }
+
+            return new PlayerStatsRequest();
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, PlayerStatsRequest value) { ; }
+    }
+}
@@ -0,0 +1,160 @@
+package com.nicholasTropea.game.net;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Decoder in streaming delle richieste dei client.
+ *
+ * Legge una richiesta alla volta direttamente da un {@link JsonReader}
+ * (tipicamente costruito sullo stream del socket), senza passare per una
+ * {@code String} intermedia né per la reflection di Gson: trovato il
+ * campo {@code "operation"}, i campi restanti vengono passati al
+ * {@link RequestAdapter} registrato per quell'operazione.
+ *
+ * Se "operation" non è il primo campo l'oggetto viene letto in un albero
+ * {@link JsonObject} e poi convertito dallo stesso adapter (percorso lento).
+ *
+ * Errori:
+ * <ul>
+ *   <li>{@link JsonParseException}: richiesta sintatticamente corretta ma non
+ *       valida (operazione sconosciuta, campi errati). L'oggetto è stato
+ *       consumato per intero e il reader può essere riusato.</li>
+ *   <li>{@link MalformedJsonException}: JSON non valido o di forma inattesa.
+ *       La posizione del reader non è più affidabile.</li>
+ * </ul>
+ *
+ * Le istanze sono immutabili e thread-safe.
+ */
+public class RequestDecoder {
+    /** Adapter per operazione. */
+    private final Map<String, RequestAdapter<?>> adapters;
+
+    /** Crea un decoder con gli adapter di tutte le richieste del protocollo. */
+    public RequestDecoder() { this(RequestAdapters.BY_OPERATION); }
+
+    /**
+     * Crea un decoder con gli adapter specificati.
+     *
+     * @param adapters Adapter indicizzati per operazione
+     */
+    public RequestDecoder(Map<String, RequestAdapter<?>> adapters) { this.adapters = Map.copyOf(adapters); }
+
+    /**
+     * Legge la prossima richiesta dal reader.
+     *
+     * @param in Reader posizionato all'inizio di una richiesta
+     * @return Richiesta decodificata
+     * @throws JsonParseException Se la richiesta non è valida (reader ancora utilizzabile)
+     * @throws MalformedJsonException Se il JSON è malformato (reader non più utilizzabile)
+     * @throws IOException In caso di errore di lettura
+     */
+    public Request read(JsonReader in) throws IOException {
+        try {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                throw new JsonParseException("richiesta malformata");
+            }
+
+            in.beginObject();
+            if (!in.hasNext()) {
+                in.endObject();
+                throw new JsonParseException("operazione sconosciuta");
+            }
+
+            String firstName = in.nextName();
+            if (!firstName.equals("operation")) return this.readSlow(in, firstName);
+
+            String operation = null;
+            if (in.peek() == JsonToken.STRING) operation = in.nextString();
+            else in.skipValue();
+
+            RequestAdapter<?> adapter = this.adapterFor(operation);
+            if (adapter == null) {
+                skipRemaining(in);
+                throw new JsonParseException("operazione sconosciuta");
+            }
+
+            Request request;
+            try { request = adapter.readFields(in); }
+            catch (IllegalArgumentException | NullPointerException e) {
+                skipRemaining(in); // I campi sono già stati letti tutti
+                throw new JsonParseException("richiesta non valida");
+            }
+
+            in.endObject();
+            return request;
+        }
+        catch (IllegalStateException | NumberFormatException e) {
+            // Token di tipo inatteso: la posizione nel flusso non è più nota
+            throw new MalformedJsonException("richiesta malformata");
+        }
+    }
+
+    /**
+     * Percorso lento: "operation" non è il primo campo.
+     *
+     * @param in Reader posizionato dopo il nome del primo campo
+     * @param firstName Nome del primo campo
+     * @return Richiesta decodificata
+     */
+    private Request readSlow(JsonReader in, String firstName) throws IOException {
+        JsonObject tree = new JsonObject();
+
+        try {
+            tree.add(firstName, JsonParser.parseReader(in));
+
+            while (in.hasNext()) {
+                String name = in.nextName();
+                tree.add(name, JsonParser.parseReader(in));
+            }
+        }
+        catch (JsonParseException e) { throw new MalformedJsonException("richiesta malformata"); }
+
+        in.endObject();
+
+        JsonElement operation = tree.get("operation");
+        RequestAdapter<?> adapter = this.adapterFor(
+            operation != null && operation.isJsonPrimitive() ? operation.getAsString() : null
+        );
+
+        if (adapter == null) throw new JsonParseException("operazione sconosciuta");
+
+        try { return adapter.fromJsonTree(tree); }
+        catch (RuntimeException e) { // Campi mancanti, non validi o di tipo errato
+            throw new JsonParseException("richiesta non valida");
+        }
+    }
+
+    /**
+     * Restituisce l'adapter per l'operazione specificata.
+     *
+     * @param operation Valore del campo "operation" (può essere null)
+     * @return Adapter registrato, null se l'operazione è sconosciuta
+     */
+    private RequestAdapter<?> adapterFor(String operation) {
+        return operation != null ? this.adapters.get(operation) : null;
+    }
+
+    /**
+     * Salta i campi rimanenti dell'oggetto corrente e lo chiude.
+     *
+     * @param in Reader posizionato su un nome di campo o sulla fine dell'oggetto
+     */
+    private static void skipRemaining(JsonReader in) throws IOException {
+        while (in.hasNext()) {
+            in.nextName();
+            in.skipValue();
+        }
+
+        in.endObject();
+    }
+}
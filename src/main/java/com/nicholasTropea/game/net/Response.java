@@ -0,0 +1,17 @@
+package com.nicholasTropea.game.net;
+
+/**
+ * Risposta inviata dal server ad un client.
+ *
+ * Ogni risposta indica nel campo JSON {@code "success"} se la richiesta è
+ * andata a buon fine; in caso contrario il campo {@code "error"} ne
+ * descrive il motivo.
+ */
+public interface Response {
+    /**
+     * Getter per l'esito della richiesta.
+     *
+     * @return Valore del campo "success"
+     */
+    boolean isSuccess();
+}
@@ -0,0 +1,729 @@
+package com.nicholasTropea.game.net;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import com.nicholasTropea.game.model.LeaderboardRecord;
+import com.nicholasTropea.game.model.MistakeHistogram;
+
+/**
+ * Adapter JSON scritti a mano per tutte le risposte del protocollo e per
+ * le classi del modello che vi compaiono.
+ *
+ * Il formato prodotto è identico a quello della serializzazione riflessiva
+ * di Gson (stessi nomi di campo, campi null omessi); la lettura ricostruisce
+ * le risposte tramite i loro metodi factory {@code success(...)} ed
+ * {@code error(...)}.
+ */
+public final class ResponseAdapters {
+    private ResponseAdapters() { ; }
+
+    /** Adapter per {@link RegisterResponse}. */
+    public static final class RegisterAdapter extends TypeAdapter<RegisterResponse> {
+        @Override
+        public void write(JsonWriter out, RegisterResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("success").value(value.isSuccess());
+            out.name("error").value(value.getError());
+            out.endObject();
+        }
+
+        @Override
+        public RegisterResponse read(JsonReader in) throws IOException {
+            Base base = readBase(in, null);
+            return base.success ? RegisterResponse.success() : RegisterResponse.error(base.error);
+        }
+    }
+
+    /** Adapter per {@link LogoutResponse}. */
+    public static final class LogoutAdapter extends TypeAdapter<LogoutResponse> {
+        @Override
+        public void write(JsonWriter out, LogoutResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("success").value(value.isSuccess());
+            out.name("error").value(value.getError());
+            out.endObject();
+        }
+
+        @Override
+        public LogoutResponse read(JsonReader in) throws IOException {
+            Base base = readBase(in, null);
+            return base.success ? LogoutResponse.success() : LogoutResponse.error(base.error);
+        }
+    }
+
+    /** Adapter per {@link UpdateCredentialsResponse}. */
+    public static final class UpdateCredentialsAdapter extends TypeAdapter<UpdateCredentialsResponse> {
+        @Override
+        public void write(JsonWriter out, UpdateCredentialsResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("success").value(value.isSuccess());
+            out.name("error").value(value.getError());
+            out.endObject();
+        }
+
+        @Override
+        public UpdateCredentialsResponse read(JsonReader in) throws IOException {
+            Base base = readBase(in, null);
+            return base.success ? UpdateCredentialsResponse.success() : UpdateCredentialsResponse.error(base.error);
+        }
+    }
+
+    /** Adapter per {@link ErrorResponse}. */
+    public static final class ErrorAdapter extends TypeAdapter<ErrorResponse> {
+        @Override
+        public void write(JsonWriter out, ErrorResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("success").value(false);
+            out.name("error").value(value.getError());
+            out.endObject();
+        }
+
+        @Override
+        public ErrorResponse read(JsonReader in) throws IOException {
+            return ErrorResponse.error(readBase(in, null).error);
+        }
+    }
+
+    /** Adapter per {@link SubmitProposalResponse}. */
+    public static final class SubmitProposalAdapter extends TypeAdapter<SubmitProposalResponse> {
+        @Override
+        public void write(JsonWriter out, SubmitProposalResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("success").value(value.isSuccess());
+            out.name("error").value(value.getError());
+            out.name("result").value(value.getResult());
+            out.name("groupName").value(value.getGroupName());
+            out.endObject();
+        }
+
+        @Override
+        public SubmitProposalResponse read(JsonReader in) throws IOException {
+            Boolean[] result = { null };
+            String[] groupName = { null };
+
+            Base base = readBase(in, (name, reader) -> {
+                switch (name) {
+                    case "result" -> result[0] = nextBooleanOrNull(reader);
+                    case "groupName" -> groupName[0] = nextStringOrNull(reader);
+                    default -> reader.skipValue();
+                }
+            });
+
+            if (!base.success) return SubmitProposalResponse.error(base.error);
+            return SubmitProposalResponse.success(Boolean.TRUE.equals(result[0]), groupName[0]);
+        }
+    }
+
+    /** Adapter per {@link LoginResponse}. */
+    public static final class LoginAdapter extends TypeAdapter<LoginResponse> {
+        @Override
+        public void write(JsonWriter out, LoginResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            // Risposta basata sui frammenti del turno: già codificata
+            byte[] line = value.getEncodedLine();
+            if (line != null) {
+                out.jsonValue(RoundFragments.json(line));
+                return;
+            }
+
+            out.beginObject();
+            out.name("success").value(value.isSuccess());
+            out.name("error").value(value.getError());
+            out.name("gameId").value(value.getGameId());
+            writeStringList(out.name("words"), value.getWords());
+            writeGroups(out.name("guessedGroups"), value.getGuessedGroups());
+            out.name("timeLeft").value(value.getTimeLeft());
+            out.name("errors").value(value.getErrors());
+            out.name("score").value(value.getScore());
+            out.endObject();
+        }
+
+        @Override
+        public LoginResponse read(JsonReader in) throws IOException {
+            Object[] f = new Object[6];
+
+            Base base = readBase(in, (name, reader) -> {
+                switch (name) {
+                    case "gameId" -> f[0] = nextIntOrNull(reader);
+                    case "words" -> f[1] = nextStringListOrNull(reader);
+                    case "guessedGroups" -> f[2] = nextGroupsOrNull(reader);
+                    case "timeLeft" -> f[3] = nextLongOrNull(reader);
+                    case "errors" -> f[4] = nextIntOrNull(reader);
+                    case "score" -> f[5] = nextIntOrNull(reader);
+                    default -> reader.skipValue();
+                }
+            });
+
+            if (!base.success) return LoginResponse.error(base.error);
+
+            @SuppressWarnings("unchecked")
+            LoginResponse resp = LoginResponse.success(
+                (Integer) f[0], (List<String>) f[1], (List<List<String>>) f[2],
+                (Long) f[3], (Integer) f[4], (Integer) f[5]
+            );
+
+            return resp;
+        }
+    }
+
+    /** Adapter per {@link GameInfoResponse}. */
+    public static final class GameInfoAdapter extends TypeAdapter<GameInfoResponse> {
+        @Override
+        public void write(JsonWriter out, GameInfoResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            // Risposta basata sui frammenti del turno: già codificata
+            byte[] line = value.getEncodedLine();
+            if (line != null) {
+                out.jsonValue(RoundFragments.json(line));
+                return;
+            }
+
+            out.beginObject();
+            out.name("success").value(value.isSuccess());
+            out.name("error").value(value.getError());
+            out.name("active").value(value.isActive());
+            out.name("timeLeft").value(value.getTimeLeft());
+            writeStringList(out.name("wordsLeft"), value.getWordsLeft());
+            writeGroups(out.name("solution"), value.getSolution());
+            writeGroups(out.name("guessedGroups"), value.getGuessedGroups());
+            out.name("errors").value(value.getErrors());
+            out.name("score").value(value.getScore());
+            out.endObject();
+        }
+
+        @Override
+        public GameInfoResponse read(JsonReader in) throws IOException {
+            Object[] f = new Object[7];
+
+            Base base = readBase(in, (name, reader) -> {
+                switch (name) {
+                    case "active" -> f[0] = nextBooleanOrNull(reader);
+                    case "timeLeft" -> f[1] = nextLongOrNull(reader);
+                    case "wordsLeft" -> f[2] = nextStringListOrNull(reader);
+                    case "solution" -> f[3] = nextGroupsOrNull(reader);
+                    case "guessedGroups" -> f[4] = nextGroupsOrNull(reader);
+                    case "errors" -> f[5] = nextIntOrNull(reader);
+                    case "score" -> f[6] = nextIntOrNull(reader);
+                    default -> reader.skipValue();
+                }
+            });
+
+            if (!base.success) return GameInfoResponse.error(base.error);
+
+            @SuppressWarnings("unchecked")
+            GameInfoResponse resp = GameInfoResponse.success(
+                Boolean.TRUE.equals(f[0]), (Long) f[1], (List<String>) f[2],
+                (List<List<String>>) f[3], (List<List<String>>) f[4], (Integer) f[5], (Integer) f[6]
+            );
+
+            return resp;
+        }
+    }
+
+    /** Adapter per {@link GameStatsResponse}. */
+    public static final class GameStatsAdapter extends TypeAdapter<GameStatsResponse> {
+        @Override
+        public void write(JsonWriter out, GameStatsResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("success").value(value.isSuccess());
+            out.name("error").value(value.getError());
+            out.name("active").value(value.isActive());
+            out.name("timeLeft").value(value.getTimeLeft());
+            out.name("activePlayers").value(value.getActivePlayers());
+            out.name("finishedPlayers").value(value.getFinishedPlayers());
+            out.name("wonPlayers").value(value.getWonPlayers());
+            out.name("totalPlayers").value(value.getTotalPlayers());
+            out.name("averageScore").value(value.getAverageScore());
+            out.endObject();
+        }
+
+        @Override
+        public GameStatsResponse read(JsonReader in) throws IOException {
+            Object[] f = new Object[7];
+
+            Base base = readBase(in, (name, reader) -> {
+                switch (name) {
+                    case "active" -> f[0] = nextBooleanOrNull(reader);
+                    case "timeLeft" -> f[1] = nextLongOrNull(reader);
+                    case "activePlayers" -> f[2] = nextIntOrNull(reader);
+                    case "finishedPlayers" -> f[3] = nextIntOrNull(reader);
+                    case "wonPlayers" -> f[4] = nextIntOrNull(reader);
+                    case "totalPlayers" -> f[5] = nextIntOrNull(reader);
+                    case "averageScore" -> f[6] = nextFloatOrNull(reader);
+                    default -> reader.skipValue();
+                }
+            });
+
+            if (!base.success) return GameStatsResponse.error(base.error);
+
+            return GameStatsResponse.success(
+                Boolean.TRUE.equals(f[0]), (Long) f[1], (Integer) f[2],
+                (Integer) f[3], (Integer) f[4], (Integer) f[5], (Float) f[6]
+            );
+        }
+    }
+
+    /** Adapter per {@link LeaderboardResponse}. */
+    public static final class LeaderboardAdapter extends TypeAdapter<LeaderboardResponse> {
+        private final LeaderboardRecordAdapter recordAdapter = new LeaderboardRecordAdapter();
+
+        @Override
+        public void write(JsonWriter out, LeaderboardResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            // Record scritti uno alla volta, anche quando vengono prodotti in streaming
+            writeHead(out, value);
+            value.forEachRecord((username, position) -> writeRecord(out, username, position));
+            writeTail(out, value);
+        }
+
+        /**
+         * Scrive l'inizio della risposta, fino all'apertura della lista dei
+         * record. Con {@link #writeRecord} e {@link #writeTail} permette di
+         * scrivere una risposta in streaming a più riprese.
+         *
+         * @param out Writer JSON
+         * @param value Risposta da scrivere
+         * @throws IOException In caso di errore di scrittura
+         */
+        public static void writeHead(JsonWriter out, LeaderboardResponse value) throws IOException {
+            out.beginObject();
+            out.name("success").value(value.isSuccess());
+            out.name("error").value(value.getError());
+            if (value.isSuccess()) out.name("records").beginArray();
+        }
+
+        /**
+         * Scrive un record della lista, dopo {@link #writeHead}.
+         *
+         * @param out Writer JSON
+         * @param username Username del giocatore
+         * @param position Posizione in classifica
+         * @throws IOException In caso di errore di scrittura
+         */
+        public static void writeRecord(JsonWriter out, String username, int position) throws IOException {
+            out.beginObject().name("username").value(username).name("position").value(position).endObject();
+        }
+
+        /**
+         * Chiude la lista dei record e la risposta.
+         *
+         * @param out Writer JSON
+         * @param value Risposta da scrivere
+         * @throws IOException In caso di errore di scrittura
+         */
+        public static void writeTail(JsonWriter out, LeaderboardResponse value) throws IOException {
+            if (value.isSuccess()) out.endArray();
+            if (value.getNextCursor() != null) out.name("nextCursor").value(value.getNextCursor());
+            out.endObject();
+        }
+
+        @Override
+        public LeaderboardResponse read(JsonReader in) throws IOException {
+            List<LeaderboardRecord> records = new ArrayList<>();
+            String[] nextCursor = { null };
+
+            Base base = readBase(in, (name, reader) -> {
+                if (name.equals("records") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) records.add(this.recordAdapter.read(reader));
+                    reader.endArray();
+                }
+                else if (name.equals("nextCursor")) nextCursor[0] = nextStringOrNull(reader);
+                else reader.skipValue();
+            });
+
+            if (!base.success) return LeaderboardResponse.error(base.error);
+            return nextCursor[0] != null ? LeaderboardResponse.page(records, nextCursor[0]) : LeaderboardResponse.success(records);
+        }
+    }
+
+    /** Adapter per {@link PlayerStatsResponse}. */
+    public static final class PlayerStatsAdapter extends TypeAdapter<PlayerStatsResponse> {
+        private final MistakeHistogramAdapter histogramAdapter = new MistakeHistogramAdapter();
+
+        @Override
+        public void write(JsonWriter out, PlayerStatsResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            // Serializzazione già pronta: nessun campo da rileggere
+            if (value.getEncodedJson() != null) {
+                out.jsonValue(value.getEncodedJson());
+                return;
+            }
+
+            out.beginObject();
+            out.name("success").value(value.isSuccess());
+            out.name("error").value(value.getError());
+            out.name("solvedPuzzles").value(value.getSolvedPuzzles());
+            out.name("failedPuzzles").value(value.getFailedPuzzles());
+            out.name("unfinishedPuzzles").value(value.getUnfinishedPuzzles());
+            out.name("perfectPuzzles").value(value.getPerfectPuzzles());
+            out.name("winRate").value(value.getWinRate());
+            out.name("lossRate").value(value.getLossRate());
+            out.name("currentStreak").value(value.getCurrentStreak());
+            out.name("maxStreak").value(value.getMaxStreak());
+
+            if (value.getHistogram() != null) {
+                out.name("histogram");
+                this.histogramAdapter.write(out, value.getHistogram());
+            }
+
+            out.endObject();
+        }
+
+        @Override
+        public PlayerStatsResponse read(JsonReader in) throws IOException {
+            Object[] f = new Object[9];
+
+            Base base = readBase(in, (name, reader) -> {
+                switch (name) {
+                    case "solvedPuzzles" -> f[0] = nextIntOrNull(reader);
+                    case "failedPuzzles" -> f[1] = nextIntOrNull(reader);
+                    case "unfinishedPuzzles" -> f[2] = nextIntOrNull(reader);
+                    case "perfectPuzzles" -> f[3] = nextIntOrNull(reader);
+                    case "winRate" -> f[4] = nextFloatOrNull(reader);
+                    case "lossRate" -> f[5] = nextFloatOrNull(reader);
+                    case "currentStreak" -> f[6] = nextIntOrNull(reader);
+                    case "maxStreak" -> f[7] = nextIntOrNull(reader);
+                    case "histogram" -> f[8] = this.histogramAdapter.read(reader);
+                    default -> reader.skipValue();
+                }
+            });
+
+            if (!base.success) return PlayerStatsResponse.error(base.error);
+
+            return PlayerStatsResponse.success(
+                (Integer) f[0], (Integer) f[1], (Integer) f[2], (Integer) f[3],
+                (Float) f[4], (Float) f[5], (Integer) f[6], (Integer) f[7],
+                (MistakeHistogram) f[8]
+            );
+        }
+    }
+
+    /** Adapter per {@link LeaderboardRecord}. */
+    public static final class LeaderboardRecordAdapter extends TypeAdapter<LeaderboardRecord> {
+        @Override
+        public void write(JsonWriter out, LeaderboardRecord value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("username").value(value.getUsername());
+            out.name("position").value(value.getPosition());
+            out.endObject();
+        }
+
+        @Override
+        public LeaderboardRecord read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            String username = null;
+            int position = 0;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username" -> username = nextStringOrNull(in);
+                    case "position" -> position = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new LeaderboardRecord(username, position);
+        }
+    }
+
+    /**
+     * Adapter per {@link MistakeHistogram}.
+     *
+     * Mantiene il formato riflessivo: {@code {"values": {"Perfect": INT, ...}}}.
+     */
+    public static final class MistakeHistogramAdapter extends TypeAdapter<MistakeHistogram> {
+        @Override
+        public void write(JsonWriter out, MistakeHistogram value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("values").beginObject();
+            for (int i = 0; i < MistakeHistogram.LABELS.length; i++) out.name(MistakeHistogram.LABELS[i]).value(value.get(i));
+            out.endObject();
+            out.endObject();
+        }
+
+        @Override
+        public MistakeHistogram read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            int[] v = new int[6];
+
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!in.nextName().equals("values")) {
+                    in.skipValue();
+                    continue;
+                }
+
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "Perfect" -> v[0] = in.nextInt();
+                        case "1 Mistake" -> v[1] = in.nextInt();
+                        case "2 Mistakes" -> v[2] = in.nextInt();
+                        case "3 Mistakes" -> v[3] = in.nextInt();
+                        case "Failed" -> v[4] = in.nextInt();
+                        case "Unfinished" -> v[5] = in.nextInt();
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+            }
+            in.endObject();
+
+            return new MistakeHistogram(v);
+        }
+    }
+
+    /** Adapter per {@link Notification}. */
+    public static final class NotificationAdapter extends TypeAdapter<Notification> {
+        private final LeaderboardRecordAdapter recordAdapter = new LeaderboardRecordAdapter();
+
+        @Override
+        public void write(JsonWriter out, Notification value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("type").value(value.getType());
+            out.name("seq").value(value.getSeq());
+            out.name("gameId").value(value.getGameId());
+            out.name("timeLeft").value(value.getTimeLeft());
+            out.name("players").value(value.getPlayers());
+            out.name("finished").value(value.getFinished());
+            out.name("won").value(value.getWon());
+
+            if (value.getTop() != null) {
+                out.name("top").beginArray();
+                for (LeaderboardRecord record : value.getTop()) this.recordAdapter.write(out, record);
+                out.endArray();
+            }
+
+            out.endObject();
+        }
+
+        @Override
+        public Notification read(JsonReader in) throws IOException {
+            Object[] f = new Object[7];
+            long seq = 0;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type" -> f[0] = nextStringOrNull(in);
+                    case "seq" -> seq = in.nextLong();
+                    case "gameId" -> f[1] = nextIntOrNull(in);
+                    case "timeLeft" -> f[2] = nextLongOrNull(in);
+                    case "players" -> f[3] = nextIntOrNull(in);
+                    case "finished" -> f[4] = nextIntOrNull(in);
+                    case "won" -> f[5] = nextIntOrNull(in);
+                    case "top" -> {
+                        List<LeaderboardRecord> top = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) top.add(this.recordAdapter.read(in));
+                        in.endArray();
+                        f[6] = top;
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            @SuppressWarnings("unchecked")
+            Notification notification = Notification.of(
+                (String) f[0], seq, (Integer) f[1], (Long) f[2],
+                (Integer) f[3], (Integer) f[4], (Integer) f[5], (List<LeaderboardRecord>) f[6]
+            );
+
+            return notification;
+        }
+    }
+
+    // Lettura dei campi comuni "success" ed "error"
+
+    /** Lettore dei campi specifici di una risposta. */
+    @FunctionalInterface
+    private interface FieldReader {
+        void read(String name, JsonReader in) throws IOException;
+    }
+
+    /** Campi comuni a tutte le risposte. */
+    private static final class Base {
+        boolean success;
+        String error;
+    }
+
+    /**
+     * Legge un oggetto risposta: gestisce "success" ed "error" e passa gli
+     * altri campi al lettore specifico (se null vengono saltati).
+     */
+    private static Base readBase(JsonReader in, FieldReader fields) throws IOException {
+        Base base = new Base();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+
+            switch (name) {
+                case "success" -> base.success = in.nextBoolean();
+                case "error" -> base.error = nextStringOrNull(in);
+                default -> {
+                    if (fields != null) fields.read(name, in);
+                    else in.skipValue();
+                }
+            }
+        }
+        in.endObject();
+
+        return base;
+    }
+
+    // Helper di scrittura
+
+    private static void writeStringList(JsonWriter out, List<String> list) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (String s : list) out.value(s);
+        out.endArray();
+    }
+
+    private static void writeGroups(JsonWriter out, List<List<String>> groups) throws IOException {
+        if (groups == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (List<String> group : groups) writeStringList(out, group);
+        out.endArray();
+    }
+
+    // Helper di lettura per campi opzionali
+
+    private static String nextStringOrNull(JsonReader in) throws IOException {
+        return RequestAdapter.nextStringOrNull(in);
+    }
+
+    private static Integer nextIntOrNull(JsonReader in) throws IOException {
+        return RequestAdapter.nextIntOrNull(in);
+    }
+
+    private static Boolean nextBooleanOrNull(JsonReader in) throws IOException {
+        return RequestAdapter.nextBooleanOrNull(in);
+    }
+
+    private static List<String> nextStringListOrNull(JsonReader in) throws IOException {
+        return RequestAdapter.nextStringListOrNull(in);
+    }
+
+    private static Long nextLongOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        return in.nextLong();
+    }
+
+    private static Float nextFloatOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        return (float) in.nextDouble();
+    }
+
+    private static List<List<String>> nextGroupsOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        List<List<String>> groups = new ArrayList<>(4);
+
+        in.beginArray();
+        while (in.hasNext()) groups.add(nextStringListOrNull(in));
+        in.endArray();
+
+        return groups;
+    }
+}
@@ -0,0 +1,221 @@
+package com.nicholasTropea.game.net;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.nicholasTropea.game.model.Game;
+
+/**
+ * Frammenti JSON già codificati delle parti di una partita uguali per
+ * tutti i giocatori: ogni parola della plancia, ogni gruppo, la plancia
+ * intera e la soluzione.
+ *
+ * Viene creata una volta per turno; le risposte di login e di
+ * {@link GameInfoRequest} della partita attiva la referenziano insieme ai
+ * soli campi del giocatore (maschera delle parole rimanenti, gruppi
+ * indovinati, errori, punteggio), e la riga JSON viene composta
+ * concatenando i frammenti in byte UTF-8 ({@link #encodeLine}), senza
+ * liste intermedie né escaping.
+ *
+ * L'output coincide byte per byte con quello degli adapter di
+ * {@link ResponseAdapters}: i frammenti sono prodotti da {@link Json#GSON}.
+ */
+public final class RoundFragments {
+    /** Partita dei frammenti */
+    private final Game game;
+
+    /** Parole della plancia, per posizione, come stringhe JSON */
+    private final byte[][] words;
+
+    /** Gruppi, come array JSON di stringhe */
+    private final byte[][] groups;
+
+    /** Plancia intera, come array JSON */
+    private final byte[] board;
+
+    /** Soluzione, come array JSON di gruppi */
+    private final byte[] solution;
+
+    /** Soluzione come liste, condivisa tra le risposte */
+    private final List<List<String>> solutionList;
+
+    /**
+     * Codifica i frammenti di una partita.
+     *
+     * @param game Partita
+     */
+    public RoundFragments(Game game) {
+        this.game = game;
+
+        List<String> board = game.getBoard();
+        this.words = new byte[board.size()][];
+        for (int i = 0; i < board.size(); i++) this.words[i] = utf8(Json.GSON.toJson(board.get(i)));
+
+        List<List<String>> solution = new ArrayList<>();
+        this.groups = new byte[game.getGroups().size()][];
+        for (int g = 0; g < this.groups.length; g++) {
+            List<String> group = game.getGroups().get(g).getWords();
+            solution.add(group);
+            this.groups[g] = utf8(Json.GSON.toJson(group));
+        }
+
+        this.board = utf8(Json.GSON.toJson(board));
+        this.solution = utf8(Json.GSON.toJson(solution));
+        this.solutionList = List.copyOf(solution);
+    }
+
+    /**
+     * Getter per la partita dei frammenti.
+     *
+     * @return Partita
+     */
+    public Game getGame() { return this.game; }
+
+    /**
+     * Restituisce le parole della plancia di una maschera.
+     *
+     * @param mask Posizioni sulla plancia
+     * @return Parole, nell'ordine della plancia
+     */
+    public List<String> words(int mask) {
+        List<String> board = this.game.getBoard();
+        List<String> words = new ArrayList<>(Integer.bitCount(mask));
+        for (int i = 0; i < board.size(); i++) if ((mask & 1 << i) != 0) words.add(board.get(i));
+        return words;
+    }
+
+    /**
+     * Restituisce i gruppi indicati da una maschera.
+     *
+     * @param groupBits Bit g impostato per il gruppo g
+     * @return Parole dei gruppi, in ordine di gruppo
+     */
+    public List<List<String>> groups(int groupBits) {
+        List<List<String>> groups = new ArrayList<>(Integer.bitCount(groupBits));
+        for (int g = 0; g < this.groups.length; g++) if ((groupBits & 1 << g) != 0) groups.add(this.solutionList.get(g));
+        return groups;
+    }
+
+    /**
+     * Getter per la soluzione della partita.
+     *
+     * @return Gruppi della partita, lista non modificabile
+     */
+    public List<List<String>> solution() { return this.solutionList; }
+
+    /**
+     * Calcola i gruppi indovinati da una maschera di parole rimanenti.
+     *
+     * @param remaining Posizioni non ancora raggruppate
+     * @return Bit g impostato se il gruppo g è stato indovinato
+     */
+    public int guessedGroups(int remaining) {
+        int bits = 0;
+        for (int g = 0; g < this.groups.length; g++) if ((this.game.getGroupMask(g) & remaining) == 0) bits |= 1 << g;
+        return bits;
+    }
+
+    /**
+     * Compone la riga JSON di una risposta creata con
+     * {@link GameInfoResponse#ofRound}.
+     *
+     * @param r Risposta
+     * @return Byte UTF-8 dell'oggetto JSON, seguiti da '\n'
+     */
+    public byte[] encodeLine(GameInfoResponse r) {
+        Builder out = new Builder(this.solution.length + this.board.length + 128);
+
+        out.ascii("{\"success\":true,\"active\":").ascii(r.isActive() ? "true" : "false");
+        if (r.isActive()) {
+            out.ascii(",\"timeLeft\":").number(r.getTimeLeft());
+            out.ascii(",\"wordsLeft\":").words(r.getRemainingMask());
+        }
+        else out.ascii(",\"solution\":").bytes(this.solution);
+
+        out.ascii(",\"guessedGroups\":").groups(r.getGuessedGroupBits());
+        out.ascii(",\"errors\":").number(r.getErrors());
+        out.ascii(",\"score\":").number(r.getScore());
+        return out.ascii("}\n").toArray();
+    }
+
+    /**
+     * Compone la riga JSON di una risposta creata con
+     * {@link LoginResponse#ofRound}.
+     *
+     * @param r Risposta
+     * @return Byte UTF-8 dell'oggetto JSON, seguiti da '\n'
+     */
+    public byte[] encodeLine(LoginResponse r) {
+        Builder out = new Builder(this.solution.length + this.board.length + 128);
+
+        out.ascii("{\"success\":true,\"gameId\":").number(this.game.getId());
+        out.ascii(",\"words\":").bytes(this.board);
+        out.ascii(",\"guessedGroups\":").groups(r.getGuessedGroupBits());
+        out.ascii(",\"timeLeft\":").number(r.getTimeLeft());
+        out.ascii(",\"errors\":").number(r.getErrors());
+        out.ascii(",\"score\":").number(r.getScore());
+        return out.ascii("}\n").toArray();
+    }
+
+    /**
+     * Restituisce l'oggetto JSON di una risposta, senza terminatore, per
+     * gli adapter che scrivono su un {@code JsonWriter}.
+     *
+     * @param line Riga prodotta da {@link #encodeLine}
+     * @return Oggetto JSON come stringa
+     */
+    static String json(byte[] line) { return new String(line, 0, line.length - 1, StandardCharsets.UTF_8); }
+
+    private static byte[] utf8(String s) { return s.getBytes(StandardCharsets.UTF_8); }
+
+    /** Buffer di byte in crescita con le operazioni di composizione. */
+    private final class Builder {
+        private byte[] buf;
+        private int pos;
+
+        Builder(int capacity) { this.buf = new byte[capacity]; }
+
+        Builder bytes(byte[] b) {
+            if (this.pos + b.length > this.buf.length) this.buf = Arrays.copyOf(this.buf, Math.max(this.buf.length * 2, this.pos + b.length));
+            System.arraycopy(b, 0, this.buf, this.pos, b.length);
+            this.pos += b.length;
+            return this;
+        }
+
+        Builder ascii(String s) {
+            if (this.pos + s.length() > this.buf.length) this.buf = Arrays.copyOf(this.buf, Math.max(this.buf.length * 2, this.pos + s.length()));
+            for (int i = 0; i < s.length(); i++) this.buf[this.pos++] = (byte) s.charAt(i);
+            return this;
+        }
+
+        Builder number(long n) { return this.ascii(Long.toString(n)); }
+
+        Builder words(int mask) {
+            this.ascii("[");
+            boolean first = true;
+            for (int i = 0; i < RoundFragments.this.words.length; i++) {
+                if ((mask & 1 << i) == 0) continue;
+                if (!first) this.ascii(",");
+                this.bytes(RoundFragments.this.words[i]);
+                first = false;
+            }
+            return this.ascii("]");
+        }
+
+        Builder groups(int groupBits) {
+            this.ascii("[");
+            boolean first = true;
+            for (int g = 0; g < RoundFragments.this.groups.length; g++) {
+                if ((groupBits & 1 << g) == 0) continue;
+                if (!first) this.ascii(",");
+                this.bytes(RoundFragments.this.groups[g]);
+                first = false;
+            }
+            return this.ascii("]");
+        }
+
+        byte[] toArray() { return Arrays.copyOf(this.buf, this.pos); }
+    }
+}
@@ -13,7 +13,7 @@ import com.google.gson.annotations.SerializedName;
  *    "words" : ["word1", "word2", "word3", "word4"]
  * }
  */
-public class SubmitProposalRequest {
+public class SubmitProposalRequest implements Request {
     @SerializedName("operation")
     private final String operation = "submitProposal";
 
@@ -17,7 +17,7 @@ import com.google.gson.annotations.SerializedName;
  * 
  * Errori possibili: "utente non loggato", "parole non valide"
  */
-public class SubmitProposalResponse {
+public class SubmitProposalResponse implements Response {
     /** true se richiesta avvenuta con successo, false altrimenti */
     @SerializedName("success")
     private final boolean success;
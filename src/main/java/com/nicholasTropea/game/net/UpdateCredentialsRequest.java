@@ -20,7 +20,7 @@ import com.google.gson.annotations.SerializedName;
  * 
  * Errori possibili: "oldPsw errata", "newName già registrato"...
  */
-public class UpdateCredentialsRequest {
+public class UpdateCredentialsRequest implements Request {
     /** Operazione effettuata */
     @SerializedName("operation")
     private final String operation = "updateCredentials";
@@ -15,7 +15,7 @@ import com.google.gson.annotations.SerializedName;
  * 
  * Errori possibili: "oldPsw non valida", "utente inesistente", "newName già registrato"
  */
-public class UpdateCredentialsResponse {
+public class UpdateCredentialsResponse implements Response {
     /** true se richiesta avvenuta con successo, false altrimenti */
     @SerializedName("success")
     private final boolean success;
@@ -0,0 +1,438 @@
+package com.nicholasTropea.game.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log asincrono del server su file.
+ *
+ * I thread che registrano un messaggio non scrivono nulla: occupano uno
+ * slot di un buffer circolare con un solo incremento atomico e vi copiano
+ * livello, istante, thread, testo e argomento, senza allocare né prendere
+ * lock. Un unico thread di scrittura formatta gli slot pubblicati in un
+ * buffer di caratteri e di byte riusati e li scrive sul file con un
+ * {@link FileChannel}, più righe per chiamata di sistema; quando il file
+ * supera la dimensione massima viene ruotato ({@code server.log} diventa
+ * {@code server.log.1}, e così via fino a {@code maxFiles} file).
+ *
+ * L'argomento di un messaggio viene convertito in testo dal thread di
+ * scrittura, quindi deve essere immutabile (stringhe, numeri, indirizzi):
+ * la concatenazione non costa nulla a chi registra.
+ *
+ * Con il buffer pieno il comportamento dipende da {@link Overflow}:
+ * {@link Overflow#DROP} scarta il messaggio (il numero di messaggi
+ * scartati viene poi scritto nel log), {@link Overflow#BLOCK} attende uno
+ * slot libero. I messaggi sotto il livello minimo vengono scartati prima
+ * di occupare uno slot.
+ */
+public final class AsyncLogger implements Closeable {
+    /** Livello di un messaggio. */
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    /** Comportamento con il buffer pieno. */
+    public enum Overflow { DROP, BLOCK }
+
+    /** Caratteri massimi di una riga, oltre i quali viene troncata. */
+    public static final int MAX_LINE = 4096;
+
+    /** Dimensione del buffer di scrittura sul file. */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /** Attesa del thread di scrittura con il buffer vuoto, in nanosecondi. */
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    /** Attesa di chi registra con il buffer pieno e {@link Overflow#BLOCK}, in nanosecondi. */
+    private static final long FULL_PARK_NANOS = 50_000;
+
+    /** Formato dell'istante, fino ai secondi. */
+    private static final DateTimeFormatter TIMESTAMP =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    /** Messaggio in un buffer circolare, riusato ad ogni giro. */
+    private static final class Slot {
+        /** Sequenza del messaggio pubblicato nello slot (-1: nessuno) */
+        volatile long sequence = -1;
+
+        Level level;
+        long time;
+        String thread;
+        String text;
+        Object arg;
+    }
+
+    /** File di log attivo */
+    private final Path file;
+
+    /** Buffer circolare dei messaggi */
+    private final Slot[] slots;
+
+    /** Maschera per l'indice nel buffer (capacità - 1) */
+    private final int mask;
+
+    /** Livello minimo dei messaggi registrati */
+    private volatile Level level;
+
+    /** Comportamento con il buffer pieno */
+    private final Overflow overflow;
+
+    /** Dimensione oltre la quale il file viene ruotato, in byte */
+    private final long maxFileBytes;
+
+    /** File conservati, compreso quello attivo */
+    private final int maxFiles;
+
+    /** Prossima sequenza da assegnare */
+    private final AtomicLong claimed;
+
+    /** Prossima sequenza da scrivere; modificata solo dal thread di scrittura */
+    private volatile long consumed;
+
+    /** Messaggi scartati con il buffer pieno */
+    private final LongAdder dropped;
+
+    /** Messaggi scritti sul file */
+    private final LongAdder written;
+
+    /** true dopo la chiusura, o dopo un errore di scrittura */
+    private volatile boolean closed;
+
+    /** Thread di scrittura */
+    private final Thread writer;
+
+    // Stato del thread di scrittura
+
+    /** Canale del file attivo */
+    private FileChannel channel;
+
+    /** Byte del file attivo */
+    private long fileBytes;
+
+    /** Riga in formattazione */
+    private final StringBuilder line;
+
+    /** Caratteri della riga, passati al codificatore */
+    private final char[] chars;
+    private final CharBuffer charBuffer;
+
+    /** Righe codificate e non ancora scritte */
+    private final ByteBuffer out;
+
+    private final CharsetEncoder utf8;
+
+    /** Secondo dell'ultimo istante formattato, e il suo testo */
+    private long cachedSecond;
+    private String cachedTimestamp;
+
+    /** Messaggi scartati già segnalati nel log */
+    private long reportedDrops;
+
+    /**
+     * Apre il file di log (in coda, se esiste) e avvia il thread di scrittura.
+     *
+     * @param file File di log
+     * @param capacity Messaggi nel buffer circolare, potenza di 2
+     * @param level Livello minimo dei messaggi registrati
+     * @param overflow Comportamento con il buffer pieno
+     * @param maxFileBytes Dimensione oltre la quale il file viene ruotato
+     * @param maxFiles File conservati, compreso quello attivo
+     * @throws IOException Se il file non può essere aperto
+     * @throws IllegalArgumentException Se i parametri non sono validi
+     */
+    public AsyncLogger(Path file, int capacity, Level level, Overflow overflow, long maxFileBytes, int maxFiles) throws IOException {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two");
+        if (maxFileBytes < 1 || maxFiles < 1) throw new IllegalArgumentException("invalid rotation parameters");
+
+        this.file = file;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) this.slots[i] = new Slot();
+        this.mask = capacity - 1;
+        this.level = level;
+        this.overflow = overflow;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.claimed = new AtomicLong();
+        this.consumed = 0;
+        this.dropped = new LongAdder();
+        this.written = new LongAdder();
+        this.closed = false;
+
+        this.line = new StringBuilder(MAX_LINE);
+        this.chars = new char[MAX_LINE];
+        this.charBuffer = CharBuffer.wrap(this.chars);
+        this.out = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        this.utf8 = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.cachedSecond = -1;
+        this.cachedTimestamp = null;
+        this.reportedDrops = 0;
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        this.open(false);
+
+        this.writer = new Thread(this::run, "log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Verifica se un livello viene registrato, per evitare di preparare
+     * argomenti costosi.
+     *
+     * @param level Livello del messaggio
+     * @return true se i messaggi del livello vengono registrati
+     */
+    public boolean isEnabled(Level level) { return level.compareTo(this.level) >= 0; }
+
+    /**
+     * Imposta il livello minimo dei messaggi registrati.
+     *
+     * @param level Livello minimo
+     */
+    public void setLevel(Level level) { this.level = level; }
+
+    /**
+     * Registra un messaggio.
+     *
+     * @param level Livello del messaggio
+     * @param text Testo del messaggio
+     */
+    public void log(Level level, String text) { this.log(level, text, null); }
+
+    /**
+     * Registra un messaggio con un argomento, scritto dopo il testo.
+     *
+     * @param level Livello del messaggio
+     * @param text Testo del messaggio
+     * @param arg Argomento immutabile, convertito in testo dal thread di scrittura (null: nessuno)
+     */
+    public void log(Level level, String text, Object arg) {
+        if (!this.isEnabled(level) || this.closed) return;
+
+        long sequence;
+        while (true) {
+            sequence = this.claimed.get();
+
+            if (sequence - this.consumed > this.mask) { // Buffer pieno
+                if (this.overflow == Overflow.DROP) {
+                    this.dropped.increment();
+                    return;
+                }
+
+                LockSupport.unpark(this.writer);
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+                if (this.closed) return;
+            }
+            else if (this.claimed.compareAndSet(sequence, sequence + 1)) break;
+        }
+
+        Slot slot = this.slots[(int) sequence & this.mask];
+        slot.level = level;
+        slot.time = System.currentTimeMillis();
+        slot.thread = Thread.currentThread().getName();
+        slot.text = text;
+        slot.arg = arg;
+        slot.sequence = sequence; // Pubblica lo slot al thread di scrittura
+    }
+
+    // Getters
+    public long getDropped() { return this.dropped.sum(); }
+    public long getWritten() { return this.written.sum(); }
+
+    /**
+     * Getter per i messaggi in attesa.
+     *
+     * @return Messaggi registrati e non ancora scritti
+     */
+    public long getPending() { return Math.max(0, this.claimed.get() - this.consumed); }
+
+    /**
+     * Scrive i messaggi in attesa, chiude il file e ferma il thread di
+     * scrittura. I messaggi registrati durante la chiusura possono andare
+     * persi.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.writer);
+
+        try { this.writer.join(); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    /**
+     * Scrive un messaggio sulla console, con lo stesso formato del testo di
+     * un messaggio nel log: usato dove il log asincrono non è collegato.
+     *
+     * @param level Livello del messaggio: {@link Level#WARN} e {@link Level#ERROR} vanno su {@code System.err}
+     * @param text Testo del messaggio
+     * @param arg Argomento, scritto dopo il testo (null: nessuno)
+     */
+    static void print(Level level, String text, Object arg) {
+        String message = arg != null ? text + arg : text;
+
+        if (level.compareTo(Level.WARN) >= 0) System.err.println(message);
+        else System.out.println(message);
+    }
+
+    /** Ciclo del thread di scrittura. */
+    private void run() {
+        try {
+            while (true) {
+                boolean stopping = this.closed;
+
+                if (this.drain() == 0) {
+                    this.reportDrops();
+                    this.writeBuffer();
+
+                    if (stopping && this.consumed == this.claimed.get()) break;
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+
+            this.channel.force(false);
+        }
+        catch (IOException e) {
+            this.closed = true; // Sblocca chi attende uno slot
+            System.err.println("Errore nella scrittura del log: " + e.getMessage());
+        }
+        finally {
+            try { this.channel.close(); }
+            catch (IOException e) { ; }
+        }
+    }
+
+    /**
+     * Formatta i messaggi pubblicati, al più un giro del buffer.
+     *
+     * @return Messaggi formattati
+     * @throws IOException In caso di errore di scrittura
+     */
+    private int drain() throws IOException {
+        int count = 0;
+        long next = this.consumed;
+
+        while (count < this.slots.length) {
+            Slot slot = this.slots[(int) next & this.mask];
+            if (slot.sequence != next) break; // Non ancora pubblicato
+
+            this.format(slot.level, slot.time, slot.thread, slot.text, slot.arg);
+            slot.thread = null;
+            slot.text = null;
+            slot.arg = null;
+
+            this.consumed = ++next; // Libera lo slot
+            count++;
+        }
+
+        this.written.add(count);
+        return count;
+    }
+
+    /** Scrive nel log il numero di messaggi scartati dall'ultima segnalazione. */
+    private void reportDrops() throws IOException {
+        long drops = this.dropped.sum();
+        if (drops == this.reportedDrops) return;
+
+        this.format(Level.WARN, System.currentTimeMillis(), Thread.currentThread().getName(),
+            "Messaggi scartati con il buffer del log pieno: ", drops - this.reportedDrops);
+        this.reportedDrops = drops;
+    }
+
+    /** Formatta e codifica una riga nel buffer di scrittura. */
+    private void format(Level level, long time, String thread, String text, Object arg) throws IOException {
+        StringBuilder line = this.line;
+        line.setLength(0);
+
+        long second = Math.floorDiv(time, 1000);
+        if (second != this.cachedSecond) {
+            this.cachedSecond = second;
+            this.cachedTimestamp = TIMESTAMP.format(Instant.ofEpochSecond(second));
+        }
+
+        int millis = Math.floorMod(time, 1000);
+        line.append(this.cachedTimestamp).append('.');
+        if (millis < 100) line.append('0');
+        if (millis < 10) line.append('0');
+        line.append(millis).append(' ').append(level.name());
+        for (int i = level.name().length(); i < 6; i++) line.append(' ');
+        line.append('[').append(thread).append("] ").append(text);
+        if (arg != null) line.append(arg);
+
+        int length = Math.min(line.length(), MAX_LINE - 1);
+        line.getChars(0, length, this.chars, 0);
+        this.chars[length++] = '\n';
+
+        CharBuffer in = this.charBuffer.clear().limit(length);
+        this.utf8.reset();
+
+        while (true) {
+            CoderResult result = this.utf8.encode(in, this.out, true);
+            if (!result.isOverflow()) break;
+            this.writeBuffer();
+        }
+    }
+
+    /** Scrive il buffer sul file, ruotandolo se supera la dimensione massima. */
+    private void writeBuffer() throws IOException {
+        if (this.out.position() == 0) return;
+
+        this.out.flip();
+        while (this.out.hasRemaining()) this.fileBytes += this.channel.write(this.out);
+        this.out.clear();
+
+        if (this.fileBytes >= this.maxFileBytes) this.rotate();
+    }
+
+    /** Rinomina i file conservati e apre un nuovo file vuoto. */
+    private void rotate() throws IOException {
+        this.channel.close();
+
+        for (int i = this.maxFiles - 1; i > 0; i--) {
+            Path from = i == 1 ? this.file : this.rotated(i - 1);
+            if (Files.exists(from)) Files.move(from, this.rotated(i), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        this.open(true);
+    }
+
+    /**
+     * Apre il file attivo.
+     *
+     * @param truncate true per svuotarlo, false per scrivere in coda
+     */
+    private void open(boolean truncate) throws IOException {
+        this.channel = FileChannel.open(
+            this.file,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND
+        );
+        this.fileBytes = this.channel.size();
+    }
+
+    /**
+     * File ruotato.
+     *
+     * @param index Indice del file, da 1 (il più recente)
+     * @return Percorso del file
+     */
+    Path rotated(int index) { return this.file.resolveSibling(this.file.getFileName() + "." + index); }
+}
@@ -1,16 +1,32 @@
 package com.nicholasTropea.game.server;
 
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
-import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
-import com.google.gson.Gson;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 
-import com.nicholasTropea.game.net.RegisterRequest;
-import com.nicholasTropea.game.net.RegisterResponse;
+import com.nicholasTropea.game.net.BinaryCodec;
+import com.nicholasTropea.game.net.ErrorResponse;
+import com.nicholasTropea.game.net.Json;
 
 /**
  * Gestisce la comunicazione con un singolo client connesso.
@@ -18,45 +34,238 @@ import com.nicholasTropea.game.net.RegisterResponse;
  * Esegue il parsing dei messaggi JSON in ingresso e invia risposte.
  * Ogni istanza viene eseguita in un thread separato dal pool di
  * {@link NetworkManager}.
+ *
+ * Le richieste vengono decodificate in streaming da un unico
+ * {@link JsonReader} costruito sullo stream del socket: un oggetto JSON
+ * dopo l'altro, senza leggere prima la riga in una stringa. Un JSON
+ * malformato chiude la connessione, dato che non è più possibile
+ * ritrovare l'inizio della richiesta successiva.
+ *
+ * La connessione resta aperta per tutta la sessione del client: una riga
+ * vuota vale come keep-alive e la connessione viene chiusa dopo
+ * {@link RequestHandler#IDLE_TIMEOUT_MS} millisecondi senza traffico.
+ *
+ * Se il primo byte ricevuto è {@link BinaryCodec#MAGIC} la connessione usa
+ * il protocollo binario a frame invece delle righe JSON.
+ *
+ * Un client può inviare più richieste senza attendere le risposte
+ * (pipelining): vengono elaborate in ordine e le risposte si accumulano in
+ * un buffer di uscita, svuotato sul socket solo quando il server sta per
+ * bloccarsi in attesa di altri dati. Le risposte a tutte le richieste già
+ * ricevute partono così con una sola scrittura, invece di una per riga.
+ *
+ * Se il {@link ServerState} ha le {@link ServerMetrics}, la connessione
+ * vi conta la propria apertura e chiusura e i byte letti e scritti sul
+ * socket.
  * 
  * @author Nicholas Riccardo Tropea
  */
 public class ClientHandler implements Runnable {
+    /** Dimensione dei buffer di lettura e scrittura del socket. */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
     /** Socket TCP del client connesso. */
     private Socket clientSocket;
 
+    /** Logica di gioco della connessione. */
+    private RequestHandler requestHandler;
+
+    /** Stato del server condiviso, usato per il log. */
+    private final ServerState state;
+
+    /** Metriche del server (null se disattivate). */
+    private final ServerMetrics metrics;
+
     /**
      * Crea un handler per il client specificato.
      * 
      * @param clienSocket Socket del client appena accettato
+     * @param state Stato del server condiviso
      */
-    public ClientHandler(Socket clientSocket) { this.clientSocket = clientSocket; }
+    public ClientHandler(Socket clientSocket, ServerState state) {
+        this.clientSocket = clientSocket;
+        this.requestHandler = new RequestHandler(state);
+        this.state = state;
+        this.metrics = state.getMetrics();
+        this.requestHandler.setClientAddress(clientSocket.getInetAddress());
+        this.requestHandler.setKickHandler(() -> {
+            // Sblocca la lettura in corso: il ciclo termina con un errore di I/O
+            try { clientSocket.close(); }
+            catch (IOException e) { ; }
+        });
+    }
 
     /**
      * Gestisce il ciclo di vita della connessione con il client.
      * 
-     * Legge messaggi JSON in loop fino alla disconnessione e
-     * invia risposte appropriate.
+     * Sceglie il protocollo dal primo byte ricevuto, poi legge messaggi in
+     * loop fino alla disconnessione e invia risposte appropriate.
      * 
      * @throws IOException In caso di errore di rete
      */
     @Override
     public void run() {
+        if (this.metrics != null) this.metrics.connectionOpened();
+
         try (
-            BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-            PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true)
+            OutputStream out = new BufferedOutputStream(this.socketOutput(), BUFFER_SIZE);
+            FlushBeforeBlocking socketIn = new FlushBeforeBlocking(clientSocket.getInputStream(), out, this.metrics);
+            BufferedInputStream in = new BufferedInputStream(socketIn, BUFFER_SIZE)
         ) {
-            Gson gson = new Gson();
-            
-            String line = in.readLine();
-            RegisterRequest req = gson.fromJson(line, RegisterRequest.class);
-            System.out.println("Operazione: " + req.getOperation() + ", utente: " + req.getName());
+            this.clientSocket.setSoTimeout(RequestHandler.IDLE_TIMEOUT_MS);
+            this.clientSocket.setKeepAlive(true);
+            this.clientSocket.setTcpNoDelay(true); // Le risposte sono già raggruppate nel buffer
+
+            in.mark(1);
+            int first = in.read();
+            if (first < 0) return;
+
+            if ((byte) first == BinaryCodec.MAGIC) this.serveBinary(in, out);
+            else {
+                in.reset();
+                this.serveJson(in, out, socketIn);
+            }
+        }
+        catch (SocketTimeoutException e) { this.state.log(AsyncLogger.Level.INFO, "Connessione inattiva chiusa: ", clientSocket.getInetAddress()); }
+        catch (IOException e) { this.state.log(AsyncLogger.Level.WARN, "Errore: ", e.getMessage()); }
+        finally {
+            this.requestHandler.close();
+            if (this.metrics != null) this.metrics.connectionClosed();
+        }
+    }
+
+    /**
+     * Stream di uscita del socket, con i byte contati se le metriche sono attive.
+     *
+     * @return Stream di uscita
+     * @throws IOException In caso di errore di rete
+     */
+    private OutputStream socketOutput() throws IOException {
+        OutputStream out = this.clientSocket.getOutputStream();
+        if (this.metrics == null) return out;
+
+        ServerMetrics metrics = this.metrics;
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                this.out.write(b);
+                metrics.bytesOut(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+                metrics.bytesOut(len);
+            }
+        };
+    }
+
+    /**
+     * Serve il protocollo JSON: un oggetto per riga.
+     *
+     * @param input Stream del socket
+     * @param output Stream di uscita del socket, bufferizzato
+     * @param socketIn Stream del socket sotto il buffer di lettura, che svuota le risposte prima di bloccarsi
+     * @throws IOException In caso di errore di rete
+     */
+    private void serveJson(InputStream input, OutputStream output, FlushBeforeBlocking socketIn) throws IOException {
+        JsonReader in = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        socketIn.setTarget(out); // Anche i caratteri non ancora codificati
+
+        in.setStrictness(Strictness.LENIENT); // Più oggetti JSON consecutivi nello stesso flusso
+
+        try {
+            while (in.peek() != JsonToken.END_DOCUMENT) { // Righe vuote (keep-alive) saltate come spazi
+                Object resp;
+
+                try { resp = this.requestHandler.handleNext(in); }
+                catch (MalformedJsonException e) {
+                    out.write(Json.GSON.toJson(ErrorResponse.error("richiesta malformata")));
+                    out.write('\n');
+                    break;
+                }
+
+                // Scritta direttamente nel buffer: una risposta in streaming non viene mai materializzata
+                Json.GSON.toJson(resp, out);
+                out.write('\n');
+            }
+        }
+        finally { out.flush(); }
+    }
+
+    /**
+     * Serve il protocollo binario: frame preceduti dalla loro lunghezza.
+     *
+     * @param input Stream del socket, già dopo il byte {@link BinaryCodec#MAGIC}
+     * @param output Stream di uscita del socket, bufferizzato
+     * @throws IOException In caso di errore di rete
+     */
+    private void serveBinary(InputStream input, OutputStream output) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        BinaryCodec codec = new BinaryCodec();
+
+        try {
+            while (true) {
+                int length;
+
+                try { length = in.readInt(); }
+                catch (EOFException e) { break; }
+
+                if (length == 0) continue; // Keep-alive
+
+                if (length < 0 || length > BinaryCodec.MAX_FRAME_LENGTH) {
+                    output.write(codec.encode(ErrorResponse.error("richiesta malformata")));
+                    break;
+                }
+
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+
+                output.write(codec.encode(this.requestHandler.handleFrame(codec, frame)));
+            }
+        }
+        finally { output.flush(); }
+    }
+
+    /**
+     * Stream di lettura del socket che, prima di ogni lettura che si
+     * bloccherebbe, svuota il buffer delle risposte. Sta sotto il buffer di
+     * lettura, quindi viene chiamato solo quando le richieste già ricevute
+     * sono state tutte elaborate. Conta anche i byte ricevuti, se le
+     * metriche sono attive.
+     */
+    private static final class FlushBeforeBlocking extends FilterInputStream {
+        /** Buffer delle risposte da svuotare */
+        private Flushable target;
+
+        /** Metriche del server (null se disattivate) */
+        private final ServerMetrics metrics;
+
+        FlushBeforeBlocking(InputStream in, Flushable target, ServerMetrics metrics) {
+            super(in);
+            this.target = target;
+            this.metrics = metrics;
+        }
+
+        void setTarget(Flushable target) { this.target = target; }
+
+        @Override
+        public int read() throws IOException {
+            if (this.in.available() == 0) this.target.flush();
+
+            int b = this.in.read();
+            if (b >= 0 && this.metrics != null) this.metrics.bytesIn(1);
+            return b;
+        }
 
-            RegisterResponse resp = RegisterResponse.success();
-            String jsonResp = gson.toJson(resp);
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.in.available() == 0) this.target.flush();
 
-            out.println(jsonResp);
+            int n = this.in.read(b, off, len);
+            if (n > 0 && this.metrics != null) this.metrics.bytesIn(n);
+            return n;
         }
-        catch (IOException e) { System.err.println("Errore: " + e.getMessage()); }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package com.nicholasTropea.game.server;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pool dedicato alle operazioni che calcolano l'hash di una password
+ * (registrazione, login, cambio credenziali).
+ *
+ * L'hash è volutamente costoso: eseguito nei worker del server, un'ondata
+ * di login all'inizio di un turno li occuperebbe tutti e bloccherebbe le
+ * richieste degli altri client. Il pool ha un numero fisso di thread e una
+ * coda limitata: quando la coda è piena {@link #submit} rifiuta subito il
+ * lavoro e il client riceve un errore da ripetere più tardi, invece di
+ * accumulare attese senza limite.
+ *
+ * Il risultato arriva in un {@link CompletableFuture} completato dal
+ * thread del pool: il server non bloccante vi aggancia l'invio della
+ * risposta e la ripresa delle richieste della connessione, quello
+ * bloccante semplicemente lo attende.
+ */
+public final class HashingPool implements Closeable {
+    /** Esecutore con coda limitata */
+    private final ThreadPoolExecutor executor;
+
+    /** Operazioni rifiutate per coda piena */
+    private final AtomicLong rejected;
+
+    /** Operazioni completate */
+    private final AtomicLong completed;
+
+    /**
+     * Crea il pool e ne avvia i thread.
+     *
+     * @param threads Numero di thread
+     * @param queueCapacity Operazioni in attesa oltre le quali il pool rifiuta
+     * @throws IllegalArgumentException Se i parametri non sono positivi
+     */
+    public HashingPool(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 1) throw new IllegalArgumentException("invalid pool parameters");
+
+        AtomicInteger count = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+            threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread t = new Thread(r, "hashing-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.prestartAllCoreThreads();
+
+        this.rejected = new AtomicLong();
+        this.completed = new AtomicLong();
+    }
+
+    /**
+     * Accoda un'operazione.
+     *
+     * @param task Operazione, eseguita da un thread del pool
+     * @return Risultato dell'operazione, null se la coda è piena
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        try {
+            this.executor.execute(() -> {
+                try { result.complete(task.get()); }
+                catch (RuntimeException | Error e) { result.completeExceptionally(e); }
+                finally { this.completed.incrementAndGet(); }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            this.rejected.incrementAndGet();
+            return null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Getter per la profondità della coda.
+     *
+     * @return Operazioni in attesa di un thread
+     */
+    public int getQueueDepth() { return this.executor.getQueue().size(); }
+
+    /**
+     * Getter per le operazioni rifiutate.
+     *
+     * @return Operazioni rifiutate per coda piena dalla creazione
+     */
+    public long getRejected() { return this.rejected.get(); }
+
+    /**
+     * Getter per le operazioni completate.
+     *
+     * @return Operazioni eseguite dalla creazione, riuscite o no
+     */
+    public long getCompleted() { return this.completed.get(); }
+
+    /** Rifiuta nuove operazioni; quelle già accodate vengono completate. */
+    @Override
+    public void close() { this.executor.shutdown(); }
+}
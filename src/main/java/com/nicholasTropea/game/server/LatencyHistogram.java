@@ -0,0 +1,188 @@
+package com.nicholasTropea.game.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Istogramma delle latenze con secchielli log-lineari, come HdrHistogram.
+ *
+ * I valori (nanosecondi) sotto {@code 2 * }{@value #SUB_BUCKETS} hanno un
+ * secchiello ciascuno; oltre, ogni potenza di 2 è divisa in
+ * {@value #SUB_BUCKETS} secchielli di uguale ampiezza, quindi l'errore
+ * relativo di un percentile è al più 1/{@value #SUB_BUCKETS} (~3%). I
+ * valori oltre {@link #MAX_VALUE} (circa 18 minuti) vanno nell'ultimo
+ * secchiello.
+ *
+ * La registrazione è senza lock: un incremento atomico del secchiello e
+ * della somma, più un confronto sul massimo. Le letture lavorano su una
+ * {@link Snapshot}, copiata senza fermare chi registra; la differenza tra
+ * due snapshot dà la distribuzione di un intervallo.
+ */
+public final class LatencyHistogram {
+    /** Bit dei secchielli per potenza di 2. */
+    private static final int SUB_BITS = 5;
+
+    /** Secchielli per potenza di 2. */
+    public static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** Valore massimo distinto: 2^40 - 1 nanosecondi. */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    /** Numero di secchielli. */
+    static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    /** Occorrenze per secchiello */
+    private final AtomicLongArray counts;
+
+    /** Somma dei valori registrati */
+    private final LongAdder sum;
+
+    /** Valore massimo registrato */
+    private final AtomicLong max;
+
+    /** Crea un istogramma vuoto. */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Registra un valore.
+     *
+     * @param value Latenza in nanosecondi; i valori negativi contano come 0
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+
+        this.counts.incrementAndGet(index(Math.min(value, MAX_VALUE)));
+        this.sum.add(value);
+
+        long current = this.max.get();
+        while (value > current && !this.max.compareAndSet(current, value)) current = this.max.get();
+    }
+
+    /**
+     * Copia lo stato attuale.
+     *
+     * @return Snapshot dei valori registrati finora
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = this.counts.get(i);
+        return new Snapshot(copy, this.sum.sum(), this.max.get());
+    }
+
+    /**
+     * Secchiello di un valore.
+     *
+     * @param value Valore tra 0 e {@link #MAX_VALUE}
+     * @return Indice del secchiello
+     */
+    static int index(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Valore più alto di un secchiello.
+     *
+     * @param index Indice del secchiello
+     * @return Valore massimo che vi viene registrato
+     */
+    static long highestValue(int index) {
+        int shift = Math.max(0, (index >>> SUB_BITS) - 1);
+        long lowest = (long) (index - (shift << SUB_BITS)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /** Copia immutabile di un istogramma. */
+    public static final class Snapshot {
+        /** Occorrenze per secchiello */
+        private final long[] counts;
+
+        /** Numero di valori */
+        private final long count;
+
+        /** Somma dei valori */
+        private final long sum;
+
+        /** Valore massimo (per una differenza: quello dello snapshot più recente) */
+        private final long max;
+
+        private Snapshot(long[] counts, long sum, long max) {
+            long count = 0;
+            for (long c : counts) count += c;
+
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Distribuzione dei valori registrati dopo uno snapshot precedente.
+         *
+         * @param previous Snapshot precedente dello stesso istogramma
+         * @return Differenza tra questo snapshot e il precedente
+         */
+        public Snapshot minus(Snapshot previous) {
+            long[] delta = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) delta[i] = this.counts[i] - previous.counts[i];
+
+            // Il massimo dell'intervallo è stimato dal secchiello più alto non vuoto
+            long max = 0;
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (delta[i] > 0) {
+                    max = Math.min(highestValue(i), this.max);
+                    break;
+                }
+            }
+
+            return new Snapshot(delta, this.sum - previous.sum, max);
+        }
+
+        /**
+         * Getter per il numero di valori.
+         *
+         * @return Valori registrati
+         */
+        public long getCount() { return this.count; }
+
+        /**
+         * Getter per la media.
+         *
+         * @return Media dei valori, 0 se vuoto
+         */
+        public double getMean() { return this.count == 0 ? 0 : (double) this.sum / this.count; }
+
+        /**
+         * Getter per il massimo.
+         *
+         * @return Valore massimo, 0 se vuoto
+         */
+        public long getMax() { return this.max; }
+
+        /**
+         * Calcola un percentile.
+         *
+         * @param percentile Percentile tra 0 e 100
+         * @return Valore più alto del secchiello che contiene il percentile (il
+         *         massimo per l'ultimo secchiello), 0 se vuoto
+         */
+        public long valueAt(double percentile) {
+            if (this.count == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+            long seen = 0;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) return i == BUCKETS - 1 ? this.max : Math.min(highestValue(i), this.max);
+            }
+
+            return this.max;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.nicholasTropea.game.server;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Tabella concorrente delle sessioni di login: lega ogni connessione
+ * loggata al giocatore, e da lì alla sua sessione di gioco nella
+ * {@link com.nicholasTropea.game.model.GameSessionTable} della partita
+ * attiva.
+ *
+ * Ogni login crea una {@link Session} con un token nuovo, che la
+ * connessione conserva e presenta ad ogni richiesta: la ricerca è un
+ * accesso ad una {@link ConcurrentHashMap}, senza lock in lettura. Un
+ * secondo indice per id del giocatore garantisce una sola sessione per
+ * giocatore: un nuovo login espelle la sessione precedente, ovunque sia,
+ * chiudendone la connessione. Logout, espulsione e scadenza rimuovono la
+ * sessione con operazioni condizionali, quindi possono avvenire in
+ * concorrenza senza che una cancelli la sessione creata da un'altra.
+ *
+ * Le sessioni inattive da più di {@code idleTimeoutMs} vengono chiuse da
+ * un thread in background ("session-sweeper"). Le scadenze sono in una
+ * {@link TimerWheel} indicizzata per token: le richieste aggiornano solo
+ * l'istante dell'ultima attività e non toccano mai la ruota; quando una
+ * scadenza arriva, la sessione ancora attiva viene ripianificata dalla
+ * sua ultima attività.
+ */
+public final class LoginSessions implements Closeable {
+    /** Secchielli della ruota delle scadenze. */
+    private static final int WHEEL_BUCKETS = 512;
+
+    /** Sessione di login di una connessione. */
+    public static final class Session {
+        /** Token della sessione */
+        private final long token;
+
+        /** Id del giocatore */
+        private final int playerId;
+
+        /** Indirizzo per le notifiche unicast (null se non richieste) */
+        private final InetSocketAddress notifyAddress;
+
+        /** Chiude la connessione della sessione espulsa (null se non serve) */
+        private final Runnable onKick;
+
+        /** Istante dell'ultima richiesta, in millisecondi */
+        private volatile long lastActive;
+
+        private Session(long token, int playerId, InetSocketAddress notifyAddress, Runnable onKick, long now) {
+            this.token = token;
+            this.playerId = playerId;
+            this.notifyAddress = notifyAddress;
+            this.onKick = onKick;
+            this.lastActive = now;
+        }
+
+        // Getters
+        public long getToken() { return this.token; }
+        public int getPlayerId() { return this.playerId; }
+        public InetSocketAddress getNotifyAddress() { return this.notifyAddress; }
+        public long getLastActive() { return this.lastActive; }
+    }
+
+    /** Sessioni per token */
+    private final Map<Long, Session> byToken;
+
+    /** Sessioni per id del giocatore */
+    private final Map<Integer, Session> byPlayer;
+
+    /** Ultimo token assegnato */
+    private final AtomicLong tokens;
+
+    /** Tempo massimo di inattività, in millisecondi */
+    private final long idleTimeoutMs;
+
+    /** Intervallo tra due controlli delle scadenze, in millisecondi */
+    private final long tickMs;
+
+    /** Scadenze per inattività, per token */
+    private final TimerWheel idle;
+
+    /** Chiamato per ogni sessione terminata (logout, espulsione o scadenza) */
+    private final Consumer<Session> onEnd;
+
+    /** Sessioni espulse da un nuovo login */
+    private final AtomicLong kicked;
+
+    /** Sessioni chiuse per inattività */
+    private final AtomicLong expired;
+
+    /** Thread delle scadenze (null se non avviato) */
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Crea una tabella vuota, senza avviare il controllo delle scadenze.
+     *
+     * @param idleTimeoutMs Tempo massimo di inattività, in millisecondi
+     * @param tickMs Intervallo tra due controlli, in millisecondi
+     * @param onEnd Chiamato per ogni sessione terminata, dal thread che la termina
+     * @throws IllegalArgumentException Se le durate non sono positive
+     */
+    public LoginSessions(long idleTimeoutMs, long tickMs, Consumer<Session> onEnd) {
+        if (idleTimeoutMs <= 0 || tickMs <= 0) throw new IllegalArgumentException("invalid durations");
+
+        this.byToken = new ConcurrentHashMap<>();
+        this.byPlayer = new ConcurrentHashMap<>();
+        this.tokens = new AtomicLong();
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.tickMs = tickMs;
+        this.idle = new TimerWheel(tickMs, WHEEL_BUCKETS, System.currentTimeMillis());
+        this.onEnd = onEnd;
+        this.kicked = new AtomicLong();
+        this.expired = new AtomicLong();
+    }
+
+    /**
+     * Crea la sessione di un giocatore. La sessione precedente dello
+     * stesso giocatore, se c'è, viene espulsa.
+     *
+     * @param playerId Id del giocatore
+     * @param notifyAddress Indirizzo per le notifiche unicast, null se non richieste
+     * @param onKick Chiude la connessione se la sessione viene espulsa o scade, null se non serve
+     * @return Sessione creata
+     */
+    public Session login(int playerId, InetSocketAddress notifyAddress, Runnable onKick) {
+        long now = System.currentTimeMillis();
+        Session session = new Session(this.tokens.incrementAndGet(), playerId, notifyAddress, onKick, now);
+
+        this.byToken.put(session.token, session);
+        this.idle.schedule(now + this.idleTimeoutMs, session.token);
+
+        // L'ultimo login registrato nell'indice vince ed espelle il precedente
+        Session previous = this.byPlayer.put(playerId, session);
+        if (previous != null && this.byToken.remove(previous.token, previous)) {
+            this.kicked.incrementAndGet();
+            this.end(previous, true);
+        }
+
+        return session;
+    }
+
+    /**
+     * Restituisce una sessione e ne aggiorna l'ultima attività.
+     *
+     * @param token Token della sessione
+     * @return Sessione, null se è terminata
+     */
+    public Session touch(long token) {
+        Session session = this.byToken.get(token);
+        if (session != null) session.lastActive = System.currentTimeMillis();
+        return session;
+    }
+
+    /**
+     * Restituisce una sessione senza aggiornarla.
+     *
+     * @param token Token della sessione
+     * @return Sessione, null se è terminata
+     */
+    public Session get(long token) { return this.byToken.get(token); }
+
+    /**
+     * Restituisce la sessione attiva di un giocatore.
+     *
+     * @param playerId Id del giocatore
+     * @return Sessione, null se il giocatore non è loggato
+     */
+    public Session byPlayer(int playerId) { return this.byPlayer.get(playerId); }
+
+    /**
+     * Termina una sessione su richiesta della sua connessione (logout o
+     * chiusura), senza chiudere la connessione.
+     *
+     * @param token Token della sessione
+     * @return true se la sessione era ancora attiva
+     */
+    public boolean logout(long token) {
+        Session session = this.byToken.remove(token);
+        if (session == null) return false;
+
+        this.end(session, false);
+        return true;
+    }
+
+    /**
+     * Chiude le sessioni inattive fino ad un istante. Chiamato dal thread
+     * delle scadenze; pubblico per i test.
+     *
+     * @param nowMs Istante attuale, in millisecondi
+     * @return Sessioni chiuse
+     */
+    public int tick(long nowMs) {
+        long before = this.expired.get();
+
+        this.idle.advance(nowMs, token -> {
+            Session session = this.byToken.get(token);
+            if (session == null) return; // Già terminata
+
+            long deadline = session.lastActive + this.idleTimeoutMs;
+            if (deadline > nowMs) this.idle.schedule(deadline, token);
+            else if (this.byToken.remove(token, session)) {
+                this.expired.incrementAndGet();
+                this.end(session, true);
+            }
+        });
+
+        return (int) (this.expired.get() - before);
+    }
+
+    /** Rimuove una sessione già tolta dall'indice per token. */
+    private void end(Session session, boolean kick) {
+        this.byPlayer.remove(session.playerId, session);
+        if (this.onEnd != null) this.onEnd.accept(session);
+        if (kick && session.onKick != null) session.onKick.run();
+    }
+
+    /**
+     * Avvia il thread che chiude le sessioni inattive.
+     *
+     * @param errors Riceve i messaggi di errore, dal thread delle scadenze
+     */
+    public synchronized void start(Consumer<String> errors) {
+        if (this.sweeper != null) return;
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.sweeper.scheduleAtFixedRate(() -> {
+            try { this.tick(System.currentTimeMillis()); }
+            catch (RuntimeException e) { errors.accept("Errore nella scadenza delle sessioni: " + e.getMessage()); }
+        }, this.tickMs, this.tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Getter per il numero di sessioni attive.
+     *
+     * @return Connessioni loggate
+     */
+    public int size() { return this.byToken.size(); }
+
+    /**
+     * Getter per le sessioni espulse.
+     *
+     * @return Sessioni espulse da un nuovo login dello stesso giocatore
+     */
+    public long getKicked() { return this.kicked.get(); }
+
+    /**
+     * Getter per le sessioni scadute.
+     *
+     * @return Sessioni chiuse per inattività
+     */
+    public long getExpired() { return this.expired.get(); }
+
+    @Override
+    public synchronized void close() {
+        if (this.sweeper != null) this.sweeper.shutdownNow();
+        this.sweeper = null;
+    }
+}
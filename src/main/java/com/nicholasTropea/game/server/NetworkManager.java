@@ -1,5 +1,6 @@
 package com.nicholasTropea.game.server;
 
+import com.nicholasTropea.game.model.PlayerRegistry;
 import com.nicholasTropea.game.server.ClientHandler;
 
 import java.net.ServerSocket;
@@ -7,6 +8,7 @@ import java.net.Socket;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import java.io.IOException;
 
@@ -16,25 +18,57 @@ import java.io.IOException;
  * 
  * Implementa {@link Runnable} per essere eseguito in un thread separato.
  * Utilizza un {@link ExecutorService} per gestire i {@link ClientHandler}
- * in parallelo.
+ * in parallelo: un pool di thread di piattaforma oppure, se richiesto,
+ * un virtual thread per ogni client. Con i virtual thread la
+ * {@code readLine()} bloccante del {@link ClientHandler} libera il carrier
+ * thread mentre attende, quindi migliaia di client inattivi non occupano
+ * thread del sistema operativo.
  * 
  * @author Nicholas Riccardo Tropea
  */
 public class NetworkManager implements Runnable {
+    /** Lunghezza della coda delle connessioni in attesa di accept. */
+    static final int ACCEPT_BACKLOG = 1024;
+
     /** Porta di ascolto del server. */
     private int port;
 
     /** Pool di thread per i client handler. */
     private ExecutorService pool;
 
+    /** Stato del server condiviso dai client handler. */
+    private ServerState state;
+
     /**
      * Crea un nuovo NetworkManager con la porta specificata.
      * 
      * @param port Porta TCP su cui ascoltare le connessioni
      */
-    public NetworkManager(int port) {
+    public NetworkManager(int port) { this(port, false); }
+
+    /**
+     * Crea un nuovo NetworkManager con la porta e il tipo di thread specificati.
+     * 
+     * @param port Porta TCP su cui ascoltare le connessioni
+     * @param virtualThreads true per eseguire ogni {@link ClientHandler} su un virtual thread
+     */
+    public NetworkManager(int port, boolean virtualThreads) {
+        this(port, virtualThreads, new ServerState(new PlayerRegistry()));
+    }
+
+    /**
+     * Crea un nuovo NetworkManager che serve uno stato esistente.
+     * 
+     * @param port Porta TCP su cui ascoltare le connessioni
+     * @param virtualThreads true per eseguire ogni {@link ClientHandler} su un virtual thread
+     * @param state Stato del server condiviso dai client handler
+     */
+    public NetworkManager(int port, boolean virtualThreads, ServerState state) {
         this.port = port;
-        this.pool = Executors.newCachedThreadPool();
+        this.state = state;
+        this.pool = virtualThreads
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newCachedThreadPool();
     }
 
     /** Esegue il listener principale del server. */
@@ -47,11 +81,18 @@ public class NetworkManager implements Runnable {
      * @throws IOException Se la porta è già occupata o errore di rete
      */
     private void start() {
-        try (ServerSocket serverSocket = new ServerSocket(this.port)) {
-            System.out.println("Server attivo sulla porta " + this.port);
+        try (ServerSocket serverSocket = new ServerSocket(this.port, NetworkManager.ACCEPT_BACKLOG)) {
+            this.state.log(AsyncLogger.Level.INFO, "Server attivo sulla porta ", this.port);
+
+            // Con i virtual thread i thread occupati coincidono con le connessioni attive
+            ServerMetrics metrics = this.state.getMetrics();
+            if (metrics != null && this.pool instanceof ThreadPoolExecutor threads) {
+                metrics.addGauge("blocking.activeThreads", threads::getActiveCount);
+            }
+
             this.listenForConnections(serverSocket);
         }
-        catch (IOException e) { System.err.println("Errore nell'avvio del server: " + e.getMessage()); }
+        catch (IOException e) { this.state.log(AsyncLogger.Level.ERROR, "Errore nell'avvio del server: ", e.getMessage()); }
     }
 
     /**
@@ -66,13 +107,13 @@ public class NetworkManager implements Runnable {
         while (true) {
             try { // Non uso try-with-resources altrimenti la socket viene chiusa subito
                 Socket clientSocket = serverSocket.accept();
-                System.out.println("Connessione da: " + clientSocket.getInetAddress());
+                this.state.log(AsyncLogger.Level.INFO, "Connessione da: ", clientSocket.getInetAddress());
                 
                 // Crea un nuovo thread per gestire il client
-                ClientHandler handler = new ClientHandler(clientSocket);
+                ClientHandler handler = new ClientHandler(clientSocket, this.state);
                 this.pool.execute(handler);
             }
-            catch (IOException e) { System.err.println("Errore: " + e.getMessage()); }
+            catch (IOException e) { this.state.log(AsyncLogger.Level.WARN, "Errore: ", e.getMessage()); }
         }
     }
 }
\ No newline at end of file
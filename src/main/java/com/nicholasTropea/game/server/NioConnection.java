@@ -0,0 +1,717 @@
+package com.nicholasTropea.game.server;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import com.nicholasTropea.game.net.BinaryCodec;
+import com.nicholasTropea.game.net.ErrorResponse;
+import com.nicholasTropea.game.net.GameInfoResponse;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LeaderboardResponse;
+import com.nicholasTropea.game.net.LoginResponse;
+import com.nicholasTropea.game.net.ResponseAdapters;
+
+/**
+ * Stato di una singola connessione del server non bloccante.
+ *
+ * Mantiene i buffer di lettura e scrittura del canale e implementa il
+ * framing dei messaggi: ogni richiesta e ogni risposta è un oggetto JSON
+ * su una singola riga terminata da {@code '\n'}. Se il primo byte ricevuto è
+ * {@link BinaryCodec#MAGIC} la connessione passa invece al protocollo
+ * binario, con frame preceduti dalla loro lunghezza.
+ *
+ * Le letture e le scritture sul canale avvengono solo nel thread del
+ * {@link SelectorLoop}; le richieste complete vengono elaborate nel pool
+ * di worker, una alla volta e nell'ordine di arrivo. Una richiesta che
+ * attende il {@link HashingPool} libera il worker: la risposta viene
+ * accodata dal thread del pool, che poi riprende le richieste successive.
+ *
+ * Una risposta in streaming (es. l'intera classifica) viene accodata a
+ * blocchi mentre viene prodotta; se i byte accodati superano
+ * {@link #MAX_QUEUED_BYTES} la produzione si ferma e il worker torna al
+ * pool. Il loop la fa riprendere in un worker quando ha scritto la coda:
+ * un client lento non fa crescere la memoria del server e non occupa un
+ * worker. Le richieste successive attendono la fine della risposta.
+ *
+ * @author Nicholas Riccardo Tropea
+ */
+class NioConnection {
+    /** Dimensione del buffer di lettura dal canale. */
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    /** Lunghezza massima di una richiesta, oltre la quale il client viene disconnesso. */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    /** Caratteri per blocco di una risposta in streaming. */
+    private static final int STREAM_CHUNK = 16 * 1024;
+
+    /** Byte accodati oltre i quali una risposta in streaming si ferma finché il loop non li scrive. */
+    private static final int MAX_QUEUED_BYTES = 256 * 1024;
+
+    /** Risposte accodate scritte al più con una singola scrittura sul canale. */
+    private static final int MAX_GATHER = 64;
+
+    /** Canale del client. */
+    private final SocketChannel channel;
+
+    /** Chiave di registrazione del canale nel selector. */
+    private final SelectionKey key;
+
+    /** Loop di I/O che possiede il canale. */
+    private final SelectorLoop loop;
+
+    /** Pool a cui delegare l'elaborazione delle richieste. */
+    private final ExecutorService workers;
+
+    /** Logica di gioco della connessione. */
+    private final RequestHandler requestHandler;
+
+    /** Buffer di lettura dal canale. */
+    private final ByteBuffer readBuffer;
+
+    /** Byte della riga (o del frame) in corso di ricezione. */
+    private byte[] lineBuffer;
+
+    /** Numero di byte validi in {@link #lineBuffer}. */
+    private int lineLength;
+
+    /** Richieste complete (byte della riga o del frame) in attesa di elaborazione. */
+    private final Queue<byte[]> pendingRequests;
+
+    /** true se un worker sta già elaborando le richieste di questa connessione. */
+    private final AtomicBoolean processing;
+
+    /** Decoder UTF-8 delle richieste, usato solo dal worker che elabora la connessione. */
+    private final CharsetDecoder utf8;
+
+    /** Caratteri della richiesta in elaborazione, riusati tra una richiesta e l'altra. */
+    private CharBuffer requestChars;
+
+    /** true dopo aver ricevuto il primo byte, che sceglie il protocollo. */
+    private boolean negotiated;
+
+    /** Codec del protocollo binario, null se la connessione usa JSON. */
+    private BinaryCodec binary;
+
+    /** Lunghezza del frame binario in ricezione, -1 se si sta leggendo il prefisso. */
+    private int frameLength;
+
+    /** Risposte in attesa di essere scritte sul canale. */
+    private final Queue<ByteBuffer> pendingWrites;
+
+    /** Risposte della scrittura in corso, usato solo dal loop. */
+    private final ByteBuffer[] gather;
+
+    /** true se è già stato chiesto al loop di scrivere le risposte accodate. */
+    private final AtomicBoolean flushScheduled;
+
+    /** Byte accodati e non ancora scritti sul canale. */
+    private final AtomicLong queuedBytes;
+
+    /** Risposta in streaming ferma in attesa che il loop scriva la coda (null se nessuna). */
+    private volatile LeaderboardStream stream;
+
+    /** Istante dell'ultima lettura dal canale, in millisecondi. */
+    private long lastActivity;
+
+    /** true dopo la chiusura della connessione. */
+    private volatile boolean closed;
+
+    /** true dopo il rilascio delle risorse, che avviene una sola volta anche con chiusure concorrenti. */
+    private final AtomicBoolean released;
+
+    /** Stato del server condiviso, usato per il log. */
+    private final ServerState state;
+
+    /** Metriche del server (null se disattivate). */
+    private final ServerMetrics metrics;
+
+    /**
+     * Crea lo stato di una nuova connessione.
+     *
+     * @param channel Canale del client, già non bloccante
+     * @param key Chiave di registrazione del canale
+     * @param loop Loop di I/O che possiede il canale
+     * @param workers Pool di worker per la logica di gioco
+     * @param state Stato del server condiviso
+     */
+    NioConnection(SocketChannel channel, SelectionKey key, SelectorLoop loop, ExecutorService workers, ServerState state) {
+        this.channel = channel;
+        this.key = key;
+        this.loop = loop;
+        this.workers = workers;
+        this.requestHandler = new RequestHandler(state);
+        this.requestHandler.setClientAddress(channel.socket().getInetAddress());
+        this.requestHandler.setKickHandler(this::kick);
+        this.requestHandler.setAsync(true);
+        this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        this.lineBuffer = new byte[256];
+        this.lineLength = 0;
+        this.pendingRequests = new ConcurrentLinkedQueue<>();
+        this.processing = new AtomicBoolean(false);
+        this.utf8 = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.requestChars = CharBuffer.allocate(256);
+        this.negotiated = false;
+        this.binary = null;
+        this.frameLength = -1;
+        this.pendingWrites = new ConcurrentLinkedQueue<>();
+        this.gather = new ByteBuffer[MAX_GATHER];
+        this.flushScheduled = new AtomicBoolean(false);
+        this.queuedBytes = new AtomicLong();
+        this.stream = null;
+        this.lastActivity = System.currentTimeMillis();
+        this.closed = false;
+        this.released = new AtomicBoolean(false);
+        this.state = state;
+        this.metrics = state.getMetrics();
+        if (this.metrics != null) this.metrics.connectionOpened();
+    }
+
+    /** Legge i dati disponibili e separa le richieste complete. Chiamato dal loop. */
+    void onReadable() {
+        int read;
+
+        try { read = this.channel.read(this.readBuffer); }
+        catch (IOException e) {
+            this.close();
+            return;
+        }
+
+        if (read < 0) {
+            this.close();
+            return;
+        }
+
+        this.lastActivity = System.currentTimeMillis();
+        if (this.metrics != null) this.metrics.bytesIn(read);
+
+        this.readBuffer.flip();
+
+        if (!this.negotiated && this.readBuffer.hasRemaining()) {
+            this.negotiated = true;
+
+            if (this.readBuffer.get(this.readBuffer.position()) == BinaryCodec.MAGIC) {
+                this.readBuffer.get();
+                this.binary = new BinaryCodec();
+            }
+        }
+
+        boolean open = this.binary != null ? this.readFrames() : this.readLines();
+        if (open) this.readBuffer.clear();
+    }
+
+    /**
+     * Separa le righe JSON nei byte letti.
+     *
+     * @return false se la connessione è stata chiusa
+     */
+    private boolean readLines() {
+        while (this.readBuffer.hasRemaining()) {
+            byte b = this.readBuffer.get();
+
+            if (b == '\n') this.completeLine();
+            else if (this.lineLength == MAX_LINE_LENGTH) {
+                this.state.log(AsyncLogger.Level.WARN, "Richiesta troppo lunga, chiusura della connessione");
+                this.close();
+                return false;
+            }
+            else {
+                if (this.lineLength == this.lineBuffer.length) {
+                    this.lineBuffer = Arrays.copyOf(this.lineBuffer, this.lineBuffer.length * 2);
+                }
+
+                this.lineBuffer[this.lineLength++] = b;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Separa i frame binari nei byte letti.
+     *
+     * @return false se la connessione è stata chiusa
+     */
+    private boolean readFrames() {
+        while (this.readBuffer.hasRemaining()) {
+            if (this.frameLength < 0) { // Prefisso di lunghezza
+                this.lineBuffer[this.lineLength++] = this.readBuffer.get();
+                if (this.lineLength < 4) continue;
+
+                int length = (this.lineBuffer[0] & 0xFF) << 24 | (this.lineBuffer[1] & 0xFF) << 16
+                    | (this.lineBuffer[2] & 0xFF) << 8 | (this.lineBuffer[3] & 0xFF);
+                this.lineLength = 0;
+
+                if (length == 0) continue; // Keep-alive
+
+                if (length < 0 || length > BinaryCodec.MAX_FRAME_LENGTH) {
+                    this.state.log(AsyncLogger.Level.WARN, "Frame troppo lungo, chiusura della connessione");
+                    this.close();
+                    return false;
+                }
+
+                if (length > this.lineBuffer.length) this.lineBuffer = new byte[Integer.highestOneBit(length - 1) << 1];
+                this.frameLength = length;
+            }
+            else {
+                int n = Math.min(this.readBuffer.remaining(), this.frameLength - this.lineLength);
+                this.readBuffer.get(this.lineBuffer, this.lineLength, n);
+                this.lineLength += n;
+
+                if (this.lineLength == this.frameLength) {
+                    this.enqueue(Arrays.copyOf(this.lineBuffer, this.frameLength));
+                    this.lineLength = 0;
+                    this.frameLength = -1;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Indica se la connessione è inattiva da troppo tempo. Chiamato dal loop.
+     *
+     * Una riga vuota inviata dal client vale come keep-alive.
+     *
+     * @param now Istante corrente in millisecondi
+     * @return true se non arrivano dati da più di {@link RequestHandler#IDLE_TIMEOUT_MS}
+     */
+    boolean isIdle(long now) { return now - this.lastActivity > RequestHandler.IDLE_TIMEOUT_MS; }
+
+    /** Scrive le risposte accodate finché il canale le accetta. Chiamato dal loop. */
+    void onWritable() { this.flush(); }
+
+    /** Accoda la riga appena ricevuta e, se serve, avvia un worker che la elabori. */
+    private void completeLine() {
+        int length = this.lineLength;
+        if (length > 0 && this.lineBuffer[length - 1] == '\r') length--;
+
+        this.lineLength = 0;
+        if (length == 0) return; // Righe vuote ignorate
+
+        this.enqueue(Arrays.copyOf(this.lineBuffer, length));
+    }
+
+    /**
+     * Accoda una richiesta completa e, se serve, avvia un worker che la elabori.
+     *
+     * @param request Byte della richiesta
+     */
+    private void enqueue(byte[] request) {
+        this.pendingRequests.add(request);
+
+        if (this.processing.compareAndSet(false, true)) {
+            try { this.workers.execute(this::processRequests); }
+            catch (RejectedExecutionException e) {
+                this.close();
+                this.release(); // Il loop possiede ancora la connessione
+            }
+        }
+    }
+
+    /**
+     * Elabora in ordine le richieste accodate. Eseguito nel pool di worker.
+     *
+     * Un solo worker alla volta lavora su una connessione, quindi il
+     * {@link RequestHandler} non viene mai usato in concorrenza, nemmeno dal
+     * rilascio alla chiusura, e così il codec binario. Ogni riga o frame viene decodificato dai suoi byte,
+     * quindi una richiesta malformata non compromette le successive.
+     */
+    private void processRequests() {
+        do {
+            byte[] request;
+
+            while (!this.closed && (request = this.pendingRequests.poll()) != null) {
+                try {
+                    Object response = this.binary != null
+                        ? this.requestHandler.handleFrame(this.binary, request)
+                        : this.handleLine(request);
+
+                    // Le richieste successive restano in coda finché la risposta non arriva
+                    if (response instanceof CompletableFuture<?> pending) {
+                        this.scheduleFlush();
+                        pending.whenComplete(this::resume);
+                        return;
+                    }
+
+                    // Le richieste successive restano in coda anche durante una risposta in streaming
+                    if (!this.reply(response)) return;
+                }
+                catch (RuntimeException e) {
+                    this.state.log(AsyncLogger.Level.WARN, "Errore nell'elaborazione della richiesta: ", e.getMessage());
+                    this.close();
+                }
+            }
+
+            // Chiusa mentre questo worker la elaborava: il rilascio spetta a lui
+            if (this.closed) {
+                this.release();
+                return;
+            }
+
+            // Una sola scrittura per le risposte a tutte le richieste già ricevute
+            this.scheduleFlush();
+            this.processing.set(false);
+
+            // Chiusa tra il controllo e il rilascio del flag: il close() del loop non l'ha presa
+            if (this.closed && this.processing.compareAndSet(false, true)) {
+                this.release();
+                return;
+            }
+        } while (!this.closed && !this.pendingRequests.isEmpty() && this.processing.compareAndSet(false, true));
+    }
+
+    /**
+     * Invia la risposta di una richiesta completata nel {@link HashingPool}
+     * e riprende l'elaborazione delle richieste in coda. Eseguito dal
+     * thread del pool.
+     *
+     * @param response Risposta
+     * @param failure Errore dell'operazione, null se riuscita
+     */
+    private void resume(Object response, Throwable failure) {
+        if (failure != null) {
+            this.state.log(AsyncLogger.Level.WARN, "Errore nell'elaborazione della richiesta: ", failure.getMessage());
+            this.close();
+        }
+        else {
+            try {
+                if (!this.reply(response)) return; // Riprende da resumeStream
+            }
+            catch (RuntimeException e) {
+                this.state.log(AsyncLogger.Level.WARN, "Errore nell'elaborazione della richiesta: ", e.getMessage());
+                this.close();
+            }
+        }
+
+        if (!this.closed) {
+            try {
+                this.workers.execute(this::processRequests);
+                return;
+            }
+            catch (RejectedExecutionException e) { this.close(); }
+        }
+
+        this.release();
+    }
+
+    /**
+     * Decodifica ed elabora una richiesta JSON.
+     *
+     * @param request Byte UTF-8 della riga
+     * @return Risposta, o il suo {@link CompletableFuture}
+     */
+    private Object handleLine(byte[] request) {
+        JsonReader in = new JsonReader(this.decode(request));
+
+        try { return this.requestHandler.handleNext(in); }
+        catch (IOException e) { return ErrorResponse.error("richiesta malformata"); }
+    }
+
+    /**
+     * Codifica una risposta nel protocollo della connessione e la accoda.
+     *
+     * @param response Risposta del {@link RequestHandler}
+     * @return false se la risposta è in streaming e si è fermata con la coda piena
+     */
+    private boolean reply(Object response) {
+        if (this.binary != null) {
+            this.queue(this.binary.encode(response));
+            return true;
+        }
+
+        if (response instanceof LeaderboardResponse r && r.isStreamed()) {
+            try { return this.stream(new LeaderboardStream(r)); }
+            catch (IOException e) {
+                this.close();
+                return true;
+            }
+        }
+
+        // Risposte sulla partita attiva: righe composte dai frammenti del turno
+        byte[] line = null;
+        if (response instanceof GameInfoResponse r) line = r.getEncodedLine();
+        else if (response instanceof LoginResponse r) line = r.getEncodedLine();
+
+        this.queue(line != null ? line : (Json.GSON.toJson(response) + "\n").getBytes(StandardCharsets.UTF_8));
+        return true;
+    }
+
+    /**
+     * Prosegue una risposta in streaming. Se la coda si riempie la
+     * risposta viene lasciata al loop, che la fa riprendere da
+     * {@link #flush} quando ha scritto la coda.
+     *
+     * @param stream Risposta in streaming
+     * @return true se la risposta è stata accodata per intero
+     * @throws IOException Se la connessione è stata chiusa
+     */
+    private boolean stream(LeaderboardStream stream) throws IOException {
+        if (stream.advance()) return true;
+
+        this.stream = stream;
+        this.loop.execute(this::flush); // Anche se la coda è già stata scritta, per non perdere la ripresa
+        return false;
+    }
+
+    /**
+     * Riprende una risposta in streaming e poi le richieste in coda.
+     * Eseguito nel pool di worker, su richiesta del loop.
+     *
+     * @param stream Risposta in streaming ferma
+     */
+    private void resumeStream(LeaderboardStream stream) {
+        try {
+            if (!this.stream(stream)) return;
+        }
+        catch (IOException e) { this.close(); }
+        catch (RuntimeException e) {
+            this.state.log(AsyncLogger.Level.WARN, "Errore nell'elaborazione della richiesta: ", e.getMessage());
+            this.close();
+        }
+
+        this.processRequests(); // Se la connessione è chiusa, la rilascia soltanto
+    }
+
+    /**
+     * Decodifica una richiesta nel buffer di caratteri della connessione.
+     *
+     * @param request Byte UTF-8 della richiesta
+     * @return Reader sui caratteri decodificati
+     */
+    private CharArrayReader decode(byte[] request) {
+        if (this.requestChars.capacity() < request.length) this.requestChars = CharBuffer.allocate(request.length);
+
+        this.requestChars.clear();
+        this.utf8.reset();
+        this.utf8.decode(ByteBuffer.wrap(request), this.requestChars, true);
+        this.utf8.flush(this.requestChars);
+
+        return new CharArrayReader(this.requestChars.array(), 0, this.requestChars.position());
+    }
+
+    /**
+     * Accoda una risposta e chiede al loop di scriverla.
+     *
+     * @param response Byte della risposta, già delimitata
+     */
+    private void send(byte[] response) {
+        this.queue(response);
+        this.scheduleFlush();
+    }
+
+    /**
+     * Accoda una risposta senza scriverla: verrà scritta insieme alle
+     * successive dal prossimo {@link #scheduleFlush}.
+     *
+     * @param response Byte della risposta, già delimitata
+     */
+    private void queue(byte[] response) {
+        this.queuedBytes.addAndGet(response.length);
+        this.pendingWrites.add(ByteBuffer.wrap(response));
+    }
+
+    /** Chiede al loop di scrivere le risposte accodate, se non l'ha già fatto. */
+    private void scheduleFlush() {
+        if (this.pendingWrites.isEmpty()) return;
+
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            this.loop.execute(() -> {
+                this.flushScheduled.set(false);
+                this.flush();
+            });
+        }
+    }
+
+    /**
+     * Scrive le risposte accodate e aggiorna l'interesse in OP_WRITE.
+     *
+     * Le risposte accumulate (es. quelle di più richieste in pipeline)
+     * vengono passate al canale insieme, con una scrittura gather: una sola
+     * chiamata di sistema invece di una per risposta.
+     */
+    private void flush() {
+        if (this.closed) {
+            this.releaseStream(); // Fermata dopo la chiusura: nessuno la riprenderà
+            return;
+        }
+
+        try {
+            while (!this.pendingWrites.isEmpty()) {
+                int n = 0;
+                for (ByteBuffer buf : this.pendingWrites) {
+                    this.gather[n++] = buf;
+                    if (n == MAX_GATHER) break;
+                }
+
+                long bytes = this.channel.write(this.gather, 0, n);
+                if (this.metrics != null) this.metrics.bytesOut(bytes);
+
+                int written = 0;
+                while (written < n && !this.gather[written].hasRemaining()) {
+                    this.pendingWrites.poll();
+                    this.queuedBytes.addAndGet(-this.gather[written].capacity());
+                    written++;
+                }
+
+                Arrays.fill(this.gather, 0, n, null);
+                if (written < n) break; // Buffer del socket pieno
+            }
+        }
+        catch (IOException e) {
+            this.close();
+            return;
+        }
+
+        // La risposta in streaming riprende in un worker, non nel loop
+        LeaderboardStream stream = this.stream;
+        if (stream != null && this.queuedBytes.get() <= MAX_QUEUED_BYTES) {
+            this.stream = null;
+
+            try { this.workers.execute(() -> this.resumeStream(stream)); }
+            catch (RejectedExecutionException e) {
+                this.close();
+                return;
+            }
+        }
+
+        if (this.pendingWrites.isEmpty()) this.key.interestOps(SelectionKey.OP_READ);
+        else this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Chiude la connessione e scarta le richieste e risposte in sospeso.
+     * Chiamato dal loop o dal thread che sta elaborando le richieste.
+     *
+     * Il {@link RequestHandler} viene rilasciato da chi lo possiede: qui se
+     * nessun worker elabora la connessione, altrimenti dal worker quando
+     * vede la chiusura.
+     */
+    void close() {
+        this.closed = true;
+        this.key.cancel();
+        closeQuietly(this.channel);
+
+        if (this.processing.compareAndSet(false, true)) this.release();
+        else this.releaseStream();
+    }
+
+    /**
+     * Chiude una connessione espulsa da un nuovo login o scaduta. Chiamato
+     * dal thread che ha terminato la sessione: segna la connessione come
+     * chiusa e lascia la chiusura al loop, senza toccare il
+     * {@link RequestHandler} che un worker potrebbe stare usando.
+     */
+    private void kick() {
+        this.closed = true;
+        this.key.cancel();
+        this.loop.execute(this::close);
+    }
+
+    /**
+     * Rilascia la connessione se la sua risposta in streaming è ferma in
+     * attesa del loop: nessun worker la possiede. Chiamato dal loop.
+     */
+    private void releaseStream() {
+        if (this.stream == null) return;
+
+        this.stream = null;
+        this.release();
+    }
+
+    /** Rilascia il {@link RequestHandler} e conta la chiusura, una sola volta. */
+    private void release() {
+        if (this.released.compareAndSet(false, true)) {
+            this.requestHandler.close();
+            if (this.metrics != null) this.metrics.connectionClosed();
+        }
+    }
+
+    /**
+     * Risposta in streaming in corso: scrive il JSON a blocchi di record e
+     * lo accoda a pezzi di almeno {@link #STREAM_CHUNK} caratteri,
+     * conservando il cursore tra una ripresa e l'altra. Usata da un solo
+     * worker alla volta.
+     */
+    private final class LeaderboardStream {
+        private final LeaderboardResponse response;
+        private final StringWriter chunk;
+        private final JsonWriter out;
+        private long cursor;
+
+        LeaderboardStream(LeaderboardResponse response) throws IOException {
+            this.response = response;
+            this.chunk = new StringWriter(STREAM_CHUNK);
+            this.out = Json.GSON.newJsonWriter(this.chunk);
+            this.cursor = LeaderboardResponse.RecordSource.START;
+
+            ResponseAdapters.LeaderboardAdapter.writeHead(this.out, response);
+        }
+
+        /**
+         * Accoda blocchi di record finché la coda ha spazio.
+         *
+         * @return true se la risposta è stata accodata per intero
+         * @throws IOException Se la connessione è stata chiusa
+         */
+        boolean advance() throws IOException {
+            LeaderboardResponse.RecordSource source = this.response.getSource();
+
+            while (this.cursor != LeaderboardResponse.RecordSource.END) {
+                if (NioConnection.this.closed) throw new IOException("connessione chiusa");
+                if (NioConnection.this.queuedBytes.get() > MAX_QUEUED_BYTES) return false;
+
+                this.cursor = source.next(this.cursor, (username, position) ->
+                    ResponseAdapters.LeaderboardAdapter.writeRecord(this.out, username, position)
+                );
+                if (this.chunk.getBuffer().length() >= STREAM_CHUNK) this.sendChunk();
+            }
+
+            ResponseAdapters.LeaderboardAdapter.writeTail(this.out, this.response);
+            this.chunk.write('\n');
+            this.sendChunk();
+            return true;
+        }
+
+        private void sendChunk() {
+            StringBuffer buffer = this.chunk.getBuffer();
+            NioConnection.this.send(buffer.toString().getBytes(StandardCharsets.UTF_8));
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Chiude un canale ignorando eventuali errori.
+     *
+     * @param channel Canale da chiudere
+     */
+    static void closeQuietly(Channel channel) {
+        try { channel.close(); }
+        catch (IOException e) { ; }
+    }
+}
@@ -0,0 +1,129 @@
+package com.nicholasTropea.game.server;
+
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import java.io.IOException;
+
+import com.nicholasTropea.game.model.PlayerRegistry;
+
+/**
+ * Versione non bloccante del {@link NetworkManager}.
+ *
+ * Invece di un thread per client usa un numero fisso di {@link SelectorLoop},
+ * ognuno con il proprio {@link java.nio.channels.Selector}, a cui le
+ * connessioni accettate vengono assegnate a turno. La logica di gioco viene
+ * eseguita in un pool di worker separato, così che un'elaborazione lenta
+ * non blocchi l'I/O degli altri client.
+ *
+ * @author Nicholas Riccardo Tropea
+ */
+public class NioNetworkManager implements Runnable {
+    /** Porta di ascolto del server. */
+    private final int port;
+
+    /** Numero di thread di I/O. */
+    private final int ioThreads;
+
+    /** Pool di thread per la logica di gioco. */
+    private final ExecutorService workers;
+
+    /** Stato del server condiviso dalle connessioni. */
+    private final ServerState state;
+
+    /**
+     * Crea un nuovo NioNetworkManager.
+     *
+     * @param port Porta TCP su cui ascoltare le connessioni
+     * @param ioThreads Numero di thread di I/O (selector)
+     * @param workerThreads Numero di thread per la logica di gioco
+     */
+    public NioNetworkManager(int port, int ioThreads, int workerThreads) {
+        this(port, ioThreads, workerThreads, new ServerState(new PlayerRegistry()));
+    }
+
+    /**
+     * Crea un nuovo NioNetworkManager che serve uno stato esistente.
+     *
+     * @param port Porta TCP su cui ascoltare le connessioni
+     * @param ioThreads Numero di thread di I/O (selector)
+     * @param workerThreads Numero di thread per la logica di gioco
+     * @param state Stato del server condiviso dalle connessioni
+     */
+    public NioNetworkManager(int port, int ioThreads, int workerThreads, ServerState state) {
+        if (ioThreads < 1 || workerThreads < 1) {
+            throw new IllegalArgumentException("ioThreads and workerThreads must be >= 1");
+        }
+
+        this.port = port;
+        this.ioThreads = ioThreads;
+        this.workers = Executors.newFixedThreadPool(workerThreads);
+        this.state = state;
+    }
+
+    /** Esegue il listener principale del server. */
+    @Override
+    public void run() { this.start(); }
+
+    /**
+     * Avvia i loop di I/O e il ServerSocketChannel e inizia l'ascolto.
+     *
+     * @throws IOException Se la porta è già occupata o errore di rete
+     */
+    private void start() {
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(this.port), NetworkManager.ACCEPT_BACKLOG);
+
+            ServerMetrics metrics = this.state.getMetrics();
+            if (metrics != null && this.workers instanceof ThreadPoolExecutor pool) {
+                metrics.addGauge("nio.workerQueue", () -> pool.getQueue().size());
+            }
+
+            SelectorLoop[] loops = new SelectorLoop[this.ioThreads];
+            for (int i = 0; i < loops.length; i++) {
+                loops[i] = new SelectorLoop(this.workers, this.state);
+
+                Thread t = new Thread(loops[i], "nio-io-" + i);
+                t.setDaemon(true);
+                t.start();
+            }
+
+            this.state.log(AsyncLogger.Level.INFO, "Server (NIO) attivo sulla porta ", this.port);
+            this.listenForConnections(serverChannel, loops);
+        }
+        catch (IOException e) { this.state.log(AsyncLogger.Level.ERROR, "Errore nell'avvio del server: ", e.getMessage()); }
+        finally { this.workers.shutdownNow(); }
+    }
+
+    /**
+     * Ciclo di accettazione delle connessioni client.
+     *
+     * L'accept resta bloccante: le connessioni accettate vengono
+     * assegnate ai loop di I/O in round-robin.
+     *
+     * @param serverChannel Canale server già aperto
+     * @param loops Loop di I/O attivi
+     */
+    private void listenForConnections(ServerSocketChannel serverChannel, SelectorLoop[] loops) {
+        int next = 0;
+
+        while (true) {
+            try {
+                SocketChannel clientChannel = serverChannel.accept();
+                clientChannel.setOption(StandardSocketOptions.TCP_NODELAY, true); // Le risposte sono già raggruppate
+                this.state.log(AsyncLogger.Level.INFO, "Connessione da: ", clientChannel.getRemoteAddress());
+
+                loops[next].register(clientChannel);
+                next = (next + 1) % loops.length;
+            }
+            catch (IOException e) { this.state.log(AsyncLogger.Level.WARN, "Errore: ", e.getMessage()); }
+        }
+    }
+}
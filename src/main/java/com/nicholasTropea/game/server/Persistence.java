@@ -0,0 +1,327 @@
+package com.nicholasTropea.game.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+import com.nicholasTropea.game.model.GameSessionTable;
+import com.nicholasTropea.game.model.GameStatsArchive;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+
+/**
+ * Persistenza dello stato del server: log delle modifiche e snapshot.
+ *
+ * Ogni modifica viene scritta nel {@link WriteAheadLog} prima di
+ * rispondere al client:
+ * <ul>
+ *   <li>registrazioni, cambi di credenziali e partite concluse, come
+ *       immagine del record del {@link PlayerRegistry} dopo la modifica
+ *       (il registro chiama questa classe come {@link PlayerRegistry.Journal})</li>
+ *   <li>esiti delle proposte, come stato della sessione in
+ *       {@link GameSessionTable} dopo la proposta</li>
+ *   <li>inizio di una partita</li>
+ * </ul>
+ * Tutti i record sono immagini "dopo", quindi rileggerli più volte non
+ * cambia il risultato.
+ *
+ * Periodicamente ({@link #scheduleSnapshots}) il log viene ruotato e lo
+ * stato completo viene scritto in uno snapshot compatto; i segmenti
+ * precedenti vengono poi cancellati. Al riavvio ({@link #recover}) si
+ * carica lo snapshot e si rilegge solo la coda del log. Lo snapshot non
+ * blocca le richieste: le modifiche concorrenti finiscono comunque nel
+ * segmento nuovo, che viene riletto dopo lo snapshot.
+ *
+ * Formato dello snapshot (interi big-endian):
+ * <pre>
+ * int MAGIC, int VERSION, long primo segmento da rileggere,
+ * int gameId della partita attiva (-1 se nessuna), long fine della partita,
+ * int n giocatori, n × record del registro,
+ * (int id giocatore, int stato della sessione)*, int -1,
+ * (int gameId, int giocatori, int conclusi, int vincitori, long somma dei punteggi)*, int -1,
+ * int CRC32C dei byte precedenti
+ * </pre>
+ * La sequenza finale contiene le statistiche delle partite archiviate
+ * ({@link GameStatsArchive}).
+ */
+public final class Persistence implements PlayerRegistry.Journal, Closeable {
+    /** Nome del file dello snapshot nella directory dei dati. */
+    public static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    /** Firma dello snapshot ("CNSN"). */
+    private static final int SNAPSHOT_MAGIC = 0x434E534E;
+
+    /** Versione del formato dello snapshot. */
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // Tipi dei record del log (i primi tre coincidono con PlayerRegistry.Journal)
+    private static final byte PLAYER_REGISTERED = (byte) REGISTERED;
+    private static final byte CREDENTIALS_CHANGED = (byte) CREDENTIALS_UPDATED;
+    private static final byte GAME_COMPLETED = (byte) GAME_RECORDED;
+    private static final byte PROPOSAL = 4;
+    private static final byte ROUND_STARTED = 5;
+
+    /** Directory di log e snapshot */
+    private final Path directory;
+
+    /** Log delle modifiche */
+    private final WriteAheadLog log;
+
+    /** Thread degli snapshot periodici (null se non avviati) */
+    private ScheduledExecutorService snapshots;
+
+    private Persistence(Path directory, WriteAheadLog log) {
+        this.directory = directory;
+        this.log = log;
+    }
+
+    /**
+     * Apre la persistenza in una directory, creandola se serve.
+     *
+     * @param directory Directory di log e snapshot
+     * @param durability Modalità di fsync del log
+     * @param intervalMs Intervallo tra due fsync in modalità {@link WriteAheadLog.Durability#INTERVAL}
+     * @return Persistenza aperta
+     * @throws IOException In caso di errore di I/O
+     */
+    public static Persistence open(Path directory, WriteAheadLog.Durability durability, long intervalMs) throws IOException {
+        return new Persistence(directory, WriteAheadLog.open(directory, durability, intervalMs));
+    }
+
+    /**
+     * Ricostruisce lo stato del server da snapshot e log. Va chiamato prima
+     * di collegare la persistenza allo stato ({@link ServerState#setPersistence}).
+     *
+     * @param puzzles Archivio delle partite, per ricreare la partita attiva
+     * @param state Stato del server, con archivio dei giocatori vuoto
+     * @return Numero di record del log riletti
+     * @throws IOException Se snapshot o log non sono leggibili
+     */
+    public long recover(PuzzleStore puzzles, ServerState state) throws IOException {
+        PlayerRegistry players = state.getPlayers();
+        Path snapshot = this.directory.resolve(SNAPSHOT_FILE);
+
+        long fromSegment = 0;
+        GameSessionTable[] round = { null };
+        long[] roundEnd = { 0 };
+        byte[] image = new byte[PlayerRegistry.RECORD_SIZE];
+
+        if (Files.exists(snapshot)) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+            CRC32C crc = new CRC32C();
+            crc.update(data.array(), 0, data.limit() - 4);
+
+            if (data.limit() < 32 || data.getInt(0) != SNAPSHOT_MAGIC || data.getInt(data.limit() - 4) != (int) crc.getValue()) {
+                throw new IOException("snapshot non valido: " + snapshot);
+            }
+            if (data.getInt(4) != SNAPSHOT_VERSION) throw new IOException("versione dello snapshot non supportata");
+
+            data.position(8);
+            fromSegment = data.getLong();
+            int gameId = data.getInt();
+            roundEnd[0] = data.getLong();
+            if (gameId >= 0 && puzzles.contains(gameId)) round[0] = new GameSessionTable(puzzles.get(gameId));
+
+            int count = data.getInt();
+            for (int id = 0; id < count; id++) {
+                data.get(image);
+                players.restore(id, image);
+            }
+
+            for (int id = data.getInt(); id >= 0; id = data.getInt()) {
+                int session = data.getInt();
+                if (round[0] != null) round[0].restore(id, session);
+            }
+
+            for (int archived = data.getInt(); archived >= 0; archived = data.getInt()) {
+                state.getArchive().put(archived, data.getInt(), data.getInt(), data.getInt(), data.getLong());
+            }
+        }
+
+        long replayed = WriteAheadLog.replay(this.directory, fromSegment, (type, payload) -> {
+            switch (type) {
+                case PLAYER_REGISTERED, CREDENTIALS_CHANGED, GAME_COMPLETED -> {
+                    int id = payload.getInt();
+                    payload.get(image);
+                    players.restore(id, image);
+                }
+                case PROPOSAL -> {
+                    int gameId = payload.getInt();
+                    int id = payload.getInt();
+                    int session = payload.getInt();
+                    if (round[0] != null && round[0].getGame().getId() == gameId) round[0].restore(id, session);
+                }
+                case ROUND_STARTED -> {
+                    int gameId = payload.getInt();
+                    roundEnd[0] = payload.getLong();
+                    if (round[0] != null) state.getArchive().freeze(round[0].getGame().getId(), round[0].getStats());
+                    round[0] = puzzles.contains(gameId) ? new GameSessionTable(puzzles.get(gameId)) : null;
+                }
+                default -> throw new IOException("tipo di record sconosciuto nel log: " + type);
+            }
+        });
+
+        if (round[0] != null) state.restoreRound(round[0], roundEnd[0]);
+        return replayed;
+    }
+
+    @Override
+    public long recordChanged(int kind, int id, byte[] image) {
+        byte[] payload = new byte[4 + image.length];
+        ByteBuffer.wrap(payload).putInt(id).put(image);
+        return this.append((byte) kind, payload);
+    }
+
+    @Override
+    public void sync(long sequence) {
+        try { this.log.sync(sequence); }
+        catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    /**
+     * Registra l'esito di una proposta e attende che sia durevole.
+     *
+     * @param gameId Partita della sessione
+     * @param playerId Id del giocatore
+     * @param session Stato della sessione dopo la proposta
+     */
+    public void proposal(int gameId, int playerId, int session) {
+        byte[] payload = new byte[12];
+        ByteBuffer.wrap(payload).putInt(gameId).putInt(playerId).putInt(session);
+        this.sync(this.append(PROPOSAL, payload));
+    }
+
+    /**
+     * Registra l'inizio di una partita e attende che sia durevole.
+     *
+     * @param gameId Partita avviata
+     * @param end Istante di fine, in millisecondi
+     */
+    public void roundStarted(int gameId, long end) {
+        byte[] payload = new byte[12];
+        ByteBuffer.wrap(payload).putInt(gameId).putLong(end);
+        this.sync(this.append(ROUND_STARTED, payload));
+    }
+
+    /**
+     * Scrive uno snapshot dello stato e cancella i segmenti del log che
+     * contiene.
+     *
+     * @param state Stato del server
+     * @throws IOException In caso di errore di I/O
+     */
+    public void snapshot(ServerState state) throws IOException {
+        long segment = this.log.rotate();
+
+        PlayerRegistry players = state.getPlayers();
+        GameSessionTable round = state.getRound();
+        Path target = this.directory.resolve(SNAPSHOT_FILE);
+        Path temp = this.directory.resolve(SNAPSHOT_FILE + ".tmp");
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            CRC32C crc = new CRC32C();
+            byte[] image = new byte[PlayerRegistry.RECORD_SIZE];
+            int count = players.size();
+
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(segment);
+            buffer.putInt(round != null ? round.getGame().getId() : -1).putLong(state.getRoundEnd());
+            buffer.putInt(count);
+
+            for (int id = 0; id < count; id++) {
+                if (buffer.remaining() < image.length) drain(out, buffer, crc);
+                players.readRecord(id, image);
+                buffer.put(image);
+            }
+
+            if (round != null) {
+                for (int id = 0; id < count; id++) {
+                    int session = round.state(id);
+                    if (!GameSessionTable.exists(session)) continue;
+
+                    if (buffer.remaining() < 8) drain(out, buffer, crc);
+                    buffer.putInt(id).putInt(session);
+                }
+            }
+
+            if (buffer.remaining() < 4) drain(out, buffer, crc);
+            buffer.putInt(-1);
+
+            // Al più una voce per partita dell'archivio
+            List<long[]> archived = new ArrayList<>();
+            state.getArchive().forEach((gameId, total, finished, won, scoreSum) -> archived.add(new long[] { gameId, total, finished, won, scoreSum }));
+            for (long[] stats : archived) {
+                if (buffer.remaining() < 24) drain(out, buffer, crc);
+                buffer.putInt((int) stats[0]).putInt((int) stats[1]).putInt((int) stats[2]).putInt((int) stats[3]).putLong(stats[4]);
+            }
+
+            if (buffer.remaining() < 4) drain(out, buffer, crc);
+            buffer.putInt(-1);
+            drain(out, buffer, crc);
+
+            buffer.putInt((int) crc.getValue()).flip();
+            while (buffer.hasRemaining()) out.write(buffer);
+            out.force(true);
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.log.deleteSegmentsBefore(segment);
+    }
+
+    /**
+     * Avvia gli snapshot periodici in un thread dedicato.
+     *
+     * @param state Stato del server
+     * @param periodMs Intervallo tra due snapshot, in millisecondi
+     */
+    public synchronized void scheduleSnapshots(ServerState state, long periodMs) {
+        if (this.snapshots != null) return;
+
+        this.snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.snapshots.scheduleWithFixedDelay(() -> {
+            try { this.snapshot(state); }
+            catch (IOException | RuntimeException e) { state.log(AsyncLogger.Level.ERROR, "Errore nello snapshot: ", e); }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ferma gli snapshot e chiude il log, dopo aver scritto i record in attesa.
+     *
+     * @throws IOException In caso di errore del log
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) { if (this.snapshots != null) this.snapshots.shutdownNow(); }
+        this.log.close();
+    }
+
+    private long append(byte type, byte[] payload) {
+        try { return this.log.append(type, payload, 0, payload.length); }
+        catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    /** Scrive il contenuto del buffer, aggiornando il CRC, e lo svuota. */
+    private static void drain(FileChannel out, ByteBuffer buffer, CRC32C crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.array(), 0, buffer.limit());
+        while (buffer.hasRemaining()) out.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,102 @@
+package com.nicholasTropea.game.server;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.net.PlayerStatsResponse;
+
+/**
+ * Risposte a {@link com.nicholasTropea.game.net.PlayerStatsRequest} già
+ * serializzate, una per giocatore.
+ *
+ * Ogni voce ricorda la versione delle statistiche del record da cui è
+ * stata calcolata ({@link PlayerRegistry#statsVersion}); finché il
+ * giocatore non conclude un'altra partita la risposta viene restituita
+ * così com'è, senza rileggere il record né serializzarla di nuovo.
+ *
+ * Le voci sono in pagine di {@value #PAGE_SIZE} riferimenti indicizzate per
+ * id, allocate al primo uso come in
+ * {@link com.nicholasTropea.game.model.GameSessionTable}. Due richieste
+ * concorrenti per lo stesso giocatore possono calcolare entrambe la
+ * risposta: vince l'ultima scritta, che è comunque valida per la sua
+ * versione.
+ */
+public final class PlayerStatsCache {
+    /** Bit dell'indice all'interno di una pagina. */
+    private static final int PAGE_BITS = 10;
+
+    /** Voci per pagina. */
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /** Risposta calcolata per una versione delle statistiche. */
+    private record Entry(int version, PlayerStatsResponse response) { ; }
+
+    /** Giocatori da cui vengono lette le statistiche */
+    private final PlayerRegistry players;
+
+    /** Pagine delle voci, null se non ancora allocate */
+    private volatile AtomicReferenceArray<Entry>[] pages;
+
+    /** Serializza l'allocazione delle pagine */
+    private final ReentrantLock pageLock;
+
+    /**
+     * Crea una cache vuota.
+     *
+     * @param players Archivio dei giocatori
+     */
+    @SuppressWarnings("unchecked")
+    public PlayerStatsCache(PlayerRegistry players) {
+        this.players = players;
+        this.pageLock = new ReentrantLock();
+        this.pages = (AtomicReferenceArray<Entry>[]) new AtomicReferenceArray<?>[16];
+    }
+
+    /**
+     * Restituisce le statistiche di un giocatore, ricalcolandole solo se
+     * sono cambiate dall'ultima richiesta.
+     *
+     * @param playerId Id del giocatore
+     * @return Risposta di successo, con il JSON già pronto
+     * @throws IllegalArgumentException Se l'id non è assegnato
+     */
+    public PlayerStatsResponse get(int playerId) {
+        int version = this.players.statsVersion(playerId);
+        AtomicReferenceArray<Entry> page = this.page(playerId);
+        int i = playerId & (PAGE_SIZE - 1);
+
+        Entry entry = page.get(i);
+        if (entry != null && entry.version() == version) return entry.response();
+
+        // Versione letta prima del record: se cambia nel frattempo la voce
+        // risulta vecchia e verrà ricalcolata alla prossima richiesta
+        PlayerStatsResponse response = PlayerStatsResponse.of(this.players.get(playerId)).preEncoded();
+        page.set(i, new Entry(version, response));
+        return response;
+    }
+
+    /** Restituisce la pagina di un giocatore, allocandola se serve. */
+    @SuppressWarnings("unchecked")
+    private AtomicReferenceArray<Entry> page(int playerId) {
+        int p = playerId >>> PAGE_BITS;
+        AtomicReferenceArray<Entry>[] pages = this.pages;
+        if (p < pages.length && pages[p] != null) return pages[p];
+
+        this.pageLock.lock();
+        try {
+            pages = this.pages;
+            if (p < pages.length && pages[p] != null) return pages[p];
+
+            int length = pages.length;
+            while (length <= p) length *= 2;
+
+            AtomicReferenceArray<Entry>[] copy = Arrays.copyOf(pages, length);
+            copy[p] = new AtomicReferenceArray<>(PAGE_SIZE);
+            this.pages = copy;
+            return copy[p];
+        }
+        finally { this.pageLock.unlock(); }
+    }
+}
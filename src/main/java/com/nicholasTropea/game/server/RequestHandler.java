@@ -0,0 +1,651 @@
+package com.nicholasTropea.game.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.GameSessionTable;
+import com.nicholasTropea.game.model.GameStats;
+import com.nicholasTropea.game.model.Leaderboard;
+import com.nicholasTropea.game.model.LeaderboardRecord;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.BinaryCodec;
+import com.nicholasTropea.game.net.ErrorResponse;
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.GameInfoResponse;
+import com.nicholasTropea.game.net.GameStatsRequest;
+import com.nicholasTropea.game.net.GameStatsResponse;
+import com.nicholasTropea.game.net.LeaderboardRequest;
+import com.nicholasTropea.game.net.LeaderboardResponse;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.LoginResponse;
+import com.nicholasTropea.game.net.LogoutRequest;
+import com.nicholasTropea.game.net.LogoutResponse;
+import com.nicholasTropea.game.net.PlayerStatsRequest;
+import com.nicholasTropea.game.net.PlayerStatsResponse;
+import com.nicholasTropea.game.net.RegisterRequest;
+import com.nicholasTropea.game.net.RegisterResponse;
+import com.nicholasTropea.game.net.Request;
+import com.nicholasTropea.game.net.Response;
+import com.nicholasTropea.game.net.RequestDecoder;
+import com.nicholasTropea.game.net.RoundFragments;
+import com.nicholasTropea.game.net.SubmitProposalRequest;
+import com.nicholasTropea.game.net.SubmitProposalResponse;
+import com.nicholasTropea.game.net.UpdateCredentialsRequest;
+import com.nicholasTropea.game.net.UpdateCredentialsResponse;
+
+/**
+ * Contiene la logica di gioco associata ad una singola connessione.
+ *
+ * Rappresenta la sessione del client: riceve una richiesta alla volta e
+ * produce la risposta corrispondente, senza occuparsi di I/O. In questo modo
+ * la stessa logica viene riutilizzata sia dal {@link ClientHandler}
+ * bloccante sia dal server non bloccante {@link NioNetworkManager}.
+ *
+ * Le richieste vengono decodificate in streaming dal {@link RequestDecoder};
+ * il campo {@code "operation"} seleziona poi l'handler nella tabella
+ * {@link #OPERATIONS}.
+ *
+ * Giocatori e partita attiva sono nel {@link ServerState} condiviso da
+ * tutte le connessioni. Il login crea una sessione nella tabella
+ * {@link LoginSessions}: l'handler ne conserva solo il token e la ritrova
+ * ad ogni richiesta, quindi vede subito un'espulsione (nuovo login dello
+ * stesso giocatore su un'altra connessione) o una scadenza per inattività.
+ *
+ * Registrazione, login e cambio credenziali calcolano l'hash di una
+ * password: se il {@link ServerState} ha un {@link HashingPool} vengono
+ * eseguiti lì. Un handler asincrono ({@link #setAsync}) restituisce
+ * allora subito un {@link CompletableFuture} della risposta, che la
+ * connessione attende senza occupare il worker; altrimenti l'handler
+ * attende il pool prima di rispondere.
+ *
+ * Un'istanza non è thread-safe: ogni connessione ne possiede una e le
+ * sue richieste vengono elaborate una alla volta.
+ *
+ * @author Nicholas Riccardo Tropea
+ */
+public class RequestHandler {
+    /** Tempo massimo di inattività di una connessione, in millisecondi. */
+    public static final int IDLE_TIMEOUT_MS = 10 * 60 * 1000;
+
+    /** Tabella di dispatch: operazione -> handler. */
+    private static final Map<String, BiFunction<RequestHandler, Request, Object>> OPERATIONS = Map.of(
+        "register", (h, r) -> h.register((RegisterRequest) r),
+        "login", (h, r) -> h.login((LoginRequest) r),
+        "logout", (h, r) -> h.logout((LogoutRequest) r),
+        "updateCredentials", (h, r) -> h.updateCredentials((UpdateCredentialsRequest) r),
+        "submitProposal", (h, r) -> h.submitProposal((SubmitProposalRequest) r),
+        "requestGameInfo", (h, r) -> h.requestGameInfo((GameInfoRequest) r),
+        "requestGameStats", (h, r) -> h.requestGameStats((GameStatsRequest) r),
+        "requestLeaderboard", (h, r) -> h.requestLeaderboard((LeaderboardRequest) r),
+        "requestPlayerStats", (h, r) -> h.requestPlayerStats((PlayerStatsRequest) r)
+    );
+
+    /** Giocatori letti dalla classifica per ogni blocco di una risposta in streaming. */
+    private static final int STREAM_BATCH = 256;
+
+    /** Decoder delle richieste, condiviso da tutte le connessioni. */
+    private static final RequestDecoder DECODER = new RequestDecoder();
+
+    /** Stato del server condiviso */
+    private final ServerState state;
+
+    /** Token della sessione di login della connessione (0 se non loggata). */
+    private long token;
+
+    /** Id del giocatore loggato nel {@link PlayerRegistry}, aggiornato da {@link #loggedIn()} (-1 se non loggato). */
+    private int playerId;
+
+    /** Indirizzo IP del client (null se non noto) */
+    private InetAddress clientAddress;
+
+    /** Chiude la connessione se la sessione viene espulsa o scade (null se non serve) */
+    private Runnable onKick;
+
+    /** true se le operazioni nel pool degli hash restituiscono un {@link CompletableFuture} */
+    private boolean async;
+
+    /**
+     * Crea un handler per una nuova connessione.
+     *
+     * @param state Stato del server condiviso
+     */
+    public RequestHandler(ServerState state) {
+        this.state = state;
+        this.token = 0;
+        this.playerId = -1;
+        this.clientAddress = null;
+        this.onKick = null;
+        this.async = false;
+    }
+
+    /**
+     * Imposta l'indirizzo del client, a cui vengono inviate le notifiche
+     * unicast richieste al login.
+     *
+     * @param address Indirizzo IP del client
+     */
+    public void setClientAddress(InetAddress address) { this.clientAddress = address; }
+
+    /**
+     * Imposta l'azione che chiude la connessione quando la sua sessione di
+     * login viene espulsa da un nuovo login o scade per inattività. Viene
+     * eseguita da un altro thread.
+     *
+     * @param onKick Chiusura della connessione
+     */
+    public void setKickHandler(Runnable onKick) { this.onKick = onKick; }
+
+    /**
+     * Sceglie se le operazioni eseguite nel {@link HashingPool} restituiscono
+     * la risposta o un {@link CompletableFuture} della risposta. Il future
+     * viene completato da un thread del pool; l'handler non deve ricevere
+     * altre richieste finché non è completato.
+     *
+     * @param async true per ricevere il future
+     */
+    public void setAsync(boolean async) { this.async = async; }
+
+    /**
+     * Rilascia le risorse della connessione chiusa: la sessione di login
+     * termina e l'indirizzo per le notifiche viene rimosso.
+     */
+    public void close() {
+        if (this.token != 0) this.state.getSessions().logout(this.token);
+        this.token = 0;
+        this.playerId = -1;
+    }
+
+    /**
+     * Legge la prossima richiesta dal reader e la elabora.
+     *
+     * Una richiesta valida ma non accettabile (operazione sconosciuta,
+     * campi non validi) produce una {@link ErrorResponse} e il reader
+     * resta utilizzabile per la richiesta successiva.
+     *
+     * @param in Reader posizionato all'inizio di una richiesta
+     * @return Risposta da inviare al client
+     * @throws MalformedJsonException Se il JSON è malformato: il reader non è più utilizzabile
+     * @throws IOException In caso di errore di lettura
+     */
+    public Object handleNext(JsonReader in) throws IOException {
+        Request request;
+
+        try { request = DECODER.read(in); }
+        catch (JsonParseException e) { return this.invalid(e.getMessage()); }
+        catch (MalformedJsonException e) {
+            this.invalid(e.getMessage());
+            throw e;
+        }
+
+        return this.handle(request);
+    }
+
+    /**
+     * Decodifica ed elabora una richiesta ricevuta con il protocollo binario.
+     *
+     * I frame sono delimitati dalla loro lunghezza, quindi un frame non
+     * valido produce una {@link ErrorResponse} senza compromettere i
+     * successivi.
+     *
+     * @param codec Codec binario della connessione
+     * @param frame Byte del frame, senza prefisso di lunghezza
+     * @return Risposta da inviare al client
+     */
+    public Object handleFrame(BinaryCodec codec, byte[] frame) {
+        Object message;
+
+        try { message = codec.decode(frame, 0, frame.length); }
+        catch (ProtocolException e) { return this.invalid("richiesta malformata"); }
+
+        if (!(message instanceof Request request)) return this.invalid("richiesta malformata");
+
+        // Un frame binario ha una lunghezza massima: l'intera classifica viene inviata a pagine
+        if (request instanceof LeaderboardRequest r && r.isAll() && !r.isPaged()) {
+            request = new LeaderboardRequest(null, 0, LeaderboardRequest.MAX_PAGE_SIZE);
+        }
+
+        return this.handle(request);
+    }
+
+    /**
+     * Elabora una richiesta già decodificata.
+     *
+     * @param request Richiesta del client
+     * @return Risposta da inviare al client, oppure il suo {@link CompletableFuture} se l'handler è asincrono
+     */
+    public Object handle(Request request) {
+        BiFunction<RequestHandler, Request, Object> handler = OPERATIONS.get(request.getOperation());
+        if (handler == null) return this.invalid("operazione sconosciuta");
+
+        this.state.log(AsyncLogger.Level.INFO, "Operazione: ", request.getOperation());
+
+        ServerMetrics metrics = this.state.getMetrics();
+        if (metrics == null) return handler.apply(this, request);
+
+        return this.timed(metrics.operation(request.getOperation()), handler, request);
+    }
+
+    /**
+     * Nomi delle operazioni del protocollo.
+     *
+     * @return Operazioni accettate da {@link #handle}
+     */
+    public static Set<String> operations() { return OPERATIONS.keySet(); }
+
+    /**
+     * Elabora una richiesta registrandone tempo ed esito nelle metriche.
+     * Una risposta asincrona viene registrata al completamento del future,
+     * quindi include l'attesa nel pool degli hash.
+     *
+     * @param metrics Metriche dell'operazione
+     * @param handler Handler dell'operazione
+     * @param request Richiesta del client
+     * @return Risposta dell'handler
+     */
+    private Object timed(ServerMetrics.Operation metrics, BiFunction<RequestHandler, Request, Object> handler, Request request) {
+        long start = System.nanoTime();
+        Object response;
+
+        try { response = handler.apply(this, request); }
+        catch (RuntimeException e) {
+            metrics.record(System.nanoTime() - start, true);
+            throw e;
+        }
+
+        if (response instanceof CompletableFuture<?> future) {
+            future.whenComplete((r, e) -> metrics.record(System.nanoTime() - start, e != null || !isSuccess(r)));
+        }
+        else metrics.record(System.nanoTime() - start, !isSuccess(response));
+
+        return response;
+    }
+
+    /**
+     * Risposta a una richiesta non decodificabile o con un'operazione
+     * sconosciuta, contata nelle metriche come {@link ServerMetrics#INVALID}.
+     *
+     * @param message Descrizione dell'errore
+     * @return Risposta di errore
+     */
+    private ErrorResponse invalid(String message) {
+        ServerMetrics metrics = this.state.getMetrics();
+        if (metrics != null) metrics.operation(ServerMetrics.INVALID).record(0, true);
+
+        return ErrorResponse.error(message);
+    }
+
+    private static boolean isSuccess(Object response) { return response instanceof Response r && r.isSuccess(); }
+
+    /**
+     * Getter per il giocatore loggato.
+     *
+     * @return Nickname del giocatore, null se la connessione non è loggata
+     */
+    public String getLoggedUser() { return this.loggedIn() ? this.state.getPlayers().nickname(this.playerId) : null; }
+
+    // Handler delle operazioni
+
+    private Object register(RegisterRequest req) {
+        return this.hashed(() -> this.registerNow(req), RegisterResponse::error);
+    }
+
+    private RegisterResponse registerNow(RegisterRequest req) {
+        int id;
+
+        try { id = this.state.getPlayers().register(req.getName(), req.getPassword()); }
+        catch (IllegalArgumentException e) { return RegisterResponse.error("nome non valido"); }
+
+        if (id == PlayerRegistry.NAME_TAKEN) return RegisterResponse.error("nome già registrato");
+        return RegisterResponse.success();
+    }
+
+    private Object login(LoginRequest req) {
+        if (this.loggedIn()) return LoginResponse.error("connessione già loggata");
+
+        return this.hashed(
+            () -> this.completeLogin(req, this.state.getPlayers().login(req.getUsername(), req.getPassword())),
+            LoginResponse::error
+        );
+    }
+
+    /**
+     * Crea la sessione dopo la verifica delle credenziali.
+     *
+     * @param req Richiesta di login
+     * @param id Esito di {@link PlayerRegistry#login}
+     * @return Risposta al client
+     */
+    private LoginResponse completeLogin(LoginRequest req, int id) {
+        if (id == PlayerRegistry.NOT_FOUND) return LoginResponse.error("nome inesistente");
+        if (id == PlayerRegistry.WRONG_PASSWORD) return LoginResponse.error("psw incorretta");
+
+        GameSessionTable round = this.state.getRound();
+        if (round == null) return LoginResponse.error("nessuna partita in corso");
+
+        InetSocketAddress notifyAddress = null;
+        RoundNotifier notifier = this.state.getNotifier();
+        if (notifier != null && req.getUdpPort() != null && this.clientAddress != null) {
+            notifyAddress = new InetSocketAddress(this.clientAddress, req.getUdpPort());
+        }
+
+        // Espelle l'eventuale sessione dello stesso giocatore su un'altra connessione
+        this.token = this.state.getSessions().login(id, notifyAddress, this.onKick).getToken();
+        this.playerId = id;
+        if (notifyAddress != null) notifier.subscribe(id, notifyAddress);
+
+        int session = this.state.join(round, id);
+        Game game = round.getGame();
+
+        RoundFragments fragments = this.state.getFragments(round);
+        if (fragments != null) {
+            return LoginResponse.ofRound(
+                fragments, fragments.guessedGroups(GameSessionTable.remaining(session)), this.state.timeLeft(),
+                GameSessionTable.errors(session), GameSessionTable.score(session)
+            );
+        }
+
+        return LoginResponse.success(
+            game.getId(), game.getBoard(), guessedGroups(game, session), this.state.timeLeft(),
+            GameSessionTable.errors(session), GameSessionTable.score(session)
+        );
+    }
+
+    private LogoutResponse logout(LogoutRequest req) {
+        if (!this.loggedIn()) return LogoutResponse.error("utente non loggato");
+
+        this.state.getSessions().logout(this.token);
+        this.token = 0;
+        this.playerId = -1;
+        return LogoutResponse.success();
+    }
+
+    private Object updateCredentials(UpdateCredentialsRequest req) {
+        return this.hashed(() -> this.updateCredentialsNow(req), UpdateCredentialsResponse::error);
+    }
+
+    private UpdateCredentialsResponse updateCredentialsNow(UpdateCredentialsRequest req) {
+        int id;
+
+        try {
+            id = this.state.getPlayers().updateCredentials(
+                req.getOldName(), req.getOldPassword(), req.getNewName(), req.getNewPassword()
+            );
+        }
+        catch (IllegalArgumentException e) { return UpdateCredentialsResponse.error("nome non valido"); }
+
+        if (id == PlayerRegistry.NOT_FOUND) return UpdateCredentialsResponse.error("nome inesistente");
+        if (id == PlayerRegistry.WRONG_PASSWORD) return UpdateCredentialsResponse.error("oldPsw errata");
+        if (id == PlayerRegistry.NAME_TAKEN) return UpdateCredentialsResponse.error("newName già registrato");
+
+        return UpdateCredentialsResponse.success();
+    }
+
+    /**
+     * Esegue un'operazione che calcola l'hash di una password nel
+     * {@link HashingPool}, se collegato, o nel thread corrente.
+     *
+     * @param operation Operazione che produce la risposta
+     * @param error Costruttore della risposta di errore, se il pool è pieno
+     * @return Risposta, o il suo {@link CompletableFuture} se l'handler è asincrono
+     */
+    private <T> Object hashed(Supplier<T> operation, Function<String, T> error) {
+        HashingPool pool = this.state.getHashing();
+        if (pool == null) return operation.get();
+
+        CompletableFuture<T> response = pool.submit(operation);
+        if (response == null) return error.apply("server occupato, riprovare");
+        if (this.async) return response;
+
+        try { return response.join(); }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private SubmitProposalResponse submitProposal(SubmitProposalRequest req) {
+        if (!this.loggedIn()) return SubmitProposalResponse.error("utente non loggato");
+
+        GameSessionTable round = this.state.getRound();
+        if (round == null) return SubmitProposalResponse.error("nessuna partita in corso");
+
+        Game game = round.getGame();
+        int mask = game.maskOf(req.getWords());
+        if (mask == -1) return SubmitProposalResponse.error("parole non valide");
+
+        int group = this.state.submit(round, this.playerId, mask);
+        if (group == GameSessionTable.NO_SESSION) { // Partita iniziata dopo il login
+            this.state.join(round, this.playerId);
+            group = this.state.submit(round, this.playerId, mask);
+        }
+
+        if (group == GameSessionTable.INVALID) return SubmitProposalResponse.error("parole non valide");
+        if (group == GameSessionTable.FINISHED || group == GameSessionTable.NO_SESSION) return SubmitProposalResponse.error("partita conclusa");
+        if (group < 0) return SubmitProposalResponse.success(false, null);
+        return SubmitProposalResponse.success(true, game.getGroups().get(group).getTheme());
+    }
+
+    private GameInfoResponse requestGameInfo(GameInfoRequest req) {
+        if (!this.loggedIn()) return GameInfoResponse.error("utente non loggato");
+
+        GameSessionTable round = this.state.getRound();
+        if (req.getCurrent() || (round != null && round.getGame().getId() == req.getGameId())) {
+            if (round == null) return GameInfoResponse.error("nessuna partita in corso");
+            return this.gameInfo(round, true);
+        }
+
+        // Partita appena sostituita: le sessioni sono ancora in memoria
+        GameSessionTable previous = this.state.getPreviousRound();
+        if (previous != null && previous.getGame().getId() == req.getGameId()) return this.gameInfo(previous, false);
+
+        PuzzleStore puzzles = this.state.getPuzzles();
+        if (puzzles == null || !puzzles.contains(req.getGameId())) return GameInfoResponse.error("gameId inesistente");
+
+        // Partita non giocata di recente: solo la soluzione
+        Game game = puzzles.get(req.getGameId());
+        List<List<String>> solution = new ArrayList<>();
+        for (Game.Group group : game.getGroups()) solution.add(group.getWords());
+        return GameInfoResponse.success(false, null, null, solution, List.of(), 0, 0);
+    }
+
+    /**
+     * Stato della sessione del giocatore in una partita, dai frammenti del
+     * turno se disponibili.
+     *
+     * @param round Sessioni della partita
+     * @param current true se la partita è quella attiva
+     */
+    private GameInfoResponse gameInfo(GameSessionTable round, boolean current) {
+        Game game = round.getGame();
+        int session = round.state(this.playerId);
+
+        // Nessuna sessione: la plancia è intera
+        int remaining = GameSessionTable.exists(session) ? GameSessionTable.remaining(session) : game.getBoardMask();
+        boolean active = current && !GameSessionTable.isFinished(session) && !GameSessionTable.isClosed(session);
+        int errors = GameSessionTable.errors(session);
+        int score = GameSessionTable.score(session);
+        long timeLeft = this.state.timeLeft();
+
+        RoundFragments fragments = current ? this.state.getFragments(round) : null;
+        if (fragments != null) {
+            return GameInfoResponse.ofRound(fragments, active, timeLeft, remaining, fragments.guessedGroups(remaining), errors, score);
+        }
+
+        List<String> wordsLeft = new ArrayList<>();
+        for (int i = 0; i < game.getBoard().size(); i++) if ((remaining & 1 << i) != 0) wordsLeft.add(game.getBoard().get(i));
+
+        List<List<String>> solution = new ArrayList<>();
+        for (Game.Group group : game.getGroups()) solution.add(group.getWords());
+
+        return GameInfoResponse.success(active, timeLeft, wordsLeft, solution, guessedGroupsOf(game, remaining), errors, score);
+    }
+
+    private GameStatsResponse requestGameStats(GameStatsRequest req) {
+        if (!this.loggedIn()) return GameStatsResponse.error("utente non loggato");
+
+        // Partita attiva: contatori aggiornati ad ogni proposta
+        GameSessionTable round = this.state.getRound();
+        if (req.isCurrent() || (round != null && round.getGame().getId() == req.getGameId())) {
+            if (round == null) return GameStatsResponse.error("nessuna partita in corso");
+
+            GameStats stats = round.getStats();
+            return GameStatsResponse.success(
+                true,
+                this.state.timeLeft(),
+                stats.getActivePlayers(),
+                stats.getFinishedPlayers(),
+                stats.getWonPlayers(),
+                null,
+                null
+            );
+        }
+
+        // Partita conclusa: statistiche congelate nell'archivio
+        GameStatsResponse[] response = { null };
+        this.state.getArchive().get(req.getGameId(), (gameId, players, finished, won, scoreSum) -> {
+            response[0] = GameStatsResponse.success(
+                false,
+                null,
+                null,
+                finished,
+                won,
+                players,
+                players == 0 ? 0f : (float) scoreSum / players
+            );
+        });
+
+        if (response[0] != null) return response[0];
+
+        PuzzleStore puzzles = this.state.getPuzzles();
+        if (puzzles == null || !puzzles.contains(req.getGameId())) return GameStatsResponse.error("id inesistente");
+
+        // Partita esistente ma mai giocata
+        return GameStatsResponse.success(false, null, null, 0, 0, 0, 0f);
+    }
+
+    private LeaderboardResponse requestLeaderboard(LeaderboardRequest req) {
+        if (!this.loggedIn()) return LeaderboardResponse.error("utente non loggato");
+
+        PlayerRegistry players = this.state.getPlayers();
+        Leaderboard leaderboard = players.getLeaderboard();
+        List<LeaderboardRecord> records = new ArrayList<>();
+
+        if (!req.isAll() && req.getKTopPlayers() == null) {
+            int id = players.find(req.getPlayerUsername());
+            if (id < 0) return LeaderboardResponse.error("username non registrato");
+
+            records.add(new LeaderboardRecord(req.getPlayerUsername(), leaderboard.position(players.score(id))));
+            return LeaderboardResponse.success(records);
+        }
+
+        if (req.isPaged()) {
+            long cursor = Leaderboard.START;
+
+            if (req.getCursor() != null) {
+                try { cursor = Long.parseUnsignedLong(req.getCursor(), 16); }
+                catch (NumberFormatException e) { return LeaderboardResponse.error("cursore non valido"); }
+            }
+
+            long next = leaderboard.forEachAfter(cursor, req.getOffset(), req.getLimit(), (id, score, position) ->
+                records.add(new LeaderboardRecord(players.nickname(id), position))
+            );
+
+            return LeaderboardResponse.page(records, next == Leaderboard.END ? null : Long.toHexString(next));
+        }
+
+        if (req.isAll()) return LeaderboardResponse.streamed((cursor, sink) -> streamLeaderboard(players, cursor, sink));
+
+        leaderboard.forEachTop(req.getKTopPlayers(), (id, score, position) ->
+            records.add(new LeaderboardRecord(players.nickname(id), position))
+        );
+
+        return LeaderboardResponse.success(records);
+    }
+
+    /**
+     * Passa al sink il blocco della classifica che segue il cursore, di al
+     * più {@link #STREAM_BATCH} giocatori: la memoria usata non dipende dal
+     * numero di giocatori e nessun lock è preso mentre il sink scrive sul
+     * socket. I cursori della {@link Leaderboard} valgono anche come cursori
+     * della {@link LeaderboardResponse.RecordSource}: {@code START} e
+     * {@code END} coincidono.
+     *
+     * @param players Archivio dei giocatori
+     * @param cursor Cursore del blocco precedente, {@link Leaderboard#START} per il primo
+     * @param sink Destinatario dei record
+     * @return Cursore del blocco successivo, {@link Leaderboard#END} se la classifica è finita
+     * @throws IOException Se la scrittura della risposta fallisce
+     */
+    private static long streamLeaderboard(PlayerRegistry players, long cursor, LeaderboardResponse.RecordSink sink) throws IOException {
+        int[] ids = new int[STREAM_BATCH];
+        int[] positions = new int[STREAM_BATCH];
+        int[] size = new int[1];
+
+        long next = players.getLeaderboard().forEachAfter(cursor, 0, STREAM_BATCH, (id, score, position) -> {
+            ids[size[0]] = id;
+            positions[size[0]++] = position;
+        });
+
+        for (int i = 0; i < size[0]; i++) sink.accept(players.nickname(ids[i]), positions[i]);
+        return next;
+    }
+
+    private PlayerStatsResponse requestPlayerStats(PlayerStatsRequest req) {
+        if (!this.loggedIn()) return PlayerStatsResponse.error("utente non loggato");
+        return this.state.getPlayerStats().get(this.playerId);
+    }
+
+    /**
+     * Ritrova la sessione di login della connessione e ne aggiorna
+     * l'ultima attività.
+     *
+     * @return true se la connessione è loggata; false anche se la sessione è stata espulsa o è scaduta
+     */
+    private boolean loggedIn() {
+        if (this.token == 0) return false;
+
+        LoginSessions.Session session = this.state.getSessions().touch(this.token);
+        if (session == null) {
+            this.token = 0;
+            this.playerId = -1;
+            return false;
+        }
+
+        this.playerId = session.getPlayerId();
+        return true;
+    }
+
+    /** Gruppi già indovinati in una sessione: quelli senza parole rimanenti. */
+    private static List<List<String>> guessedGroups(Game game, int session) {
+        return guessedGroupsOf(game, GameSessionTable.remaining(session));
+    }
+
+    /** Gruppi senza parole in una maschera di posizioni rimanenti. */
+    private static List<List<String>> guessedGroupsOf(Game game, int remaining) {
+        List<List<String>> guessed = new ArrayList<>();
+
+        for (int g = 0; g < game.getGroups().size(); g++) {
+            if ((game.getGroupMask(g) & remaining) == 0) guessed.add(game.getGroups().get(g).getWords());
+        }
+
+        return guessed;
+    }
+}
@@ -0,0 +1,212 @@
+package com.nicholasTropea.game.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.nicholasTropea.game.model.GameStats;
+import com.nicholasTropea.game.model.LeaderboardRecord;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.Notification;
+
+/**
+ * Invia le {@link Notification} ai client via UDP: inizio e fine delle
+ * partite e cambi in testa alla classifica.
+ *
+ * Ogni evento viene serializzato una sola volta e inviato come un unico
+ * datagramma al gruppo multicast, se configurato, e in unicast ad ogni
+ * client che ha indicato una porta al login ({@link #subscribe}). I client
+ * non devono più interrogare il server per sapere quando cambia la
+ * partita.
+ *
+ * La testa della classifica ({@value #TOP_SIZE} giocatori) viene
+ * confrontata con l'ultima inviata ad ogni {@link #checkLeaderboard},
+ * chiamato dal {@link RoundScheduler} ad ogni tick: più partite concluse
+ * nello stesso tick producono una sola notifica.
+ *
+ * UDP non garantisce la consegna: i client rilevano le notifiche perse
+ * dai salti nel numero di sequenza e possono ricorrere alle richieste
+ * sulla connessione TCP. Un errore di invio viene contato e non
+ * interrompe gli altri destinatari.
+ */
+public final class RoundNotifier implements Closeable {
+    /** Giocatori in testa alla classifica confrontati e notificati. */
+    public static final int TOP_SIZE = 3;
+
+    /** Canale di invio */
+    private final DatagramChannel channel;
+
+    /** Gruppo multicast (null se solo unicast) */
+    private final InetSocketAddress group;
+
+    /** Indirizzi unicast dei client, per id del giocatore */
+    private final Map<Integer, InetSocketAddress> subscribers;
+
+    /** Numero di sequenza dell'ultima notifica */
+    private final AtomicLong seq;
+
+    /** Datagrammi inviati */
+    private final AtomicLong sent;
+
+    /** Invii falliti */
+    private final AtomicLong failed;
+
+    /** Ultima testa della classifica notificata: coppie (id, posizione) */
+    private int[] lastTop;
+
+    /**
+     * Crea un notificatore solo unicast.
+     *
+     * @throws IOException Se il canale non può essere aperto
+     */
+    public RoundNotifier() throws IOException { this(null, null, 1); }
+
+    /**
+     * Crea un notificatore che invia anche ad un gruppo multicast.
+     *
+     * @param group Gruppo multicast e porta, null per solo unicast
+     * @param networkInterface Interfaccia di uscita del multicast, null per quella di sistema
+     * @param ttl Numero massimo di salti dei datagrammi multicast
+     * @throws IOException Se il canale non può essere aperto o configurato
+     * @throws IllegalArgumentException Se l'indirizzo non è multicast
+     */
+    public RoundNotifier(InetSocketAddress group, NetworkInterface networkInterface, int ttl) throws IOException {
+        if (group != null && !group.getAddress().isMulticastAddress()) throw new IllegalArgumentException("not a multicast address");
+
+        this.channel = DatagramChannel.open(StandardProtocolFamily.INET);
+
+        if (group != null) {
+            this.channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, ttl);
+            this.channel.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            if (networkInterface != null) this.channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+        }
+
+        this.group = group;
+        this.subscribers = new ConcurrentHashMap<>();
+        this.seq = new AtomicLong();
+        this.sent = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.lastTop = new int[0];
+    }
+
+    /**
+     * Registra l'indirizzo unicast di un giocatore, sostituendo il
+     * precedente.
+     *
+     * @param playerId Id del giocatore
+     * @param address Indirizzo e porta UDP del client
+     */
+    public void subscribe(int playerId, InetSocketAddress address) { this.subscribers.put(playerId, address); }
+
+    /**
+     * Rimuove l'indirizzo unicast di un giocatore, se è ancora quello dato
+     * (un nuovo login dallo stesso giocatore non viene cancellato).
+     *
+     * @param playerId Id del giocatore
+     * @param address Indirizzo registrato
+     */
+    public void unsubscribe(int playerId, InetSocketAddress address) { this.subscribers.remove(playerId, address); }
+
+    /**
+     * Notifica l'inizio di una partita.
+     *
+     * @param gameId Id della partita
+     * @param durationMs Durata della partita, in millisecondi
+     */
+    public void roundStarted(int gameId, long durationMs) {
+        this.send(Notification.roundStarted(this.seq.incrementAndGet(), gameId, durationMs));
+    }
+
+    /**
+     * Notifica la fine di una partita con i risultati finali.
+     *
+     * @param gameId Id della partita
+     * @param stats Statistiche della partita, già chiusa
+     */
+    public void roundEnded(int gameId, GameStats stats) {
+        this.send(Notification.roundEnded(
+            this.seq.incrementAndGet(), gameId,
+            stats.getPlayers(), stats.getFinishedPlayers(), stats.getWonPlayers()
+        ));
+    }
+
+    /**
+     * Confronta la testa della classifica con l'ultima notificata e la
+     * notifica se è cambiata.
+     *
+     * @param players Archivio dei giocatori
+     * @return true se è stata inviata una notifica
+     */
+    public synchronized boolean checkLeaderboard(PlayerRegistry players) {
+        int[] top = new int[2 * TOP_SIZE];
+        int[] size = { 0 };
+
+        players.getLeaderboard().forEachTop(TOP_SIZE, (id, score, position) -> {
+            top[size[0]++] = id;
+            top[size[0]++] = position;
+        });
+
+        int[] current = Arrays.copyOf(top, size[0]);
+        if (Arrays.equals(current, this.lastTop)) return false;
+        this.lastTop = current;
+
+        List<LeaderboardRecord> records = new ArrayList<>(TOP_SIZE);
+        for (int i = 0; i < current.length; i += 2) records.add(new LeaderboardRecord(players.nickname(current[i]), current[i + 1]));
+
+        this.send(Notification.leaderboard(this.seq.incrementAndGet(), records));
+        return true;
+    }
+
+    /** Serializza una notifica e la invia a tutti i destinatari. */
+    private void send(Notification notification) {
+        byte[] datagram = Json.GSON.toJson(notification).getBytes(StandardCharsets.UTF_8);
+
+        if (this.group != null) this.sendTo(datagram, this.group);
+        for (InetSocketAddress address : this.subscribers.values()) this.sendTo(datagram, address);
+    }
+
+    private void sendTo(byte[] datagram, InetSocketAddress address) {
+        try {
+            this.channel.send(ByteBuffer.wrap(datagram), address);
+            this.sent.incrementAndGet();
+        }
+        catch (IOException e) { this.failed.incrementAndGet(); }
+    }
+
+    /**
+     * Getter per i datagrammi inviati.
+     *
+     * @return Datagrammi inviati dalla creazione
+     */
+    public long getSent() { return this.sent.get(); }
+
+    /**
+     * Getter per gli invii falliti.
+     *
+     * @return Invii non riusciti dalla creazione
+     */
+    public long getFailed() { return this.failed.get(); }
+
+    /**
+     * Getter per i client registrati in unicast.
+     *
+     * @return Numero di indirizzi registrati
+     */
+    public int getSubscriberCount() { return this.subscribers.size(); }
+
+    @Override
+    public void close() throws IOException { this.channel.close(); }
+}
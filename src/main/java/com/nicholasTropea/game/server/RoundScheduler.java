@@ -0,0 +1,159 @@
+package com.nicholasTropea.game.server;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.nicholasTropea.game.model.GameSessionTable;
+import com.nicholasTropea.game.model.PuzzleStore;
+
+/**
+ * Pianificatore dei turni: ogni {@code roundMs} millisecondi sostituisce la
+ * partita attiva con la successiva dell'archivio, ricominciando dalla
+ * prima dopo l'ultima.
+ *
+ * Un solo thread ("round-scheduler") controlla ad ogni tick la fine della
+ * partita, la testa della classifica per le notifiche
+ * ({@link RoundNotifier#checkLeaderboard}) e avanza una {@link TimerWheel}
+ * con le scadenze delle singole sessioni, se configurate ({@code sessionTimeoutMs > 0}): una sessione
+ * non conclusa entro quel tempo dall'inizio viene chiusa come non
+ * conclusa. Le scadenze sono coppie (partita, giocatore) codificate in un
+ * {@code long}; quelle di una partita già sostituita vengono ignorate.
+ *
+ * Alla rotazione {@link ServerState#startRound} rende subito visibile la
+ * partita nuova e poi chiude la vecchia sullo stesso thread del
+ * pianificatore: le richieste non attendono la chiusura, qualunque sia il
+ * numero di sessioni.
+ */
+public final class RoundScheduler implements Closeable {
+    /** Secchielli della ruota delle sessioni. */
+    private static final int WHEEL_BUCKETS = 512;
+
+    /** Stato del server */
+    private final ServerState state;
+
+    /** Archivio delle partite da ruotare */
+    private final PuzzleStore puzzles;
+
+    /** Durata di un turno, in millisecondi */
+    private final long roundMs;
+
+    /** Durata massima di una sessione, in millisecondi (0 se non c'è) */
+    private final long sessionTimeoutMs;
+
+    /** Intervallo tra due controlli, in millisecondi */
+    private final long tickMs;
+
+    /** Scadenze delle sessioni */
+    private final TimerWheel sessions;
+
+    /** Thread del pianificatore (null se non avviato) */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Crea il pianificatore, senza avviarlo.
+     *
+     * @param state Stato del server
+     * @param puzzles Archivio delle partite
+     * @param roundMs Durata di un turno, in millisecondi
+     * @param sessionTimeoutMs Durata massima di una sessione, 0 per nessuna
+     * @param tickMs Intervallo tra due controlli, in millisecondi
+     * @throws IllegalArgumentException Se le durate non sono valide o l'archivio è vuoto
+     */
+    public RoundScheduler(ServerState state, PuzzleStore puzzles, long roundMs, long sessionTimeoutMs, long tickMs) {
+        if (roundMs <= 0 || sessionTimeoutMs < 0 || tickMs <= 0) throw new IllegalArgumentException("invalid durations");
+        if (puzzles.size() == 0) throw new IllegalArgumentException("empty puzzle store");
+
+        this.state = state;
+        this.puzzles = puzzles;
+        this.roundMs = roundMs;
+        this.sessionTimeoutMs = sessionTimeoutMs;
+        this.tickMs = tickMs;
+        this.sessions = new TimerWheel(tickMs, WHEEL_BUCKETS, System.currentTimeMillis());
+    }
+
+    /**
+     * Avvia il pianificatore. Se non c'è una partita attiva viene avviata
+     * la prima dell'archivio; una partita ripristinata già scaduta viene
+     * sostituita al primo controllo.
+     */
+    public synchronized void start() {
+        if (this.executor != null) return;
+
+        this.state.setPuzzles(this.puzzles);
+        if (this.sessionTimeoutMs > 0) this.state.setScheduler(this);
+        if (this.state.getRound() == null) this.state.startRound(this.puzzles.get(this.nextGameId(-1)), this.roundMs);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "round-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.executor.scheduleAtFixedRate(() -> {
+            try { this.tick(System.currentTimeMillis()); }
+            catch (RuntimeException e) { this.state.log(AsyncLogger.Level.ERROR, "Errore del pianificatore dei turni: ", e.getMessage()); }
+        }, this.tickMs, this.tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Esegue un controllo: ruota la partita se è finita e chiude le
+     * sessioni scadute. Chiamato dal thread del pianificatore; pubblico per
+     * i test.
+     *
+     * @param nowMs Istante attuale, in millisecondi
+     * @return true se la partita è stata sostituita
+     */
+    public boolean tick(long nowMs) {
+        GameSessionTable round = this.state.getRound();
+        boolean rotated = false;
+
+        if (round == null || nowMs >= this.state.getRoundEnd()) {
+            int previous = round != null ? round.getGame().getId() : -1;
+            this.state.startRound(this.puzzles.get(this.nextGameId(previous)), this.roundMs);
+            rotated = true;
+        }
+
+        this.sessions.advance(nowMs, this::expired);
+
+        RoundNotifier notifier = this.state.getNotifier();
+        if (notifier != null) notifier.checkLeaderboard(this.state.getPlayers());
+
+        return rotated;
+    }
+
+    /**
+     * Registra una sessione appena creata nella ruota delle scadenze.
+     *
+     * @param round Sessioni della partita
+     * @param playerId Id del giocatore
+     */
+    void sessionStarted(GameSessionTable round, int playerId) {
+        if (this.sessionTimeoutMs == 0) return;
+
+        this.sessions.schedule(System.currentTimeMillis() + this.sessionTimeoutMs, (long) round.getGame().getId() << 32 | playerId);
+    }
+
+    /** Chiude una sessione scaduta, se appartiene ancora alla partita attiva. */
+    private void expired(long value) {
+        GameSessionTable round = this.state.getRound();
+        if (round != null && round.getGame().getId() == (int) (value >>> 32)) this.state.expireSession(round, (int) value);
+    }
+
+    /** Id della prima partita dell'archivio dopo quella data, ricominciando dall'inizio. */
+    private int nextGameId(int current) {
+        int size = this.puzzles.size();
+        for (int i = 1; i <= size; i++) {
+            int id = Math.floorMod(current + i, size);
+            if (this.puzzles.contains(id)) return id;
+        }
+        throw new IllegalStateException("empty puzzle store");
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.executor != null) this.executor.shutdownNow();
+        this.executor = null;
+    }
+}
@@ -0,0 +1,153 @@
+package com.nicholasTropea.game.server;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+import java.io.IOException;
+
+/**
+ * Thread di I/O del server non bloccante.
+ *
+ * Possiede un {@link Selector} su cui sono registrate le connessioni
+ * assegnate dal {@link NioNetworkManager}; esegue letture e scritture
+ * sui canali pronti e delega l'elaborazione delle richieste al pool
+ * di worker.
+ *
+ * Le operazioni sui canali provenienti da altri thread (registrazione
+ * di un nuovo client, richiesta di scrittura) vengono accodate con
+ * {@link #execute(Runnable)} ed eseguite dal thread del loop, così che
+ * il {@link Selector} venga toccato da un solo thread.
+ *
+ * @author Nicholas Riccardo Tropea
+ */
+class SelectorLoop implements Runnable {
+    /** Intervallo tra due controlli delle connessioni inattive, in millisecondi. */
+    private static final long IDLE_CHECK_INTERVAL_MS = 1000;
+
+    /** Selector delle connessioni gestite da questo loop. */
+    private final Selector selector;
+
+    /** Pool a cui delegare l'elaborazione delle richieste. */
+    private final ExecutorService workers;
+
+    /** Stato del server condiviso dalle connessioni. */
+    private final ServerState state;
+
+    /** Operazioni da eseguire nel thread del loop. */
+    private final Queue<Runnable> tasks;
+
+    /**
+     * Crea un nuovo loop di I/O.
+     *
+     * @param workers Pool di worker per la logica di gioco
+     * @param state Stato del server condiviso
+     * @throws IOException Se non è possibile aprire il selector
+     */
+    SelectorLoop(ExecutorService workers, ServerState state) throws IOException {
+        this.selector = Selector.open();
+        this.workers = workers;
+        this.state = state;
+        this.tasks = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Assegna un client appena accettato a questo loop.
+     *
+     * @param channel Canale del client
+     */
+    void register(SocketChannel channel) {
+        this.execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+                key.attach(new NioConnection(channel, key, this, this.workers, this.state));
+            }
+            catch (IOException e) {
+                this.state.log(AsyncLogger.Level.WARN, "Errore nella registrazione del client: ", e.getMessage());
+                NioConnection.closeQuietly(channel);
+            }
+        });
+    }
+
+    /**
+     * Esegue un'operazione nel thread del loop.
+     *
+     * @param task Operazione da eseguire
+     */
+    void execute(Runnable task) {
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+    /** Ciclo principale: attende eventi di I/O e li smista alle connessioni. */
+    @Override
+    public void run() {
+        long lastIdleCheck = System.currentTimeMillis();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                this.selector.select(IDLE_CHECK_INTERVAL_MS);
+                this.runTasks();
+
+                Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+
+                    NioConnection conn = (NioConnection) key.attachment();
+                    if (!key.isValid() || conn == null) continue;
+
+                    if (key.isReadable()) conn.onReadable();
+                    if (key.isValid() && key.isWritable()) conn.onWritable();
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastIdleCheck >= IDLE_CHECK_INTERVAL_MS) {
+                    this.closeIdle(now);
+                    lastIdleCheck = now;
+                }
+            }
+            catch (IOException e) { this.state.log(AsyncLogger.Level.WARN, "Errore: ", e.getMessage()); }
+        }
+
+        this.closeAll();
+    }
+
+    /** Esegue le operazioni accodate da altri thread. */
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) task.run();
+    }
+
+    /**
+     * Chiude le connessioni inattive da più di {@link RequestHandler#IDLE_TIMEOUT_MS}.
+     *
+     * @param now Istante corrente in millisecondi
+     */
+    private void closeIdle(long now) {
+        for (SelectionKey key : this.selector.keys()) {
+            NioConnection conn = (NioConnection) key.attachment();
+
+            if (conn != null && key.isValid() && conn.isIdle(now)) {
+                this.state.log(AsyncLogger.Level.INFO, "Connessione inattiva chiusa");
+                conn.close();
+            }
+        }
+    }
+
+    /** Chiude il selector e tutte le connessioni ancora aperte. */
+    private void closeAll() {
+        for (SelectionKey key : this.selector.keys()) {
+            NioConnection.closeQuietly(key.channel());
+        }
+
+        try { this.selector.close(); }
+        catch (IOException e) { this.state.log(AsyncLogger.Level.WARN, "Errore: ", e.getMessage()); }
+    }
+}
@@ -1,26 +1,288 @@
 package com.nicholasTropea.game.server;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+import javax.management.JMException;
+
+import com.nicholasTropea.game.model.CredentialCache;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
 import com.nicholasTropea.game.server.NetworkManager;
+import com.nicholasTropea.game.server.NioNetworkManager;
 
 /**
  * Punto di ingresso principale del server del gioco.
- * 
- * Avvia il {@link NetworkManager} in un thread separato per gestire
- * le connessioni dei client in parallelo al thread principale.
- * 
+ *
+ * Apre l'archivio delle partite ({@link PuzzleStore}), crea lo stato
+ * condiviso ({@link ServerState}) ripristinandolo dalla directory dei dati
+ * ({@link Persistence}), avvia il {@link RoundScheduler} che ruota le
+ * partite, poi avvia il {@link NetworkManager} (o il
+ * {@link NioNetworkManager}) in un thread separato per gestire le
+ * connessioni dei client in parallelo al thread principale.
+ *
+ * Uso: {@code ServerMain [blocking|virtual|nio]} (default: blocking)
+ *
+ * La durabilità del log si sceglie con la proprietà di sistema
+ * {@code wal.durability}: {@code batch} (default) risponde solo dopo il
+ * fsync, {@code interval} esegue un fsync ogni {@code wal.intervalMs}
+ * millisecondi e può perdere le ultime modifiche in caso di crash.
+ *
+ * La durata di un turno si sceglie con {@code round.durationMs} (default
+ * 24 ore); {@code round.sessionTimeoutMs} limita il tempo di ogni sessione
+ * dal suo inizio (default 0, nessun limite).
+ *
+ * Inizio e fine delle partite e cambi in testa alla classifica vengono
+ * notificati via UDP ({@link RoundNotifier}) al gruppo multicast
+ * {@code notify.group} (default {@value #NOTIFY_GROUP}) sulla porta
+ * {@code notify.port} (default {@value #NOTIFY_PORT}), e in unicast ai
+ * client che indicano una porta al login. Con {@code notify.group} vuoto
+ * resta solo l'unicast.
+ *
+ * Gli hash delle password vengono calcolati nel {@link HashingPool}, con
+ * {@code hash.threads} thread (default: metà dei processori, almeno 1) e
+ * al più {@code hash.queue} operazioni in attesa (default
+ * {@value #HASH_QUEUE}); oltre, registrazioni e login vengono rifiutati
+ * finché la coda non si svuota. Le credenziali verificate restano valide
+ * per {@code auth.cacheTtlMs} millisecondi (default
+ * {@value #CREDENTIAL_TTL_MS}, 0 per disattivare la cache).
+ *
+ * Le {@link ServerMetrics} (richieste, errori e latenze per operazione,
+ * connessioni, byte, code dei pool) sono esposte via JMX e stampate ogni
+ * {@code metrics.dumpMs} millisecondi (default {@value #METRICS_DUMP_MS},
+ * 0 per non stamparle).
+ *
+ * I messaggi delle connessioni e delle richieste vanno nel log asincrono
+ * ({@link AsyncLogger}) {@code log.file} (default {@code data/server.log};
+ * vuoto per scriverli sulla console), ruotato oltre {@code log.maxBytes}
+ * byte (default {@value #LOG_MAX_BYTES}) conservando {@code log.files}
+ * file. {@code log.level} sceglie il livello minimo (default {@code info})
+ * e {@code log.overflow} il comportamento con il buffer di
+ * {@code log.capacity} messaggi pieno: {@code drop} (default) o
+ * {@code block}.
+ *
  * @author Nicholas Riccardo Tropea
  */
 public class ServerMain {
     /** Porta di ascolto del server per le connessioni TCP. */
     private static final int SERVER_PORT = 5555;
 
+    /** Numero di thread di I/O in modalità NIO. */
+    private static final int NIO_IO_THREADS = 2;
+
+    /** Durata di una partita, in millisecondi. */
+    private static final long ROUND_DURATION_MS = 24 * 60 * 60 * 1000L;
+
+    /** Intervallo tra due controlli del pianificatore dei turni, in millisecondi. */
+    private static final long SCHEDULER_TICK_MS = 100;
+
+    /** Gruppo multicast delle notifiche. */
+    private static final String NOTIFY_GROUP = "239.255.0.1";
+
+    /** Porta UDP delle notifiche. */
+    private static final int NOTIFY_PORT = 5556;
+
+    /** Operazioni in attesa nel pool degli hash. */
+    private static final int HASH_QUEUE = 128;
+
+    /** Durata delle credenziali verificate, in millisecondi. */
+    private static final long CREDENTIAL_TTL_MS = 30_000;
+
+    /** Credenziali verificate memorizzate al massimo. */
+    private static final int CREDENTIAL_CACHE_SIZE = 100_000;
+
+    /** Intervallo tra due stampe delle metriche, in millisecondi. */
+    private static final long METRICS_DUMP_MS = 60_000;
+
+    /** Messaggi nel buffer del log asincrono. */
+    private static final int LOG_CAPACITY = 8192;
+
+    /** Dimensione oltre la quale il file di log viene ruotato, in byte. */
+    private static final long LOG_MAX_BYTES = 10 * 1024 * 1024;
+
+    /** File di log conservati. */
+    private static final int LOG_FILES = 5;
+
+    /** Directory di log e snapshot. */
+    private static final Path DATA_DIRECTORY = Path.of("data");
+
+    /** Intervallo tra due snapshot, in millisecondi. */
+    private static final long SNAPSHOT_PERIOD_MS = 5 * 60 * 1000L;
+
     /**
      * Avvia il server creando e lanciando il NetworkManager.
-     * 
-     * @param args Argomenti della riga di comando (non utilizzati)
+     *
+     * @param args Argomenti della riga di comando: modalità del server (opzionale)
      */
     public static void main(String[] args) {
-        NetworkManager netManager = new NetworkManager(ServerMain.SERVER_PORT);
+        String mode = args.length > 0 ? args[0] : "blocking";
+        Runnable netManager;
+
+        PuzzleStore puzzles;
+
+        try { puzzles = PuzzleStore.openDefault(); }
+        catch (IOException e) {
+            System.err.println("Impossibile aprire l'archivio delle partite: " + e.getMessage());
+            return;
+        }
+
+        System.out.println("Archivio partite aperto: " + puzzles.size() + " partite");
+
+        ServerState state = new ServerState(new PlayerRegistry());
+        Persistence persistence;
+
+        try {
+            WriteAheadLog.Durability durability = WriteAheadLog.Durability.valueOf(
+                System.getProperty("wal.durability", "batch").toUpperCase()
+            );
+            long intervalMs = Long.getLong("wal.intervalMs", 10);
+
+            persistence = Persistence.open(ServerMain.DATA_DIRECTORY, durability, intervalMs);
+            long replayed = persistence.recover(puzzles, state);
+            System.out.println("Stato ripristinato: " + state.getPlayers().size() + " giocatori, " + replayed + " record del log");
+        }
+        catch (IOException | IllegalArgumentException e) {
+            System.err.println("Impossibile ripristinare lo stato: " + e.getMessage());
+            return;
+        }
+
+        state.setPersistence(persistence);
+
+        try {
+            int cores = Runtime.getRuntime().availableProcessors();
+            state.setHashing(new HashingPool(
+                Integer.getInteger("hash.threads", Math.max(1, cores / 2)),
+                Integer.getInteger("hash.queue", ServerMain.HASH_QUEUE)
+            ));
+
+            long ttlMs = Long.getLong("auth.cacheTtlMs", ServerMain.CREDENTIAL_TTL_MS);
+            if (ttlMs > 0) state.getPlayers().setCredentialCache(new CredentialCache(ttlMs, ServerMain.CREDENTIAL_CACHE_SIZE));
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println("Configurazione degli hash non valida: " + e.getMessage());
+            return;
+        }
+
+        RoundScheduler scheduler;
+
+        try {
+            scheduler = new RoundScheduler(
+                state, puzzles,
+                Long.getLong("round.durationMs", ServerMain.ROUND_DURATION_MS),
+                Long.getLong("round.sessionTimeoutMs", 0),
+                ServerMain.SCHEDULER_TICK_MS
+            );
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println("Impossibile pianificare i turni: " + e.getMessage());
+            return;
+        }
+
+        try { state.setLogger(ServerMain.openLogger()); }
+        catch (IOException | IllegalArgumentException e) {
+            System.err.println("Impossibile aprire il log: " + e.getMessage());
+            return;
+        }
+
+        state.setNotifier(ServerMain.openNotifier());
+        state.setMetrics(ServerMain.openMetrics(state));
+        state.getSessions().start(message -> state.log(AsyncLogger.Level.ERROR, message));
+        scheduler.start();
+        persistence.scheduleSnapshots(state, ServerMain.SNAPSHOT_PERIOD_MS);
+
+        switch (mode) {
+            case "blocking":
+                netManager = new NetworkManager(ServerMain.SERVER_PORT, false, state);
+                break;
+
+            case "virtual":
+                netManager = new NetworkManager(ServerMain.SERVER_PORT, true, state);
+                break;
+
+            case "nio":
+                int workers = Runtime.getRuntime().availableProcessors();
+                netManager = new NioNetworkManager(ServerMain.SERVER_PORT, ServerMain.NIO_IO_THREADS, workers, state);
+                break;
+
+            default:
+                System.err.println("Modalità sconosciuta: " + mode + " (valori ammessi: blocking, virtual, nio)");
+                return;
+        }
+
         new Thread(netManager).start();
     }
-}
\ No newline at end of file
+
+    /**
+     * Apre il log asincrono configurato dalle proprietà di sistema; viene
+     * svuotato e chiuso all'uscita della JVM.
+     *
+     * @return Log, null se i messaggi vanno sulla console
+     * @throws IOException Se il file non può essere aperto
+     * @throws IllegalArgumentException Se la configurazione non è valida
+     */
+    private static AsyncLogger openLogger() throws IOException {
+        String file = System.getProperty("log.file", ServerMain.DATA_DIRECTORY.resolve("server.log").toString());
+        if (file.isEmpty()) return null;
+
+        AsyncLogger logger = new AsyncLogger(
+            Path.of(file),
+            Integer.getInteger("log.capacity", ServerMain.LOG_CAPACITY),
+            AsyncLogger.Level.valueOf(System.getProperty("log.level", "info").toUpperCase()),
+            AsyncLogger.Overflow.valueOf(System.getProperty("log.overflow", "drop").toUpperCase()),
+            Long.getLong("log.maxBytes", ServerMain.LOG_MAX_BYTES),
+            Integer.getInteger("log.files", ServerMain.LOG_FILES)
+        );
+
+        Runtime.getRuntime().addShutdownHook(new Thread(logger::close, "log-shutdown"));
+        System.out.println("Log del server: " + file);
+        return logger;
+    }
+
+    /**
+     * Crea le metriche, le registra via JMX e ne avvia la stampa periodica.
+     *
+     * @param state Stato del server, con il pool degli hash già collegato
+     * @return Metriche del server
+     */
+    private static ServerMetrics openMetrics(ServerState state) {
+        ServerMetrics metrics = new ServerMetrics(RequestHandler.operations());
+
+        HashingPool hashing = state.getHashing();
+        if (hashing != null) metrics.addGauge("hashing.queue", hashing::getQueueDepth);
+
+        AsyncLogger logger = state.getLogger();
+        if (logger != null) {
+            metrics.addGauge("log.pending", logger::getPending);
+            metrics.addGauge("log.dropped", logger::getDropped);
+        }
+
+        try { metrics.registerMBeans(); }
+        catch (JMException e) { System.err.println("Metriche JMX non disponibili: " + e.getMessage()); }
+
+        long dumpMs = Long.getLong("metrics.dumpMs", ServerMain.METRICS_DUMP_MS);
+        if (dumpMs > 0) metrics.startDump(dumpMs, System.out::print, message -> state.log(AsyncLogger.Level.ERROR, message));
+
+        return metrics;
+    }
+
+    /**
+     * Apre il notificatore UDP configurato dalle proprietà di sistema.
+     *
+     * @return Notificatore, null se non è stato possibile aprirlo
+     */
+    private static RoundNotifier openNotifier() {
+        String group = System.getProperty("notify.group", ServerMain.NOTIFY_GROUP);
+        int port = Integer.getInteger("notify.port", ServerMain.NOTIFY_PORT);
+
+        try {
+            if (group.isEmpty()) return new RoundNotifier();
+            return new RoundNotifier(new InetSocketAddress(InetAddress.getByName(group), port), null, 1);
+        }
+        catch (IOException | IllegalArgumentException e) {
+            System.err.println("Notifiche UDP disattivate: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.nicholasTropea.game.server;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metriche del server: richieste, errori e latenze per operazione,
+ * connessioni attive, byte ricevuti e inviati, e indicatori come la
+ * profondità delle code dei pool.
+ *
+ * Ogni operazione del protocollo (il campo {@code "operation"} delle
+ * richieste) ha contatori e un {@link LatencyHistogram} propri, creati
+ * alla costruzione: la registrazione non alloca né prende lock. Le
+ * richieste non decodificabili o con un'operazione sconosciuta vanno in
+ * {@value #INVALID}, così un client non può far crescere l'insieme delle
+ * operazioni.
+ *
+ * Le metriche sono esposte come MXBean JMX ({@link #registerMBeans}) sotto
+ * {@value #DOMAIN}, e possono essere stampate periodicamente come testo
+ * ({@link #startDump}): ogni stampa riporta i totali e le latenze
+ * dell'intervallo trascorso dalla precedente.
+ */
+public final class ServerMetrics implements Closeable {
+    /** Dominio JMX delle metriche. */
+    public static final String DOMAIN = "com.nicholasTropea.game";
+
+    /** Operazione delle richieste non valide. */
+    public static final String INVALID = "invalid";
+
+    /** Attributi JMX del server. */
+    public interface ServerMXBean {
+        long getActiveConnections();
+        long getTotalConnections();
+        long getBytesIn();
+        long getBytesOut();
+        Map<String, Long> getGauges();
+    }
+
+    /** Attributi JMX di un'operazione; latenze in microsecondi, dall'avvio. */
+    public interface OperationMXBean {
+        long getCount();
+        long getErrors();
+        double getMeanMicros();
+        double getP50Micros();
+        double getP99Micros();
+        double getP999Micros();
+        double getMaxMicros();
+    }
+
+    /** Metriche di un'operazione. */
+    public static final class Operation implements OperationMXBean {
+        /** Nome dell'operazione */
+        private final String name;
+
+        /** Richieste elaborate */
+        private final LongAdder count;
+
+        /** Richieste con risposta di errore o fallite */
+        private final LongAdder errors;
+
+        /** Latenze, in nanosecondi */
+        private final LatencyHistogram latency;
+
+        /** Stato all'ultima stampa (usato solo dal thread delle stampe) */
+        private LatencyHistogram.Snapshot lastDump;
+        private long lastErrors;
+
+        private Operation(String name) {
+            this.name = name;
+            this.count = new LongAdder();
+            this.errors = new LongAdder();
+            this.latency = new LatencyHistogram();
+            this.lastDump = this.latency.snapshot();
+            this.lastErrors = 0;
+        }
+
+        /**
+         * Registra una richiesta elaborata.
+         *
+         * @param nanos Tempo di elaborazione, in nanosecondi
+         * @param error true se la risposta è un errore
+         */
+        public void record(long nanos, boolean error) {
+            this.count.increment();
+            if (error) this.errors.increment();
+            this.latency.record(nanos);
+        }
+
+        /**
+         * Getter per le latenze.
+         *
+         * @return Snapshot dell'istogramma dall'avvio
+         */
+        public LatencyHistogram.Snapshot getLatency() { return this.latency.snapshot(); }
+
+        public String getName() { return this.name; }
+
+        @Override
+        public long getCount() { return this.count.sum(); }
+
+        @Override
+        public long getErrors() { return this.errors.sum(); }
+
+        @Override
+        public double getMeanMicros() { return this.latency.snapshot().getMean() / 1_000; }
+
+        @Override
+        public double getP50Micros() { return this.latency.snapshot().valueAt(50) / 1_000.0; }
+
+        @Override
+        public double getP99Micros() { return this.latency.snapshot().valueAt(99) / 1_000.0; }
+
+        @Override
+        public double getP999Micros() { return this.latency.snapshot().valueAt(99.9) / 1_000.0; }
+
+        @Override
+        public double getMaxMicros() { return this.latency.snapshot().getMax() / 1_000.0; }
+    }
+
+    /** Attributi JMX del server, in un oggetto a parte per non esporre i metodi di registrazione. */
+    private final class Server implements ServerMXBean {
+        @Override
+        public long getActiveConnections() { return ServerMetrics.this.getActiveConnections(); }
+
+        @Override
+        public long getTotalConnections() { return ServerMetrics.this.getTotalConnections(); }
+
+        @Override
+        public long getBytesIn() { return ServerMetrics.this.getBytesIn(); }
+
+        @Override
+        public long getBytesOut() { return ServerMetrics.this.getBytesOut(); }
+
+        @Override
+        public Map<String, Long> getGauges() { return ServerMetrics.this.getGauges(); }
+    }
+
+    /** Operazioni per nome, in ordine di stampa; non modificata dopo la costruzione */
+    private final Map<String, Operation> operations;
+
+    /** Operazione delle richieste non valide */
+    private final Operation invalid;
+
+    /** Connessioni aperte e non ancora chiuse */
+    private final AtomicLong activeConnections;
+
+    /** Connessioni aperte dall'avvio */
+    private final LongAdder totalConnections;
+
+    /** Byte ricevuti dai client */
+    private final LongAdder bytesIn;
+
+    /** Byte inviati ai client */
+    private final LongAdder bytesOut;
+
+    /** Indicatori letti al momento della lettura, per nome */
+    private final Map<String, LongSupplier> gauges;
+
+    /** MBean registrati (vuoto se non registrati) */
+    private final Map<ObjectName, Object> mbeans;
+
+    /** Thread delle stampe (null se non avviato) */
+    private ScheduledExecutorService dumper;
+
+    /** Istante dell'ultima stampa, in nanosecondi */
+    private long lastDumpNanos;
+
+    /**
+     * Crea le metriche per un insieme di operazioni.
+     *
+     * @param operations Nomi delle operazioni del protocollo
+     */
+    public ServerMetrics(Collection<String> operations) {
+        this.operations = new LinkedHashMap<>();
+        for (String name : new TreeSet<>(operations)) this.operations.put(name, new Operation(name));
+
+        this.invalid = new Operation(INVALID);
+        this.operations.put(INVALID, this.invalid);
+
+        this.activeConnections = new AtomicLong();
+        this.totalConnections = new LongAdder();
+        this.bytesIn = new LongAdder();
+        this.bytesOut = new LongAdder();
+        this.gauges = new ConcurrentHashMap<>();
+        this.mbeans = new LinkedHashMap<>();
+        this.lastDumpNanos = System.nanoTime();
+    }
+
+    /**
+     * Restituisce le metriche di un'operazione.
+     *
+     * @param name Nome dell'operazione
+     * @return Metriche dell'operazione, o di {@value #INVALID} se sconosciuta
+     */
+    public Operation operation(String name) {
+        Operation op = name != null ? this.operations.get(name) : null;
+        return op != null ? op : this.invalid;
+    }
+
+    /** Registra l'apertura di una connessione. */
+    public void connectionOpened() {
+        this.activeConnections.incrementAndGet();
+        this.totalConnections.increment();
+    }
+
+    /** Registra la chiusura di una connessione. */
+    public void connectionClosed() { this.activeConnections.decrementAndGet(); }
+
+    /**
+     * Registra byte ricevuti.
+     *
+     * @param bytes Byte letti dal socket
+     */
+    public void bytesIn(long bytes) { this.bytesIn.add(bytes); }
+
+    /**
+     * Registra byte inviati.
+     *
+     * @param bytes Byte scritti sul socket
+     */
+    public void bytesOut(long bytes) { this.bytesOut.add(bytes); }
+
+    /**
+     * Aggiunge un indicatore, letto ad ogni stampa o lettura JMX (es. la
+     * profondità della coda di un pool). Sostituisce quello con lo stesso
+     * nome.
+     *
+     * @param name Nome dell'indicatore
+     * @param value Lettura del valore, thread-safe
+     */
+    public void addGauge(String name, LongSupplier value) { this.gauges.put(name, value); }
+
+    // Getters
+    public long getActiveConnections() { return this.activeConnections.get(); }
+    public long getTotalConnections() { return this.totalConnections.sum(); }
+    public long getBytesIn() { return this.bytesIn.sum(); }
+    public long getBytesOut() { return this.bytesOut.sum(); }
+
+    /**
+     * Legge gli indicatori.
+     *
+     * @return Valore attuale di ogni indicatore, per nome
+     */
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        this.gauges.forEach((name, value) -> values.put(name, value.getAsLong()));
+        return values;
+    }
+
+    /**
+     * Registra gli MXBean nel server JMX della piattaforma: uno per il
+     * server ({@code type=Server}) e uno per operazione
+     * ({@code type=Operation,name=...}).
+     *
+     * @throws JMException Se la registrazione non riesce (es. nomi già registrati)
+     */
+    public synchronized void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        this.register(server, new ObjectName(DOMAIN + ":type=Server"), new Server());
+        for (Operation op : this.operations.values()) {
+            this.register(server, new ObjectName(DOMAIN + ":type=Operation,name=" + op.name), op);
+        }
+    }
+
+    private void register(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+        server.registerMBean(mbean, name);
+        this.mbeans.put(name, mbean);
+    }
+
+    /**
+     * Avvia la stampa periodica delle metriche.
+     *
+     * @param periodMs Intervallo tra due stampe, in millisecondi
+     * @param out Destinatario del testo, chiamato dal thread delle stampe
+     * @param errors Riceve i messaggi di errore, dal thread delle stampe
+     */
+    public synchronized void startDump(long periodMs, Consumer<String> out, Consumer<String> errors) {
+        if (this.dumper != null) return;
+
+        this.dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.dumper.scheduleAtFixedRate(() -> {
+            try { out.accept(this.dump()); }
+            catch (RuntimeException e) { errors.accept("Errore nella stampa delle metriche: " + e.getMessage()); }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Descrive le metriche come testo: totali dall'avvio e, per le
+     * operazioni, richieste e latenze dall'ultima chiamata.
+     *
+     * @return Testo su più righe
+     */
+    public synchronized String dump() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - this.lastDumpNanos) / 1e9);
+        this.lastDumpNanos = now;
+
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append(String.format("connessioni: %d attive, %d totali; byte: %d ricevuti, %d inviati%n",
+            this.getActiveConnections(), this.getTotalConnections(), this.getBytesIn(), this.getBytesOut()));
+
+        Map<String, Long> gauges = this.getGauges();
+        if (!gauges.isEmpty()) {
+            sb.append("indicatori:");
+            gauges.forEach((name, value) -> sb.append(' ').append(name).append('=').append(value));
+            sb.append(System.lineSeparator());
+        }
+
+        sb.append(String.format("%-20s %10s %8s %9s %9s %9s %9s %9s%n",
+            "operazione", "richieste", "errori", "al sec", "p50 us", "p99 us", "p99.9 us", "max us"));
+
+        for (Operation op : this.operations.values()) {
+            LatencyHistogram.Snapshot total = op.latency.snapshot();
+            LatencyHistogram.Snapshot interval = total.minus(op.lastDump);
+            long errors = op.getErrors();
+
+            if (interval.getCount() > 0) {
+                sb.append(String.format("%-20s %10d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    op.name, interval.getCount(), errors - op.lastErrors, interval.getCount() / seconds,
+                    interval.valueAt(50) / 1e3, interval.valueAt(99) / 1e3, interval.valueAt(99.9) / 1e3,
+                    interval.getMax() / 1e3));
+            }
+
+            op.lastDump = total;
+            op.lastErrors = errors;
+        }
+
+        return sb.toString();
+    }
+
+    /** Ferma le stampe e rimuove gli MBean registrati. */
+    @Override
+    public synchronized void close() {
+        if (this.dumper != null) this.dumper.shutdownNow();
+        this.dumper = null;
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : this.mbeans.keySet()) {
+            try { server.unregisterMBean(name); }
+            catch (JMException e) { ; }
+        }
+        this.mbeans.clear();
+    }
+}
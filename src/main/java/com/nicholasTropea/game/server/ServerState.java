@@ -0,0 +1,446 @@
+package com.nicholasTropea.game.server;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.GameSessionTable;
+import com.nicholasTropea.game.model.GameStatsArchive;
+import com.nicholasTropea.game.model.Player;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.RoundFragments;
+
+/**
+ * Stato del server condiviso da tutte le connessioni.
+ *
+ * Contiene l'archivio dei giocatori, le sessioni di login delle
+ * connessioni ({@link LoginSessions}), la partita attiva con le sessioni
+ * dei giocatori che l'hanno iniziata e le statistiche finali delle
+ * partite precedenti. Ogni {@link RequestHandler} riceve
+ * lo stesso oggetto, indipendentemente dal server di rete che lo ha
+ * creato.
+ *
+ * Se è collegata una {@link Persistence}, inizio delle partite, esiti
+ * delle proposte e modifiche ai giocatori vengono scritti nel log prima di
+ * tornare al chiamante.
+ */
+public final class ServerState {
+    /** Giocatori registrati per blocco alla chiusura di una partita. */
+    private static final int CLOSE_BATCH = 4096;
+
+    /** Intervallo tra due controlli delle sessioni inattive, in millisecondi. */
+    private static final long SESSION_TICK_MS = 1000;
+
+    /** Giocatori registrati */
+    private final PlayerRegistry players;
+
+    /** Statistiche dei giocatori già serializzate */
+    private final PlayerStatsCache playerStats;
+
+    /** Sessioni di login delle connessioni */
+    private final LoginSessions sessions;
+
+    /** Sessioni della partita attiva (null se nessuna partita è in corso) */
+    private volatile GameSessionTable round;
+
+    /** Frammenti JSON della partita attiva (null se nessuna partita è in corso) */
+    private volatile RoundFragments fragments;
+
+    /** false per serializzare le risposte sulla partita attiva senza frammenti */
+    private volatile boolean fragmentCache;
+
+    /** Sessioni della partita sostituita dall'attiva (null se non c'è) */
+    private volatile GameSessionTable previousRound;
+
+    /** Archivio delle partite (null se non collegato) */
+    private volatile PuzzleStore puzzles;
+
+    /** Statistiche delle partite concluse */
+    private final GameStatsArchive archive;
+
+    /** Istante di fine della partita attiva, in millisecondi */
+    private volatile long roundEnd;
+
+    /** Persistenza delle modifiche (null se lo stato vive solo in memoria) */
+    private volatile Persistence persistence;
+
+    /** Pianificatore dei turni (null se le partite vengono avviate a mano) */
+    private volatile RoundScheduler scheduler;
+
+    /** Notifiche UDP ai client (null se disattivate) */
+    private volatile RoundNotifier notifier;
+
+    /** Pool per il calcolo degli hash delle password (null: calcolati dal thread della richiesta) */
+    private volatile HashingPool hashing;
+
+    /** Metriche delle richieste e delle connessioni (null se disattivate) */
+    private volatile ServerMetrics metrics;
+
+    /** Log asincrono (null: messaggi scritti direttamente sulla console) */
+    private volatile AsyncLogger logger;
+
+    /**
+     * Crea lo stato del server, senza partita attiva.
+     *
+     * @param players Archivio dei giocatori
+     */
+    public ServerState(PlayerRegistry players) {
+        this.players = players;
+        this.playerStats = new PlayerStatsCache(players);
+        this.sessions = new LoginSessions(RequestHandler.IDLE_TIMEOUT_MS, SESSION_TICK_MS, this::sessionEnded);
+        this.round = null;
+        this.fragments = null;
+        this.fragmentCache = true;
+        this.previousRound = null;
+        this.puzzles = null;
+        this.archive = new GameStatsArchive();
+        this.roundEnd = 0;
+        this.persistence = null;
+        this.scheduler = null;
+        this.notifier = null;
+        this.hashing = null;
+        this.metrics = null;
+        this.logger = null;
+    }
+
+    /**
+     * Collega la persistenza: da questo momento ogni modifica viene
+     * registrata nel log.
+     *
+     * @param persistence Persistenza già ripristinata con {@link Persistence#recover}
+     */
+    public void setPersistence(Persistence persistence) {
+        this.persistence = persistence;
+        this.players.setJournal(persistence);
+    }
+
+    /**
+     * Collega il pianificatore dei turni, che riceve le sessioni create.
+     *
+     * @param scheduler Pianificatore dei turni
+     */
+    void setScheduler(RoundScheduler scheduler) { this.scheduler = scheduler; }
+
+    /**
+     * Collega il notificatore: inizio e fine delle partite vengono
+     * annunciati ai client.
+     *
+     * @param notifier Notificatore UDP
+     */
+    public void setNotifier(RoundNotifier notifier) { this.notifier = notifier; }
+
+    /**
+     * Getter per il notificatore.
+     *
+     * @return Notificatore UDP, null se non collegato
+     */
+    public RoundNotifier getNotifier() { return this.notifier; }
+
+    /**
+     * Collega il pool degli hash: registrazione, login e cambio credenziali
+     * non occupano più il thread della richiesta.
+     *
+     * @param hashing Pool per il calcolo degli hash
+     */
+    public void setHashing(HashingPool hashing) { this.hashing = hashing; }
+
+    /**
+     * Getter per il pool degli hash.
+     *
+     * @return Pool, null se non collegato
+     */
+    public HashingPool getHashing() { return this.hashing; }
+
+    /**
+     * Collega le metriche: da questo momento richieste e connessioni
+     * vengono contate.
+     *
+     * @param metrics Metriche del server
+     */
+    public void setMetrics(ServerMetrics metrics) { this.metrics = metrics; }
+
+    /**
+     * Getter per le metriche.
+     *
+     * @return Metriche, null se non collegate
+     */
+    public ServerMetrics getMetrics() { return this.metrics; }
+
+    /**
+     * Collega il log asincrono: i messaggi delle connessioni e delle
+     * richieste non vengono più scritti sulla console dal thread che li
+     * produce.
+     *
+     * @param logger Log asincrono
+     */
+    public void setLogger(AsyncLogger logger) { this.logger = logger; }
+
+    /**
+     * Getter per il log asincrono.
+     *
+     * @return Log, null se non collegato
+     */
+    public AsyncLogger getLogger() { return this.logger; }
+
+    /**
+     * Registra un messaggio nel log asincrono, o lo scrive sulla console se
+     * il log non è collegato.
+     *
+     * @param level Livello del messaggio
+     * @param text Testo del messaggio
+     */
+    void log(AsyncLogger.Level level, String text) { this.log(level, text, null); }
+
+    /**
+     * Registra un messaggio con un argomento nel log asincrono, o lo scrive
+     * sulla console se il log non è collegato.
+     *
+     * @param level Livello del messaggio
+     * @param text Testo del messaggio
+     * @param arg Argomento immutabile, scritto dopo il testo (null: nessuno)
+     */
+    void log(AsyncLogger.Level level, String text, Object arg) {
+        AsyncLogger logger = this.logger;
+        if (logger != null) logger.log(level, text, arg);
+        else AsyncLogger.print(level, text, arg);
+    }
+
+    /**
+     * Collega l'archivio delle partite, da cui vengono lette le soluzioni
+     * delle partite non attive.
+     *
+     * @param puzzles Archivio delle partite
+     */
+    public void setPuzzles(PuzzleStore puzzles) { this.puzzles = puzzles; }
+
+    /**
+     * Getter per l'archivio delle partite.
+     *
+     * @return Archivio delle partite, null se non collegato
+     */
+    public PuzzleStore getPuzzles() { return this.puzzles; }
+
+    /**
+     * Abilita o disabilita i frammenti già codificati nelle risposte sulla
+     * partita attiva (abilitati di default).
+     *
+     * @param enabled false per costruire le risposte con le liste
+     */
+    public void setFragmentCache(boolean enabled) { this.fragmentCache = enabled; }
+
+    /**
+     * Restituisce i frammenti JSON di una partita, codificati una volta per
+     * turno. Se nel frattempo la partita è stata sostituita vengono
+     * codificati di nuovo, senza memorizzarli.
+     *
+     * @param round Sessioni della partita
+     * @return Frammenti della partita, null se disabilitati
+     */
+    public RoundFragments getFragments(GameSessionTable round) {
+        if (!this.fragmentCache) return null;
+
+        RoundFragments fragments = this.fragments;
+        return fragments != null && fragments.getGame() == round.getGame() ? fragments : new RoundFragments(round.getGame());
+    }
+
+    /**
+     * Getter per le sessioni della partita sostituita dall'attiva.
+     *
+     * @return Sessioni chiuse, null se non c'è stata rotazione
+     */
+    public GameSessionTable getPreviousRound() { return this.previousRound; }
+
+    /**
+     * Getter per le sessioni di login.
+     *
+     * @return Tabella delle sessioni
+     */
+    public LoginSessions getSessions() { return this.sessions; }
+
+    /** Rimuove l'indirizzo per le notifiche di una sessione terminata. */
+    private void sessionEnded(LoginSessions.Session session) {
+        RoundNotifier notifier = this.notifier;
+        if (notifier != null && session.getNotifyAddress() != null) notifier.unsubscribe(session.getPlayerId(), session.getNotifyAddress());
+    }
+
+    /**
+     * Getter per l'archivio dei giocatori.
+     *
+     * @return Archivio dei giocatori
+     */
+    public PlayerRegistry getPlayers() { return this.players; }
+
+    /**
+     * Getter per le statistiche dei giocatori già serializzate.
+     *
+     * @return Cache delle statistiche
+     */
+    public PlayerStatsCache getPlayerStats() { return this.playerStats; }
+
+    /**
+     * Getter per le statistiche delle partite concluse.
+     *
+     * @return Archivio delle statistiche
+     */
+    public GameStatsArchive getArchive() { return this.archive; }
+
+    /**
+     * Avvia una nuova partita, che sostituisce quella attiva. Le statistiche
+     * della partita sostituita vengono congelate nell'archivio; se è collegato
+     * un {@link RoundNotifier} inizio e fine vengono notificati ai client.
+     *
+     * @param game Partita da giocare
+     * @param durationMs Durata della partita in millisecondi
+     */
+    public void startRound(Game game, long durationMs) {
+        long end = System.currentTimeMillis() + durationMs;
+
+        Persistence persistence = this.persistence;
+        if (persistence != null) persistence.roundStarted(game.getId(), end);
+
+        GameSessionTable previous = this.round;
+        this.restoreRound(new GameSessionTable(game), end);
+
+        RoundNotifier notifier = this.notifier;
+        if (notifier != null) notifier.roundStarted(game.getId(), durationMs);
+        if (previous == null) return;
+
+        this.previousRound = previous;
+        this.closeRound(previous);
+
+        // Risultati definitivi solo dopo la chiusura: arrivano dopo l'inizio della nuova
+        if (notifier != null) notifier.roundEnded(previous.getGame().getId(), previous.getStats());
+    }
+
+    /**
+     * Chiude una partita sostituita: tutte le sessioni vengono chiuse e
+     * quelle non concluse registrate come {@link Player.ResultType#NOT_FINISHED}
+     * (vittorie e sconfitte sono già state registrate dalla proposta che le
+     * ha concluse). Le statistiche finali vengono poi congelate
+     * nell'archivio.
+     *
+     * Le richieste vedono già la partita nuova, quindi la chiusura procede
+     * senza fermarle; i risultati vengono registrati a blocchi di
+     * {@value #CLOSE_BATCH} giocatori, attendendo il log una volta per blocco.
+     *
+     * @param round Sessioni della partita sostituita
+     */
+    private void closeRound(GameSessionTable round) {
+        int[] ids = new int[CLOSE_BATCH];
+        int[] scores = new int[CLOSE_BATCH];
+        int[] pending = { 0 };
+
+        round.closeAll((playerId, session) -> {
+            if (GameSessionTable.isFinished(session)) return;
+
+            ids[pending[0]] = playerId;
+            scores[pending[0]] = GameSessionTable.score(session);
+            if (++pending[0] == CLOSE_BATCH) {
+                this.players.recordGames(ids, scores, CLOSE_BATCH, Player.ResultType.NOT_FINISHED);
+                pending[0] = 0;
+            }
+        });
+
+        this.players.recordGames(ids, scores, pending[0], Player.ResultType.NOT_FINISHED);
+        this.archive.freeze(round.getGame().getId(), round.getStats());
+    }
+
+    /**
+     * Crea la sessione di un giocatore nella partita attiva. Se è attivo un
+     * {@link RoundScheduler} con scadenza per sessione, la sessione nuova
+     * viene registrata nella sua ruota dei timer.
+     *
+     * @param round Sessioni della partita
+     * @param playerId Id del giocatore
+     * @return Stato della sessione, da {@link GameSessionTable#join(int)}
+     */
+    public int join(GameSessionTable round, int playerId) {
+        boolean created = !GameSessionTable.exists(round.state(playerId));
+        int session = round.join(playerId);
+
+        RoundScheduler scheduler = this.scheduler;
+        if (created && scheduler != null && GameSessionTable.exists(session)) scheduler.sessionStarted(round, playerId);
+        return session;
+    }
+
+    /**
+     * Chiude la sessione di un giocatore scaduta prima della fine della
+     * partita; se non era conclusa viene registrata come
+     * {@link Player.ResultType#NOT_FINISHED}.
+     *
+     * @param round Sessioni della partita
+     * @param playerId Id del giocatore
+     */
+    public void expireSession(GameSessionTable round, int playerId) {
+        int session = round.close(playerId);
+        if (GameSessionTable.exists(session) && !GameSessionTable.isFinished(session)) {
+            this.players.recordGame(playerId, Player.ResultType.NOT_FINISHED, GameSessionTable.score(session));
+        }
+    }
+
+    /**
+     * Imposta la partita attiva con sessioni già esistenti, senza registrarla.
+     *
+     * @param round Sessioni della partita
+     * @param end Istante di fine, in millisecondi
+     */
+    public void restoreRound(GameSessionTable round, long end) {
+        this.fragments = new RoundFragments(round.getGame());
+        this.roundEnd = end;
+        this.round = round;
+    }
+
+    /**
+     * Applica una proposta di un giocatore alla partita attiva.
+     *
+     * Un esito valido viene registrato nel log; se conclude la partita del
+     * giocatore, il risultato viene aggiunto alle sue statistiche.
+     *
+     * @param round Sessioni della partita
+     * @param playerId Id del giocatore
+     * @param mask Maschera della proposta
+     * @return Esito di {@link GameSessionTable#submit(int, int)}
+     */
+    public int submit(GameSessionTable round, int playerId, int mask) {
+        long result = round.apply(playerId, mask);
+        int group = GameSessionTable.outcome(result);
+        if (group < -1) return group;
+
+        // Stato scritto da questa proposta, non riletto: un'altra proposta
+        // concorrente dello stesso giocatore potrebbe averlo già cambiato
+        int session = GameSessionTable.stateAfter(result);
+        Persistence persistence = this.persistence;
+        if (persistence != null) persistence.proposal(round.getGame().getId(), playerId, session);
+
+        // Una proposta su una partita già conclusa restituisce FINISHED,
+        // quindi se questa transizione la conclude è l'unica a farlo
+        if (GameSessionTable.isFinished(session)) {
+            this.players.recordGame(
+                playerId,
+                Player.resultOf(GameSessionTable.isWon(session), true, GameSessionTable.errors(session)),
+                GameSessionTable.score(session)
+            );
+        }
+
+        return group;
+    }
+
+    /**
+     * Getter per le sessioni della partita attiva.
+     *
+     * @return Tabella delle sessioni, null se nessuna partita è in corso
+     */
+    public GameSessionTable getRound() { return this.round; }
+
+    /**
+     * Getter per la fine della partita attiva.
+     *
+     * @return Istante di fine in millisecondi, 0 se nessuna partita è stata avviata
+     */
+    public long getRoundEnd() { return this.roundEnd; }
+
+    /**
+     * Restituisce il tempo rimanente della partita attiva.
+     *
+     * @return Millisecondi rimanenti, 0 se la partita è finita
+     */
+    public long timeLeft() { return Math.max(0, this.roundEnd - System.currentTimeMillis()); }
+}
@@ -0,0 +1,159 @@
+package com.nicholasTropea.game.server;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Ruota dei timer ("hashed timing wheel") per molte scadenze con la stessa
+ * granularità, ad es. una per sessione.
+ *
+ * Il tempo è diviso in tick di durata fissa; una scadenza viene messa nel
+ * secchiello {@code tick % secchielli} come coppia di {@code long}
+ * (tick di scadenza, valore), senza oggetti per timer. Inserire costa O(1);
+ * {@link #advance} visita solo i secchielli dei tick trascorsi, e le
+ * scadenze più lontane di un giro restano nel secchiello finché non arriva
+ * il loro tick.
+ *
+ * {@link #schedule} può essere chiamato da qualsiasi thread: ogni
+ * secchiello ha il proprio lock. {@link #advance} va chiamato da un solo
+ * thread alla volta; i valori scaduti vengono consegnati fuori dai lock.
+ * Una scadenza non viene mai anticipata e viene consegnata al primo
+ * {@link #advance} successivo al suo tick.
+ *
+ * Non è prevista la cancellazione: chi riceve un valore scaduto verifica
+ * se è ancora attuale.
+ */
+public final class TimerWheel {
+    /** Durata di un tick, in millisecondi */
+    private final long tickMs;
+
+    /** Istante corrispondente al tick 0, in millisecondi */
+    private final long origin;
+
+    /** Maschera per ricavare il secchiello da un tick */
+    private final int mask;
+
+    /** Secchielli: coppie (tick di scadenza, valore) */
+    private final Bucket[] buckets;
+
+    /** Ultimo tick di cui sono state consegnate le scadenze */
+    private volatile long processed;
+
+    /** Valori scaduti raccolti da {@link #advance}, riusato tra le chiamate */
+    private long[] expired;
+
+    /** Scadenze di un secchiello. */
+    private static final class Bucket {
+        final ReentrantLock lock = new ReentrantLock();
+        long[] entries = new long[8];
+        int size; // Numero di long usati (due per scadenza)
+    }
+
+    /**
+     * Crea una ruota vuota.
+     *
+     * @param tickMs Durata di un tick, in millisecondi
+     * @param buckets Numero di secchielli, potenza di due
+     * @param nowMs Istante attuale, in millisecondi
+     * @throws IllegalArgumentException Se tickMs non è positivo o buckets non è una potenza di due
+     */
+    public TimerWheel(long tickMs, int buckets, long nowMs) {
+        if (tickMs <= 0) throw new IllegalArgumentException("tick must be positive");
+        if (buckets <= 0 || Integer.bitCount(buckets) != 1) throw new IllegalArgumentException("bucket count must be a power of two");
+
+        this.tickMs = tickMs;
+        this.origin = nowMs;
+        this.mask = buckets - 1;
+        this.buckets = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) this.buckets[i] = new Bucket();
+        this.processed = 0;
+        this.expired = new long[64];
+    }
+
+    /**
+     * Pianifica la consegna di un valore.
+     *
+     * @param deadlineMs Istante di scadenza, in millisecondi
+     * @param value Valore da consegnare
+     */
+    public void schedule(long deadlineMs, long value) {
+        // Arrotondato per eccesso: la scadenza non viene mai anticipata
+        long tick = Math.max(1, Math.floorDiv(deadlineMs - this.origin + this.tickMs - 1, this.tickMs));
+
+        while (true) {
+            long slot = Math.max(tick, this.processed + 1);
+            Bucket bucket = this.buckets[(int) slot & this.mask];
+
+            bucket.lock.lock();
+            try {
+                // Se advance ha superato il tick nel frattempo si riprova dal successivo
+                if (slot <= this.processed) continue;
+
+                if (bucket.size == bucket.entries.length) bucket.entries = Arrays.copyOf(bucket.entries, bucket.size * 2);
+                bucket.entries[bucket.size++] = slot;
+                bucket.entries[bucket.size++] = value;
+                return;
+            }
+            finally { bucket.lock.unlock(); }
+        }
+    }
+
+    /**
+     * Consegna i valori scaduti fino ad un istante.
+     *
+     * @param nowMs Istante attuale, in millisecondi
+     * @param consumer Riceve ogni valore scaduto
+     * @return Numero di valori consegnati
+     */
+    public int advance(long nowMs, LongConsumer consumer) {
+        long now = Math.floorDiv(nowMs - this.origin, this.tickMs);
+        int delivered = 0;
+
+        // Un giro completo basta: dopo ogni secchiello è stato visitato
+        long from = Math.max(this.processed + 1, now - this.mask);
+
+        for (long tick = from; tick <= now; tick++) {
+            Bucket bucket = this.buckets[(int) tick & this.mask];
+            int count = 0;
+
+            bucket.lock.lock();
+            try {
+                int kept = 0;
+                for (int i = 0; i < bucket.size; i += 2) {
+                    if (bucket.entries[i] <= now) {
+                        if (count == this.expired.length) this.expired = Arrays.copyOf(this.expired, count * 2);
+                        this.expired[count++] = bucket.entries[i + 1];
+                    }
+                    else {
+                        bucket.entries[kept++] = bucket.entries[i];
+                        bucket.entries[kept++] = bucket.entries[i + 1];
+                    }
+                }
+                bucket.size = kept;
+                this.processed = tick;
+            }
+            finally { bucket.lock.unlock(); }
+
+            for (int i = 0; i < count; i++) consumer.accept(this.expired[i]);
+            delivered += count;
+        }
+
+        return delivered;
+    }
+
+    /**
+     * Getter per il numero di scadenze in attesa.
+     *
+     * @return Scadenze non ancora consegnate (O(secchielli), per test e statistiche)
+     */
+    public int size() {
+        int size = 0;
+        for (Bucket bucket : this.buckets) {
+            bucket.lock.lock();
+            try { size += bucket.size / 2; }
+            finally { bucket.lock.unlock(); }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,444 @@
+package com.nicholasTropea.game.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Log binario in sola aggiunta, scritto da un solo thread con group commit.
+ *
+ * I thread che registrano una modifica copiano il record in un buffer
+ * condiviso ({@link #append}) e, se serve, attendono che sia su disco
+ * ({@link #sync}). Il thread di scrittura prende tutto ciò che si è
+ * accumulato, lo scrive con una sola {@link FileChannel#write} e, a
+ * seconda della {@link Durability}, esegue una sola
+ * {@link FileChannel#force} per l'intero gruppo: più scrittori concorrenti
+ * si dividono il costo di un fsync.
+ *
+ * Il log è diviso in segmenti numerati ({@code wal-<n>.log}); dopo uno
+ * snapshot i segmenti precedenti a quello corrente possono essere
+ * cancellati ({@link #rotate()}, {@link #deleteSegmentsBefore(long)}).
+ *
+ * Formato di un record (interi big-endian):
+ * <pre>
+ * int lunghezza del payload, int CRC32C di tipo e payload, byte tipo, payload
+ * </pre>
+ * Un record incompleto o con CRC errato segna la fine del log: è la coda di
+ * una scrittura interrotta da un crash, e viene troncata all'apertura.
+ */
+public final class WriteAheadLog implements Closeable {
+    /** Quando i record diventano durevoli. */
+    public enum Durability {
+        /** Un fsync per ogni gruppo: {@link #sync} ritorna solo a record su disco. */
+        BATCH,
+
+        /** Un fsync ogni intervallo: {@link #sync} non attende, un crash può perdere l'ultimo intervallo. */
+        INTERVAL
+    }
+
+    /** Byte di intestazione di un record. */
+    static final int HEADER_SIZE = 9;
+
+    /** Dimensione massima del payload di un record. */
+    static final int MAX_PAYLOAD = 1 << 20;
+
+    /**
+     * Byte in attesa oltre i quali {@link #sync} si blocca finché il
+     * thread di scrittura non li ha presi: senza questo limite, in modalità
+     * {@link Durability#INTERVAL} scrittori più veloci del disco farebbero
+     * crescere il buffer senza fine. L'attesa è in {@link #sync} e non in
+     * {@link #append}, che viene chiamato tenendo i lock del
+     * {@link com.nicholasTropea.game.model.PlayerRegistry}: un fsync lento
+     * fermerebbe anche le letture degli altri giocatori.
+     */
+    static final int MAX_PENDING = 4 << 20;
+
+    /** Riceve i record durante la rilettura del log. */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param type Tipo del record
+         * @param payload Payload, tra position e limit
+         */
+        void accept(byte type, ByteBuffer payload) throws IOException;
+    }
+
+    private final Path directory;
+    private final Durability durability;
+    private final long intervalNanos;
+
+    private final ReentrantLock lock;
+
+    /** Segnalata quando ci sono record da scrivere, una rotazione o la chiusura */
+    private final Condition work;
+
+    /** Segnalata dopo ogni gruppo scritto */
+    private final Condition progress;
+
+    /** Record in attesa del thread di scrittura */
+    private ByteBuffer pending;
+
+    /** Buffer in scrittura, scambiato con {@link #pending} ad ogni gruppo */
+    private ByteBuffer writing;
+
+    /** Numero di sequenza dell'ultimo record aggiunto */
+    private long appended;
+
+    /** Numero di sequenza dell'ultimo record su disco (dopo fsync) */
+    private long synced;
+
+    private boolean rotateRequested;
+    private boolean closed;
+    private IOException failure;
+
+    /** Segmento corrente, usato solo dal thread di scrittura dopo l'apertura */
+    private long segment;
+    private FileChannel channel;
+
+    private final CRC32C crc;
+    private final Thread writer;
+
+    private WriteAheadLog(Path directory, Durability durability, long intervalMs, long segment, FileChannel channel) {
+        this.directory = directory;
+        this.durability = durability;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.lock = new ReentrantLock();
+        this.work = this.lock.newCondition();
+        this.progress = this.lock.newCondition();
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        this.writing = ByteBuffer.allocate(64 * 1024);
+        this.segment = segment;
+        this.channel = channel;
+        this.crc = new CRC32C();
+
+        this.writer = new Thread(this::writeLoop, "wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Apre il log di una directory, creandola se serve, e si posiziona in
+     * coda all'ultimo segmento dopo averne troncato l'eventuale record
+     * incompleto.
+     *
+     * @param directory Directory dei segmenti
+     * @param durability Modalità di fsync
+     * @param intervalMs Intervallo tra due fsync in modalità {@link Durability#INTERVAL}
+     * @return Log aperto
+     * @throws IOException In caso di errore di I/O
+     */
+    public static WriteAheadLog open(Path directory, Durability durability, long intervalMs) throws IOException {
+        Files.createDirectories(directory);
+
+        List<Long> segments = segments(directory);
+        long last = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+
+        FileChannel channel = FileChannel.open(
+            segmentPath(directory, last), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+        );
+
+        long valid = scan(channel, null);
+        channel.truncate(valid);
+        channel.position(valid);
+
+        return new WriteAheadLog(directory, durability, intervalMs, last, channel);
+    }
+
+    /**
+     * Rilegge i record dei segmenti a partire da uno dato, nell'ordine in
+     * cui sono stati scritti, fermandosi alla prima coda non valida.
+     *
+     * @param directory Directory dei segmenti
+     * @param fromSegment Primo segmento da rileggere
+     * @param visitor Destinatario dei record
+     * @return Numero di record riletti
+     * @throws IOException In caso di errore di I/O o del visitor
+     */
+    public static long replay(Path directory, long fromSegment, Visitor visitor) throws IOException {
+        if (!Files.isDirectory(directory)) return 0;
+
+        long[] count = { 0 };
+        for (long s : segments(directory)) {
+            if (s < fromSegment) continue;
+
+            try (FileChannel channel = FileChannel.open(segmentPath(directory, s), StandardOpenOption.READ)) {
+                scan(channel, (type, payload) -> {
+                    count[0]++;
+                    visitor.accept(type, payload);
+                });
+            }
+        }
+
+        return count[0];
+    }
+
+    /**
+     * Aggiunge un record. Non attende mai la scrittura (vedi
+     * {@link #sync(long)}), quindi può essere chiamato tenendo dei lock.
+     *
+     * @param type Tipo del record
+     * @param payload Byte del payload
+     * @param offset Inizio del payload
+     * @param length Lunghezza del payload
+     * @return Numero di sequenza del record
+     * @throws IOException Se il log è chiuso o il thread di scrittura è fallito
+     */
+    public long append(byte type, byte[] payload, int offset, int length) throws IOException {
+        if (length > MAX_PAYLOAD) throw new IllegalArgumentException("payload too large: " + length);
+
+        this.lock.lock();
+        try {
+            this.checkOpen();
+
+            if (this.pending.remaining() < HEADER_SIZE + length) {
+                int capacity = Math.max(2 * this.pending.capacity(), this.pending.position() + HEADER_SIZE + length);
+                ByteBuffer larger = ByteBuffer.allocate(capacity);
+                this.pending.flip();
+                larger.put(this.pending);
+                this.pending = larger;
+            }
+
+            this.crc.reset();
+            this.crc.update(type);
+            this.crc.update(payload, offset, length);
+
+            this.pending.putInt(length).putInt((int) this.crc.getValue()).put(type).put(payload, offset, length);
+            this.work.signal();
+            return ++this.appended;
+        }
+        finally { this.lock.unlock(); }
+    }
+
+    /**
+     * Attende che un record sia durevole. In modalità
+     * {@link Durability#INTERVAL} ritorna subito, salvo quando i record in
+     * attesa superano {@link #MAX_PENDING} byte.
+     *
+     * @param sequence Numero di sequenza restituito da {@link #append}
+     * @throws IOException Se il thread di scrittura è fallito
+     */
+    public void sync(long sequence) throws IOException {
+        if (this.durability == Durability.INTERVAL) {
+            this.lock.lock();
+            try {
+                while (this.pending.position() > MAX_PENDING && this.failure == null) this.progress.awaitUninterruptibly();
+                if (this.failure != null) throw new IOException("write-ahead log failed", this.failure);
+            }
+            finally { this.lock.unlock(); }
+            return;
+        }
+
+        this.lock.lock();
+        try {
+            while (this.synced < sequence) {
+                if (this.failure != null) throw new IOException("write-ahead log failed", this.failure);
+                this.progress.awaitUninterruptibly();
+            }
+        }
+        finally { this.lock.unlock(); }
+    }
+
+    /**
+     * Chiude il segmento corrente e ne apre uno nuovo. Tutti i record
+     * aggiunti prima della chiamata finiscono nei segmenti precedenti.
+     *
+     * @return Numero del nuovo segmento
+     * @throws IOException Se il log è chiuso o il thread di scrittura è fallito
+     */
+    public long rotate() throws IOException {
+        this.lock.lock();
+        try {
+            this.checkOpen();
+            this.rotateRequested = true;
+            this.work.signal();
+
+            while (this.rotateRequested) {
+                if (this.failure != null) throw new IOException("write-ahead log failed", this.failure);
+                this.progress.awaitUninterruptibly();
+            }
+
+            return this.segment;
+        }
+        finally { this.lock.unlock(); }
+    }
+
+    /**
+     * Cancella i segmenti con numero minore di quello dato.
+     *
+     * @param segment Primo segmento da conservare
+     * @throws IOException In caso di errore di I/O
+     */
+    public void deleteSegmentsBefore(long segment) throws IOException {
+        for (long s : segments(this.directory)) {
+            if (s < segment) Files.deleteIfExists(segmentPath(this.directory, s));
+        }
+    }
+
+    /**
+     * Scrive i record in attesa, esegue l'ultimo fsync e chiude il log.
+     *
+     * @throws IOException Se il thread di scrittura è fallito
+     */
+    @Override
+    public void close() throws IOException {
+        this.lock.lock();
+        try {
+            if (this.closed) return;
+            this.closed = true;
+            this.work.signal();
+        }
+        finally { this.lock.unlock(); }
+
+        try { this.writer.join(); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+
+        this.channel.close();
+        if (this.failure != null) throw new IOException("write-ahead log failed", this.failure);
+    }
+
+    private void checkOpen() throws IOException {
+        if (this.failure != null) throw new IOException("write-ahead log failed", this.failure);
+        if (this.closed) throw new IOException("write-ahead log closed");
+    }
+
+    /** Ciclo del thread di scrittura: un gruppo di record per iterazione. */
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        boolean dirty = false;
+
+        try {
+            while (true) {
+                ByteBuffer batch;
+                long sequence;
+                boolean rotate;
+                boolean stop;
+
+                this.lock.lock();
+                try {
+                    while (this.pending.position() == 0 && !this.rotateRequested && !this.closed) {
+                        if (!dirty) {
+                            this.work.awaitUninterruptibly();
+                            continue;
+                        }
+
+                        // Modalità INTERVAL con dati non ancora su disco: attende al massimo fino al prossimo fsync
+                        long left = this.intervalNanos - (System.nanoTime() - lastForce);
+                        if (left <= 0) break;
+                        try { this.work.awaitNanos(left); }
+                        catch (InterruptedException e) { ; }
+                    }
+
+                    batch = this.pending;
+                    this.pending = this.writing;
+                    this.writing = batch;
+                    sequence = this.appended;
+                    rotate = this.rotateRequested;
+                    stop = this.closed;
+                }
+                finally { this.lock.unlock(); }
+
+                batch.flip();
+                if (batch.hasRemaining()) dirty = true;
+                while (batch.hasRemaining()) this.channel.write(batch);
+                batch.clear();
+
+                boolean force = this.durability == Durability.BATCH || rotate || stop
+                    || System.nanoTime() - lastForce >= this.intervalNanos;
+
+                if (force && dirty) {
+                    this.channel.force(false);
+                    dirty = false;
+                }
+                if (force) lastForce = System.nanoTime();
+
+                if (rotate) {
+                    FileChannel next = FileChannel.open(
+                        segmentPath(this.directory, this.segment + 1),
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE
+                    );
+                    this.channel.close();
+                    this.channel = next;
+                }
+
+                this.lock.lock();
+                try {
+                    if (force) this.synced = sequence;
+                    if (rotate) {
+                        this.segment++;
+                        this.rotateRequested = false;
+                    }
+                    this.progress.signalAll();
+                    if (stop && this.pending.position() == 0) return;
+                }
+                finally { this.lock.unlock(); }
+            }
+        }
+        catch (IOException e) {
+            this.lock.lock();
+            try {
+                this.failure = e;
+                this.progress.signalAll();
+            }
+            finally { this.lock.unlock(); }
+        }
+    }
+
+    /** Legge i record validi di un segmento e restituisce la lunghezza della parte valida. */
+    private static long scan(FileChannel channel, Visitor visitor) throws IOException {
+        long size = channel.size();
+        if (size == 0) return 0;
+
+        ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32C crc = new CRC32C();
+        int pos = 0;
+
+        while (data.limit() - pos >= HEADER_SIZE) {
+            int length = data.getInt(pos);
+            if (length < 0 || length > MAX_PAYLOAD || data.limit() - pos - HEADER_SIZE < length) break;
+
+            byte type = data.get(pos + 8);
+            ByteBuffer payload = data.slice(pos + HEADER_SIZE, length);
+
+            crc.reset();
+            crc.update(type);
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != data.getInt(pos + 4)) break;
+
+            if (visitor != null) visitor.accept(type, payload);
+            pos += HEADER_SIZE + length;
+        }
+
+        return pos;
+    }
+
+    /** Numeri dei segmenti presenti, in ordine crescente. */
+    private static List<Long> segments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                try { segments.add(Long.parseLong(name.substring(4, name.length() - 4))); }
+                catch (NumberFormatException e) { ; }
+            }
+        }
+
+        segments.sort(null);
+        return segments;
+    }
+
+    private static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("wal-%016d.log", segment));
+    }
+}
@@ -0,0 +1,55 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.model.WordDictionary;
+
+/**
+ * Misura l'heap occupato dall'intero catalogo di partite caricato in memoria.
+ *
+ * Decodifica tutte le partite dall'archivio e confronta l'heap usato prima
+ * e dopo, forzando la garbage collection.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nicholasTropea.game.bench.CatalogHeapReport
+ * }</pre>
+ */
+public class CatalogHeapReport {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        PuzzleStore store = PuzzleStore.openDefault();
+        store.get(0); // Classi caricate prima della misura
+
+        long before = usedHeap(memory);
+
+        List<Game> catalog = new ArrayList<>(store.size());
+        for (int id = 0; id < store.size(); id++) {
+            if (store.contains(id)) catalog.add(store.get(id));
+        }
+
+        long after = usedHeap(memory);
+
+        System.out.printf(
+            "Partite: %d, stringhe nel dizionario: %d, heap del catalogo: %d KB%n",
+            catalog.size(), WordDictionary.GLOBAL.size(), (after - before) / 1024
+        );
+        if (catalog.isEmpty()) System.out.println(); // Mantiene raggiungibile il catalogo fino alla misura
+    }
+
+    private static long usedHeap(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
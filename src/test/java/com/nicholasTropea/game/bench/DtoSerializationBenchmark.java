@@ -0,0 +1,87 @@
+package com.nicholasTropea.game.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nicholasTropea.game.model.LeaderboardRecord;
+import com.nicholasTropea.game.model.MistakeHistogram;
+import com.nicholasTropea.game.net.*;
+
+/**
+ * Confronta la serializzazione dei DTO del protocollo.
+ *
+ * <ul>
+ *   <li>{@code reflective*}: {@code new Gson()} condiviso, adapter riflessivi</li>
+ *   <li>{@code adapters*}: {@link Json#GSON} con gli adapter scritti a mano</li>
+ *   <li>{@code gsonPerConnection}: costo di un {@code new Gson()} creato per
+ *       ogni connessione e usato per una sola risposta (comportamento precedente)</li>
+ * </ul>
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main DtoSerializationBenchmark -prof gc
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoSerializationBenchmark {
+    private static final List<String> WORDS = List.of(
+        "SNOW", "HAIL", "RAIN", "SLEET", "HEAT", "BUCKS", "JAZZ", "NETS",
+        "SHIFT", "TAB", "RETURN", "OPTION", "LEVEL", "KAYAK", "RACECAR", "MOM"
+    );
+
+    @Param({
+        "submitProposalRequest", "submitProposalResponse", "loginResponse",
+        "gameInfoResponse", "leaderboardResponse", "playerStatsResponse"
+    })
+    public String dto;
+
+    private Object value;
+    private String json;
+    private Gson reflective;
+
+    @Setup
+    public void setup() {
+        this.value = switch (this.dto) {
+            case "submitProposalRequest" -> new SubmitProposalRequest(WORDS.subList(0, 4));
+            case "submitProposalResponse" -> SubmitProposalResponse.success(true, "WET WEATHER");
+            case "loginResponse" -> LoginResponse.success(0, WORDS, List.of(WORDS.subList(0, 4)), 60_000L, 1, 6);
+            case "gameInfoResponse" -> GameInfoResponse.success(true, 1000L, WORDS.subList(4, 16), null, List.of(WORDS.subList(0, 4)), 2, 6);
+            case "leaderboardResponse" -> LeaderboardResponse.success(List.of(
+                new LeaderboardRecord("Mario", 120), new LeaderboardRecord("Luigi", 90),
+                new LeaderboardRecord("Peach", 75), new LeaderboardRecord("Toad", 40)
+            ));
+            case "playerStatsResponse" -> PlayerStatsResponse.success(
+                10, 2, 1, 3, 0.8f, 0.2f, 2, 5, new MistakeHistogram(3, 2, 4, 1, 2, 1)
+            );
+            default -> throw new IllegalArgumentException(this.dto);
+        };
+
+        this.reflective = new Gson();
+        this.json = Json.GSON.toJson(this.value);
+    }
+
+    @Benchmark
+    public String reflectiveToJson() { return this.reflective.toJson(this.value); }
+
+    @Benchmark
+    public String adaptersToJson() { return Json.GSON.toJson(this.value); }
+
+    @Benchmark
+    public Object reflectiveFromJson() { return this.reflective.fromJson(this.json, this.value.getClass()); }
+
+    @Benchmark
+    public Object adaptersFromJson() { return Json.GSON.fromJson(this.json, this.value.getClass()); }
+
+    @Benchmark
+    public String gsonPerConnection() { return new Gson().toJson(this.value); }
+}
@@ -0,0 +1,85 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PuzzleStore;
+
+/**
+ * Misura la lettura dei dati di una partita già caricata, come avviene
+ * nel percorso delle richieste (verifica delle proposte, login, info
+ * partita).
+ *
+ * <ul>
+ *   <li>{@code copyOnRead}: getter che copiano le liste ad ogni lettura
+ *       ({@code List.copyOf}), come nella versione precedente di {@link Game}</li>
+ *   <li>{@code readByIndex}: gruppi, temi e parole letti per indice dalle viste</li>
+ *   <li>{@code readForEach}: come sopra ma con cicli for-each (iteratori)</li>
+ *   <li>{@code readBoard}: le 16 parole della plancia precalcolata</li>
+ *   <li>{@code hashCode}: hash della partita, ad es. come chiave di una mappa</li>
+ * </ul>
+ *
+ * Con {@code -prof gc}, {@code gc.alloc.rate.norm} deve essere ~0 per
+ * tutte le letture tranne {@code copyOnRead}.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main GameAccessBenchmark -prof gc
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameAccessBenchmark {
+    private Game game;
+
+    @Setup
+    public void setup() throws IOException { this.game = PuzzleStore.openDefault().get(0); }
+
+    @Benchmark
+    public void copyOnRead(Blackhole bh) {
+        for (Game.Group group : List.copyOf(this.game.getGroups())) {
+            bh.consume(group.getTheme());
+            for (String word : List.copyOf(group.getWords())) bh.consume(word);
+        }
+    }
+
+    @Benchmark
+    public void readByIndex(Blackhole bh) {
+        List<Game.Group> groups = this.game.getGroups();
+
+        for (int g = 0; g < groups.size(); g++) {
+            Game.Group group = groups.get(g);
+            bh.consume(group.getTheme());
+
+            List<String> words = group.getWords();
+            for (int w = 0; w < words.size(); w++) bh.consume(words.get(w));
+        }
+    }
+
+    @Benchmark
+    public void readForEach(Blackhole bh) {
+        for (Game.Group group : this.game.getGroups()) {
+            bh.consume(group.getTheme());
+            for (String word : group.getWords()) bh.consume(word);
+        }
+    }
+
+    @Benchmark
+    public void readBoard(Blackhole bh) {
+        List<String> board = this.game.getBoard();
+        for (int i = 0; i < board.size(); i++) bh.consume(board.get(i));
+    }
+
+    @Benchmark
+    public int hashCode() { return this.game.hashCode(); }
+}
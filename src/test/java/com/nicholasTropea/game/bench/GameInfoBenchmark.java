@@ -0,0 +1,81 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.GameInfoResponse;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.SubmitProposalRequest;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerState;
+
+/**
+ * Costo di una {@link GameInfoRequest} sulla partita attiva, dalla
+ * richiesta già decodificata alla riga JSON pronta per il socket, come nel
+ * server non bloccante.
+ *
+ * <ul>
+ *   <li>{@code cache=true}: risposta basata sui frammenti del turno,
+ *       composta in byte senza liste né Gson</li>
+ *   <li>{@code cache=false}: liste costruite ad ogni richiesta e
+ *       serializzate con {@link Json#GSON}</li>
+ * </ul>
+ *
+ * Il log delle operazioni su {@code System.out} viene scartato: costa più
+ * della risposta e coprirebbe la differenza misurata.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main GameInfoBenchmark -prof gc
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameInfoBenchmark {
+    @Param({ "true", "false" })
+    public boolean cache;
+
+    private RequestHandler handler;
+    private GameInfoRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.setFragmentCache(this.cache);
+        state.startRound(puzzles.get(0), 3_600_000);
+        state.getPlayers().register("Mario", "123456");
+
+        this.handler = new RequestHandler(state);
+        this.handler.handle(new LoginRequest("Mario", "123456"));
+
+        // Un gruppo indovinato: parole rimaste e gruppi indovinati entrambi presenti
+        Game game = state.getRound().getGame();
+        this.handler.handle(new SubmitProposalRequest(game.getGroups().get(0).getWords()));
+        this.request = new GameInfoRequest(true);
+    }
+
+    @Benchmark
+    public byte[] requestGameInfo() {
+        GameInfoResponse response = (GameInfoResponse) this.handler.handle(this.request);
+
+        byte[] line = response.getEncodedLine();
+        return line != null ? line : (Json.GSON.toJson(response) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,121 @@
+package com.nicholasTropea.game.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.nicholasTropea.game.model.Leaderboard;
+
+/**
+ * Confronta la {@link Leaderboard} incrementale con il riordino di tutti i
+ * punteggi ad ogni lettura, con diverse proporzioni di letture e
+ * scritture.
+ *
+ * Ogni operazione è, con probabilità {@code writes}%, un aggiornamento del
+ * punteggio di un giocatore (come al termine di una partita), altrimenti
+ * una lettura: metà delle volte i primi 10, metà la posizione di un
+ * giocatore.
+ *
+ * <ul>
+ *   <li>{@code index}: {@link Leaderboard#move}, {@link Leaderboard#forEachTop}
+ *       e {@link Leaderboard#position}</li>
+ *   <li>{@code sort}: le scritture aggiornano solo l'array dei punteggi;
+ *       ogni lettura lo copia e lo ordina</li>
+ * </ul>
+ *
+ * Ogni thread aggiorna solo i propri giocatori (id congrui al suo indice),
+ * come accade con il lock del record nel {@link com.nicholasTropea.game.model.PlayerRegistry}.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main LeaderboardBenchmark -t 4
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardBenchmark {
+    /** Thread massimi: gli id sono divisi tra i thread modulo questo valore. */
+    private static final int MAX_THREADS = 64;
+
+    @Param({"100000"})
+    public int players;
+
+    @Param({"5", "50", "95"})
+    public int writes;
+
+    @Param({"index", "sort"})
+    public String impl;
+
+    private Leaderboard leaderboard;
+    private int[] scores;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Worker {
+        int index;
+        SplittableRandom random;
+
+        @Setup
+        public void setup(LeaderboardBenchmark bench) {
+            this.index = bench.threads.getAndIncrement() % MAX_THREADS;
+            this.random = new SplittableRandom(this.index);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        this.leaderboard = new Leaderboard();
+        this.scores = new int[this.players];
+
+        for (int id = 0; id < this.players; id++) {
+            this.scores[id] = random.nextInt(2000);
+            this.leaderboard.add(id, this.scores[id]);
+        }
+    }
+
+    @Benchmark
+    public void mixed(Worker worker, Blackhole bh) {
+        SplittableRandom random = worker.random;
+
+        if (random.nextInt(100) < this.writes) {
+            int id = worker.index + MAX_THREADS * random.nextInt(this.players / MAX_THREADS);
+            int old = this.scores[id];
+            int updated = old + random.nextInt(41) - 16;
+            if (this.impl.equals("index")) this.leaderboard.move(id, old, updated);
+            this.scores[id] = updated;
+            return;
+        }
+
+        boolean top = random.nextBoolean();
+        int score = this.scores[random.nextInt(this.players)];
+
+        if (this.impl.equals("index")) {
+            if (top) this.leaderboard.forEachTop(10, (id, s, position) -> bh.consume(id));
+            else bh.consume(this.leaderboard.position(score));
+            return;
+        }
+
+        int[] sorted = this.scores.clone();
+        Arrays.sort(sorted);
+        if (top) {
+            for (int i = 0; i < 10; i++) bh.consume(sorted[sorted.length - 1 - i]);
+        }
+        else {
+            // Primo indice con punteggio maggiore: i giocatori sopra sono quelli da lì in poi
+            int i = Arrays.binarySearch(sorted, score + 1);
+            if (i < 0) i = -i - 1;
+            else while (i > 0 && sorted[i - 1] == score + 1) i--;
+            bh.consume(sorted.length - i + 1);
+        }
+    }
+}
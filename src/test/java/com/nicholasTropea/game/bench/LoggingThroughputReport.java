@@ -0,0 +1,133 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.nicholasTropea.game.client.GameConnection;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.GameInfoResponse;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.server.AsyncLogger;
+import com.nicholasTropea.game.server.NetworkManager;
+import com.nicholasTropea.game.server.NioNetworkManager;
+import com.nicholasTropea.game.server.ServerState;
+
+/**
+ * Richieste al secondo con il log delle operazioni sulla console o nel
+ * log asincrono.
+ *
+ * {@value #CLIENTS} client chiedono le informazioni sulla partita in
+ * ciclo chiuso per {@value #SECONDS} secondi, su ogni server; ogni
+ * richiesta produce una riga di log ("Operazione: ...").
+ *
+ * <ul>
+ *   <li>{@code console}: righe scritte da {@code System.out} su un file,
+ *       come la console della JVM rediretta (buffer di 128 byte, svuotato
+ *       ad ogni riga, sotto il lock del {@link PrintStream})</li>
+ *   <li>{@code async}: righe nell'{@link AsyncLogger} su file, scartate
+ *       con il buffer pieno</li>
+ *   <li>{@code async-warn}: {@link AsyncLogger} con livello minimo
+ *       {@code warn}, cioè senza righe: il limite superiore</li>
+ * </ul>
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nicholasTropea.game.bench.LoggingThroughputReport
+ * }</pre>
+ */
+public class LoggingThroughputReport {
+    private static final int CLIENTS = 16;
+    private static final int SECONDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        PrintStream report = System.out;
+        Path dir = Files.createTempDirectory("log-report");
+
+        report.printf("processori: %d, %d client, %d s per variante%n%n",
+            Runtime.getRuntime().availableProcessors(), CLIENTS, SECONDS);
+        report.printf("%-9s %-11s %12s %14s %10s%n", "server", "log", "richieste/s", "righe scritte", "scartate");
+
+        for (String server : List.of("blocking", "nio")) {
+            for (String variant : List.of("console", "async", "async-warn")) {
+                report.println(run(server, variant, dir.resolve(server + "-" + variant + ".log")));
+            }
+        }
+
+        System.exit(0); // I server restano in ascolto
+    }
+
+    private static String run(String server, String variant, Path file) throws Exception {
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 3_600_000);
+        for (int i = 0; i < CLIENTS; i++) state.getPlayers().register("player" + i, "123456");
+
+        PrintStream console = System.out;
+        AsyncLogger logger = null;
+
+        if (variant.equals("console")) {
+            System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(file.toFile()), 128), true));
+        }
+        else {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            AsyncLogger.Level level = variant.equals("async") ? AsyncLogger.Level.INFO : AsyncLogger.Level.WARN;
+            logger = new AsyncLogger(file, 8192, level, AsyncLogger.Overflow.DROP, 1L << 30, 1);
+            state.setLogger(logger);
+        }
+
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) { port = probe.getLocalPort(); }
+
+        Thread listener = new Thread(server.equals("nio") ? new NioNetworkManager(port, 1, 2, state) : new NetworkManager(port, false, state));
+        listener.setDaemon(true);
+        listener.start();
+        Thread.sleep(200);
+
+        LongAdder requests = new LongAdder();
+        long end = System.nanoTime() + SECONDS * 1_000_000_000L;
+        Thread[] clients = new Thread[CLIENTS];
+
+        for (int c = 0; c < CLIENTS; c++) {
+            String name = "player" + c;
+            clients[c] = new Thread(() -> {
+                try (GameConnection connection = new GameConnection("127.0.0.1", port)) {
+                    connection.call(new LoginRequest(name, "123456"), Object.class);
+                    GameInfoRequest request = new GameInfoRequest(true);
+
+                    while (System.nanoTime() < end) {
+                        connection.call(request, GameInfoResponse.class);
+                        requests.increment();
+                    }
+                }
+                catch (IOException e) { throw new RuntimeException(e); }
+            });
+            clients[c].start();
+        }
+        for (Thread t : clients) t.join();
+
+        long lines;
+        long dropped = 0;
+        if (logger != null) {
+            logger.close();
+            lines = logger.getWritten();
+            dropped = logger.getDropped();
+        }
+        else {
+            System.out.flush();
+            try (var stream = Files.lines(file)) { lines = stream.count(); }
+        }
+
+        System.setOut(console);
+        return String.format("%-9s %-11s %12.0f %14d %10d", server, variant, requests.sum() / (double) SECONDS, lines, dropped);
+    }
+}
@@ -0,0 +1,218 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.nicholasTropea.game.model.CredentialCache;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.LogoutRequest;
+import com.nicholasTropea.game.server.HashingPool;
+import com.nicholasTropea.game.server.NioNetworkManager;
+import com.nicholasTropea.game.server.ServerState;
+
+/**
+ * Ondata di login sul server non bloccante: {@value #LOGINS_PER_SECOND}
+ * login al secondo per {@value #SECONDS} secondi, con l'hash predefinito
+ * di {@link PasswordHasher}.
+ *
+ * {@value #PLAYERS} client (thread virtuali) ripetono login e logout a
+ * istanti prefissati; la latenza di un login parte dall'istante previsto,
+ * quindi include l'attesa di un client rimasto indietro. Un altro client,
+ * già loggato, chiede le informazioni sulla partita ogni
+ * {@value #PROBE_INTERVAL_MS} ms: la sua latenza mostra quanto l'ondata
+ * rallenta chi non sta facendo login.
+ *
+ * <ul>
+ *   <li>{@code inline}: hash calcolato dai worker del server</li>
+ *   <li>{@code pool}: hash nel {@link HashingPool}, coda limitata</li>
+ *   <li>{@code pool+cache}: come {@code pool}, con la
+ *       {@link CredentialCache}: dal secondo login di un giocatore l'hash
+ *       non viene più calcolato</li>
+ * </ul>
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nicholasTropea.game.bench.LoginStormReport
+ * }</pre>
+ */
+public class LoginStormReport {
+    private static final int LOGINS_PER_SECOND = 1_000;
+    private static final int SECONDS = 5;
+    private static final int PLAYERS = 200;
+    private static final long PROBE_INTERVAL_MS = 10;
+    private static final String PASSWORD = "password";
+
+    public static void main(String[] args) throws Exception {
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Log delle operazioni
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        report.printf("processori: %d, hash: %d iterazioni, %d login/s per %d s%n%n",
+            cores, PasswordHasher.DEFAULT_ITERATIONS, LOGINS_PER_SECOND, SECONDS);
+        report.printf("%-11s %9s %9s %10s %10s %10s %10s%n",
+            "variante", "login/s", "rifiutati", "login p50", "login p99", "probe p50", "probe p99");
+
+        for (String variant : List.of("inline", "pool", "pool+cache")) {
+            report.println(run(variant, cores));
+        }
+
+        System.exit(0); // I server restano in ascolto
+    }
+
+    private static String run(String variant, int cores) throws Exception {
+        PlayerRegistry players = new PlayerRegistry();
+        for (int i = 0; i < PLAYERS; i++) players.register("player" + i, PASSWORD);
+        players.register("probe", PASSWORD);
+
+        ServerState state = new ServerState(players);
+        state.startRound(PuzzleStore.openDefault().get(0), 3_600_000);
+
+        HashingPool pool = null;
+        if (!variant.equals("inline")) {
+            pool = new HashingPool(Math.max(1, cores / 2), 128);
+            state.setHashing(pool);
+        }
+        if (variant.endsWith("cache")) players.setCredentialCache(new CredentialCache(30_000, 100_000));
+
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) { port = probe.getLocalPort(); }
+
+        Thread server = new Thread(new NioNetworkManager(port, 1, cores, state));
+        server.setDaemon(true);
+        server.start();
+
+        AtomicLong completed = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        long[][] loginLatencies = new long[PLAYERS][];
+        List<Long> probeLatencies = new ArrayList<>();
+
+        long periodNs = TimeUnit.SECONDS.toNanos(1) * PLAYERS / LOGINS_PER_SECOND;
+        int perPlayer = LOGINS_PER_SECOND * SECONDS / PLAYERS;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+        long end = start + TimeUnit.SECONDS.toNanos(SECONDS);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            clients.submit(() -> probe(port, end, probeLatencies));
+
+            for (int p = 0; p < PLAYERS; p++) {
+                int player = p;
+                long offset = periodNs * p / PLAYERS;
+
+                clients.submit(() -> {
+                    long[] latencies = new long[perPlayer];
+                    int n = 0;
+
+                    try (Socket s = connect(port)) {
+                        PrintWriter out = new PrintWriter(s.getOutputStream(), false, StandardCharsets.UTF_8);
+                        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                        String login = Json.GSON.toJson(new LoginRequest("player" + player, PASSWORD));
+                        String logout = Json.GSON.toJson(new LogoutRequest());
+
+                        for (int i = 0; i < perPlayer; i++) {
+                            long scheduled = start + offset + i * periodNs;
+                            sleepUntil(scheduled);
+
+                            out.print(login + "\n");
+                            out.flush();
+                            String response = in.readLine();
+                            latencies[n++] = System.nanoTime() - scheduled;
+
+                            if (response.contains("\"success\":true")) {
+                                completed.incrementAndGet();
+                                out.print(logout + "\n");
+                                out.flush();
+                                in.readLine();
+                            }
+                            else rejected.incrementAndGet();
+                        }
+                    }
+
+                    loginLatencies[player] = Arrays.copyOf(latencies, n);
+                    return null;
+                });
+            }
+        }
+
+        if (pool != null) pool.close();
+
+        long[] logins = Arrays.stream(loginLatencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        long[] probes;
+        synchronized (probeLatencies) { probes = probeLatencies.stream().mapToLong(Long::longValue).sorted().toArray(); }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        return String.format("%-11s %9.0f %9d %10s %10s %10s %10s",
+            variant, completed.get() / elapsed, rejected.get(),
+            millis(logins, 0.50), millis(logins, 0.99), millis(probes, 0.50), millis(probes, 0.99));
+    }
+
+    /** Chiede le informazioni sulla partita ad intervalli fissi, registrandone la latenza. */
+    private static Void probe(int port, long end, List<Long> latencies) throws Exception {
+        try (Socket s = connect(port)) {
+            PrintWriter out = new PrintWriter(s.getOutputStream(), false, StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+
+            out.print(Json.GSON.toJson(new LoginRequest("probe", PASSWORD)) + "\n");
+            out.flush();
+            in.readLine();
+
+            String request = Json.GSON.toJson(new GameInfoRequest(true));
+            long next = System.nanoTime();
+
+            while (next < end) {
+                sleepUntil(next);
+
+                long sent = System.nanoTime();
+                out.print(request + "\n");
+                out.flush();
+                in.readLine();
+
+                synchronized (latencies) { latencies.add(System.nanoTime() - sent); }
+                next += TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL_MS);
+            }
+        }
+
+        return null;
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long wait = nanoTime - System.nanoTime();
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    private static String millis(long[] sorted, double quantile) {
+        if (sorted.length == 0) return "-";
+        return String.format("%.1f ms", sorted[(int) Math.min(sorted.length - 1, quantile * sorted.length)] / 1e6);
+    }
+
+    /** Si connette al server, riprovando finché il listener non è attivo. */
+    private static Socket connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try { return new Socket(InetAddress.getLoopbackAddress(), port); }
+            catch (IOException e) {
+                if (attempt == 50) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+}
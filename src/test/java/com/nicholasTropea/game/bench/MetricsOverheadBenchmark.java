@@ -0,0 +1,68 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.server.LatencyHistogram;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerMetrics;
+import com.nicholasTropea.game.server.ServerState;
+
+/**
+ * Costo delle {@link ServerMetrics} sul percorso di una richiesta:
+ * {@link RequestHandler#handle} di una {@link GameInfoRequest} (la
+ * richiesta più frequente e tra le più economiche) con le metriche
+ * disattivate e attive, e la sola registrazione in un
+ * {@link LatencyHistogram}.
+ *
+ * Il log delle operazioni su {@code System.out} viene scartato.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main MetricsOverheadBenchmark
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    @Param({ "false", "true" })
+    public boolean metrics;
+
+    private RequestHandler handler;
+    private GameInfoRequest request;
+    private LatencyHistogram histogram;
+    private long value;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 3_600_000);
+        state.getPlayers().register("Mario", "123456");
+        if (this.metrics) state.setMetrics(new ServerMetrics(RequestHandler.operations()));
+
+        this.handler = new RequestHandler(state);
+        this.handler.handle(new LoginRequest("Mario", "123456"));
+        this.request = new GameInfoRequest(true);
+        this.histogram = new LatencyHistogram();
+    }
+
+    @Benchmark
+    public Object requestGameInfo() { return this.handler.handle(this.request); }
+
+    @Benchmark
+    public void recordLatency() { this.histogram.record(this.value++ & 0xFFFFF); }
+}
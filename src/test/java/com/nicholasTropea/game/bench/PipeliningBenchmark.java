@@ -0,0 +1,171 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nicholasTropea.game.client.GameConnection;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.GameInfoResponse;
+import com.nicholasTropea.game.net.LeaderboardRequest;
+import com.nicholasTropea.game.net.LeaderboardResponse;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.PlayerStatsRequest;
+import com.nicholasTropea.game.net.PlayerStatsResponse;
+import com.nicholasTropea.game.server.ClientHandler;
+import com.nicholasTropea.game.server.NioNetworkManager;
+import com.nicholasTropea.game.server.ServerState;
+
+/**
+ * Latenza di un gruppo di richieste tipico di un client (informazioni
+ * sulla partita, statistiche del giocatore, prime 10 posizioni della
+ * classifica) sulla stessa connessione, dall'invio all'ultima risposta.
+ *
+ * <ul>
+ *   <li>{@code sequential}: ogni richiesta attende la risposta precedente</li>
+ *   <li>{@code pipelined}: le tre richieste partono con una sola
+ *       scrittura ({@link GameConnection.Pipeline})</li>
+ * </ul>
+ *
+ * Con il server bloccante il {@link ClientHandler} riceve un socket che
+ * conta le scritture sul suo stream di uscita, cioè le chiamate di sistema
+ * di invio: il numero medio per gruppo viene stampato alla fine di ogni
+ * combinazione di parametri.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main PipeliningBenchmark
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipeliningBenchmark {
+    @Param({ "blocking", "nio" })
+    public String server;
+
+    @Param({ "sequential", "pipelined" })
+    public String mode;
+
+    private GameConnection connection;
+    private CountingServerSocket listener;
+    private long batches;
+
+    private GameInfoRequest gameInfo;
+    private PlayerStatsRequest playerStats;
+    private LeaderboardRequest leaderboard;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Log delle operazioni
+
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 3_600_000);
+        for (int i = 0; i < 100; i++) state.getPlayers().register("player" + i, "123456");
+
+        int port;
+        if (this.server.equals("blocking")) {
+            this.listener = new CountingServerSocket();
+            port = this.listener.getLocalPort();
+
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        Socket socket = this.listener.accept();
+                        new Thread(new ClientHandler(socket, state)).start();
+                    }
+                }
+                catch (IOException e) { ; } // Listener chiuso
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        else {
+            try (ServerSocket probe = new ServerSocket(0)) { port = probe.getLocalPort(); }
+            Thread nio = new Thread(new NioNetworkManager(port, 1, 1, state));
+            nio.setDaemon(true);
+            nio.start();
+            Thread.sleep(200);
+        }
+
+        this.connection = new GameConnection("127.0.0.1", port);
+        this.connection.call(new LoginRequest("player0", "123456"), Object.class);
+
+        this.gameInfo = new GameInfoRequest(true);
+        this.playerStats = new PlayerStatsRequest();
+        this.leaderboard = new LeaderboardRequest(null, 0, 10);
+        if (this.listener != null) this.listener.writes.set(0);
+        this.batches = 0;
+    }
+
+    @Benchmark
+    public Object batch() throws IOException {
+        this.batches++;
+
+        if (this.mode.equals("pipelined")) return this.connection.pipeline().add(this.gameInfo).add(this.playerStats).add(this.leaderboard).send();
+
+        return new Object[] {
+            this.connection.call(this.gameInfo, GameInfoResponse.class),
+            this.connection.call(this.playerStats, PlayerStatsResponse.class),
+            this.connection.call(this.leaderboard, LeaderboardResponse.class)
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (this.listener != null) {
+            System.err.printf("%nscritture sul socket per gruppo (%s, %s): %.2f%n",
+                this.server, this.mode,
+                (double) this.listener.writes.get() / this.batches);
+            this.listener.close();
+        }
+
+        this.connection.close();
+    }
+
+    /** Listener che crea socket con le scritture contate. */
+    private static final class CountingServerSocket extends ServerSocket {
+        final AtomicLong writes = new AtomicLong();
+
+        CountingServerSocket() throws IOException { super(0, 50, InetAddress.getLoopbackAddress()); }
+
+        @Override
+        public Socket accept() throws IOException {
+            Socket socket = new Socket() {
+                @Override
+                public OutputStream getOutputStream() throws IOException {
+                    return new FilterOutputStream(super.getOutputStream()) {
+                        @Override
+                        public void write(int b) throws IOException {
+                            CountingServerSocket.this.writes.incrementAndGet();
+                            this.out.write(b);
+                        }
+
+                        @Override
+                        public void write(byte[] b, int off, int len) throws IOException {
+                            CountingServerSocket.this.writes.incrementAndGet();
+                            this.out.write(b, off, len);
+                        }
+                    };
+                }
+            };
+
+            this.implAccept(socket);
+            return socket;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PuzzleStore;
+
+/**
+ * Confronta la verifica di una proposta di 4 parole con liste e stringhe
+ * e con le maschere di bit di {@link Game}.
+ *
+ * <ul>
+ *   <li>{@code naive}: ogni parola viene cercata con {@code equals} nelle
+ *       parole rimanenti del giocatore ({@code ArrayList}) e nelle liste dei
+ *       gruppi; in caso di successo le parole vengono rimosse dalla lista</li>
+ *   <li>{@code mask}: {@link Game#maskOf(List)}, {@link Game#groupOf(int)}
+ *       e aggiornamento della maschera delle parole rimanenti</li>
+ *   <li>{@code maskOnly}: solo {@link Game#groupOf(int)}, con la maschera
+ *       già calcolata (ad es. dal protocollo binario, che invia indici)</li>
+ * </ul>
+ *
+ * {@code correct} sceglie tra una proposta giusta (l'ultimo gruppo) e una
+ * sbagliata (tre parole dell'ultimo gruppo e una del primo).
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ProposalValidationBenchmark -prof gc
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProposalValidationBenchmark {
+    @Param({"true", "false"})
+    public boolean correct;
+
+    private Game game;
+    private List<String> proposal;
+    private int proposalMask;
+
+    @Setup
+    public void setup() throws IOException {
+        this.game = PuzzleStore.openDefault().get(0);
+
+        List<String> last = this.game.getGroups().get(3).getWords();
+        this.proposal = new ArrayList<>(last);
+        if (!this.correct) this.proposal.set(3, this.game.getGroups().get(0).getWords().get(0));
+
+        // Copie nuove: come le stringhe appena decodificate da una richiesta
+        for (int i = 0; i < 4; i++) this.proposal.set(i, new String(this.proposal.get(i)));
+        this.proposalMask = this.game.maskOf(this.proposal);
+    }
+
+    @Benchmark
+    public int naive() {
+        List<String> remaining = new ArrayList<>(this.game.getBoard());
+
+        for (String word : this.proposal) if (!remaining.contains(word)) return -2;
+
+        List<Game.Group> groups = this.game.getGroups();
+        for (int g = 0; g < groups.size(); g++) {
+            if (groups.get(g).getWords().containsAll(this.proposal)) {
+                remaining.removeAll(this.proposal);
+                return g;
+            }
+        }
+
+        return -1;
+    }
+
+    @Benchmark
+    public int mask() {
+        int remaining = this.game.getBoardMask();
+
+        int mask = this.game.maskOf(this.proposal);
+        if (mask == -1 || (mask & ~remaining) != 0) return -2;
+
+        int g = this.game.groupOf(mask);
+        if (g >= 0) remaining &= ~mask;
+        return g + remaining;
+    }
+
+    @Benchmark
+    public int maskOnly() { return this.game.groupOf(this.proposalMask); }
+}
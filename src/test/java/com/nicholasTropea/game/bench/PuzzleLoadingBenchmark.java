@@ -0,0 +1,61 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PuzzleCompiler;
+import com.nicholasTropea.game.model.PuzzleStore;
+
+/**
+ * Confronta il caricamento dell'archivio delle partite.
+ *
+ * <ul>
+ *   <li>{@code parseJson}: parsing completo di {@code data/games.json} in oggetti {@link Game}</li>
+ *   <li>{@code openStore}: apertura del file binario mappato (solo intestazione)</li>
+ *   <li>{@code getGame}: decodifica di una singola partita dal file mappato</li>
+ * </ul>
+ *
+ * Con {@code -prof gc}, {@code gc.alloc.rate.norm} indica i byte allocati
+ * per operazione, cioè l'heap richiesto dall'archivio.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main PuzzleLoadingBenchmark -prof gc
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PuzzleLoadingBenchmark {
+    private Path json;
+    private PuzzleStore store;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException, URISyntaxException {
+        this.json = Path.of(getClass().getResource("/data/games.json").toURI());
+        this.store = PuzzleStore.openDefault();
+    }
+
+    @Benchmark
+    public List<Game> parseJson() throws IOException { return PuzzleCompiler.parse(this.json); }
+
+    @Benchmark
+    public PuzzleStore openStore() throws IOException { return PuzzleStore.openDefault(); }
+
+    @Benchmark
+    public Game getGame() {
+        this.next = (this.next + 1) % this.store.size();
+        return this.store.get(this.next);
+    }
+}
@@ -0,0 +1,111 @@
+package com.nicholasTropea.game.bench;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+
+/**
+ * Misura heap, memoria diretta e lavoro del garbage collector per milioni
+ * di giocatori registrati.
+ *
+ * <ul>
+ *   <li>{@code objects}: un oggetto per giocatore (nickname, sale, hash,
+ *       statistiche) in una {@code ConcurrentHashMap} per nickname</li>
+ *   <li>{@code registry}: {@link PlayerRegistry}, record fuori dall'heap e
+ *       indice di soli {@code int}</li>
+ * </ul>
+ *
+ * Per misurare l'archivio e non PBKDF2 le password usano una sola
+ * iterazione. Dopo il caricamento vengono eseguite alcune collection
+ * complete: il loro tempo cresce con gli oggetti vivi nell'heap.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -Xmx3g -XX:MaxDirectMemorySize=1g -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nicholasTropea.game.bench.RegistryHeapReport 2000000
+ * }</pre>
+ */
+public class RegistryHeapReport {
+    /** Stessi campi di un record del registro, come oggetto dell'heap. */
+    @SuppressWarnings("unused")
+    private static final class PlayerObject {
+        final String nickname;
+        final byte[] salt;
+        final byte[] hash;
+        int score, currentStreak, maxStreak;
+        final int[] results = new int[6];
+
+        PlayerObject(String nickname, byte[] salt, byte[] hash) {
+            this.nickname = nickname;
+            this.salt = salt;
+            this.hash = hash;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        PasswordHasher hasher = new PasswordHasher(1);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long before = usedHeap(memory);
+        Map<String, PlayerObject> objects = new ConcurrentHashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] salt = hasher.newSalt();
+            objects.put("player" + i, new PlayerObject("player" + i, salt, hasher.hash("password", salt)));
+        }
+        long heap = usedHeap(memory) - before;
+        long gc = fullGcMillis();
+        report("objects", objects.size(), heap, 0, gc); // Mantiene raggiungibile la mappa fino alla misura
+        objects = null;
+
+        before = usedHeap(memory);
+        long direct = directMemory();
+        PlayerRegistry registry = new PlayerRegistry(hasher);
+        for (int i = 0; i < count; i++) registry.register("player" + i, "password");
+        heap = usedHeap(memory) - before;
+        gc = fullGcMillis();
+        report("registry", registry.size(), heap, directMemory() - direct, gc);
+    }
+
+    private static void report(String name, int players, long heap, long direct, long gcMillis) {
+        System.out.printf(
+            "%-9s giocatori: %d, heap: %d MB (%.1f byte/giocatore), diretta: %d MB, 5 GC complete: %d ms%n",
+            name, players, heap >> 20, (double) heap / players, direct >> 20, gcMillis
+        );
+    }
+
+    /** Tempo totale di cinque collection complete con i dati ancora vivi. */
+    private static long fullGcMillis() {
+        long before = gcMillis();
+        for (int i = 0; i < 5; i++) System.gc();
+        return gcMillis() - before;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) total += gc.getCollectionTime();
+        return total;
+    }
+
+    private static long directMemory() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) return pool.getMemoryUsed();
+        }
+        return 0;
+    }
+
+    private static long usedHeap(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
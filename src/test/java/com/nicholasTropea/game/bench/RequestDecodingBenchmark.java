@@ -0,0 +1,130 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.Request;
+import com.nicholasTropea.game.net.RequestDecoder;
+import com.nicholasTropea.game.net.SubmitProposalRequest;
+
+/**
+ * Confronta la decodifica di una richiesta ricevuta come riga di byte UTF-8.
+ *
+ * <ul>
+ *   <li>{@code gsonReflective}: riga in String, poi {@code gson.fromJson(line, X.class)}</li>
+ *   <li>{@code gsonTree}: riga in String, albero JSON, dispatch su "operation", poi reflection</li>
+ *   <li>{@code streaming}: {@link RequestDecoder} su un unico reader che riceve
+ *       richieste consecutive, come nel ClientHandler bloccante</li>
+ *   <li>{@code streamingPerLine}: {@link RequestDecoder} su ogni riga decodificata
+ *       in un buffer di caratteri riusato, come nel server NIO</li>
+ * </ul>
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main RequestDecodingBenchmark
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestDecodingBenchmark {
+    private static final Map<String, Class<? extends Request>> TYPES = Map.of(
+        "submitProposal", SubmitProposalRequest.class,
+        "login", LoginRequest.class
+    );
+
+    @Param({ "submitProposal", "login" })
+    public String operation;
+
+    private byte[] line;
+    private Gson gson;
+    private RequestDecoder decoder;
+    private JsonReader stream;
+    private CharsetDecoder utf8;
+    private CharBuffer chars;
+
+    @Setup
+    public void setup() {
+        String json = switch (this.operation) {
+            case "submitProposal" -> "{\"operation\":\"submitProposal\",\"words\":[\"SNOW\",\"HAIL\",\"RAIN\",\"SLEET\"]}";
+            case "login" -> "{\"operation\":\"login\",\"username\":\"Mario\",\"psw\":\"123456\"}";
+            default -> throw new IllegalArgumentException(this.operation);
+        };
+
+        this.line = json.getBytes(StandardCharsets.UTF_8);
+        this.gson = new Gson();
+        this.decoder = new RequestDecoder();
+
+        this.stream = new JsonReader(new RepeatingReader((json + "\n").toCharArray()));
+        this.stream.setStrictness(Strictness.LENIENT);
+
+        this.utf8 = StandardCharsets.UTF_8.newDecoder();
+        this.chars = CharBuffer.allocate(this.line.length);
+    }
+
+    @Benchmark
+    public Object gsonReflective() {
+        String s = new String(this.line, StandardCharsets.UTF_8);
+        return this.gson.fromJson(s, TYPES.get(this.operation));
+    }
+
+    @Benchmark
+    public Object gsonTree() {
+        String s = new String(this.line, StandardCharsets.UTF_8);
+        JsonObject tree = JsonParser.parseString(s).getAsJsonObject();
+        return this.gson.fromJson(tree, TYPES.get(tree.get("operation").getAsString()));
+    }
+
+    @Benchmark
+    public Object streaming() throws IOException { return this.decoder.read(this.stream); }
+
+    @Benchmark
+    public Object streamingPerLine() throws IOException {
+        this.chars.clear();
+        this.utf8.reset();
+        this.utf8.decode(ByteBuffer.wrap(this.line), this.chars, true);
+        this.utf8.flush(this.chars);
+
+        JsonReader in = new JsonReader(new CharArrayReader(this.chars.array(), 0, this.chars.position()));
+        return this.decoder.read(in);
+    }
+
+    /** Reader che ripete all'infinito gli stessi caratteri, come un socket con richieste consecutive. */
+    private static final class RepeatingReader extends Reader {
+        private final char[] data;
+        private int pos;
+
+        RepeatingReader(char[] data) { this.data = data; }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            int n = Math.min(len, this.data.length - this.pos);
+            System.arraycopy(this.data, this.pos, cbuf, off, n);
+            this.pos = (this.pos + n) % this.data.length;
+            return n;
+        }
+
+        @Override
+        public void close() { ; }
+    }
+}
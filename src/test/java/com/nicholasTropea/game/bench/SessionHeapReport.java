@@ -0,0 +1,112 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.GameSessionTable;
+import com.nicholasTropea.game.model.PlayerGameState;
+import com.nicholasTropea.game.model.PuzzleStore;
+
+/**
+ * Misura l'heap occupato da un milione di sessioni della partita attiva.
+ *
+ * <ul>
+ *   <li>{@code list}: un oggetto per sessione con nickname, {@code ArrayList}
+ *       delle parole rimanenti ed enum, come la prima versione di
+ *       {@link PlayerGameState}, in una mappa per nickname</li>
+ *   <li>{@code object}: {@link PlayerGameState} con la maschera di bit, in
+ *       una mappa per nickname</li>
+ *   <li>{@code table}: {@link GameSessionTable}, un {@code int} per sessione
+ *       indicizzato dall'id del giocatore</li>
+ * </ul>
+ *
+ * I nickname sono allocati prima della misura: appartengono all'archivio dei
+ * giocatori, non alle sessioni. Ogni sessione ha già indovinato un gruppo.
+ *
+ * Esecuzione (con un heap abbastanza grande per la variante {@code list}):
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -Xmx2g -XX:+UseSerialGC -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nicholasTropea.game.bench.SessionHeapReport
+ * }</pre>
+ */
+public class SessionHeapReport {
+    private static final int SESSIONS = 1_000_000;
+
+    /** Forma originale dello stato di un giocatore. */
+    @SuppressWarnings("unused")
+    private static final class ListState {
+        enum Result { WON, LOST, NOT_FINISHED }
+
+        final String playerNickname;
+        final int gameId;
+        int correctProposals;
+        final List<String> remainingWords;
+        int errorCount;
+        int score;
+        Result finalState;
+
+        ListState(String playerNickname, Game game) {
+            this.playerNickname = playerNickname;
+            this.gameId = game.getId();
+            this.remainingWords = new ArrayList<>(game.getBoard());
+            this.finalState = Result.NOT_FINISHED;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Game game = PuzzleStore.openDefault().get(0);
+        List<String> first = game.getGroups().get(0).getWords();
+
+        String[] nicknames = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) nicknames[i] = "player" + i;
+
+        long before = usedHeap(memory);
+        Map<String, ListState> lists = new HashMap<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            ListState s = new ListState(nicknames[i], game);
+            s.remainingWords.removeAll(first);
+            s.correctProposals = 1;
+            lists.put(nicknames[i], s);
+        }
+        report("list", usedHeap(memory) - before, lists.size());
+        lists = null;
+
+        before = usedHeap(memory);
+        Map<String, PlayerGameState> objects = new HashMap<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            PlayerGameState s = new PlayerGameState(nicknames[i], game);
+            s.submit(game, game.getGroupMask(0));
+            objects.put(nicknames[i], s);
+        }
+        report("object", usedHeap(memory) - before, objects.size());
+        objects = null;
+
+        before = usedHeap(memory);
+        GameSessionTable table = new GameSessionTable(game);
+        for (int i = 0; i < SESSIONS; i++) {
+            table.join(i);
+            table.submit(i, game.getGroupMask(0));
+        }
+        report("table", usedHeap(memory) - before, table.size());
+    }
+
+    private static void report(String name, long bytes, int sessions) {
+        System.out.printf("%-6s  sessioni: %d, heap: %d KB, %.1f byte per sessione%n", name, sessions, bytes / 1024, (double) bytes / sessions);
+    }
+
+    private static long usedHeap(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
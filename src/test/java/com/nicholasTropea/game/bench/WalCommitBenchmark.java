@@ -0,0 +1,93 @@
+package com.nicholasTropea.game.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.server.WriteAheadLog;
+
+/**
+ * Misura i commit al secondo del {@link WriteAheadLog}: ogni operazione
+ * scrive un record grande quanto un record del registro dei giocatori e
+ * attende che sia durevole secondo la modalità scelta.
+ *
+ * <ul>
+ *   <li>{@code perRecord}: ogni commit scrive e fa fsync da solo, sotto un
+ *       lock (la soluzione senza group commit)</li>
+ *   <li>{@code BATCH}: group commit, il chiamante attende il fsync che
+ *       comprende il suo record</li>
+ *   <li>{@code INTERVAL}: fsync periodico ogni 10 ms, il chiamante non
+ *       attende</li>
+ * </ul>
+ *
+ * Con più thread ({@code -t}) il group commit raccoglie in un solo fsync
+ * i record arrivati durante il fsync precedente.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main WalCommitBenchmark -t 8
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalCommitBenchmark {
+    @Param({"perRecord", "BATCH", "INTERVAL"})
+    public String mode;
+
+    private Path directory;
+    private WriteAheadLog log;
+    private FileChannel channel;
+    private final byte[] payload = new byte[4 + PlayerRegistry.RECORD_SIZE];
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("wal-bench");
+
+        if (this.mode.equals("perRecord")) {
+            this.channel = FileChannel.open(this.directory.resolve("log"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        else {
+            this.log = WriteAheadLog.open(this.directory, WriteAheadLog.Durability.valueOf(this.mode), 10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (this.log != null) this.log.close();
+        if (this.channel != null) this.channel.close();
+
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+
+    @Benchmark
+    public long commit() throws IOException {
+        if (this.log != null) {
+            long sequence = this.log.append((byte) 1, this.payload, 0, this.payload.length);
+            this.log.sync(sequence);
+            return sequence;
+        }
+
+        synchronized (this) {
+            ByteBuffer buffer = ByteBuffer.wrap(this.payload);
+            while (buffer.hasRemaining()) this.channel.write(buffer);
+            this.channel.force(false);
+            return this.channel.position();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.nicholasTropea.game.bench;
+
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nicholasTropea.game.model.LeaderboardRecord;
+import com.nicholasTropea.game.model.MistakeHistogram;
+import com.nicholasTropea.game.net.*;
+
+/**
+ * Confronta il protocollo JSON a righe con quello binario a frame:
+ * codifica in byte pronti per il socket e decodifica dai byte ricevuti.
+ *
+ * I byte per messaggio di ciascun protocollo vengono stampati all'avvio di
+ * ogni combinazione di parametri. La plancia è già nota ad entrambi i capi,
+ * come dopo il login.
+ *
+ * Esecuzione:
+ * <pre>{@code
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main WireProtocolBenchmark -prof gc
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireProtocolBenchmark {
+    private static final List<String> WORDS = List.of(
+        "SNOW", "HAIL", "RAIN", "SLEET", "HEAT", "BUCKS", "JAZZ", "NETS",
+        "SHIFT", "TAB", "RETURN", "OPTION", "LEVEL", "KAYAK", "RACECAR", "MOM"
+    );
+
+    private static final List<List<String>> GROUPS = List.of(
+        WORDS.subList(0, 4), WORDS.subList(4, 8), WORDS.subList(8, 12), WORDS.subList(12, 16)
+    );
+
+    @Param({
+        "submitProposalRequest", "submitProposalResponse", "loginResponse",
+        "gameInfoResponse", "leaderboardResponse", "playerStatsResponse"
+    })
+    public String message;
+
+    private Object value;
+    private BinaryCodec codec;
+    private byte[] jsonBytes;
+    private byte[] frame;
+
+    @Setup
+    public void setup() {
+        this.value = switch (this.message) {
+            case "submitProposalRequest" -> new SubmitProposalRequest(WORDS.subList(0, 4));
+            case "submitProposalResponse" -> SubmitProposalResponse.success(true, "WET WEATHER");
+            case "loginResponse" -> LoginResponse.success(0, WORDS, GROUPS.subList(0, 1), 60_000L, 1, 6);
+            case "gameInfoResponse" -> GameInfoResponse.success(false, null, null, GROUPS, GROUPS.subList(0, 3), 1, 9);
+            case "leaderboardResponse" -> LeaderboardResponse.success(List.of(
+                new LeaderboardRecord("Mario", 1), new LeaderboardRecord("Luigi", 2),
+                new LeaderboardRecord("Peach", 3), new LeaderboardRecord("Toad", 4)
+            ));
+            case "playerStatsResponse" -> PlayerStatsResponse.success(
+                10, 2, 1, 3, 0.8f, 0.2f, 2, 5, new MistakeHistogram(3, 2, 4, 1, 2, 1)
+            );
+            default -> throw new IllegalArgumentException(this.message);
+        };
+
+        this.codec = new BinaryCodec();
+        this.codec.setBoard(WORDS);
+
+        this.jsonBytes = this.jsonEncode();
+        this.frame = this.codec.encode(this.value);
+
+        System.out.println("\nbyte per messaggio (" + this.message + "): json=" + this.jsonBytes.length + " binary=" + this.frame.length);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() { return (Json.GSON.toJson(this.value) + "\n").getBytes(StandardCharsets.UTF_8); }
+
+    @Benchmark
+    public Object jsonDecode() {
+        String line = new String(this.jsonBytes, 0, this.jsonBytes.length - 1, StandardCharsets.UTF_8);
+        return Json.GSON.fromJson(line, this.value.getClass());
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() { return this.codec.encode(this.value); }
+
+    @Benchmark
+    public Object binaryDecode() throws ProtocolException {
+        Object decoded = this.codec.decode(this.frame, 4, this.frame.length - 4);
+        if (decoded instanceof LoginResponse) this.codec.setBoard(WORDS); // Stessa plancia, come dopo il login
+        return decoded;
+    }
+}
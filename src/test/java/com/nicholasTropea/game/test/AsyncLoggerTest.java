@@ -0,0 +1,126 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.net.PlayerStatsRequest;
+import com.nicholasTropea.game.server.AsyncLogger;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Verifica il log asincrono {@link AsyncLogger}. */
+public class AsyncLoggerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testFormatAndLevel() throws IOException {
+        Path file = this.dir.resolve("server.log");
+
+        try (AsyncLogger logger = new AsyncLogger(file, 64, AsyncLogger.Level.INFO, AsyncLogger.Overflow.BLOCK, 1 << 20, 2)) {
+            logger.log(AsyncLogger.Level.DEBUG, "nascosto");
+            logger.log(AsyncLogger.Level.INFO, "Operazione: ", "login");
+            logger.log(AsyncLogger.Level.ERROR, "Errore: ", 42);
+            logger.log(AsyncLogger.Level.INFO, "è".repeat(AsyncLogger.MAX_LINE)); // Troncata
+
+            assertFalse(logger.isEnabled(AsyncLogger.Level.DEBUG));
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).matches("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3} INFO  \\[.*\\] Operazione: login"));
+        assertTrue(lines.get(1).endsWith("ERROR [" + Thread.currentThread().getName() + "] Errore: 42"));
+        assertEquals(AsyncLogger.MAX_LINE - 1, lines.get(2).length());
+    }
+
+    @Test
+    void testConcurrentBlock() throws Exception {
+        Path file = this.dir.resolve("server.log");
+        Thread[] threads = new Thread[4];
+
+        try (AsyncLogger logger = new AsyncLogger(file, 16, AsyncLogger.Level.INFO, AsyncLogger.Overflow.BLOCK, 1 << 30, 1)) {
+            for (int t = 0; t < threads.length; t++) {
+                String prefix = "t" + t + " ";
+                threads[t] = new Thread(() -> { for (int i = 0; i < 5_000; i++) logger.log(AsyncLogger.Level.INFO, prefix, i); });
+                threads[t].start();
+            }
+            for (Thread t : threads) t.join();
+
+            assertEquals(0, logger.getDropped());
+        }
+
+        // Tutte le righe, intere e senza duplicati
+        Set<String> messages = new HashSet<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            assertTrue(messages.add(line.substring(line.indexOf("] ") + 2)), line);
+        }
+        assertEquals(20_000, messages.size());
+        assertTrue(messages.contains("t3 4999"));
+    }
+
+    @Test
+    void testDrop() throws IOException {
+        Path file = this.dir.resolve("server.log");
+        long dropped;
+
+        try (AsyncLogger logger = new AsyncLogger(file, 16, AsyncLogger.Level.INFO, AsyncLogger.Overflow.DROP, 1 << 30, 1)) {
+            for (int i = 0; i < 100_000; i++) logger.log(AsyncLogger.Level.INFO, "messaggio ", i);
+            dropped = logger.getDropped();
+        }
+
+        // Il buffer piccolo si riempie prima che il thread di scrittura lo svuoti
+        assertTrue(dropped > 0);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        long messages = lines.stream().filter(l -> l.contains("] messaggio ")).count();
+        long reported = lines.stream()
+            .filter(l -> l.contains("Messaggi scartati"))
+            .mapToLong(l -> Long.parseLong(l.substring(l.lastIndexOf(' ') + 1)))
+            .sum();
+
+        assertEquals(100_000, messages + dropped);
+        assertEquals(dropped, reported);
+    }
+
+    @Test
+    void testRotation() throws IOException {
+        Path file = this.dir.resolve("server.log");
+
+        try (AsyncLogger logger = new AsyncLogger(file, 1024, AsyncLogger.Level.INFO, AsyncLogger.Overflow.BLOCK, 4096, 3)) {
+            for (int i = 0; i < 2_000; i++) logger.log(AsyncLogger.Level.INFO, "riga ", i);
+        }
+
+        // Conservati il file attivo e i due precedenti
+        assertTrue(Files.exists(this.dir.resolve("server.log.1")));
+        assertTrue(Files.exists(this.dir.resolve("server.log.2")));
+        assertFalse(Files.exists(this.dir.resolve("server.log.3")));
+        assertTrue(Files.size(this.dir.resolve("server.log.1")) >= 4096);
+
+        List<String> last = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertTrue(last.isEmpty() || last.get(last.size() - 1).endsWith("riga 1999"));
+    }
+
+    @Test
+    void testServerStateLogger() throws IOException {
+        Path file = this.dir.resolve("server.log");
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+
+        try (AsyncLogger logger = new AsyncLogger(file, 64, AsyncLogger.Level.INFO, AsyncLogger.Overflow.BLOCK, 1 << 20, 1)) {
+            state.setLogger(logger);
+            new RequestHandler(state).handle(new PlayerStatsRequest());
+        }
+
+        assertTrue(Files.readString(file).contains("Operazione: requestPlayerStats"));
+    }
+}
@@ -0,0 +1,206 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.LeaderboardRecord;
+import com.nicholasTropea.game.model.MistakeHistogram;
+import com.nicholasTropea.game.net.*;
+import com.nicholasTropea.game.server.NetworkManager;
+import com.nicholasTropea.game.server.NioNetworkManager;
+
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica che il protocollo binario trasporti tutti i messaggi senza
+ * perdite rispetto alla forma JSON, e che i server lo negozino dal primo
+ * byte della connessione.
+ */
+public class BinaryCodecTest {
+    private static final List<String> WORDS = List.of(
+        "SNOW", "HAIL", "RAIN", "SLEET", "HEAT", "BUCKS", "JAZZ", "NETS",
+        "SHIFT", "TAB", "RETURN", "OPTION", "LEVEL", "KAYAK", "RACECAR", "MOM"
+    );
+
+    private static final List<List<String>> GROUPS = List.of(
+        WORDS.subList(0, 4), WORDS.subList(4, 8), WORDS.subList(8, 12), WORDS.subList(12, 16)
+    );
+
+    /** Lato che codifica e lato che decodifica, come i due capi di una connessione. */
+    private final BinaryCodec sender = new BinaryCodec();
+    private final BinaryCodec receiver = new BinaryCodec();
+
+    private byte[] assertRoundTrip(Object value) throws ProtocolException {
+        byte[] frame = this.sender.encode(value);
+        Object decoded = this.receiver.decode(frame, 4, frame.length - 4);
+
+        assertEquals(value.getClass(), decoded.getClass());
+        assertEquals(Json.GSON.toJson(value), Json.GSON.toJson(decoded), value.getClass().getSimpleName());
+        return frame;
+    }
+
+    @Test
+    void testRequests() throws ProtocolException {
+        assertRoundTrip(new RegisterRequest("Mario", "123456"));
+        assertRoundTrip(new LoginRequest("Mario", "123456"));
+        assertRoundTrip(new LoginRequest("Mario", "123456", 40_000));
+        assertRoundTrip(new LogoutRequest());
+        assertRoundTrip(new UpdateCredentialsRequest("Mario", "123456", "Luigi", null));
+        assertRoundTrip(new UpdateCredentialsRequest("Mario", "123456", null, "654321"));
+        assertRoundTrip(new SubmitProposalRequest(WORDS.subList(0, 4)));
+        assertRoundTrip(new GameInfoRequest(3));
+        assertRoundTrip(new GameInfoRequest(true));
+        assertRoundTrip(new GameStatsRequest(911));
+        assertRoundTrip(new GameStatsRequest(true));
+        assertRoundTrip(new LeaderboardRequest(10));
+        assertRoundTrip(new LeaderboardRequest(true));
+        assertRoundTrip(new LeaderboardRequest("Mario"));
+        assertRoundTrip(new LeaderboardRequest(null, 0, 50));
+        assertRoundTrip(new LeaderboardRequest("7ffffff900000003", 20, 1000));
+        assertRoundTrip(new PlayerStatsRequest());
+    }
+
+    @Test
+    void testResponses() throws ProtocolException {
+        assertRoundTrip(RegisterResponse.success());
+        assertRoundTrip(RegisterResponse.error("username già registrato"));
+        assertRoundTrip(LogoutResponse.success());
+        assertRoundTrip(UpdateCredentialsResponse.success());
+        assertRoundTrip(UpdateCredentialsResponse.error("oldPsw non valida"));
+        assertRoundTrip(ErrorResponse.error("operazione sconosciuta"));
+        assertRoundTrip(SubmitProposalResponse.success(true, "WET WEATHER"));
+        assertRoundTrip(SubmitProposalResponse.success(false, null));
+        assertRoundTrip(SubmitProposalResponse.error("utente non loggato"));
+        assertRoundTrip(LoginResponse.error("psw incorretta"));
+        assertRoundTrip(LoginResponse.success(0, WORDS, GROUPS.subList(0, 1), 60_000L, 1, 6));
+        assertRoundTrip(GameInfoResponse.success(true, 1000L, WORDS.subList(4, 16), null, GROUPS.subList(0, 1), 2, 6));
+        assertRoundTrip(GameInfoResponse.success(false, null, null, GROUPS, GROUPS, 4, 0));
+        assertRoundTrip(GameInfoResponse.error("utente non loggato"));
+        assertRoundTrip(GameStatsResponse.success(true, 1000L, 5, 3, 2, null, null));
+        assertRoundTrip(GameStatsResponse.success(false, null, null, 3, 2, 3, 4.5f));
+        assertRoundTrip(LeaderboardResponse.success(List.of(new LeaderboardRecord("Mario", 1), new LeaderboardRecord("Luigi", 2))));
+        assertRoundTrip(LeaderboardResponse.success(List.of()));
+        assertRoundTrip(LeaderboardResponse.page(List.of(new LeaderboardRecord("Mario", 1)), "7ffffff900000003"));
+        assertRoundTrip(LeaderboardResponse.streamed((cursor, sink) -> {
+            for (int i = 1; i <= 300; i++) sink.accept("P" + i, i);
+            return LeaderboardResponse.RecordSource.END;
+        }));
+        assertRoundTrip(PlayerStatsResponse.success(10, 2, 1, 3, 0.8f, 0.2f, 2, 5, new MistakeHistogram(3, 2, 4, 1, 2, 1)));
+        assertRoundTrip(PlayerStatsResponse.success(0, 0, 0, 0, 0f, 0f, 0, 0, null));
+    }
+
+    @Test
+    void testWordsAsBoardIndices() throws ProtocolException {
+        SubmitProposalRequest proposal = new SubmitProposalRequest(List.of("MOM", "SNOW", "TAB", "JAZZ"));
+        int withoutBoard = assertRoundTrip(proposal).length;
+
+        // La LoginResponse porta la plancia ad entrambi i capi
+        assertRoundTrip(LoginResponse.success(0, WORDS, List.of(), 60_000L, 0, 0));
+        assertEquals(WORDS, this.sender.getBoard());
+        assertEquals(WORDS, this.receiver.getBoard());
+
+        int withBoard = assertRoundTrip(proposal).length;
+        assertEquals(4 + 1 + 1 + 2, withBoard); // Lunghezza, tipo, header, 4 indici da 4 bit
+        assertTrue(withBoard < withoutBoard);
+
+        // Parole di un'altra partita: viaggiano come stringhe
+        assertRoundTrip(GameInfoResponse.success(false, null, null, List.of(List.of("A", "B", "C", "D")), List.of(), 4, 0));
+    }
+
+    @Test
+    void testInvalidFrames() throws ProtocolException {
+        byte[] frame = this.sender.encode(new LoginRequest("Mario", "123456"));
+
+        assertThrows(ProtocolException.class, () -> this.receiver.decode(frame, 4, frame.length - 5)); // Troncato
+        assertThrows(ProtocolException.class, () -> this.receiver.decode(new byte[] { 0x3A }, 0, 1));  // Tipo sconosciuto
+
+        // Indici di parola senza una plancia nota
+        BinaryCodec withBoard = new BinaryCodec();
+        withBoard.setBoard(WORDS);
+        byte[] indexed = withBoard.encode(new SubmitProposalRequest(WORDS.subList(0, 4)));
+        assertThrows(ProtocolException.class, () -> this.receiver.decode(indexed, 4, indexed.length - 4));
+
+        // Il codec resta utilizzabile
+        assertRoundTrip(new LogoutRequest());
+    }
+
+    @Test
+    void testNegotiationBlocking() throws Exception {
+        int port = freePort();
+        startDaemon(new NetworkManager(port));
+        assertBinaryExchange(port);
+    }
+
+    @Test
+    void testNegotiationNio() throws Exception {
+        int port = freePort();
+        startDaemon(new NioNetworkManager(port, 1, 2));
+        assertBinaryExchange(port);
+    }
+
+    /** Chiede il protocollo binario e scambia alcuni frame, compresi un keep-alive ed un frame non valido. */
+    private static void assertBinaryExchange(int port) throws Exception {
+        BinaryCodec codec = new BinaryCodec();
+
+        try (Socket s = connect(port)) {
+            OutputStream out = s.getOutputStream();
+            DataInputStream in = new DataInputStream(s.getInputStream());
+
+            out.write(BinaryCodec.MAGIC);
+            out.write(new byte[4]); // Keep-alive
+            out.write(codec.encode(new RegisterRequest("Mario", "123456")));
+            out.write(new byte[] { 0, 0, 0, 1, 0x3A });
+            out.write(codec.encode(new LogoutRequest()));
+            out.flush();
+
+            RegisterResponse register = (RegisterResponse) readFrame(in, codec);
+            assertTrue(register.isSuccess());
+
+            ErrorResponse error = (ErrorResponse) readFrame(in, codec);
+            assertEquals("richiesta malformata", error.getError());
+
+            LogoutResponse logout = (LogoutResponse) readFrame(in, codec);
+            assertEquals("utente non loggato", logout.getError());
+        }
+    }
+
+    private static Object readFrame(DataInputStream in, BinaryCodec codec) throws IOException {
+        byte[] frame = new byte[in.readInt()];
+        in.readFully(frame);
+        return codec.decode(frame, 0, frame.length);
+    }
+
+    private static void startDaemon(Runnable server) {
+        Thread t = new Thread(server);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) { return probe.getLocalPort(); }
+    }
+
+    /** Si connette al server, riprovando finché il listener non è attivo. */
+    private static Socket connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+                s.setSoTimeout(10_000);
+                return s;
+            }
+            catch (IOException e) {
+                if (attempt == 50) throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.*;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica registrazione, login e proposte attraverso il {@link RequestHandler}. */
+public class GameFlowTest {
+    @Test
+    void testLoginAndProposals() throws IOException {
+        Game game = PuzzleStore.openDefault().get(0);
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(game, 60_000);
+
+        RequestHandler first = new RequestHandler(state);
+        assertTrue(((RegisterResponse) first.handle(new RegisterRequest("Mario", "123456"))).isSuccess());
+        assertEquals("nome già registrato", ((RegisterResponse) first.handle(new RegisterRequest("Mario", "654321"))).getError());
+        assertEquals("psw incorretta", ((LoginResponse) first.handle(new LoginRequest("Mario", "654321"))).getError());
+
+        LoginResponse login = (LoginResponse) first.handle(new LoginRequest("Mario", "123456"));
+        assertTrue(login.isSuccess());
+        assertEquals(game.getBoard(), login.getWords());
+        assertEquals(0, login.getGuessedGroups().size());
+
+        Game.Group group = game.getGroups().get(2);
+        SubmitProposalResponse right = (SubmitProposalResponse) first.handle(new SubmitProposalRequest(group.getWords()));
+        assertTrue(right.getResult());
+        assertEquals(group.getTheme(), right.getGroupName());
+
+        SubmitProposalResponse again = (SubmitProposalResponse) first.handle(new SubmitProposalRequest(group.getWords()));
+        assertEquals("parole non valide", again.getError());
+
+        List<String> unknown = List.of("NON", "SONO", "SULLA", "PLANCIA");
+        assertEquals("parole non valide", ((SubmitProposalResponse) first.handle(new SubmitProposalRequest(unknown))).getError());
+
+        // Una seconda connessione dello stesso giocatore ritrova la partita ed espelle la prima
+        RequestHandler second = new RequestHandler(state);
+        LoginResponse resumed = (LoginResponse) second.handle(new LoginRequest("Mario", "123456"));
+        assertEquals(List.of(group.getWords()), resumed.getGuessedGroups());
+        assertEquals(6, resumed.getScore());
+        assertNull(first.getLoggedUser());
+        assertEquals("utente non loggato", ((SubmitProposalResponse) first.handle(new SubmitProposalRequest(group.getWords()))).getError());
+
+        UpdateCredentialsResponse renamed = (UpdateCredentialsResponse) first.handle(
+            new UpdateCredentialsRequest("Mario", "123456", "Wario", null)
+        );
+        assertTrue(renamed.isSuccess());
+        assertEquals("Wario", second.getLoggedUser());
+    }
+}
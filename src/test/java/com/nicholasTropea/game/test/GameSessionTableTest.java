@@ -0,0 +1,141 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.GameSessionTable;
+import com.nicholasTropea.game.model.PlayerGameState;
+import com.nicholasTropea.game.model.PuzzleStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica la tabella compatta delle sessioni contro {@link PlayerGameState}. */
+public class GameSessionTableTest {
+    @Test
+    void testMatchesPlayerGameState() throws IOException {
+        Game game = PuzzleStore.openDefault().get(0);
+        GameSessionTable table = new GameSessionTable(game);
+        PlayerGameState expected = new PlayerGameState("Mario", game);
+
+        int player = 100_000; // Oltre la prima pagina
+        assertEquals(GameSessionTable.NO_SESSION, table.submit(player, game.getGroupMask(0)));
+        assertEquals(0, table.state(player));
+
+        int state = table.join(player);
+        assertEquals(state, table.join(player));
+        assertEquals(1, table.size());
+        assertEquals(Game.FULL_MASK, GameSessionTable.remaining(state));
+
+        int wrong = game.getGroupMask(0) & ~Integer.lowestOneBit(game.getGroupMask(0)) | Integer.lowestOneBit(game.getGroupMask(1));
+        int[] proposals = { wrong, game.getGroupMask(0), wrong, game.getGroupMask(1), game.getGroupMask(2), game.getGroupMask(3) };
+
+        for (int mask : proposals) {
+            if ((mask & ~expected.getRemainingMask()) != 0) {
+                assertEquals(GameSessionTable.INVALID, table.submit(player, mask));
+                continue;
+            }
+
+            assertEquals(expected.submit(game, mask), table.submit(player, mask));
+
+            state = table.state(player);
+            assertEquals(expected.getRemainingMask(), GameSessionTable.remaining(state));
+            assertEquals(expected.getErrorCount(), GameSessionTable.errors(state));
+            assertEquals(expected.getCorrectProposals(), GameSessionTable.correct(state));
+            assertEquals(expected.getScore(), GameSessionTable.score(state));
+            assertEquals(expected.isFinished(), GameSessionTable.isFinished(state));
+        }
+
+        assertTrue(GameSessionTable.isWon(table.state(player)));
+        assertEquals(GameSessionTable.FINISHED, table.submit(player, game.getGroupMask(0)));
+        assertNotEquals(0, table.remove(player));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void testLoss() throws IOException {
+        Game game = PuzzleStore.openDefault().get(0);
+        GameSessionTable table = new GameSessionTable(game);
+        int wrong = game.getGroupMask(0) & ~Integer.lowestOneBit(game.getGroupMask(0)) | Integer.lowestOneBit(game.getGroupMask(1));
+
+        table.join(7);
+        for (int i = 0; i < PlayerGameState.MAX_ERRORS; i++) assertEquals(-1, table.submit(7, wrong));
+
+        int state = table.state(7);
+        assertTrue(GameSessionTable.isLost(state));
+        assertEquals(PlayerGameState.MAX_ERRORS, GameSessionTable.errors(state));
+        assertEquals(GameSessionTable.FINISHED, table.submit(7, wrong));
+    }
+
+    @Test
+    void testConcurrentSubmits() throws Exception {
+        Game game = PuzzleStore.openDefault().get(0);
+        GameSessionTable table = new GameSessionTable(game);
+        int players = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+
+            // Ogni thread propone tutti i gruppi per tutti i giocatori: ogni gruppo viene accettato una volta sola
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    int accepted = 0;
+                    for (int p = 0; p < players; p++) {
+                        table.join(p);
+                        for (int g = 0; g < 4; g++) if (table.submit(p, game.getGroupMask(g)) == g) accepted++;
+                    }
+                    return accepted;
+                }));
+            }
+
+            int accepted = 0;
+            for (Future<Integer> r : results) accepted += r.get();
+
+            assertEquals(4 * players, accepted);
+            assertEquals(players, table.size());
+            for (int p = 0; p < players; p++) assertTrue(GameSessionTable.isWon(table.state(p)));
+        }
+        finally { pool.shutdownNow(); }
+    }
+
+    @Test
+    void testConcurrentJoinAndCloseAll() throws Exception {
+        Game game = PuzzleStore.openDefault().get(0);
+        int players = 20_000; // Più pagine, allocate durante la chiusura
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        try {
+            for (int round = 0; round < 50; round++) {
+                GameSessionTable table = new GameSessionTable(game);
+                Set<Integer> visited = ConcurrentHashMap.newKeySet();
+                List<Future<?>> tasks = new ArrayList<>();
+
+                for (int t = 0; t < 3; t++) {
+                    int first = t;
+                    tasks.add(pool.submit(() -> { for (int id = first; id < players; id += 3) table.join(id); }));
+                }
+                tasks.add(pool.submit(() -> table.closeAll((id, state) -> assertTrue(visited.add(id)))));
+                for (Future<?> f : tasks) f.get();
+
+                // Ogni sessione rimasta è stata chiusa e passata al visitor
+                for (int id = 0; id < players; id++) {
+                    int state = table.state(id);
+                    if (!GameSessionTable.exists(state)) continue;
+
+                    assertTrue(GameSessionTable.isClosed(state), "sessione aperta: " + id);
+                    assertTrue(visited.contains(id));
+                }
+                assertEquals(visited.size(), table.size());
+            }
+        }
+        finally { pool.shutdownNow(); }
+    }
+}
@@ -0,0 +1,236 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.GameSessionTable;
+import com.nicholasTropea.game.model.GameStats;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleCompiler;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.GameStatsRequest;
+import com.nicholasTropea.game.net.GameStatsResponse;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.server.Persistence;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerState;
+import com.nicholasTropea.game.server.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifica le {@link GameStats} aggiornate dalla tabella delle sessioni,
+ * l'archivio delle partite concluse e le risposte a {@link GameStatsRequest}.
+ */
+public class GameStatsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testConcurrentUpdatesMatchScan() throws Exception {
+        Game game = PuzzleStore.openDefault().get(0);
+        GameSessionTable table = new GameSessionTable(game);
+        int players = 8_000;
+        int first = game.getGroupMask(0);
+        int wrong = (first & (first - 1)) | Integer.lowestOneBit(game.getGroupMask(1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(thread);
+                    for (int i = 0; i < 20_000; i++) {
+                        int p = random.nextInt(players);
+                        table.join(p);
+                        int g = random.nextInt(5);
+                        table.submit(p, g == 4 ? wrong : game.getGroupMask(g));
+                        if (random.nextInt(50) == 0) table.remove(p);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        }
+        finally { pool.shutdownNow(); }
+
+        int total = 0, finished = 0, won = 0;
+        long sum = 0;
+        for (int p = 0; p < players; p++) {
+            int state = table.state(p);
+            if (!GameSessionTable.exists(state)) continue;
+
+            total++;
+            sum += GameSessionTable.score(state);
+            if (GameSessionTable.isFinished(state)) finished++;
+            if (GameSessionTable.isWon(state)) won++;
+        }
+
+        GameStats stats = table.getStats();
+        assertEquals(total, stats.getPlayers());
+        assertEquals(finished, stats.getFinishedPlayers());
+        assertEquals(won, stats.getWonPlayers());
+        assertEquals(sum, stats.getScoreSum());
+        assertEquals(total - finished, stats.getActivePlayers());
+    }
+
+    @Test
+    void testRequestsForCurrentAndPastGames() throws IOException {
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+        Game game = puzzles.get(0);
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.setPuzzles(puzzles);
+        state.startRound(game, 60_000);
+
+        PlayerRegistry players = state.getPlayers();
+        int mario = players.register("Mario", "123456");
+        int luigi = players.register("Luigi", "abcdef");
+        RequestHandler handler = new RequestHandler(state);
+        handler.handle(new LoginRequest("Mario", "123456"));
+
+        GameSessionTable round = state.getRound();
+        round.join(mario);
+        round.join(luigi);
+        for (int g = 0; g < 4; g++) state.submit(round, mario, game.getGroupMask(g));
+        state.submit(round, luigi, game.getGroupMask(0));
+
+        GameStatsResponse current = (GameStatsResponse) handler.handle(new GameStatsRequest(true));
+        assertTrue(current.isActive());
+        assertEquals(1, current.getActivePlayers());
+        assertEquals(1, current.getFinishedPlayers());
+        assertEquals(1, current.getWonPlayers());
+        assertNull(current.getTotalPlayers());
+
+        GameStatsResponse byId = (GameStatsResponse) handler.handle(new GameStatsRequest(game.getId()));
+        assertTrue(byId.isActive());
+
+        // La partita sostituita resta consultabile con i valori finali
+        state.startRound(puzzles.get(1), 60_000);
+        state.submit(round, luigi, game.getGroupMask(1));
+
+        GameStatsResponse past = (GameStatsResponse) handler.handle(new GameStatsRequest(game.getId()));
+        assertFalse(past.isActive());
+        assertEquals(2, past.getTotalPlayers());
+        assertEquals(1, past.getFinishedPlayers());
+        assertEquals(1, past.getWonPlayers());
+        assertEquals((24 + 6) / 2f, past.getAverageScore());
+
+        GameStatsResponse never = (GameStatsResponse) handler.handle(new GameStatsRequest(puzzles.get(2).getId()));
+        assertEquals(0, never.getTotalPlayers());
+    }
+
+    @Test
+    void testRequestForUnknownGame() throws IOException {
+        Path json = this.dir.resolve("games.json");
+        Files.writeString(json, """
+            [
+              {"gameId": 2, "groups": [{"theme": "CITTÀ", "words": ["ROMA", "TORINO", "NAPOLI", "BARI"]}]},
+              {"gameId": 0, "groups": [{"theme": "MARI", "words": ["LIGURE", "TIRRENO", "IONIO", "ADRIATICO"]}]}
+            ]
+            """);
+        Path bin = this.dir.resolve("games.bin");
+        PuzzleCompiler.compile(json, bin);
+
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        PuzzleStore puzzles = PuzzleStore.open(bin);
+        state.setPuzzles(puzzles);
+        state.startRound(puzzles.get(0), 60_000);
+        state.getPlayers().register("Mario", "123456");
+        RequestHandler handler = new RequestHandler(state);
+        handler.handle(new LoginRequest("Mario", "123456"));
+
+        // Partita esistente ma mai giocata: contatori a zero
+        GameStatsResponse never = (GameStatsResponse) handler.handle(new GameStatsRequest(2));
+        assertNull(never.getError());
+        assertEquals(0, never.getTotalPlayers());
+
+        // Id mancante nell'archivio e id oltre l'ultima partita
+        for (int gameId : new int[] { 1, 3 }) {
+            GameStatsResponse unknown = (GameStatsResponse) handler.handle(new GameStatsRequest(gameId));
+            assertEquals("id inesistente", unknown.getError());
+            assertNull(unknown.getTotalPlayers());
+        }
+    }
+
+    @Test
+    void testConcurrentFinalProposalsRecordedOnce() throws Exception {
+        Game game = PuzzleStore.openDefault().get(0);
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(game, 60_000);
+        GameSessionTable round = state.getRound();
+
+        int players = 2_000;
+        for (int i = 0; i < players; i++) {
+            int id = state.getPlayers().register("P" + i, "123456");
+            round.join(id);
+            state.submit(round, id, game.getGroupMask(0));
+            state.submit(round, id, game.getGroupMask(1));
+        }
+
+        // Due connessioni dello stesso giocatore inviano gli ultimi due gruppi insieme
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int g = 2; g < 4; g++) {
+            int mask = game.getGroupMask(g);
+            futures.add(pool.submit(() -> { for (int id = 0; id < players; id++) state.submit(round, id, mask); }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        for (int id = 0; id < players; id++) {
+            int games = state.getPlayers().get(id).getResultCounts().values().stream().mapToInt(Integer::intValue).sum();
+            assertEquals(1, games, "games recorded for player " + id);
+        }
+    }
+
+    @Test
+    void testArchiveSurvivesRecovery() throws IOException {
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+
+        try (Persistence persistence = Persistence.open(this.dir, WriteAheadLog.Durability.BATCH, 0)) {
+            ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+            state.setPersistence(persistence);
+
+            // Prima partita archiviata nello snapshot, seconda ricostruita dal log
+            for (int i = 0; i < 3; i++) {
+                Game game = puzzles.get(i);
+                state.startRound(game, 60_000);
+                int id = state.getPlayers().register("P" + i, "123456");
+                state.getRound().join(id);
+                state.submit(state.getRound(), id, game.getGroupMask(0));
+                if (i == 1) persistence.snapshot(state);
+            }
+        }
+
+        ServerState restored = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        try (Persistence persistence = Persistence.open(this.dir, WriteAheadLog.Durability.BATCH, 0)) {
+            persistence.recover(puzzles, restored);
+        }
+
+        assertEquals(2, restored.getArchive().size());
+        for (int i = 0; i < 2; i++) {
+            int[] players = { -1 };
+            long[] sum = { -1 };
+            assertTrue(restored.getArchive().get(puzzles.get(i).getId(), (gameId, total, finished, won, scoreSum) -> {
+                players[0] = total;
+                sum[0] = scoreSum;
+            }));
+            assertEquals(1, players[0]);
+            assertEquals(6, sum[0]);
+        }
+
+        assertEquals(1, restored.getRound().getStats().getPlayers());
+        assertEquals(6, restored.getRound().getStats().getScoreSum());
+    }
+}
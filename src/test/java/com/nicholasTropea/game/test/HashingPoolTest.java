@@ -0,0 +1,162 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.CredentialCache;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.LoginResponse;
+import com.nicholasTropea.game.net.LogoutRequest;
+import com.nicholasTropea.game.net.PlayerStatsRequest;
+import com.nicholasTropea.game.net.RegisterRequest;
+import com.nicholasTropea.game.net.RegisterResponse;
+import com.nicholasTropea.game.net.Request;
+import com.nicholasTropea.game.server.HashingPool;
+import com.nicholasTropea.game.server.NioNetworkManager;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica il {@link HashingPool} e la {@link CredentialCache} nel login. */
+public class HashingPoolTest {
+    @Test
+    void testCredentialCache() {
+        PlayerRegistry players = new PlayerRegistry(new PasswordHasher(1));
+        CredentialCache cache = new CredentialCache(60_000, 16);
+        players.setCredentialCache(cache);
+        int id = players.register("Mario", "123456");
+
+        assertEquals(id, players.login("Mario", "123456"));
+        assertEquals(0, cache.getHits());
+        assertEquals(id, players.login("Mario", "123456"));
+        assertEquals(1, cache.getHits());
+
+        // I tentativi falliti non vengono memorizzati né risolti dalla cache
+        assertEquals(PlayerRegistry.WRONG_PASSWORD, players.login("Mario", "654321"));
+        assertEquals(PlayerRegistry.WRONG_PASSWORD, players.login("Mario", "654321"));
+        assertEquals(1, cache.getHits());
+
+        // Il cambio di password rende inutilizzabile la voce precedente
+        assertEquals(id, players.updateCredentials("Mario", "123456", null, "abcdef"));
+        assertEquals(PlayerRegistry.WRONG_PASSWORD, players.login("Mario", "123456"));
+        assertEquals(id, players.login("Mario", "abcdef"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testStaleEntryRejected() {
+        PlayerRegistry players = new PlayerRegistry(new PasswordHasher(1));
+        int id = players.register("Mario", "123456");
+        CredentialCache cache = new CredentialCache(60_000, 16);
+        players.setCredentialCache(cache);
+        assertEquals(id, players.login("Mario", "123456"));
+
+        // Password cambiata senza passare dalla cache: l'hash memorizzato non coincide più
+        players.setCredentialCache(null);
+        assertEquals(id, players.updateCredentials("Mario", "123456", null, "abcdef"));
+        players.setCredentialCache(cache);
+
+        assertEquals(PlayerRegistry.WRONG_PASSWORD, players.login("Mario", "123456"));
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void testBackpressure() throws Exception {
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (HashingPool pool = new HashingPool(1, 1)) {
+            state.setHashing(pool);
+
+            // Un'operazione occupa il thread, una seconda riempie la coda
+            assertNotNull(pool.submit(() -> {
+                started.countDown();
+                return await(release);
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertNotNull(pool.submit(() -> await(release)));
+
+            RequestHandler handler = new RequestHandler(state);
+            RegisterResponse busy = (RegisterResponse) handler.handle(new RegisterRequest("Mario", "123456"));
+            assertEquals("server occupato, riprovare", busy.getError());
+            assertEquals(1, pool.getRejected());
+            assertEquals(1, pool.getQueueDepth());
+
+            release.countDown();
+            while (pool.getCompleted() < 2) Thread.sleep(5);
+            assertTrue(((RegisterResponse) handler.handle(new RegisterRequest("Mario", "123456"))).isSuccess());
+            assertEquals("nome già registrato", ((RegisterResponse) handler.handle(new RegisterRequest("Mario", "123456"))).getError());
+        }
+    }
+
+    @Test
+    void testNioResponsesStayOrdered() throws Exception {
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 60_000);
+
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) { port = probe.getLocalPort(); }
+
+        try (HashingPool pool = new HashingPool(2, 16)) {
+            state.setHashing(pool);
+
+            Thread server = new Thread(new NioNetworkManager(port, 1, 2, state));
+            server.setDaemon(true);
+            server.start();
+
+            try (Socket s = connect(port)) {
+                PrintWriter out = new PrintWriter(s.getOutputStream(), false, StandardCharsets.UTF_8);
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+
+                // Le richieste dopo un login in attesa del pool vengono elaborate solo dopo la sua risposta
+                Request[] requests = {
+                    new RegisterRequest("Mario", "123456"), new LoginRequest("Mario", "123456"),
+                    new PlayerStatsRequest(), new LogoutRequest(), new LoginRequest("Mario", "000000")
+                };
+                for (Request r : requests) out.print(Json.GSON.toJson(r) + "\n");
+                out.flush();
+
+                assertTrue(in.readLine().contains("\"success\":true"));
+                assertTrue(Json.GSON.fromJson(in.readLine(), LoginResponse.class).isSuccess());
+                assertTrue(in.readLine().contains("\"success\":true"));
+                assertTrue(in.readLine().contains("\"success\":true"));
+                assertEquals("psw incorretta", Json.GSON.fromJson(in.readLine(), LoginResponse.class).getError());
+            }
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try { return latch.await(10, TimeUnit.SECONDS); }
+        catch (InterruptedException e) { return false; }
+    }
+
+    /** Si connette al server, riprovando finché il listener non è attivo. */
+    private static Socket connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+                s.setSoTimeout(10_000);
+                return s;
+            }
+            catch (IOException e) {
+                if (attempt == 50) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+}
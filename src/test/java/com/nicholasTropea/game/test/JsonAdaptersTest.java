@@ -0,0 +1,112 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.LeaderboardRecord;
+import com.nicholasTropea.game.model.MistakeHistogram;
+import com.nicholasTropea.game.net.*;
+
+import java.util.List;
+
+import com.google.gson.Gson;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica che gli adapter scritti a mano producano lo stesso JSON della
+ * serializzazione riflessiva di Gson e che la rilettura sia coerente.
+ */
+public class JsonAdaptersTest {
+    private static final List<String> WORDS = List.of(
+        "SNOW", "HAIL", "RAIN", "SLEET", "HEAT", "BUCKS", "JAZZ", "NETS",
+        "SHIFT", "TAB", "RETURN", "OPTION", "LEVEL", "KAYAK", "RACECAR", "MOM"
+    );
+
+    private static final List<List<String>> GROUPS = List.of(
+        WORDS.subList(0, 4), WORDS.subList(4, 8), WORDS.subList(8, 12), WORDS.subList(12, 16)
+    );
+
+    private final Gson reflective = new Gson();
+
+    private void assertSameJson(Object value) {
+        String expected = reflective.toJson(value);
+        String actual = Json.GSON.toJson(value);
+        assertEquals(expected, actual, value.getClass().getSimpleName());
+
+        // Riletto e riscritto deve restare identico
+        assertEquals(actual, Json.GSON.toJson(Json.GSON.fromJson(actual, value.getClass())));
+    }
+
+    @Test
+    void testRequests() {
+        assertSameJson(new RegisterRequest("Mario", "123456"));
+        assertSameJson(new LoginRequest("Mario", "123456"));
+        assertSameJson(new LoginRequest("Mario", "123456", 40_000));
+        assertSameJson(new LogoutRequest());
+        assertSameJson(new UpdateCredentialsRequest("Mario", "123456", "Luigi", null));
+        assertSameJson(new SubmitProposalRequest(WORDS.subList(0, 4)));
+        assertSameJson(new GameInfoRequest(3));
+        assertSameJson(new GameInfoRequest(true));
+        assertSameJson(new GameStatsRequest(true));
+        assertSameJson(new LeaderboardRequest(10));
+        assertSameJson(new LeaderboardRequest("Mario"));
+        assertSameJson(new LeaderboardRequest(null, 0, 50));
+        assertSameJson(new LeaderboardRequest("7ffffff900000003", 20, 1000));
+        assertSameJson(new PlayerStatsRequest());
+    }
+
+    @Test
+    void testResponses() {
+        assertSameJson(RegisterResponse.success());
+        assertSameJson(RegisterResponse.error("username già registrato"));
+        assertSameJson(LogoutResponse.success());
+        assertSameJson(UpdateCredentialsResponse.error("oldPsw non valida"));
+        assertSameJson(ErrorResponse.error("operazione sconosciuta"));
+        assertSameJson(SubmitProposalResponse.success(true, "WET WEATHER"));
+        assertSameJson(SubmitProposalResponse.success(false, null));
+        assertSameJson(LoginResponse.success(0, WORDS, GROUPS.subList(0, 1), 60_000L, 1, 6));
+        assertSameJson(LoginResponse.error("psw incorretta"));
+        assertSameJson(GameInfoResponse.success(true, 1000L, WORDS.subList(4, 16), null, GROUPS.subList(0, 1), 2, 6));
+        assertSameJson(GameInfoResponse.success(false, null, null, GROUPS, GROUPS, 4, 0));
+        assertSameJson(GameStatsResponse.success(true, 1000L, 5, 3, 2, null, null));
+        assertSameJson(GameStatsResponse.success(false, null, null, 3, 2, 3, 4.5f));
+        assertSameJson(LeaderboardResponse.success(List.of(new LeaderboardRecord("Mario", 1), new LeaderboardRecord("Luigi", 2))));
+        assertSameJson(LeaderboardResponse.page(List.of(new LeaderboardRecord("Mario", 1)), "7ffffff900000003"));
+        assertSameJson(LeaderboardResponse.error("cursore non valido"));
+    }
+
+    @Test
+    void testPlayerStatsKeepsHistogramFormat() {
+        // L'istogramma è un int[6], ma sul filo resta la mappa etichetta -> partite
+        PlayerStatsResponse stats = PlayerStatsResponse.success(10, 2, 1, 3, 0.8f, 0.2f, 2, 5, new MistakeHistogram(3, 2, 4, 1, 2, 1));
+        String expected = "{\"success\":true,\"solvedPuzzles\":10,\"failedPuzzles\":2,\"unfinishedPuzzles\":1,\"perfectPuzzles\":3,"
+            + "\"winRate\":0.8,\"lossRate\":0.2,\"currentStreak\":2,\"maxStreak\":5,\"histogram\":{\"values\":{\"Perfect\":3,"
+            + "\"1 Mistake\":2,\"2 Mistakes\":4,\"3 Mistakes\":1,\"Failed\":2,\"Unfinished\":1}}}";
+
+        assertEquals(expected, Json.GSON.toJson(stats));
+        assertEquals(expected, Json.GSON.toJson(Json.GSON.fromJson(expected, PlayerStatsResponse.class)));
+
+        // La copia con il JSON già pronto viene scritta identica
+        assertEquals(expected, Json.GSON.toJson(stats.preEncoded()));
+    }
+
+    @Test
+    void testStreamedLeaderboardMatchesList() {
+        // Due blocchi da un record
+        LeaderboardResponse streamed = LeaderboardResponse.streamed((cursor, sink) -> {
+            if (cursor == LeaderboardResponse.RecordSource.START) {
+                sink.accept("Mario", 1);
+                return 1;
+            }
+
+            sink.accept("Luigi", 2);
+            return LeaderboardResponse.RecordSource.END;
+        });
+
+        LeaderboardResponse materialized = LeaderboardResponse.success(
+            List.of(new LeaderboardRecord("Mario", 1), new LeaderboardRecord("Luigi", 2))
+        );
+
+        assertNull(streamed.getRecords());
+        assertEquals(Json.GSON.toJson(materialized), Json.GSON.toJson(streamed));
+    }
+}
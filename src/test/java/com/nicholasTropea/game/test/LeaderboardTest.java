@@ -0,0 +1,184 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.Leaderboard;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.Player;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LeaderboardRequest;
+import com.nicholasTropea.game.net.LeaderboardResponse;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica posizioni, primi K e pagine della {@link Leaderboard}, anche con
+ * aggiornamenti concorrenti, e le risposte a {@link LeaderboardRequest}.
+ */
+public class LeaderboardTest {
+    @Test
+    void testPositionsAndTies() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.add(0, 10);
+        leaderboard.add(1, 30);
+        leaderboard.add(2, 10);
+        leaderboard.add(3, -8);
+
+        assertEquals(1, leaderboard.position(30));
+        assertEquals(2, leaderboard.position(10));
+        assertEquals(4, leaderboard.position(-8));
+        assertEquals(1, leaderboard.position(1000));
+
+        List<String> top = new ArrayList<>();
+        leaderboard.forEachTop(3, (id, score, position) -> top.add(id + ":" + score + "@" + position));
+        assertEquals(List.of("1:30@1", "0:10@2", "2:10@2"), top);
+
+        leaderboard.move(3, -8, 40);
+        assertEquals(1, leaderboard.position(40));
+        assertEquals(2, leaderboard.position(30));
+        assertEquals(4, leaderboard.size());
+
+        // Punteggi fuori dall'intervallo indicizzato restano ordinati nella lista
+        leaderboard.add(4, Leaderboard.MAX_SCORE + 5);
+        int[] first = new int[1];
+        leaderboard.forEachTop(1, (id, score, position) -> first[0] = id);
+        assertEquals(4, first[0]);
+    }
+
+    @Test
+    void testRegistryKeepsLeaderboardUpdated() {
+        PlayerRegistry players = new PlayerRegistry(new PasswordHasher(1));
+        int mario = players.register("Mario", "123456");
+        int luigi = players.register("Luigi", "abcdef");
+
+        players.recordGame(luigi, Player.ResultType.WIN_1, 20);
+        players.recordGame(mario, Player.ResultType.LOST, -4);
+
+        Leaderboard leaderboard = players.getLeaderboard();
+        assertEquals(1, leaderboard.position(players.score(luigi)));
+        assertEquals(2, leaderboard.position(players.score(mario)));
+
+        // Un'immagine ripristinata sposta il giocatore con il suo punteggio
+        byte[] image = new byte[PlayerRegistry.RECORD_SIZE];
+        players.readRecord(luigi, image);
+        PlayerRegistry restored = new PlayerRegistry(new PasswordHasher(1));
+        restored.restore(luigi, image);
+        restored.restore(luigi, image);
+        assertEquals(1, restored.getLeaderboard().size());
+        assertEquals(1, restored.getLeaderboard().position(20));
+    }
+
+    @Test
+    void testConcurrentMovesMatchSortedScores() throws Exception {
+        int players = 2_000;
+        int threads = 8;
+        Leaderboard leaderboard = new Leaderboard();
+        int[] scores = new int[players];
+        for (int id = 0; id < players; id++) leaderboard.add(id, 0);
+
+        // Ogni thread aggiorna solo i propri giocatori, come con il lock del record
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                Random random = new Random(thread);
+                for (int i = 0; i < 20_000; i++) {
+                    int id = thread + threads * random.nextInt(players / threads);
+                    int delta = random.nextInt(41) - 16;
+                    leaderboard.move(id, scores[id], scores[id] + delta);
+                    scores[id] += delta;
+                    leaderboard.position(scores[id]);
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        int[] sorted = scores.clone();
+        Arrays.sort(sorted);
+
+        int[] visited = { 0 };
+        leaderboard.forEachTop(players, (id, score, position) -> {
+            assertEquals(scores[id], score);
+            assertEquals(sorted[players - 1 - visited[0]], score);
+            visited[0]++;
+        });
+        assertEquals(players, visited[0]);
+
+        for (int id = 0; id < players; id++) {
+            int above = 0;
+            for (int s : scores) if (s > scores[id]) above++;
+            assertEquals(above + 1, leaderboard.position(scores[id]));
+        }
+    }
+
+    @Test
+    void testPagesFollowTheFullOrder() {
+        Leaderboard leaderboard = new Leaderboard();
+        for (int id = 0; id < 50; id++) leaderboard.add(id, (id % 7) * 6);
+
+        List<String> all = new ArrayList<>();
+        leaderboard.forEachTop(50, (id, score, position) -> all.add(id + "@" + position));
+
+        List<String> paged = new ArrayList<>();
+        long cursor = Leaderboard.START;
+        int pages = 0;
+        do {
+            cursor = leaderboard.forEachAfter(cursor, 0, 8, (id, score, position) -> paged.add(id + "@" + position));
+            pages++;
+        } while (cursor != Leaderboard.END);
+
+        assertEquals(all, paged);
+        assertEquals(7, pages);
+
+        List<String> skipped = new ArrayList<>();
+        leaderboard.forEachAfter(Leaderboard.START, 45, 10, (id, score, position) -> skipped.add(id + "@" + position));
+        assertEquals(all.subList(45, 50), skipped);
+    }
+
+    @Test
+    void testLeaderboardRequests() throws IOException {
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 60_000);
+        PlayerRegistry players = state.getPlayers();
+        for (int i = 0; i < 30; i++) players.recordGame(players.register("P" + i, "123456"), Player.ResultType.WIN_0, i);
+
+        RequestHandler handler = new RequestHandler(state);
+        handler.handle(new LoginRequest("P0", "123456"));
+
+        LeaderboardResponse first = (LeaderboardResponse) handler.handle(new LeaderboardRequest(null, 0, 20));
+        assertEquals(20, first.getRecords().size());
+        assertEquals("P29", first.getRecords().get(0).getUsername());
+        assertNotNull(first.getNextCursor());
+
+        LeaderboardResponse second = (LeaderboardResponse) handler.handle(new LeaderboardRequest(first.getNextCursor(), 0, 20));
+        assertEquals(10, second.getRecords().size());
+        assertEquals(21, second.getRecords().get(0).getPosition());
+        assertNull(second.getNextCursor());
+
+        LeaderboardResponse wrong = (LeaderboardResponse) handler.handle(new LeaderboardRequest("non-esadecimale", 0, 20));
+        assertEquals("cursore non valido", wrong.getError());
+
+        // Senza limit l'intera classifica viene prodotta durante la scrittura
+        LeaderboardResponse streamed = (LeaderboardResponse) handler.handle(new LeaderboardRequest(true));
+        assertTrue(streamed.isStreamed());
+        LeaderboardResponse read = Json.GSON.fromJson(Json.GSON.toJson(streamed), LeaderboardResponse.class);
+        assertEquals(30, read.getRecords().size());
+        assertEquals("P0", read.getRecords().get(29).getUsername());
+        assertEquals(30, read.getRecords().get(29).getPosition());
+    }
+}
@@ -0,0 +1,180 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.client.GameConnection;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.LoginResponse;
+import com.nicholasTropea.game.net.LogoutRequest;
+import com.nicholasTropea.game.net.LogoutResponse;
+import com.nicholasTropea.game.net.PlayerStatsRequest;
+import com.nicholasTropea.game.net.PlayerStatsResponse;
+import com.nicholasTropea.game.server.LoginSessions;
+import com.nicholasTropea.game.server.NioNetworkManager;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerMetrics;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica la tabella delle {@link LoginSessions}: login concorrenti, espulsione e scadenza. */
+public class LoginSessionsTest {
+    @Test
+    void testConcurrentLoginLogout() throws Exception {
+        AtomicLong ended = new AtomicLong();
+        AtomicLong kicks = new AtomicLong();
+        LoginSessions sessions = new LoginSessions(60_000, 100, s -> ended.incrementAndGet());
+        int players = 64;
+        int threads = 8;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(thread);
+                    int logins = 0;
+                    long token = 0;
+
+                    for (int i = 0; i < 50_000; i++) {
+                        if (token != 0 && random.nextInt(3) == 0) {
+                            sessions.logout(token);
+                            token = 0;
+                        }
+                        else if (token == 0 || sessions.touch(token) == null) {
+                            token = sessions.login(random.nextInt(players), null, kicks::incrementAndGet).getToken();
+                            logins++;
+                        }
+                    }
+                    return logins;
+                }));
+            }
+
+            int logins = 0;
+            for (Future<Integer> f : futures) logins += f.get();
+
+            // Al più una sessione per giocatore, e ogni login termina o è ancora attivo
+            assertTrue(sessions.size() <= players);
+            int indexed = 0;
+            for (int p = 0; p < players; p++) {
+                LoginSessions.Session session = sessions.byPlayer(p);
+                if (session == null) continue;
+                indexed++;
+                assertSame(session, sessions.get(session.getToken()));
+            }
+            assertEquals(sessions.size(), indexed);
+            assertEquals(logins, ended.get() + sessions.size());
+            assertEquals(sessions.getKicked(), kicks.get());
+        }
+        finally { pool.shutdownNow(); }
+    }
+
+    @Test
+    void testKickOnRelogin() throws IOException {
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 60_000);
+        state.getPlayers().register("Mario", "123456");
+
+        AtomicInteger closed = new AtomicInteger();
+        RequestHandler first = new RequestHandler(state);
+        first.setKickHandler(closed::incrementAndGet);
+        assertTrue(((LoginResponse) first.handle(new LoginRequest("Mario", "123456"))).isSuccess());
+
+        RequestHandler second = new RequestHandler(state);
+        assertTrue(((LoginResponse) second.handle(new LoginRequest("Mario", "123456"))).isSuccess());
+
+        assertEquals(1, closed.get());
+        assertEquals(1, state.getSessions().size());
+        assertEquals("utente non loggato", ((PlayerStatsResponse) first.handle(new PlayerStatsRequest())).getError());
+        assertTrue(((PlayerStatsResponse) second.handle(new PlayerStatsRequest())).isSuccess());
+
+        // La chiusura della connessione espulsa non tocca la sessione nuova
+        first.close();
+        assertEquals(1, state.getSessions().size());
+
+        assertTrue(((LogoutResponse) second.handle(new LogoutRequest())).isSuccess());
+        assertEquals(0, state.getSessions().size());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void testKickOnReloginNio() throws Exception {
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 60_000);
+        state.getPlayers().register("Mario", "123456");
+        ServerMetrics metrics = new ServerMetrics(RequestHandler.operations());
+        state.setMetrics(metrics);
+
+        int port = freePort();
+        Thread server = new Thread(new NioNetworkManager(port, 1, 2, state));
+        server.setDaemon(true);
+        server.start();
+
+        try (GameConnection first = connect(port); GameConnection second = connect(port)) {
+            assertTrue(first.call(new LoginRequest("Mario", "123456"), LoginResponse.class).isSuccess());
+            assertTrue(second.call(new LoginRequest("Mario", "123456"), LoginResponse.class).isSuccess());
+
+            // La connessione espulsa viene chiusa dal suo loop e rilasciata una sola volta
+            assertThrows(IOException.class, () -> first.call(new PlayerStatsRequest(), PlayerStatsResponse.class));
+            for (int i = 0; i < 100 && metrics.getActiveConnections() > 1; i++) Thread.sleep(20);
+
+            assertEquals(1, metrics.getActiveConnections());
+            assertEquals(1, state.getSessions().size());
+            assertTrue(second.call(new PlayerStatsRequest(), PlayerStatsResponse.class).isSuccess());
+        }
+    }
+
+    @Test
+    void testIdleSessionsExpire() throws InterruptedException {
+        List<Integer> ended = new ArrayList<>();
+        AtomicInteger closed = new AtomicInteger();
+        LoginSessions sessions = new LoginSessions(200, 10, s -> ended.add(s.getPlayerId()));
+
+        long idle = sessions.login(1, null, closed::incrementAndGet).getToken();
+        long busy = sessions.login(2, null, closed::incrementAndGet).getToken();
+        long start = System.currentTimeMillis(); // Dopo entrambi i login
+
+        // La sessione usata viene ripianificata, quella inattiva scade
+        assertEquals(0, sessions.tick(start + 100));
+        Thread.sleep(150);
+        sessions.touch(busy);
+        assertEquals(1, sessions.tick(start + 220));
+        assertNull(sessions.get(idle));
+        assertNotNull(sessions.get(busy));
+        assertEquals(List.of(1), ended);
+        assertEquals(1, closed.get());
+
+        assertEquals(1, sessions.tick(start + 10_000));
+        assertEquals(0, sessions.size());
+        assertEquals(2, sessions.getExpired());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) { return probe.getLocalPort(); }
+    }
+
+    /** Si connette al server, riprovando finché il listener non è attivo. */
+    private static GameConnection connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try { return new GameConnection("127.0.0.1", port); }
+            catch (IOException e) {
+                if (attempt == 50) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+}
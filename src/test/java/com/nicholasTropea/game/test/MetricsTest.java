@@ -0,0 +1,219 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.client.GameConnection;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.PlayerStatsRequest;
+import com.nicholasTropea.game.net.RegisterRequest;
+import com.nicholasTropea.game.server.LatencyHistogram;
+import com.nicholasTropea.game.server.NetworkManager;
+import com.nicholasTropea.game.server.NioNetworkManager;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerMetrics;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+
+import javax.management.ObjectName;
+
+import com.google.gson.stream.JsonReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica l'istogramma delle latenze e le {@link ServerMetrics} del server. */
+public class MetricsTest {
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) histogram.record(v * 1_000); // Da 1 us a 100 ms
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertEquals(50_000_500, snapshot.getMean(), 1);
+
+        // Errore relativo al più di un secchiello
+        double tolerance = 1.0 / LatencyHistogram.SUB_BUCKETS;
+        assertEquals(50_000_000, snapshot.valueAt(50), 50_000_000 * tolerance);
+        assertEquals(99_000_000, snapshot.valueAt(99), 99_000_000 * tolerance);
+        assertEquals(99_900_000, snapshot.valueAt(99.9), 99_900_000 * tolerance);
+        assertEquals(100_000_000, snapshot.valueAt(100));
+
+        // I valori piccoli hanno un secchiello ciascuno
+        LatencyHistogram small = new LatencyHistogram();
+        for (long v = 0; v < 64; v++) small.record(v);
+        assertEquals(31, small.snapshot().valueAt(50));
+
+        // Valori fuori scala: nell'ultimo secchiello, il massimo resta esatto
+        small.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, small.snapshot().getMax());
+        assertEquals(Long.MAX_VALUE, small.snapshot().valueAt(100));
+    }
+
+    @Test
+    void testHistogramInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 1000; i++) histogram.record(1_000_000);
+        LatencyHistogram.Snapshot before = histogram.snapshot();
+
+        for (int i = 0; i < 10; i++) histogram.record(10_000);
+        LatencyHistogram.Snapshot interval = histogram.snapshot().minus(before);
+
+        assertEquals(10, interval.getCount());
+        assertEquals(10_000, interval.getMean());
+        assertEquals(10_000, interval.valueAt(99), 10_000.0 / LatencyHistogram.SUB_BUCKETS);
+        assertTrue(interval.getMax() < 1_000_000);
+    }
+
+    @Test
+    void testConcurrentRecording() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            long value = (t + 1) * 1_000L;
+            threads[t] = new Thread(() -> { for (int i = 0; i < 100_000; i++) histogram.record(value); });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(400_000, snapshot.getCount());
+        assertEquals(4_000, snapshot.getMax());
+        assertEquals(2_500, snapshot.getMean(), 0.001);
+    }
+
+    @Test
+    void testHandlerCounts() throws IOException {
+        ServerState state = newState();
+        ServerMetrics metrics = new ServerMetrics(RequestHandler.operations());
+        state.setMetrics(metrics);
+
+        RequestHandler handler = new RequestHandler(state);
+        handler.handle(new RegisterRequest("Mario", "123456"));
+        handler.handle(new RegisterRequest("Mario", "123456")); // Nome già registrato
+        handler.handle(new PlayerStatsRequest()); // Non loggato
+        handler.handle(new LoginRequest("Mario", "123456"));
+        handler.handle(new GameInfoRequest(true));
+        handler.handle(new GameInfoRequest(true));
+        handler.handleNext(new JsonReader(new StringReader("{\"operation\":\"fly\"}")));
+
+        assertEquals(2, metrics.operation("register").getCount());
+        assertEquals(1, metrics.operation("register").getErrors());
+        assertEquals(1, metrics.operation("requestPlayerStats").getErrors());
+        assertEquals(1, metrics.operation("login").getCount());
+        assertEquals(0, metrics.operation("login").getErrors());
+        assertEquals(2, metrics.operation("requestGameInfo").getCount());
+        assertEquals(1, metrics.operation(ServerMetrics.INVALID).getErrors());
+
+        // Le operazioni sconosciute non creano nuove metriche
+        assertSame(metrics.operation(ServerMetrics.INVALID), metrics.operation("fly"));
+        assertTrue(metrics.operation("requestGameInfo").getP99Micros() > 0);
+
+        String dump = metrics.dump();
+        assertTrue(dump.contains("requestGameInfo"));
+        assertTrue(dump.contains(ServerMetrics.INVALID));
+        assertFalse(dump.contains("logout")); // Nessuna richiesta nell'intervallo
+
+        // L'intervallo successivo è vuoto
+        assertFalse(metrics.dump().contains("requestGameInfo"));
+    }
+
+    @Test
+    void testConnectionsBlocking() throws Exception {
+        ServerState state = newState();
+        ServerMetrics metrics = new ServerMetrics(RequestHandler.operations());
+        state.setMetrics(metrics);
+
+        int port = freePort();
+        startDaemon(new NetworkManager(port, false, state));
+        assertConnectionCounts(port, metrics);
+    }
+
+    @Test
+    void testConnectionsNio() throws Exception {
+        ServerState state = newState();
+        ServerMetrics metrics = new ServerMetrics(RequestHandler.operations());
+        state.setMetrics(metrics);
+
+        int port = freePort();
+        startDaemon(new NioNetworkManager(port, 1, 2, state));
+        assertConnectionCounts(port, metrics);
+        assertTrue(metrics.getGauges().containsKey("nio.workerQueue"));
+    }
+
+    @Test
+    void testMBeans() throws Exception {
+        ServerMetrics metrics = new ServerMetrics(RequestHandler.operations());
+        metrics.operation("login").record(2_000_000, false);
+        metrics.connectionOpened();
+        metrics.addGauge("test.queue", () -> 7);
+        metrics.registerMBeans();
+
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName login = new ObjectName(ServerMetrics.DOMAIN + ":type=Operation,name=login");
+            ObjectName main = new ObjectName(ServerMetrics.DOMAIN + ":type=Server");
+
+            assertEquals(1L, server.getAttribute(login, "Count"));
+            assertEquals(2_000, (double) server.getAttribute(login, "P50Micros"), 2_000.0 / LatencyHistogram.SUB_BUCKETS);
+            assertEquals(1L, server.getAttribute(main, "ActiveConnections"));
+            assertNotNull(server.getAttribute(main, "Gauges"));
+        }
+        finally { metrics.close(); }
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(
+            new ObjectName(ServerMetrics.DOMAIN + ":type=Server")
+        ));
+    }
+
+    private static void assertConnectionCounts(int port, ServerMetrics metrics) throws Exception {
+        try (GameConnection connection = connect(port)) {
+            connection.call(new RegisterRequest("Mario", "123456"), Object.class);
+            assertEquals(1, metrics.getActiveConnections());
+        }
+
+        // La chiusura lato server è asincrona
+        for (int i = 0; i < 100 && metrics.getActiveConnections() > 0; i++) Thread.sleep(20);
+
+        assertEquals(0, metrics.getActiveConnections());
+        assertEquals(1, metrics.getTotalConnections());
+        assertTrue(metrics.getBytesIn() > 0);
+        assertTrue(metrics.getBytesOut() > 0);
+        assertEquals(1, metrics.operation("register").getCount());
+    }
+
+    private static ServerState newState() throws IOException {
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 60_000);
+        return state;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) { return probe.getLocalPort(); }
+    }
+
+    private static void startDaemon(Runnable server) {
+        Thread t = new Thread(server);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Si connette al server, riprovando finché il listener non è attivo. */
+    private static GameConnection connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try { return new GameConnection("127.0.0.1", port); }
+            catch (IOException e) {
+                if (attempt == 50) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+}
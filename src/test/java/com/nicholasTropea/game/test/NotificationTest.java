@@ -0,0 +1,135 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.client.NotificationListener;
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.LogoutRequest;
+import com.nicholasTropea.game.net.Notification;
+import com.nicholasTropea.game.net.SubmitProposalRequest;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.RoundNotifier;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.Test;
+
+/** Verifica la consegna delle {@link Notification} UDP sull'interfaccia di loopback. */
+public class NotificationTest {
+    @Test
+    void testNotificationJsonRoundTrip() {
+        Notification started = Notification.roundStarted(7, 42, 60_000);
+        Notification parsed = Json.GSON.fromJson(Json.GSON.toJson(started), Notification.class);
+
+        assertEquals(Notification.ROUND_STARTED, parsed.getType());
+        assertEquals(7, parsed.getSeq());
+        assertEquals(42, (int) parsed.getGameId());
+        assertEquals(60_000L, (long) parsed.getTimeLeft());
+        assertNull(parsed.getTop());
+        assertEquals("{\"type\":\"roundEnded\",\"seq\":1,\"gameId\":3,\"players\":10,\"finished\":4,\"won\":2}",
+            Json.GSON.toJson(Notification.roundEnded(1, 3, 10, 4, 2)));
+    }
+
+    @Test
+    void testUnicastDelivery() throws Exception {
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        BlockingQueue<Notification> received = new LinkedBlockingQueue<>();
+
+        try (
+            RoundNotifier notifier = new RoundNotifier();
+            NotificationListener listener = NotificationListener.unicast(0, received::add)
+        ) {
+            Thread thread = new Thread(listener, "notification-listener");
+            thread.start();
+
+            state.setNotifier(notifier);
+            state.startRound(puzzles.get(0), 60_000);
+            state.getPlayers().register("Mario", "123456");
+
+            // Il client indica la porta al login
+            RequestHandler handler = new RequestHandler(state);
+            handler.setClientAddress(InetAddress.getLoopbackAddress());
+            handler.handle(new LoginRequest("Mario", "123456", listener.getPort()));
+            assertEquals(1, notifier.getSubscriberCount());
+
+            // Vittoria: Mario passa in testa alla classifica
+            Game game = state.getRound().getGame();
+            for (int g = 0; g < 4; g++) handler.handle(new SubmitProposalRequest(game.getGroups().get(g).getWords()));
+            assertTrue(notifier.checkLeaderboard(state.getPlayers()));
+            assertFalse(notifier.checkLeaderboard(state.getPlayers())); // Nessun cambio, nessuna notifica
+
+            Notification top = next(received);
+            assertEquals(Notification.LEADERBOARD, top.getType());
+            assertEquals("Mario", top.getTop().get(0).getUsername());
+
+            state.startRound(puzzles.get(1), 30_000);
+
+            Notification started = next(received);
+            assertEquals(Notification.ROUND_STARTED, started.getType());
+            assertEquals(1, (int) started.getGameId());
+            assertEquals(30_000L, (long) started.getTimeLeft());
+
+            Notification ended = next(received);
+            assertEquals(Notification.ROUND_ENDED, ended.getType());
+            assertEquals(game.getId(), (int) ended.getGameId());
+            assertEquals(1, (int) ended.getPlayers());
+            assertEquals(1, (int) ended.getWon());
+            assertEquals(started.getSeq() + 1, ended.getSeq());
+            assertEquals(0, listener.getLost());
+
+            // Dopo il logout il client non riceve più nulla
+            handler.handle(new LogoutRequest());
+            assertEquals(0, notifier.getSubscriberCount());
+            state.startRound(puzzles.get(2), 30_000);
+            assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+            assertEquals(0, notifier.getFailed());
+        }
+    }
+
+    @Test
+    void testMulticastDelivery() throws Exception {
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        assumeTrue(loopback != null && loopback.supportsMulticast(), "multicast non disponibile sul loopback");
+
+        InetSocketAddress group = new InetSocketAddress(InetAddress.getByName("239.255.0.42"), 0);
+        BlockingQueue<Notification> received = new LinkedBlockingQueue<>();
+
+        NotificationListener listener;
+        try { listener = NotificationListener.multicast(group, loopback, received::add); }
+        catch (IOException e) {
+            assumeTrue(false, "iscrizione al gruppo non riuscita: " + e.getMessage());
+            return;
+        }
+
+        group = new InetSocketAddress(group.getAddress(), listener.getPort());
+        try (listener; RoundNotifier notifier = new RoundNotifier(group, loopback, 1)) {
+            new Thread(listener, "notification-listener").start();
+
+            notifier.roundStarted(5, 1_000);
+            Notification started = received.poll(2, TimeUnit.SECONDS);
+            assumeTrue(started != null || notifier.getFailed() == 0, "invio multicast non riuscito");
+
+            assertNotNull(started);
+            assertEquals(5, (int) started.getGameId());
+        }
+    }
+
+    private static Notification next(BlockingQueue<Notification> queue) throws InterruptedException {
+        Notification notification = queue.poll(2, TimeUnit.SECONDS);
+        assertNotNull(notification, "notifica non ricevuta");
+        return notification;
+    }
+}
@@ -0,0 +1,130 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.GameSessionTable;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.Player;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.server.Persistence;
+import com.nicholasTropea.game.server.ServerState;
+import com.nicholasTropea.game.server.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Verifica il {@link WriteAheadLog} e il ripristino dello stato con {@link Persistence}. */
+public class PersistenceTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testAppendAndReplay() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(this.dir, WriteAheadLog.Durability.BATCH, 0)) {
+            for (int i = 0; i < 100; i++) {
+                byte[] payload = ("record " + i).getBytes(StandardCharsets.UTF_8);
+                log.sync(log.append((byte) 1, payload, 0, payload.length));
+                if (i == 50) log.rotate();
+            }
+        }
+
+        List<String> records = new ArrayList<>();
+        long count = WriteAheadLog.replay(this.dir, 0, (type, payload) -> {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            records.add(new String(bytes, StandardCharsets.UTF_8));
+        });
+
+        assertEquals(100, count);
+        for (int i = 0; i < 100; i++) assertEquals("record " + i, records.get(i));
+    }
+
+    @Test
+    void testTornTailIsTruncated() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(this.dir, WriteAheadLog.Durability.INTERVAL, 1)) {
+            byte[] payload = new byte[40];
+            for (int i = 0; i < 10; i++) log.append((byte) 2, payload, 0, payload.length);
+        }
+
+        // Simula un crash durante la scrittura dell'ultimo record
+        Path segment;
+        try (Stream<Path> files = Files.list(this.dir)) { segment = files.findFirst().orElseThrow(); }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 7);
+        }
+
+        assertEquals(9, WriteAheadLog.replay(this.dir, 0, (type, payload) -> { ; }));
+
+        // Riaprendo, il record incompleto viene scartato e si riparte da lì
+        try (WriteAheadLog log = WriteAheadLog.open(this.dir, WriteAheadLog.Durability.BATCH, 0)) {
+            log.sync(log.append((byte) 3, new byte[4], 0, 4));
+        }
+
+        long[] types = new long[4];
+        assertEquals(10, WriteAheadLog.replay(this.dir, 0, (type, payload) -> types[type]++));
+        assertEquals(9, types[2]);
+        assertEquals(1, types[3]);
+    }
+
+    @Test
+    void testRecoverFromSnapshotAndLog() throws IOException {
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+        Game game = puzzles.get(0);
+
+        int mario, luigi;
+        try (Persistence persistence = Persistence.open(this.dir, WriteAheadLog.Durability.BATCH, 0)) {
+            ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+            state.setPersistence(persistence);
+            state.startRound(game, 60_000);
+            PlayerRegistry players = state.getPlayers();
+            GameSessionTable round = state.getRound();
+
+            mario = players.register("Mario", "123456");
+            round.join(mario);
+            state.submit(round, mario, game.getGroupMask(0));
+
+            persistence.snapshot(state);
+
+            // Modifiche dopo lo snapshot: devono arrivare dal log
+            luigi = players.register("Luigi", "abcdef");
+            players.updateCredentials("Mario", "123456", "Wario", "");
+            for (int g = 1; g < 4; g++) state.submit(round, mario, game.getGroupMask(g));
+            round.join(luigi);
+            int first = game.getGroupMask(0);
+            int wrong = (first & (first - 1)) | Integer.lowestOneBit(game.getGroupMask(1));
+            state.submit(round, luigi, wrong);
+        }
+
+        ServerState restored = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        try (Persistence persistence = Persistence.open(this.dir, WriteAheadLog.Durability.BATCH, 0)) {
+            persistence.recover(puzzles, restored);
+        }
+
+        PlayerRegistry players = restored.getPlayers();
+        assertEquals(2, players.size());
+        assertEquals(PlayerRegistry.NOT_FOUND, players.find("Mario"));
+        assertEquals(mario, players.login("Wario", "123456"));
+        assertEquals(luigi, players.login("Luigi", "abcdef"));
+
+        Player wario = players.get(mario);
+        assertEquals(24, wario.getGlobalScore());
+        assertEquals(1, (int) wario.getResultCounts().get(Player.ResultType.WIN_0));
+
+        GameSessionTable round = restored.getRound();
+        assertEquals(game.getId(), round.getGame().getId());
+        assertTrue(GameSessionTable.isWon(round.state(mario)));
+        assertEquals(1, GameSessionTable.errors(round.state(luigi)));
+        assertFalse(GameSessionTable.exists(round.state(2)));
+    }
+}
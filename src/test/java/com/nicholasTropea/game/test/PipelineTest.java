@@ -0,0 +1,140 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.client.GameConnection;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.Player;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.GameInfoResponse;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LeaderboardRequest;
+import com.nicholasTropea.game.net.LeaderboardResponse;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.LoginResponse;
+import com.nicholasTropea.game.net.PlayerStatsRequest;
+import com.nicholasTropea.game.net.PlayerStatsResponse;
+import com.nicholasTropea.game.net.RegisterRequest;
+import com.nicholasTropea.game.net.RegisterResponse;
+import com.nicholasTropea.game.server.NetworkManager;
+import com.nicholasTropea.game.server.NioNetworkManager;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica che le richieste in pipeline ricevano le risposte nell'ordine di invio. */
+public class PipelineTest {
+    @Test
+    void testPipelineBlocking() throws Exception {
+        ServerState state = newState();
+        int port = freePort();
+        startDaemon(new NetworkManager(port, false, state));
+        assertPipeline(port);
+    }
+
+    @Test
+    void testPipelineNio() throws Exception {
+        ServerState state = newState();
+        int port = freePort();
+        startDaemon(new NioNetworkManager(port, 1, 2, state));
+        assertPipeline(port);
+    }
+
+    @Test
+    void testSlowStreamNio() throws Exception {
+        ServerState state = newState();
+        PlayerRegistry players = state.getPlayers();
+        for (int i = 0; i < 200_000; i++) players.recordGame(players.register("P" + i, "123456"), Player.ResultType.WIN_0, i);
+
+        int port = freePort();
+        startDaemon(new NioNetworkManager(port, 1, 1, state)); // Un solo worker
+
+        try (GameConnection fast = connect(port); Socket slow = new Socket()) {
+            slow.setReceiveBufferSize(4096);
+            slow.connect(new InetSocketAddress("127.0.0.1", port));
+
+            OutputStream out = slow.getOutputStream();
+            String requests = Json.GSON.toJson(new LoginRequest("P0", "123456")) + "\n"
+                + Json.GSON.toJson(new LeaderboardRequest(true)) + "\n";
+            out.write(requests.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            Thread.sleep(500); // La classifica riempie la coda del client lento
+
+            // La risposta ferma non occupa l'unico worker
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertTrue(fast.call(new LoginRequest("P1", "123456"), LoginResponse.class).isSuccess())
+            );
+
+            // Letta dal client, la classifica arriva per intero
+            BufferedReader in = new BufferedReader(new InputStreamReader(slow.getInputStream(), StandardCharsets.UTF_8));
+            assertTrue(Json.GSON.fromJson(in.readLine(), LoginResponse.class).isSuccess());
+
+            LeaderboardResponse all = Json.GSON.fromJson(in.readLine(), LeaderboardResponse.class);
+            assertEquals(200_000, all.getRecords().size());
+            assertEquals(200_000, all.getRecords().get(199_999).getPosition());
+        }
+    }
+
+    private static void assertPipeline(int port) throws Exception {
+        try (GameConnection connection = connect(port)) {
+            // Il login dipende dalla registrazione, inviata nella stessa scrittura
+            List<Object> responses = connection.pipeline()
+                .add(new RegisterRequest("Mario", "123456"))
+                .add(new LoginRequest("Mario", "123456"))
+                .add(new GameInfoRequest(true))
+                .add(new PlayerStatsRequest())
+                .add(new LeaderboardRequest(null, 0, 10))
+                .send();
+
+            assertEquals(5, responses.size());
+            assertTrue(((RegisterResponse) responses.get(0)).isSuccess());
+            assertTrue(((LoginResponse) responses.get(1)).isSuccess());
+            assertEquals(16, ((GameInfoResponse) responses.get(2)).getWordsLeft().size());
+            assertTrue(((PlayerStatsResponse) responses.get(3)).isSuccess());
+            assertEquals("Mario", ((LeaderboardResponse) responses.get(4)).getRecords().get(0).getUsername());
+
+            // La pipeline resta utilizzabile, e così le chiamate singole
+            assertEquals(0, connection.pipeline().send().size());
+            assertTrue(connection.call(new PlayerStatsRequest(), PlayerStatsResponse.class).isSuccess());
+        }
+    }
+
+    private static ServerState newState() throws IOException {
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 60_000);
+        return state;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) { return probe.getLocalPort(); }
+    }
+
+    private static void startDaemon(Runnable server) {
+        Thread t = new Thread(server);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Si connette al server, riprovando finché il listener non è attivo. */
+    private static GameConnection connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try { return new GameConnection("127.0.0.1", port); }
+            catch (IOException e) {
+                if (attempt == 50) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.Player;
+import com.nicholasTropea.game.model.PlayerRegistry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica registrazione, login e cambio credenziali del {@link PlayerRegistry}. */
+public class PlayerRegistryTest {
+    /** Hash economico: i test verificano l'archivio, non il costo di PBKDF2. */
+    private static PlayerRegistry newRegistry() { return new PlayerRegistry(new PasswordHasher(1)); }
+
+    @Test
+    void testRegisterAndLogin() {
+        PlayerRegistry players = newRegistry();
+
+        int mario = players.register("Mario", "123456");
+        int luigi = players.register("Luigi", "abcdef");
+        assertEquals(0, mario);
+        assertEquals(1, luigi);
+        assertEquals(PlayerRegistry.NAME_TAKEN, players.register("Mario", "qwerty"));
+
+        assertEquals(mario, players.login("Mario", "123456"));
+        assertEquals(PlayerRegistry.WRONG_PASSWORD, players.login("Mario", "abcdef"));
+        assertEquals(PlayerRegistry.NOT_FOUND, players.login("Peach", "123456"));
+        assertEquals("Luigi", players.nickname(luigi));
+        assertEquals(2, players.size());
+
+        assertThrows(IllegalArgumentException.class, () -> players.register("", "123456"));
+        assertThrows(IllegalArgumentException.class, () -> players.register("x".repeat(33), "123456"));
+        assertThrows(IllegalArgumentException.class, () -> players.nickname(2));
+    }
+
+    @Test
+    void testUpdateCredentials() {
+        PlayerRegistry players = newRegistry();
+        int mario = players.register("Mario", "123456");
+        players.register("Luigi", "abcdef");
+
+        assertEquals(PlayerRegistry.WRONG_PASSWORD, players.updateCredentials("Mario", "000000", "Wario", null));
+        assertEquals(PlayerRegistry.NAME_TAKEN, players.updateCredentials("Mario", "123456", "Luigi", null));
+        assertEquals(PlayerRegistry.NOT_FOUND, players.updateCredentials("Peach", "123456", "Daisy", null));
+
+        assertEquals(mario, players.updateCredentials("Mario", "123456", "Wario", "654321"));
+        assertEquals(PlayerRegistry.NOT_FOUND, players.login("Mario", "123456"));
+        assertEquals(PlayerRegistry.WRONG_PASSWORD, players.login("Wario", "123456"));
+        assertEquals(mario, players.login("Wario", "654321"));
+        assertEquals("Wario", players.nickname(mario));
+
+        // Il vecchio nickname torna disponibile
+        assertEquals(2, players.register("Mario", "123456"));
+
+        assertEquals(mario, players.updateCredentials("Wario", "654321", "", "111111"));
+        assertEquals(mario, players.login("Wario", "111111"));
+    }
+
+    @Test
+    void testRecordGame() {
+        PlayerRegistry players = newRegistry();
+        int id = players.register("Mario", "123456");
+
+        players.recordGame(id, Player.ResultType.WIN_0, 24);
+        players.recordGame(id, Player.ResultType.WIN_2, 16);
+        players.recordGame(id, Player.ResultType.LOST, -16);
+        players.recordGame(id, Player.ResultType.WIN_1, 20);
+
+        Player p = players.get(id);
+        assertEquals("Mario", p.getNickname());
+        assertEquals(44, p.getGlobalScore());
+        assertEquals(1, p.getCurrentStreak());
+        assertEquals(2, p.getMaxStreak());
+        assertEquals(0.75f, p.getWinRate());
+        assertEquals(0.25f, p.getLossRate());
+        assertEquals(1, p.getResultCounts().get(Player.ResultType.LOST));
+    }
+
+    @Test
+    void testManyPlayersAndRenames() {
+        PlayerRegistry players = newRegistry();
+        int count = 20_000; // Più blocchi di record e molte crescite dei segmenti
+
+        for (int i = 0; i < count; i++) assertEquals(i, players.register("p" + i, "123456"));
+
+        // Rinomina metà dei giocatori: le cancellazioni spostano gli elementi nelle tabelle
+        for (int i = 0; i < count; i += 2) assertEquals(i, players.updateCredentials("p" + i, "123456", "q" + i, null));
+
+        for (int i = 0; i < count; i++) {
+            String name = (i % 2 == 0 ? "q" : "p") + i;
+            assertEquals(i, players.find(name));
+            assertEquals(name, players.nickname(i));
+        }
+
+        for (int i = 0; i < count; i += 2) assertEquals(PlayerRegistry.NOT_FOUND, players.find("p" + i));
+    }
+
+    @Test
+    void testConcurrentRegistration() throws Exception {
+        PlayerRegistry players = newRegistry();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<List<Integer>>> results = new ArrayList<>();
+
+            // Tutti i thread registrano gli stessi nomi: ognuno deve riuscire una volta sola
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    List<Integer> ids = new ArrayList<>();
+                    for (int i = 0; i < 2000; i++) {
+                        int id = players.register("n" + i, "123456");
+                        if (id >= 0) ids.add(id);
+                    }
+                    return ids;
+                }));
+            }
+
+            Set<Integer> ids = new HashSet<>();
+            for (Future<List<Integer>> r : results) for (int id : r.get()) assertTrue(ids.add(id));
+
+            assertEquals(2000, ids.size());
+            assertEquals(2000, players.size());
+            for (int i = 0; i < 2000; i++) assertEquals("n" + i, players.nickname(players.login("n" + i, "123456")));
+        }
+        finally { pool.shutdownNow(); }
+    }
+
+    @Test
+    void testReadWhileAllocatingChunks() throws Exception {
+        PlayerRegistry players = newRegistry();
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+
+        try {
+            // Ogni id visibile in size() ha già il suo blocco, anche al confine tra due blocchi
+            Future<?> reader = pool.submit(() -> {
+                byte[] image = new byte[PlayerRegistry.RECORD_SIZE];
+                while (!done.get()) {
+                    int size = players.size();
+                    if (size > 0) players.readRecord(size - 1, image);
+                }
+            });
+
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                String prefix = "w" + t + "-";
+                writers.add(pool.submit(() -> { for (int i = 0; i < 20_000; i++) players.register(prefix + i, "123456"); }));
+            }
+
+            for (Future<?> w : writers) w.get();
+            done.set(true);
+            reader.get();
+
+            assertEquals(40_000, players.size());
+        }
+        finally { pool.shutdownNow(); }
+    }
+}
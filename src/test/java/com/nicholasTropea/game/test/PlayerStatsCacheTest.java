@@ -0,0 +1,84 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.MistakeHistogram;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.Player;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.PlayerStatsRequest;
+import com.nicholasTropea.game.net.PlayerStatsResponse;
+import com.nicholasTropea.game.server.PlayerStatsCache;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica l'istogramma a conteggi e le statistiche dei giocatori in {@link PlayerStatsCache}. */
+public class PlayerStatsCacheTest {
+    @Test
+    void testHistogramCountsByResultType() {
+        MistakeHistogram histogram = new MistakeHistogram(new int[6]);
+        histogram.record(Player.ResultType.WIN_2);
+        histogram.record(Player.ResultType.WIN_2);
+        histogram.record(Player.ResultType.NOT_FINISHED);
+
+        assertEquals(2, histogram.get(Player.ResultType.WIN_2));
+        assertEquals(1, histogram.get(Player.ResultType.NOT_FINISHED));
+        assertEquals(2, (int) histogram.getValues().get("2 Mistakes"));
+        assertThrows(IllegalArgumentException.class, () -> new MistakeHistogram(new int[5]));
+    }
+
+    @Test
+    void testCachedUntilStatsChange() {
+        PlayerRegistry players = new PlayerRegistry(new PasswordHasher(1));
+        int mario = players.register("Mario", "123456");
+        PlayerStatsCache cache = new PlayerStatsCache(players);
+
+        PlayerStatsResponse first = cache.get(mario);
+        assertSame(first, cache.get(mario));
+        assertNotNull(first.getEncodedJson());
+        assertEquals(0, first.getSolvedPuzzles());
+
+        // Un cambio di credenziali non tocca le statistiche
+        players.updateCredentials("Mario", "123456", "Wario", "");
+        assertSame(first, cache.get(mario));
+
+        players.recordGame(mario, Player.ResultType.WIN_0, 24);
+        players.recordGame(mario, Player.ResultType.LOST, -16);
+        PlayerStatsResponse second = cache.get(mario);
+        assertNotSame(first, second);
+        assertEquals(1, second.getSolvedPuzzles());
+        assertEquals(1, second.getPerfectPuzzles());
+        assertEquals(1, second.getFailedPuzzles());
+        assertEquals(0, second.getCurrentStreak());
+        assertEquals(1, second.getMaxStreak());
+        assertEquals(0.5f, second.getWinRate());
+        assertEquals(1, second.getHistogram().get(Player.ResultType.LOST));
+
+        // Il JSON conservato coincide con quello calcolato campo per campo
+        PlayerStatsResponse fresh = PlayerStatsResponse.of(players.get(mario));
+        assertEquals(Json.GSON.toJson(fresh), Json.GSON.toJson(second));
+    }
+
+    @Test
+    void testPlayerStatsRequest() throws IOException {
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.startRound(PuzzleStore.openDefault().get(0), 60_000);
+        int luigi = state.getPlayers().register("Luigi", "abcdef");
+        state.getPlayers().recordGame(luigi, Player.ResultType.WIN_1, 20);
+
+        RequestHandler handler = new RequestHandler(state);
+        assertEquals("utente non loggato", ((PlayerStatsResponse) handler.handle(new PlayerStatsRequest())).getError());
+
+        handler.handle(new LoginRequest("Luigi", "abcdef"));
+        PlayerStatsResponse stats = (PlayerStatsResponse) handler.handle(new PlayerStatsRequest());
+        assertTrue(stats.isSuccess());
+        assertEquals(1, stats.getSolvedPuzzles());
+        assertEquals(1, stats.getHistogram().get(Player.ResultType.WIN_1));
+    }
+}
@@ -0,0 +1,94 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PlayerGameState;
+import com.nicholasTropea.game.model.PuzzleStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica la validazione delle proposte con le maschere di bit. */
+public class ProposalValidationTest {
+    @Test
+    void testMasksMatchGroups() throws IOException {
+        PuzzleStore store = PuzzleStore.openDefault();
+
+        for (int id = 0; id < store.size(); id++) {
+            if (!store.contains(id)) continue;
+            Game game = store.get(id);
+
+            int all = 0;
+            for (int g = 0; g < game.getGroups().size(); g++) {
+                int mask = game.maskOf(game.getGroups().get(g).getWords());
+                assertEquals(game.getGroupMask(g), mask);
+                assertEquals(g, game.groupOf(mask));
+                assertEquals(0, all & mask);
+                all |= mask;
+            }
+
+            assertEquals(Game.FULL_MASK, all);
+            assertEquals(Game.FULL_MASK, game.getBoardMask());
+        }
+    }
+
+    @Test
+    void testInvalidProposals() throws IOException {
+        Game game = PuzzleStore.openDefault().get(0);
+        List<String> first = game.getGroups().get(0).getWords();
+        List<String> second = game.getGroups().get(1).getWords();
+
+        List<String> mixed = new ArrayList<>(first.subList(0, 3));
+        mixed.add(second.get(0));
+        assertEquals(-1, game.groupOf(game.maskOf(mixed)));
+
+        assertEquals(-1, game.maskOf(List.of(first.get(0), first.get(0), first.get(1), first.get(2))));
+        assertEquals(-1, game.maskOf(List.of("NON ESISTE", first.get(1), first.get(2), first.get(3))));
+        assertEquals(-1, game.groupOf(game.maskOf(first.subList(0, 3))));
+        assertEquals(-1, game.groupOf(0));
+    }
+
+    @Test
+    void testPlayerStateWin() throws IOException {
+        Game game = PuzzleStore.openDefault().get(0);
+        PlayerGameState state = new PlayerGameState("Mario", game);
+
+        List<String> mixed = new ArrayList<>(game.getGroups().get(0).getWords().subList(0, 3));
+        mixed.add(game.getGroups().get(1).getWords().get(0));
+        assertEquals(-1, state.submit(game, game.maskOf(mixed)));
+        assertEquals(1, state.getErrorCount());
+
+        for (int g = 0; g < 4; g++) {
+            int mask = game.maskOf(game.getGroups().get(g).getWords());
+            assertEquals(g, state.submit(game, mask));
+            if (g < 3) assertThrows(IllegalArgumentException.class, () -> state.submit(game, mask));
+            assertEquals(16 - 4 * (g + 1), state.getRemainingWords(game).size());
+        }
+
+        assertTrue(state.isFinished());
+        assertTrue(state.isWon());
+        assertEquals(4, state.getCorrectProposals());
+        assertEquals(0, state.getRemainingMask());
+    }
+
+    @Test
+    void testPlayerStateLoss() throws IOException {
+        Game game = PuzzleStore.openDefault().get(0);
+        PlayerGameState state = new PlayerGameState("Luigi", game);
+
+        List<String> mixed = new ArrayList<>(game.getGroups().get(0).getWords().subList(0, 3));
+        mixed.add(game.getGroups().get(1).getWords().get(0));
+        int wrong = game.maskOf(mixed);
+
+        for (int i = 0; i < PlayerGameState.MAX_ERRORS; i++) assertEquals(-1, state.submit(game, wrong));
+
+        assertTrue(state.isFinished());
+        assertFalse(state.isWon());
+        assertEquals(game.getBoard(), state.getRemainingWords(game));
+        assertThrows(IllegalStateException.class, () -> state.submit(game, wrong));
+        assertThrows(IllegalArgumentException.class, () -> state.submit(PuzzleStore.openDefault().get(1), wrong));
+    }
+}
@@ -0,0 +1,132 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PuzzleCompiler;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.model.WordDictionary;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifica che l'archivio binario delle partite contenga esattamente le
+ * partite di {@code data/games.json}.
+ */
+public class PuzzleStoreTest {
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testMatchesJson() throws IOException {
+        JsonArray expected;
+        try (Reader r = new InputStreamReader(getClass().getResourceAsStream("/data/games.json"), StandardCharsets.UTF_8)) {
+            expected = JsonParser.parseReader(r).getAsJsonArray();
+        }
+
+        PuzzleStore store = PuzzleStore.openDefault();
+        assertEquals(expected.size(), store.size());
+
+        for (JsonElement element : expected) {
+            JsonObject game = element.getAsJsonObject();
+            JsonArray groups = game.getAsJsonArray("groups");
+
+            Game actual = store.get(game.get("gameId").getAsInt());
+            assertEquals(game.get("gameId").getAsInt(), actual.getId());
+            assertEquals(groups.size(), actual.getGroups().size());
+
+            for (int g = 0; g < groups.size(); g++) {
+                JsonObject group = groups.get(g).getAsJsonObject();
+                Game.Group actualGroup = actual.getGroups().get(g);
+
+                assertEquals(group.get("theme").getAsString(), actualGroup.getTheme());
+                assertEquals(group.getAsJsonArray("words").asList().stream().map(JsonElement::getAsString).toList(), actualGroup.getWords());
+            }
+        }
+    }
+
+    @Test
+    void testSharedWordIds() throws IOException {
+        PuzzleStore store = PuzzleStore.openDefault();
+        Game.Group a = store.get(0).getGroups().get(0);
+
+        // Stessa parola, stesso id: anche per gruppi creati dalle stringhe
+        Game.Group b = new Game.Group("METEO", List.of("RAIN", "SUN", "FOG", "WIND"));
+        assertEquals(WordDictionary.GLOBAL.id("RAIN"), b.getWordId(0));
+        assertTrue(a.containsWord(b.getWordId(0)));
+        assertFalse(a.containsWord(b.getWordId(1)));
+        assertEquals("RAIN", WordDictionary.GLOBAL.word(b.getWordId(0)));
+        assertThrows(UnsupportedOperationException.class, () -> b.getWords().set(0, "SNOW"));
+    }
+
+    @Test
+    void testImmutableValues() throws IOException {
+        PuzzleStore store = PuzzleStore.openDefault();
+        Game game = store.get(7);
+
+        // Nessuna copia: i getter restituiscono sempre le stesse viste
+        assertSame(game.getGroups(), game.getGroups());
+        assertSame(game.getGroups().get(0).getWords(), game.getGroups().get(0).getWords());
+        assertThrows(UnsupportedOperationException.class, () -> game.getGroups().remove(0));
+
+        // Decodifiche diverse della stessa partita sono uguali, con la stessa plancia
+        Game again = store.get(7);
+        assertEquals(game, again);
+        assertEquals(game.hashCode(), again.hashCode());
+        assertEquals(game.getBoard(), again.getBoard());
+        assertNotEquals(game, store.get(8));
+
+        // La plancia contiene esattamente le 16 parole dei gruppi
+        List<String> words = new ArrayList<>();
+        for (Game.Group g : game.getGroups()) words.addAll(g.getWords());
+
+        assertEquals(Game.BOARD_SIZE, game.getBoard().size());
+        assertEquals(new HashSet<>(words), new HashSet<>(game.getBoard()));
+        assertNotEquals(words, game.getBoard());
+    }
+
+    @Test
+    void testMissingIds() throws IOException {
+        Path json = this.tmp.resolve("games.json");
+        Files.writeString(json, """
+            [
+              {"gameId": 2, "groups": [{"theme": "CITTÀ", "words": ["ROMA", "TORINO", "NAPOLI", "BARI"]}]},
+              {"gameId": 0, "groups": [{"theme": "MARI", "words": ["LIGURE", "TIRRENO", "IONIO", "ADRIATICO"]}]}
+            ]
+            """);
+
+        Path bin = this.tmp.resolve("games.bin");
+        assertEquals(2, PuzzleCompiler.compile(json, bin));
+
+        PuzzleStore store = PuzzleStore.open(bin);
+        assertEquals(3, store.size());
+        assertTrue(store.contains(0));
+        assertFalse(store.contains(1));
+        assertFalse(store.contains(3));
+        assertEquals("CITTÀ", store.get(2).getGroups().get(0).getTheme());
+        assertThrows(IllegalArgumentException.class, () -> store.get(1));
+        assertThrows(IllegalArgumentException.class, () -> store.get(-1));
+    }
+
+    @Test
+    void testInvalidFile() throws IOException {
+        Path bin = this.tmp.resolve("games.bin");
+        Files.writeString(bin, "[]");
+        assertThrows(IOException.class, () -> PuzzleStore.open(bin));
+    }
+}
@@ -0,0 +1,66 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.RequestDecoder;
+import com.nicholasTropea.game.net.SubmitProposalRequest;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class RequestDecoderTest {
+    private final RequestDecoder decoder = new RequestDecoder();
+
+    private static JsonReader reader(String json) {
+        JsonReader in = new JsonReader(new StringReader(json));
+        in.setStrictness(Strictness.LENIENT);
+        return in;
+    }
+
+    @Test
+    void testStreamOfRequests() throws IOException {
+        JsonReader in = reader(
+            "{\"operation\":\"submitProposal\",\"words\":[\"SNOW\",\"HAIL\",\"RAIN\",\"SLEET\"]}\n" +
+            "\n" +
+            "{\"username\":\"Mario\",\"operation\":\"login\",\"psw\":\"123456\"}\n"
+        );
+
+        SubmitProposalRequest proposal = (SubmitProposalRequest) decoder.read(in);
+        assertEquals(List.of("SNOW", "HAIL", "RAIN", "SLEET"), proposal.getWords());
+
+        // "operation" non è il primo campo: percorso lento
+        LoginRequest login = (LoginRequest) decoder.read(in);
+        assertEquals("Mario", login.getUsername());
+
+        assertEquals(JsonToken.END_DOCUMENT, in.peek());
+    }
+
+    @Test
+    void testInvalidRequestKeepsReaderUsable() throws IOException {
+        JsonReader in = reader(
+            "{\"operation\":\"unknown\",\"x\":{\"y\":[1,2]}}" +
+            "{\"operation\":\"submitProposal\",\"words\":[\"A\",\"B\"]}" +
+            "{\"operation\":\"logout\"}"
+        );
+
+        assertThrows(JsonParseException.class, () -> decoder.read(in));
+        assertThrows(JsonParseException.class, () -> decoder.read(in));
+        assertEquals("logout", decoder.read(in).getOperation());
+    }
+
+    @Test
+    void testWrongFieldTypeIsMalformed() {
+        JsonReader in = reader("{\"operation\":\"submitProposal\",\"words\":{\"a\":1}}");
+
+        assertThrows(MalformedJsonException.class, () -> decoder.read(in));
+    }
+}
@@ -0,0 +1,118 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.GameInfoRequest;
+import com.nicholasTropea.game.net.GameInfoResponse;
+import com.nicholasTropea.game.net.Json;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.LoginResponse;
+import com.nicholasTropea.game.net.RoundFragments;
+import com.nicholasTropea.game.net.SubmitProposalRequest;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.ServerState;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica che le risposte composte dai {@link RoundFragments} coincidano
+ * con quelle serializzate dagli adapter e le risposte a
+ * {@link GameInfoRequest}.
+ */
+public class RoundFragmentsTest {
+    @Test
+    void testFragmentsMatchAdapters() throws IOException {
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+
+        for (int id = 0; id < 20; id++) {
+            Game game = puzzles.get(id);
+            RoundFragments fragments = new RoundFragments(game);
+
+            // Plancia intera, un gruppo indovinato, partita vinta
+            int[] masks = { game.getBoardMask(), game.getBoardMask() & ~game.getGroupMask(id % 4), 0 };
+            for (int remaining : masks) {
+                int guessed = fragments.guessedGroups(remaining);
+                boolean active = remaining != 0;
+
+                GameInfoResponse cached = GameInfoResponse.ofRound(fragments, active, 5_000, remaining, guessed, 2, 6);
+                GameInfoResponse plain = GameInfoResponse.success(
+                    active, 5_000L, fragments.words(remaining), fragments.solution(), fragments.groups(guessed), 2, 6
+                );
+                assertLineEquals(Json.GSON.toJson(plain), cached.getEncodedLine());
+                assertEquals(Json.GSON.toJson(plain), Json.GSON.toJson(cached));
+
+                LoginResponse login = LoginResponse.ofRound(fragments, guessed, 5_000, 2, 6);
+                LoginResponse plainLogin = LoginResponse.success(game.getId(), game.getBoard(), fragments.groups(guessed), 5_000L, 2, 6);
+                assertLineEquals(Json.GSON.toJson(plainLogin), login.getEncodedLine());
+                assertEquals(Json.GSON.toJson(plainLogin), Json.GSON.toJson(login));
+            }
+        }
+    }
+
+    @Test
+    void testGameInfoRequests() throws IOException {
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        state.setPuzzles(puzzles);
+        state.startRound(puzzles.get(0), 60_000);
+        state.getPlayers().register("Mario", "123456");
+
+        RequestHandler handler = new RequestHandler(state);
+        handler.handle(new LoginRequest("Mario", "123456"));
+
+        Game game = state.getRound().getGame();
+        handler.handle(new SubmitProposalRequest(game.getGroups().get(1).getWords()));
+
+        GameInfoResponse info = (GameInfoResponse) handler.handle(new GameInfoRequest(true));
+        assertTrue(info.isSuccess());
+        assertTrue(info.isActive());
+        assertNotNull(info.getFragments());
+        assertEquals(12, info.getWordsLeft().size());
+        assertEquals(List.of(game.getGroups().get(1).getWords()), info.getGuessedGroups());
+        assertNull(info.getSolution());
+
+        // Senza frammenti la risposta è la stessa
+        state.setFragmentCache(false);
+        GameInfoResponse plain = (GameInfoResponse) handler.handle(new GameInfoRequest(game.getId()));
+        assertNull(plain.getFragments());
+        assertEquals(
+            Json.GSON.toJson(info).replaceAll("\"timeLeft\":\\d+", ""),
+            Json.GSON.toJson(plain).replaceAll("\"timeLeft\":\\d+", "")
+        );
+        state.setFragmentCache(true);
+
+        // Partita conclusa dal giocatore: soluzione invece delle parole rimaste
+        for (int g : new int[] { 0, 2, 3 }) handler.handle(new SubmitProposalRequest(game.getGroups().get(g).getWords()));
+        GameInfoResponse won = (GameInfoResponse) handler.handle(new GameInfoRequest(true));
+        assertFalse(won.isActive());
+        assertNull(won.getTimeLeft());
+        assertEquals(4, won.getSolution().size());
+        assertEquals(4, won.getGuessedGroups().size());
+
+        // Partita sostituita: sessione del giocatore ancora disponibile
+        state.startRound(puzzles.get(1), 60_000);
+        GameInfoResponse previous = (GameInfoResponse) handler.handle(new GameInfoRequest(game.getId()));
+        assertFalse(previous.isActive());
+        assertEquals(4, previous.getGuessedGroups().size());
+        assertEquals((int) won.getScore(), (int) previous.getScore());
+
+        // Partita mai giocata: solo la soluzione
+        List<List<String>> solution = new ArrayList<>();
+        for (Game.Group group : puzzles.get(5).getGroups()) solution.add(group.getWords());
+        GameInfoResponse past = (GameInfoResponse) handler.handle(new GameInfoRequest(5));
+        assertEquals(solution, past.getSolution());
+        assertEquals(0, (int) past.getScore());
+    }
+
+    private static void assertLineEquals(String expected, byte[] line) {
+        assertEquals(expected + "\n", new String(line, StandardCharsets.UTF_8));
+    }
+}
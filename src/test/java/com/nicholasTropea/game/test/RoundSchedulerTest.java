@@ -0,0 +1,152 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.Game;
+import com.nicholasTropea.game.model.GameSessionTable;
+import com.nicholasTropea.game.model.PasswordHasher;
+import com.nicholasTropea.game.model.Player;
+import com.nicholasTropea.game.model.PlayerRegistry;
+import com.nicholasTropea.game.model.PuzzleStore;
+import com.nicholasTropea.game.net.LoginRequest;
+import com.nicholasTropea.game.net.SubmitProposalRequest;
+import com.nicholasTropea.game.net.SubmitProposalResponse;
+import com.nicholasTropea.game.server.RequestHandler;
+import com.nicholasTropea.game.server.RoundScheduler;
+import com.nicholasTropea.game.server.ServerState;
+import com.nicholasTropea.game.server.TimerWheel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica la {@link TimerWheel} e la rotazione delle partite del {@link RoundScheduler}. */
+public class RoundSchedulerTest {
+    @Test
+    void testTimerWheelNeverFiresEarly() {
+        TimerWheel wheel = new TimerWheel(10, 16, 0);
+        for (int i = 0; i < 1000; i++) wheel.schedule(i * 7, i);
+        wheel.schedule(100_000, -1); // Molti giri dopo
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 7100; now += 13) {
+            long time = now;
+            wheel.advance(now, value -> {
+                assertTrue(value * 7 <= time, "scadenza anticipata: " + value);
+                fired.add(value);
+            });
+        }
+
+        assertEquals(1000, fired.size());
+        assertEquals(1, wheel.size());
+
+        // Un salto di più giri consegna comunque tutto
+        wheel.schedule(8000, 5);
+        assertEquals(2, wheel.advance(200_000, value -> { ; }));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testRotationClosesAllSessions() throws IOException {
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+        PlayerRegistry players = new PlayerRegistry(new PasswordHasher(1));
+        ServerState state = new ServerState(players);
+        RoundScheduler scheduler = new RoundScheduler(state, puzzles, 60_000, 0, 100);
+        scheduler.start();
+
+        try {
+            GameSessionTable round = state.getRound();
+            Game game = round.getGame();
+            int sessions = 120_000;
+
+            // Un giocatore su dieci vince, gli altri restano a metà partita
+            for (int i = 0; i < sessions; i++) {
+                int id = players.register("P" + i, "123456");
+                state.join(round, id);
+                state.submit(round, id, game.getGroupMask(0));
+                if (i % 10 == 0) for (int g = 1; g < 4; g++) state.submit(round, id, game.getGroupMask(g));
+            }
+
+            assertFalse(scheduler.tick(System.currentTimeMillis()));
+            assertTrue(scheduler.tick(state.getRoundEnd()));
+
+            GameSessionTable next = state.getRound();
+            assertNotSame(round, next);
+            assertNotEquals(game.getId(), next.getGame().getId());
+            assertEquals(0, next.size());
+
+            // Nessuna proposta viene accettata dalla partita chiusa
+            assertEquals(GameSessionTable.FINISHED, state.submit(round, 1, game.getGroupMask(1)));
+            assertEquals(0, round.join(players.register("Tardi", "123456")));
+
+            Player won = players.get(0);
+            assertEquals(1, (int) won.getResultCounts().get(Player.ResultType.WIN_0));
+            assertEquals(0, (int) won.getResultCounts().get(Player.ResultType.NOT_FINISHED));
+
+            Player unfinished = players.get(1);
+            assertEquals(1, (int) unfinished.getResultCounts().get(Player.ResultType.NOT_FINISHED));
+            assertEquals(6, unfinished.getGlobalScore());
+
+            assertTrue(state.getArchive().contains(game.getId()));
+            assertEquals(sessions / 10, round.getStats().getWonPlayers());
+        }
+        finally { scheduler.close(); }
+    }
+
+    @Test
+    void testRequestsDuringRotation() throws IOException {
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        RoundScheduler scheduler = new RoundScheduler(state, puzzles, 60_000, 0, 100);
+        scheduler.start();
+
+        try {
+            state.getPlayers().register("Mario", "123456");
+            RequestHandler handler = new RequestHandler(state);
+            handler.handle(new LoginRequest("Mario", "123456"));
+
+            Game first = state.getRound().getGame();
+            scheduler.tick(state.getRoundEnd());
+            Game second = state.getRound().getGame();
+
+            // La proposta dopo la rotazione apre la sessione nella partita nuova
+            SubmitProposalResponse resp = (SubmitProposalResponse) handler.handle(
+                new SubmitProposalRequest(second.getGroups().get(0).getWords())
+            );
+            assertTrue(resp.isSuccess());
+            assertTrue(resp.getResult());
+            assertNotEquals(first.getId(), second.getId());
+        }
+        finally { scheduler.close(); }
+    }
+
+    @Test
+    void testSessionTimeout() throws IOException {
+        PuzzleStore puzzles = PuzzleStore.openDefault();
+        ServerState state = new ServerState(new PlayerRegistry(new PasswordHasher(1)));
+        RoundScheduler scheduler = new RoundScheduler(state, puzzles, 60_000, 1_000, 100);
+        scheduler.start();
+
+        try {
+            PlayerRegistry players = state.getPlayers();
+            GameSessionTable round = state.getRound();
+            int mario = players.register("Mario", "123456");
+            int luigi = players.register("Luigi", "abcdef");
+            state.join(round, mario);
+            state.join(round, luigi);
+            for (int g = 0; g < 4; g++) state.submit(round, luigi, round.getGame().getGroupMask(g));
+
+            long now = System.currentTimeMillis();
+            scheduler.tick(now);
+            assertFalse(GameSessionTable.isClosed(round.state(mario)));
+
+            scheduler.tick(now + 2_000);
+            assertTrue(GameSessionTable.isClosed(round.state(mario)));
+            assertEquals(GameSessionTable.FINISHED, state.submit(round, mario, round.getGame().getGroupMask(0)));
+            assertEquals(1, (int) players.get(mario).getResultCounts().get(Player.ResultType.NOT_FINISHED));
+            assertEquals(0, (int) players.get(luigi).getResultCounts().get(Player.ResultType.NOT_FINISHED));
+        }
+        finally { scheduler.close(); }
+    }
+}
@@ -0,0 +1,127 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.server.NetworkManager;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test di carico della modalità a virtual thread del {@link NetworkManager}.
+ *
+ * Apre migliaia di connessioni inattive, poi invia una richiesta su
+ * ognuna, e verifica che il numero di thread di piattaforma resti limitato.
+ * Il numero di connessioni si imposta con {@code -Dloadtest.connections}
+ * (default 10000) e viene ridotto se il limite di file descriptor del
+ * processo non basta per client e server nella stessa JVM.
+ *
+ * Escluso da {@code mvn test} (tag {@code load}); si esegue con
+ * {@code mvn test -Pload-tests -Dtest=VirtualThreadLoadTest}.
+ */
+@Tag("load")
+public class VirtualThreadLoadTest {
+    /** Numero massimo di thread di piattaforma accettato durante il test. */
+    private static final int MAX_PLATFORM_THREADS = 100;
+
+    private static final byte[] REQUEST =
+        "{\"operation\":\"register\",\"name\":\"load\",\"psw\":\"123456\"}\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testManyConnectionsWithBoundedPlatformThreads() throws Exception {
+        int connections = connectionCount();
+        int port = freePort();
+
+        Thread server = new Thread(new NetworkManager(port, true));
+        server.setDaemon(true);
+        server.start();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        List<Socket> sockets = new ArrayList<>(connections);
+
+        try {
+            // Connessioni inattive: ogni handler resta bloccato in readLine()
+            for (int i = 0; i < connections; i++) sockets.add(connect(port));
+            Thread.sleep(1000);
+
+            int idlePeak = threads.getPeakThreadCount();
+            assertTrue(idlePeak < MAX_PLATFORM_THREADS, "Platform threads with idle clients: " + idlePeak);
+
+            // Connessioni attive: una richiesta ed una risposta per ogni client
+            for (Socket s : sockets) s.getOutputStream().write(REQUEST);
+
+            int answered = 0;
+            int registered = 0;
+            for (Socket s : sockets) {
+                // Solo la prima registrazione riesce, le altre ricevono "nome già registrato"
+                String line = readLine(s.getInputStream());
+                if (line.contains("\"success\":")) answered++;
+                if (line.contains("\"success\":true")) registered++;
+            }
+
+            int activePeak = threads.getPeakThreadCount();
+
+            assertEquals(connections, answered, "Answered connections");
+            assertEquals(1, registered, "Successful registrations");
+            assertTrue(activePeak < MAX_PLATFORM_THREADS, "Platform threads with active clients: " + activePeak);
+        }
+        finally {
+            for (Socket s : sockets) s.close();
+        }
+    }
+
+    /** Connessioni richieste, limitate dai file descriptor disponibili (due per connessione). */
+    private static int connectionCount() {
+        int requested = Integer.getInteger("loadtest.connections", 10_000);
+
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean os) {
+            long available = os.getMaxFileDescriptorCount() - os.getOpenFileDescriptorCount() - 500;
+            return (int) Math.min(requested, available / 2);
+        }
+
+        return requested;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) { return probe.getLocalPort(); }
+    }
+
+    /** Si connette al server, riprovando finché il listener non è attivo. */
+    private static Socket connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+                s.setSoTimeout(60_000);
+                return s;
+            }
+            catch (IOException e) {
+                if (attempt == 50) throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') sb.append((char) b);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.nicholasTropea.game.test;
+
+import com.nicholasTropea.game.model.WordDictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Verifica l'assegnazione degli id del {@link WordDictionary}. */
+public class WordDictionaryTest {
+    @Test
+    void testInternAndLookup() {
+        WordDictionary dict = new WordDictionary();
+
+        int rain = dict.intern("RAIN");
+        assertEquals(rain, dict.intern(new String("RAIN")));
+        assertEquals(rain, dict.id("RAIN"));
+        assertEquals(-1, dict.id("SNOW"));
+        assertEquals("RAIN", dict.word(rain));
+        assertThrows(IllegalArgumentException.class, () -> dict.word(1));
+
+        // Oltre la capacità iniziale di array e tabella
+        for (int i = 0; i < 5000; i++) assertEquals(i + 1, dict.intern("W" + i));
+        for (int i = 0; i < 5000; i++) assertEquals("W" + i, dict.word(dict.id("W" + i)));
+        assertEquals(5001, dict.size());
+    }
+
+    @Test
+    void testConcurrentIntern() throws Exception {
+        WordDictionary dict = new WordDictionary();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(() -> {
+                    int[] ids = new int[3000];
+                    for (int i = 0; i < ids.length; i++) ids[i] = dict.intern("W" + i);
+                    return ids;
+                }));
+            }
+
+            int[] first = results.get(0).get();
+            for (Future<int[]> r : results) assertArrayEquals(first, r.get());
+            assertEquals(3000, dict.size());
+        }
+        finally { pool.shutdown(); }
+    }
+}